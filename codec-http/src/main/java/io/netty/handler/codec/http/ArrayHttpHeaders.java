@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.ArrayHeaders;
+import io.netty.handler.codec.ArrayHeadersImpl;
+
+import static io.netty.util.AsciiString.CASE_INSENSITIVE_HASHER;
+
+/**
+ * {@link HttpHeaders} which are stored in arrays instead of linked entries, see {@link ArrayHeaders}. This is faster
+ * than {@link DefaultHttpHeaders} for messages with many headers.
+ */
+public class ArrayHttpHeaders extends DefaultHttpHeaders {
+    private final ArrayHeaders<CharSequence, CharSequence, ?> headers;
+
+    public ArrayHttpHeaders() {
+        this(true);
+    }
+
+    public ArrayHttpHeaders(boolean validate) {
+        this(validate, 16);
+    }
+
+    /**
+     * Create a new instance.
+     * @param validate {@code true} to validate header names and values.
+     * @param initialCapacity The number of headers which can be stored before the arrays need to grow.
+     */
+    public ArrayHttpHeaders(boolean validate, int initialCapacity) {
+        this(new ArrayHeadersImpl<CharSequence, CharSequence>(
+                CASE_INSENSITIVE_HASHER, valueConverter(validate), nameValidator(validate), initialCapacity));
+    }
+
+    private ArrayHttpHeaders(ArrayHeaders<CharSequence, CharSequence, ?> headers) {
+        super(headers);
+        this.headers = headers;
+    }
+
+    @Override
+    public HttpHeaders copy() {
+        return new ArrayHttpHeaders(headers.copy());
+    }
+}
@@ -15,12 +15,12 @@
  */
 package io.netty.handler.codec.http.cors;
 
+import io.netty.handler.codec.DateFormatter;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -395,13 +395,13 @@ public final class CorsConfigBuilder {
      * It's value must be generated when the response is generated, hence will be
      * different for every call.
      */
-    private static final class DateValueGenerator implements Callable<Date> {
+    private static final class DateValueGenerator implements Callable<CharSequence> {
 
         static final DateValueGenerator INSTANCE = new DateValueGenerator();
 
         @Override
-        public Date call() throws Exception {
-            return new Date();
+        public CharSequence call() throws Exception {
+            return DateFormatter.currentHttpDate();
         }
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ArrayHttpHeadersTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullHeaderNameNotAllowed() {
+        new ArrayHttpHeaders().add(null, "foo");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidHeaderValueNotAllowed() {
+        new ArrayHttpHeaders().add("foo", "bar\r\n");
+    }
+
+    @Test
+    public void testCaseInsensitiveNames() {
+        HttpHeaders headers = new ArrayHttpHeaders();
+        headers.add(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        headers.add("content-length", 5);
+        headers.add("X-Foo", "1");
+        headers.add("x-foo", "2");
+
+        assertEquals("text/plain", headers.get("Content-Type"));
+        assertEquals(Integer.valueOf(5), headers.getInt(HttpHeaderNames.CONTENT_LENGTH));
+        assertEquals(Arrays.asList("1", "2"), headers.getAll("X-FOO"));
+        assertTrue(headers.contains("x-foo", "2", false));
+        assertEquals(4, headers.size());
+
+        headers.remove("X-foo");
+        assertFalse(headers.contains("x-foo"));
+        assertEquals(2, headers.size());
+    }
+
+    @Test
+    public void testSameAsDefaultHttpHeaders() {
+        HttpHeaders headers = new ArrayHttpHeaders(true, 2);
+        HttpHeaders expected = new DefaultHttpHeaders();
+        for (int i = 0; i < 50; i++) {
+            headers.add("name" + i % 7, "value" + i);
+            expected.add("name" + i % 7, "value" + i);
+        }
+        headers.set("name3", "foo");
+        expected.set("name3", "foo");
+        // The String entries do not implement equals(Object).
+        String expectedEntries = expected.entries().toString();
+        assertEquals(expectedEntries, headers.entries().toString());
+        assertEquals(expectedEntries, new DefaultHttpHeaders().add(headers).entries().toString());
+        assertEquals(expectedEntries, new ArrayHttpHeaders().add(expected).entries().toString());
+
+        HttpHeaders copy = headers.copy();
+        assertTrue(copy instanceof ArrayHttpHeaders);
+        assertEquals(headers, copy);
+        assertEquals(expectedEntries, copy.entries().toString());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.MultiplexChannelPool;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Keeps a {@link MultiplexChannelPool} informed about the state of the HTTP/2 connections it pooled.
+ * <p>
+ * Add it to the pipeline of the parent {@link io.netty.channel.Channel} after the {@link Http2MultiplexCodec}, for
+ * example from {@link ChannelPoolHandler#channelCreated(io.netty.channel.Channel)}. It updates the concurrency limit of
+ * the connection to the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the remote peer and retires the connection once a
+ * {@code GOAWAY} frame is received. Every acquired parent {@link io.netty.channel.Channel} can then be used to open
+ * one stream via {@link Http2StreamChannelBootstrap} and must be released to the pool once that stream is done.
+ */
+@UnstableApi
+@Sharable
+public class Http2PooledConnectionHandler extends ChannelInboundHandlerAdapter {
+    private final MultiplexChannelPool pool;
+
+    public Http2PooledConnectionHandler(MultiplexChannelPool pool) {
+        this.pool = ObjectUtil.checkNotNull(pool, "pool");
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Http2SettingsFrame) {
+            Long maxConcurrentStreams = ((Http2SettingsFrame) msg).settings().maxConcurrentStreams();
+            if (maxConcurrentStreams != null) {
+                pool.maxConcurrency(ctx.channel(), (int) Math.min(maxConcurrentStreams, Integer.MAX_VALUE));
+            }
+        } else if (msg instanceof Http2GoAwayFrame) {
+            pool.retire(ctx.channel());
+        }
+        ctx.fireChannelRead(msg);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.MultiplexChannelPool;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class Http2PooledConnectionHandlerTest {
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private MultiplexChannelPool pool;
+
+    @Before
+    public void setUp() {
+        group = new DefaultEventLoopGroup(1);
+        LocalAddress addr = new LocalAddress("Http2PooledConnectionHandlerTest");
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+                    }
+                })
+                .bind(addr).syncUninterruptibly().channel();
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(addr);
+        pool = new MultiplexChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                ch.pipeline().addLast(new Http2PooledConnectionHandler(pool));
+            }
+        }, -1, 1, 1, Integer.MAX_VALUE);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void testMaxConcurrentStreamsUpdatesConcurrency() throws Exception {
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        channel.pipeline().fireChannelRead(new DefaultHttp2SettingsFrame(new Http2Settings().maxConcurrentStreams(2)));
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertSame(channel, future.getNow());
+    }
+
+    @Test
+    public void testGoAwayRetiresConnection() throws Exception {
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        channel.pipeline().fireChannelRead(new DefaultHttp2GoAwayFrame(Http2Error.NO_ERROR));
+
+        // The retired connection does not count against the connection limit anymore.
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertTrue(channel.isOpen());
+
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+    }
+}
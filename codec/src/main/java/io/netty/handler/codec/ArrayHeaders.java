@@ -0,0 +1,712 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.util.HashingStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.util.HashingStrategy.JAVA_HASHER;
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static java.lang.Math.max;
+
+/**
+ * An implementation of {@link Headers} which stores the names and values in arrays in insertion order, and looks them
+ * up through an open addressing hash table of indexes into these arrays.
+ * <p>
+ * Unlike {@link DefaultHeaders} no object is allocated per header, and the lookup does not degrade with a growing
+ * number of headers, which makes it a better fit for messages with many headers. The behaviour is the same otherwise.
+ * {@link Entry#setValue(Object)} of the entries returned by {@link #iterator()} only has an effect until the headers
+ * are modified.
+ *
+ * @param <K> the type of the header name.
+ * @param <V> the type of the header value.
+ * @param <T> the type to use for return values when the intention is to return {@code this} object.
+ */
+public class ArrayHeaders<K, V, T extends Headers<K, V, T>> extends DefaultHeaders<K, V, T> {
+
+    private final HashingStrategy<K> hashingStrategy;
+    private final NameValidator<K> nameValidator;
+
+    // The headers in insertion order, removed headers leave a null name behind until the arrays are compacted.
+    private K[] keys;
+    private V[] values;
+    private int[] hashes;
+    // The hash code of every header in the upper and its index into the arrays above plus one in the lower 32 bits, or
+    // 0 for a free slot.
+    private long[] table;
+    private int mask;
+    private int shift;
+    // The number of slots in the arrays which are in use, including removed headers.
+    private int end;
+    // The slots before this index are reserved for the headers which are iterated first, see isOrderedFirst(K).
+    private int firstOrdinary;
+    private int count;
+    // Changed whenever headers are added or removed, which may move the other headers to a different index.
+    private int version;
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(ValueConverter<V> valueConverter) {
+        this(JAVA_HASHER, valueConverter);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(ValueConverter<V> valueConverter, NameValidator<K> nameValidator) {
+        this(JAVA_HASHER, valueConverter, nameValidator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy, ValueConverter<V> valueConverter) {
+        this(nameHashingStrategy, valueConverter, NameValidator.NOT_NULL);
+    }
+
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator) {
+        this(nameHashingStrategy, valueConverter, nameValidator, 16);
+    }
+
+    /**
+     * Create a new instance.
+     * @param nameHashingStrategy Used to hash and equality compare names.
+     * @param valueConverter Used to convert values to/from native types.
+     * @param nameValidator Used to validate name elements.
+     * @param initialCapacity The number of headers which can be stored before the arrays need to grow.
+     * The next positive power of two will be used.
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator, int initialCapacity) {
+        // The linked storage of the super class is never used, so keep it as small as possible.
+        super(nameHashingStrategy, valueConverter, nameValidator, 2);
+        hashingStrategy = nameHashingStrategy;
+        this.nameValidator = nameValidator;
+        int capacity = findNextPositivePowerOfTwo(max(2, initialCapacity));
+        keys = (K[]) new Object[capacity];
+        values = (V[]) new Object[capacity];
+        hashes = new int[capacity];
+        // Keep the load factor of the table at 0.5 at most, as all slots of the arrays may be in use.
+        newTable(capacity << 1);
+    }
+
+    /**
+     * Returns {@code true} if the header with the given name must be iterated before all headers for which this
+     * method returns {@code false}, like the HTTP/2 pseudo-headers. The default implementation returns {@code false}.
+     */
+    protected boolean isOrderedFirst(K name) {
+        return false;
+    }
+
+    @Override
+    public V get(K name) {
+        checkNotNull(name, "name");
+        int i = indexOf(hashingStrategy.hashCode(name), name);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public V getAndRemove(K name) {
+        checkNotNull(name, "name");
+        return remove0(hashingStrategy.hashCode(name), name);
+    }
+
+    @Override
+    public List<V> getAll(K name) {
+        checkNotNull(name, "name");
+
+        int h = hashingStrategy.hashCode(name);
+        List<V> values = new ArrayList<V>(4);
+        for (int slot = slot(h);; slot = probeNext(slot)) {
+            long entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int i = index(entry);
+            if (hash(entry) == h && hashingStrategy.equals(name, keys[i])) {
+                values.add(this.values[i]);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Iterator<V> valueIterator(K name) {
+        return new ValueIterator(name);
+    }
+
+    @Override
+    public boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
+        checkNotNull(name, "name");
+
+        int h = hashingStrategy.hashCode(name);
+        for (int slot = slot(h);; slot = probeNext(slot)) {
+            long entry = table[slot];
+            if (entry == 0) {
+                return false;
+            }
+            int i = index(entry);
+            if (hash(entry) == h && hashingStrategy.equals(name, keys[i]) &&
+                    valueHashingStrategy.equals(value, values[i])) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public Set<K> names() {
+        if (isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<K> names = new LinkedHashSet<K>(size());
+        for (int i = 0; i < end; i++) {
+            K key = keys[i];
+            if (key != null) {
+                names.add(key);
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public T add(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        add0(hashingStrategy.hashCode(name), name, value);
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, V... values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    boolean usesLinkedEntries() {
+        return false;
+    }
+
+    @Override
+    protected void addImpl(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers instanceof ArrayHeaders) {
+            @SuppressWarnings("unchecked")
+            final ArrayHeaders<? extends K, ? extends V, ?> arrayHeaders =
+                    (ArrayHeaders<? extends K, ? extends V, ?>) headers;
+            if (arrayHeaders.hashingStrategy == hashingStrategy &&
+                    arrayHeaders.nameValidator == nameValidator) {
+                // Fastest copy
+                if (end + arrayHeaders.count > keys.length) {
+                    ensureCapacity(count + arrayHeaders.count);
+                }
+                for (int i = 0; i < arrayHeaders.end; i++) {
+                    K key = arrayHeaders.keys[i];
+                    if (key != null) {
+                        add0(arrayHeaders.hashes[i], key, arrayHeaders.values[i]);
+                    }
+                }
+            } else {
+                // Fast copy
+                for (int i = 0; i < arrayHeaders.end; i++) {
+                    K key = arrayHeaders.keys[i];
+                    if (key != null) {
+                        add(key, arrayHeaders.values[i]);
+                    }
+                }
+            }
+        } else {
+            // Slow copy
+            for (Entry<? extends K, ? extends V> header : headers) {
+                add(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    @Override
+    public T set(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        add0(h, name, value);
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, V... values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Iterable<?> values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter().convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Object... values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter().convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T clear() {
+        Arrays.fill(keys, 0, end, null);
+        Arrays.fill(values, 0, end, null);
+        Arrays.fill(table, 0);
+        end = 0;
+        firstOrdinary = 0;
+        count = 0;
+        ++version;
+        return thisT();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new HeaderIterator();
+    }
+
+    /**
+     * Returns a deep copy of this instance.
+     */
+    @Override
+    public ArrayHeaders<K, V, T> copy() {
+        ArrayHeaders<K, V, T> copy = new ArrayHeaders<K, V, T>(
+                hashingStrategy, valueConverter(), nameValidator, max(count, 2));
+        copy.addImpl(this);
+        return copy;
+    }
+
+    /**
+     * Returns the index of the first inserted header with the given name, or {@code -1} if there is none.
+     */
+    private int indexOf(int h, K name) {
+        for (int slot = slot(h);; slot = probeNext(slot)) {
+            long entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (hash(entry) == h && hashingStrategy.equals(name, keys[index(entry)])) {
+                return index(entry);
+            }
+        }
+    }
+
+    private void add0(int h, K name, V value) {
+        ++version;
+        if (end == keys.length) {
+            ensureCapacity(count + 1);
+        }
+        if (isOrderedFirst(name)) {
+            if (firstOrdinary != end) {
+                insert(firstOrdinary++, h, name, value);
+                return;
+            }
+            firstOrdinary = end + 1;
+        }
+        int i = end++;
+        keys[i] = name;
+        values[i] = value;
+        hashes[i] = h;
+        // All headers with the same name are found in insertion order, as a new header is always inserted after the
+        // cluster of slots which contains them and removeAt(int) keeps their order.
+        insertSlot(h, i);
+        ++count;
+    }
+
+    /**
+     * Inserts a header before all other headers at and after the given index, which is only needed when a header
+     * that is ordered first is added after an ordinary one.
+     */
+    private void insert(int index, int h, K name, V value) {
+        int length = end - index;
+        System.arraycopy(keys, index, keys, index + 1, length);
+        System.arraycopy(values, index, values, index + 1, length);
+        System.arraycopy(hashes, index, hashes, index + 1, length);
+        keys[index] = name;
+        values[index] = value;
+        hashes[index] = h;
+        ++end;
+        ++count;
+        rehash();
+    }
+
+    /**
+     * @return the first value inserted whose hash code equals {@code h} and whose name is equal to {@code name}.
+     */
+    private V remove0(int h, K name) {
+        V value = null;
+        int slot = slot(h);
+        for (;;) {
+            long entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int i = index(entry);
+            if (hash(entry) == h && hashingStrategy.equals(name, keys[i])) {
+                if (value == null) {
+                    value = values[i];
+                }
+                keys[i] = null;
+                values[i] = null;
+                --count;
+                // A later slot may have been moved to this one, so it needs to be looked at again.
+                removeAt(slot);
+            } else {
+                slot = probeNext(slot);
+            }
+        }
+
+        if (value != null) {
+            ++version;
+            // Reuse the slots of the removed headers at the end right away.
+            while (end > 0 && keys[end - 1] == null) {
+                --end;
+            }
+            if (firstOrdinary > end) {
+                firstOrdinary = end;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Frees the given slot of the table and moves the following slots back which would not be found otherwise.
+     * Knuth Section 6.4 Algorithm R, like in the primitive hash maps.
+     */
+    private void removeAt(int slot) {
+        table[slot] = 0;
+        int nextFree = slot;
+        for (int i = probeNext(slot);; i = probeNext(i)) {
+            long entry = table[i];
+            if (entry == 0) {
+                break;
+            }
+            int bucket = slot(hash(entry));
+            if (i < bucket && (bucket <= nextFree || nextFree <= i) ||
+                    bucket <= nextFree && nextFree <= i) {
+                table[nextFree] = entry;
+                table[i] = 0;
+                nextFree = i;
+            }
+        }
+    }
+
+    /**
+     * Makes room for the given number of headers, by dropping the slots of the removed headers and growing the arrays
+     * if that does not free enough of them.
+     */
+    private void ensureCapacity(int capacity) {
+        compact();
+        // Grow unless a quarter of the arrays stays free, so that the arrays are not compacted on every add.
+        if (capacity > keys.length - (keys.length >>> 2)) {
+            int newCapacity = findNextPositivePowerOfTwo(max(capacity, keys.length << 1));
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+            newTable(newCapacity << 1);
+        }
+        rehash();
+    }
+
+    private void compact() {
+        if (end == count) {
+            return;
+        }
+        int newFirstOrdinary = 0;
+        int j = 0;
+        for (int i = 0; i < end; i++) {
+            K key = keys[i];
+            if (key != null) {
+                if (i < firstOrdinary) {
+                    ++newFirstOrdinary;
+                }
+                keys[j] = key;
+                values[j] = values[i];
+                hashes[j] = hashes[i];
+                ++j;
+            }
+        }
+        Arrays.fill(keys, j, end, null);
+        Arrays.fill(values, j, end, null);
+        end = j;
+        firstOrdinary = newFirstOrdinary;
+    }
+
+    private void rehash() {
+        Arrays.fill(table, 0);
+        for (int i = 0; i < end; i++) {
+            if (keys[i] != null) {
+                insertSlot(hashes[i], i);
+            }
+        }
+    }
+
+    private void insertSlot(int hash, int index) {
+        int slot = slot(hash);
+        while (table[slot] != 0) {
+            slot = probeNext(slot);
+        }
+        table[slot] = (long) hash << 32 | index + 1;
+    }
+
+    private static int hash(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int index(long entry) {
+        return (int) entry - 1;
+    }
+
+    private void newTable(int length) {
+        table = new long[length];
+        mask = length - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    private int slot(int hash) {
+        // Fibonacci hashing, as the lower bits of the hash codes of similar names are often the same.
+        return hash * 0x9E3779B9 >>> shift;
+    }
+
+    private int probeNext(int slot) {
+        return slot + 1 & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T thisT() {
+        return (T) this;
+    }
+
+    private final class HeaderIterator implements Iterator<Map.Entry<K, V>> {
+        private int next = nextIndex(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int current = next;
+            next = nextIndex(current + 1);
+            return new ArrayEntry(current);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        private int nextIndex(int index) {
+            while (index < end && keys[index] == null) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final K name;
+        private final int hash;
+        private int slot;
+        private int next;
+
+        ValueIterator(K name) {
+            this.name = checkNotNull(name, "name");
+            hash = hashingStrategy.hashCode(name);
+            slot = slot(hash);
+            calculateNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            V value = values[next];
+            slot = probeNext(slot);
+            calculateNext();
+            return value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        private void calculateNext() {
+            for (;; slot = probeNext(slot)) {
+                long entry = table[slot];
+                if (entry == 0) {
+                    next = -1;
+                    return;
+                }
+                if (hash(entry) == hash && hashingStrategy.equals(name, keys[index(entry)])) {
+                    next = index(entry);
+                    return;
+                }
+            }
+        }
+    }
+
+    private final class ArrayEntry implements Map.Entry<K, V> {
+        private final int index;
+        private final int version;
+        private final K key;
+        private V value;
+
+        ArrayEntry(int index) {
+            this.index = index;
+            version = ArrayHeaders.this.version;
+            key = keys[index];
+            value = values[index];
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkNotNull(value, "value");
+            V oldValue = this.value;
+            this.value = value;
+            // The index may belong to another header by now.
+            if (version == ArrayHeaders.this.version) {
+                values[index] = value;
+            }
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return key.toString() + '=' + value.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && value.equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+    }
+}
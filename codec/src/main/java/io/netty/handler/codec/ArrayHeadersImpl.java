@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.util.HashingStrategy;
+
+/**
+ * A concrete implementation of {@link ArrayHeaders} that allows for direct instantiation.
+ * @param <K> the type of the header name.
+ * @param <V> the type of the header value.
+ */
+public final class ArrayHeadersImpl<K, V> extends ArrayHeaders<K, V, ArrayHeadersImpl<K, V>> {
+    public ArrayHeadersImpl(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator) {
+        super(nameHashingStrategy, valueConverter, nameValidator);
+    }
+
+    public ArrayHeadersImpl(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator, int initialCapacity) {
+        super(nameHashingStrategy, valueConverter, nameValidator, initialCapacity);
+    }
+}
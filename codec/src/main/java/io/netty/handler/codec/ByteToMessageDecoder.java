@@ -129,6 +129,27 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         }
     };
 
+    /**
+     * Cumulate {@link ByteBuf}s by choosing between copying and composing for each {@link ByteBuf}, so that decoders
+     * do not need to guess which of {@link #MERGE_CUMULATOR} and {@link #COMPOSITE_CUMULATOR} fits their access
+     * pattern:
+     * <ul>
+     *     <li>{@link ByteBuf}s are copied into the cumulation if it has enough room left, or if the cumulation is
+     *     small and so cheap to copy to a larger {@link ByteBuf}.</li>
+     *     <li>Large cumulations are extended by a {@link CompositeByteBuf} without any memory copy.</li>
+     *     <li>Once the {@link CompositeByteBuf} has many components, the ones which were fully read are dropped and
+     *     if that is not enough the rest is consolidated into a single {@link ByteBuf}, so the indexing overhead stays
+     *     small for decoders which do many small reads.</li>
+     *     <li>If the decoder did not consume any of the composed bytes, it waits for the rest of a large message. Then
+     *     the consolidated {@link ByteBuf} gets room for as many bytes again, so that every byte is only copied a
+     *     constant number of times like with the {@link #MERGE_CUMULATOR}.</li>
+     * </ul>
+     * While this {@link Cumulator} is used, {@link #discardSomeReadBytes()} never moves large amounts of memory.
+     * Read components of a {@link CompositeByteBuf} are dropped instead, and large cumulations are left alone until
+     * they are fully read.
+     */
+    public static final Cumulator ADAPTIVE_CUMULATOR = new AdaptiveCumulator();
+
     private static final byte STATE_INIT = 0;
     private static final byte STATE_CALLING_CHILD_DECODE = 1;
     private static final byte STATE_HANDLER_REMOVED_PENDING = 2;
@@ -333,7 +354,11 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
             // See:
             // - https://github.com/netty/netty/issues/2327
             // - https://github.com/netty/netty/issues/1764
-            cumulation.discardSomeReadBytes();
+            if (cumulator instanceof AdaptiveCumulator) {
+                AdaptiveCumulator.discardSomeReadBytes(cumulation);
+            } else {
+                cumulation.discardSomeReadBytes();
+            }
         }
     }
 
@@ -519,6 +544,78 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         return cumulation;
     }
 
+    private static final class AdaptiveCumulator implements Cumulator {
+        // Cumulations up to this size are copied when they need to grow, as copying them is cheaper than indexing
+        // into a CompositeByteBuf.
+        private static final int COPY_THRESHOLD = 64 * 1024;
+        // Consolidate a CompositeByteBuf once it has this many components.
+        private static final int MAX_COMPONENTS = 16;
+
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            final ByteBuf buffer;
+            if (cumulation.refCnt() > 1 || cumulation.isReadOnly()) {
+                // Expand cumulation (by replace it) when the refCnt is greater then 1 which may happen when the user
+                // use slice().retain() or duplicate().retain() or if its read-only.
+                //
+                // See:
+                // - https://github.com/netty/netty/issues/2327
+                // - https://github.com/netty/netty/issues/1764
+                buffer = expandCumulation(alloc, cumulation, in.readableBytes());
+            } else if (cumulation instanceof CompositeByteBuf) {
+                CompositeByteBuf composite = (CompositeByteBuf) cumulation;
+                // The readerIndex only moved if the decoder consumed bytes since the cumulation was composed.
+                boolean consumed = composite.readerIndex() > 0;
+                if (composite.numComponents() >= MAX_COMPONENTS) {
+                    composite.discardReadComponents();
+                }
+                if (composite.numComponents() < MAX_COMPONENTS) {
+                    composite.addComponent(true, in);
+                    return composite;
+                }
+                // Indexing into many components is more expensive than copying the remaining bytes once.
+                buffer = consolidate(alloc, composite, in.readableBytes(), consumed);
+            } else if (cumulation.writableBytes() >= in.readableBytes()
+                    || cumulation.readableBytes() < COPY_THRESHOLD) {
+                // Copy like the MERGE_CUMULATOR.
+                buffer = cumulation.writerIndex() > cumulation.maxCapacity() - in.readableBytes() ?
+                        expandCumulation(alloc, cumulation, in.readableBytes()) : cumulation;
+            } else {
+                // Copying the large cumulation would be expensive, so compose without any memory copy.
+                CompositeByteBuf composite = alloc.compositeBuffer(Integer.MAX_VALUE);
+                composite.addComponent(true, cumulation);
+                composite.addComponent(true, in);
+                return composite;
+            }
+            buffer.writeBytes(in);
+            in.release();
+            return buffer;
+        }
+
+        private static ByteBuf consolidate(ByteBufAllocator alloc, ByteBuf cumulation, int readable,
+                                           boolean consumed) {
+            int size = cumulation.readableBytes() + readable;
+            // A decoder which consumed nothing waits for the rest of a large message. Without room for it, the next
+            // reads would be composed and the whole cumulation copied again after a few more reads.
+            int capacity = consumed ? size : (int) Math.min(2L * size, Integer.MAX_VALUE);
+            ByteBuf buffer = alloc.buffer(capacity);
+            buffer.writeBytes(cumulation);
+            cumulation.release();
+            return buffer;
+        }
+
+        static void discardSomeReadBytes(ByteBuf cumulation) {
+            if (cumulation instanceof CompositeByteBuf) {
+                // Releases the fully read components without copying anything.
+                ((CompositeByteBuf) cumulation).discardReadComponents();
+            } else if (cumulation.readableBytes() < COPY_THRESHOLD) {
+                // Cheap enough, while large cumulations are left alone until they are fully read as the cumulator
+                // composes instead of making room in them.
+                cumulation.discardSomeReadBytes();
+            }
+        }
+    }
+
     /**
      * Cumulate {@link ByteBuf}s.
      */
@@ -102,7 +102,7 @@ public final class DateFormatter {
             throw new IllegalArgumentException("Can't parse more than 64 chars," +
                     "looks like a user error or a malformed header");
         }
-        return formatter().parse0(checkNotNull(txt, "txt"), start, end);
+        return INSTANCES.get().parse(checkNotNull(txt, "txt"), start, end);
     }
 
     /**
@@ -111,7 +111,7 @@ public final class DateFormatter {
      * @return a RFC1123 string
      */
     public static String format(Date date) {
-        return formatter().format0(checkNotNull(date, "date"));
+        return INSTANCES.get().format(checkNotNull(date, "date").getTime());
     }
 
     /**
@@ -121,13 +121,22 @@ public final class DateFormatter {
      * @return the same StringBuilder
      */
     public static StringBuilder append(Date date, StringBuilder sb) {
-        return formatter().append0(checkNotNull(date, "date"), checkNotNull(sb, "sb"));
+        return INSTANCES.get().append(checkNotNull(date, "date").getTime(), checkNotNull(sb, "sb"));
     }
 
-    private static DateFormatter formatter() {
-        DateFormatter formatter = INSTANCES.get();
-        formatter.reset();
-        return formatter;
+    /**
+     * Returns the current time in RFC1123 format, for example as the value of a "Date" header.
+     * <p>
+     * The value is only rendered once per second for each thread, so calling this method for every response does
+     * not allocate.
+     * @return a RFC1123 string of the current time
+     */
+    public static AsciiString currentHttpDate() {
+        return currentHttpDate(System.currentTimeMillis());
+    }
+
+    static AsciiString currentHttpDate(long currentTimeMillis) {
+        return INSTANCES.get().current(currentTimeMillis);
     }
 
     // delimiter = %x09 / %x20-2F / %x3B-40 / %x5B-60 / %x7B-7E
@@ -145,6 +154,15 @@ public final class DateFormatter {
 
     private final GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
     private final StringBuilder sb = new StringBuilder(29); // Sun, 27 Nov 2016 19:37:15 GMT
+    // The last date passed to format(long) and the current time, keyed by their second since the epoch.
+    private long formattedSecond = -1;
+    private String formatted;
+    private long currentSecond = -1;
+    private AsciiString current;
+    // The last text successfully parsed by parse(CharSequence, int, int), headers usually repeat the same dates.
+    private final char[] parsedText = new char[64];
+    private int parsedLength = -1;
+    private long parsedTime;
     private boolean timeFound;
     private int hours;
     private int minutes;
@@ -360,6 +378,32 @@ public final class DateFormatter {
         return timeFound && dayOfMonthFound && monthFound && yearFound;
     }
 
+    private Date parse(CharSequence txt, int start, int end) {
+        int length = end - start;
+        if (length == parsedLength && matchParsedText(txt, start)) {
+            return new Date(parsedTime);
+        }
+        reset();
+        Date date = parse0(txt, start, end);
+        if (date != null) {
+            for (int i = 0; i < length; i++) {
+                parsedText[i] = txt.charAt(start + i);
+            }
+            parsedLength = length;
+            parsedTime = date.getTime();
+        }
+        return date;
+    }
+
+    private boolean matchParsedText(CharSequence txt, int start) {
+        for (int i = 0; i < parsedLength; i++) {
+            if (parsedText[i] != txt.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Date parse0(CharSequence txt, int start, int end) {
         boolean allPartsFound = parse1(txt, start, end);
         return allPartsFound && normalizeAndValidate() ? computeDate() : null;
@@ -387,7 +431,7 @@ public final class DateFormatter {
         }
 
         // terminate trailing token
-        return tokenStart != -1 && parseToken(txt, tokenStart, txt.length());
+        return tokenStart != -1 && parseToken(txt, tokenStart, end);
     }
 
     private boolean normalizeAndValidate() {
@@ -420,13 +464,40 @@ public final class DateFormatter {
         return cal.getTime();
     }
 
-    private String format0(Date date) {
-        append0(date, sb);
-        return sb.toString();
+    private String format(long millis) {
+        // Only non negative times are cached, as the division rounds towards zero.
+        if (millis >= 0 && millis / 1000 == formattedSecond) {
+            return formatted;
+        }
+        reset();
+        String formatted = append0(millis, sb).toString();
+        if (millis >= 0) {
+            formattedSecond = millis / 1000;
+            this.formatted = formatted;
+        }
+        return formatted;
+    }
+
+    private StringBuilder append(long millis, StringBuilder sb) {
+        if (millis >= 0 && millis / 1000 == formattedSecond) {
+            return sb.append(formatted);
+        }
+        reset();
+        return append0(millis, sb);
+    }
+
+    private AsciiString current(long currentTimeMillis) {
+        long second = currentTimeMillis / 1000;
+        if (second != currentSecond) {
+            reset();
+            current = new AsciiString(append0(currentTimeMillis, sb));
+            currentSecond = second;
+        }
+        return current;
     }
 
-    private StringBuilder append0(Date date, StringBuilder sb) {
-        cal.setTime(date);
+    private StringBuilder append0(long millis, StringBuilder sb) {
+        cal.setTimeInMillis(millis);
 
         sb.append(DAY_OF_WEEK_TO_SHORT_NAME[cal.get(Calendar.DAY_OF_WEEK) - 1]).append(", ");
         sb.append(cal.get(Calendar.DAY_OF_MONTH)).append(' ');
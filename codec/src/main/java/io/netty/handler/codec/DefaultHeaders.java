@@ -251,7 +251,7 @@ public class DefaultHeaders<K, V, T extends Headers<K, V, T>> implements Headers
         return contains(name, value, JAVA_HASHER);
     }
 
-    public final boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
+    public boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
         checkNotNull(name, "name");
 
         int h = hashingStrategy.hashCode(name);
@@ -397,8 +397,16 @@ public class DefaultHeaders<K, V, T extends Headers<K, V, T>> implements Headers
         return thisT();
     }
 
+    /**
+     * Returns {@code false} if a subclass stores its headers somewhere else than in the linked entries of this class,
+     * so {@link #addImpl(Headers)} must copy them through {@link #iterator()}.
+     */
+    boolean usesLinkedEntries() {
+        return true;
+    }
+
     protected void addImpl(Headers<? extends K, ? extends V, ?> headers) {
-        if (headers instanceof DefaultHeaders) {
+        if (headers instanceof DefaultHeaders && ((DefaultHeaders<?, ?, ?>) headers).usesLinkedEntries()) {
             @SuppressWarnings("unchecked")
             final DefaultHeaders<? extends K, ? extends V, T> defaultHeaders =
                     (DefaultHeaders<? extends K, ? extends V, T>) headers;
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Consecutive frames which were decoded at once, see {@link LengthFieldBasedFrameDecoder#setBatchFrames(boolean)}.
+ * <p>
+ * All frames share the {@link #content()} of the batch, so there is only a single buffer to release no matter how
+ * many frames there are. The frames are located by their offset and length relative to index {@code 0} of the
+ * {@link #content()}, so its indexes must not be modified.
+ */
+public final class FrameBatch extends DefaultByteBufHolder {
+
+    private final int count;
+    // The offset of every frame at the even indexes followed by its length.
+    private final int[] frames;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param content   the buffer which contains all frames
+     * @param count     the number of frames
+     * @param frames    the offset relative to index {@code 0} of {@code content} and the length of every frame, one
+     *                  after another
+     */
+    public FrameBatch(ByteBuf content, int count, int[] frames) {
+        super(content);
+        if (count < 0 || count > frames.length >>> 1) {
+            throw new IllegalArgumentException(
+                    "count: " + count + " (expected: 0-" + (frames.length >>> 1) + ')');
+        }
+        this.count = count;
+        this.frames = frames;
+    }
+
+    /**
+     * Returns the number of frames.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the index in {@link #content()} where the frame at the given index starts.
+     */
+    public int frameOffset(int index) {
+        checkIndex(index);
+        return frames[index << 1];
+    }
+
+    /**
+     * Returns the length of the frame at the given index.
+     */
+    public int frameLength(int index) {
+        checkIndex(index);
+        return frames[(index << 1) + 1];
+    }
+
+    /**
+     * Returns a slice of {@link #content()} which contains the frame at the given index. The slice is only valid
+     * until this batch is released, use {@link ByteBuf#retain()} to keep it longer.
+     */
+    public ByteBuf frame(int index) {
+        return content().slice(frameOffset(index), frameLength(index));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index + " (expected: 0-" + (count - 1) + ')');
+        }
+    }
+
+    @Override
+    public FrameBatch copy() {
+        return replace(content().copy(0, content().capacity()));
+    }
+
+    @Override
+    public FrameBatch duplicate() {
+        return replace(content().duplicate());
+    }
+
+    @Override
+    public FrameBatch retainedDuplicate() {
+        return replace(content().retainedDuplicate());
+    }
+
+    @Override
+    public FrameBatch replace(ByteBuf content) {
+        return new FrameBatch(content, count, frames);
+    }
+
+    @Override
+    public FrameBatch retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public FrameBatch retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FrameBatch touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public FrameBatch touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(count: " + count + ", " + contentToString() + ')';
+    }
+}
@@ -16,6 +16,7 @@
 package io.netty.handler.codec;
 
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
 
 import io.netty.buffer.ByteBuf;
@@ -191,6 +192,7 @@ public class LengthFieldBasedFrameDecoder extends ByteToMessageDecoder {
     private final int lengthAdjustment;
     private final int initialBytesToStrip;
     private final boolean failFast;
+    private boolean batchFrames;
     private boolean discardingTooLongFrame;
     private long tooLongFrameLength;
     private long bytesToDiscard;
@@ -338,14 +340,80 @@ public class LengthFieldBasedFrameDecoder extends ByteToMessageDecoder {
         this.failFast = failFast;
     }
 
+    /**
+     * If set then all complete frames which were received at once are passed on as a single {@link FrameBatch}
+     * instead of one {@link ByteBuf} per frame. This saves a slice and a {@code channelRead} per frame, which is
+     * significant for small frames. Batched frames are passed through neither
+     * {@link #decode(ChannelHandlerContext, ByteBuf)} nor {@link #extractFrame}, so sub-classes which override these
+     * methods should not enable batching.
+     * <p>
+     * Default is {@code false} as the next handler must be able to handle {@link FrameBatch}es.
+     */
+    public void setBatchFrames(boolean batchFrames) {
+        this.batchFrames = batchFrames;
+    }
+
+    /**
+     * Returns {@code true} if all complete frames which were received at once are passed on as a single
+     * {@link FrameBatch}.
+     */
+    public boolean isBatchFrames() {
+        return batchFrames;
+    }
+
     @Override
     protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        Object decoded = decode(ctx, in);
+        Object decoded = batchFrames ? decodeBatch(ctx, in) : decode(ctx, in);
         if (decoded != null) {
             out.add(decoded);
         }
     }
 
+    private Object decodeBatch(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        int index = in.readerIndex();
+        int writerIndex = in.writerIndex();
+        int first = index;
+        int count = 0;
+        int[] frames = null;
+        while (!discardingTooLongFrame && writerIndex - index >= lengthFieldEndOffset) {
+            long frameLength = getUnadjustedFrameLength(in, index + lengthFieldOffset, lengthFieldLength, byteOrder);
+            if (frameLength < 0) {
+                break;
+            }
+            frameLength += lengthAdjustment + lengthFieldEndOffset;
+            if (frameLength < lengthFieldEndOffset || frameLength > maxFrameLength ||
+                    frameLength < initialBytesToStrip || frameLength > writerIndex - index) {
+                break;
+            }
+
+            int frameStart = index + initialBytesToStrip;
+            index += (int) frameLength;
+            if (frames == null) {
+                frames = new int[16];
+                first = frameStart;
+            } else if (frames.length == count << 1) {
+                frames = Arrays.copyOf(frames, frames.length << 1);
+            }
+            frames[count << 1] = frameStart - first;
+            frames[(count << 1) + 1] = index - frameStart;
+            count++;
+        }
+
+        if (count == 0) {
+            // Incomplete, invalid or too long frames are handled the same as without batching.
+            Object decoded = decode(ctx, in);
+            if (decoded instanceof ByteBuf) {
+                ByteBuf frame = (ByteBuf) decoded;
+                return new FrameBatch(frame, 1, new int[] { frame.readerIndex(), frame.readableBytes() });
+            }
+            return decoded;
+        }
+        // Any following invalid frame fails on the next call, after the valid frames were passed on.
+        ByteBuf content = in.retainedSlice(first, index - first);
+        in.readerIndex(index);
+        return new FrameBatch(content, count, frames);
+    }
+
     private void discardingTooLongFrame(ByteBuf in) {
         long bytesToDiscard = this.bytesToDiscard;
         int localBytesToDiscard = (int) Math.min(bytesToDiscard, in.readableBytes());
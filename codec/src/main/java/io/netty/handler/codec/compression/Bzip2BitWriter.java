@@ -95,6 +95,22 @@ final class Bzip2BitWriter {
         writeBits(out, 32, value);
     }
 
+    /**
+     * Writes all bits which another writer produced to the output {@link ByteBuf}, so independently compressed blocks
+     * can be concatenated without byte alignment.
+     * @param bits The whole {@code int}s which were written by {@code bitsWriter}
+     * @param bitsWriter The writer which still buffers the remaining bits (it is not modified)
+     */
+    void writeBits(ByteBuf out, ByteBuf bits, Bzip2BitWriter bitsWriter) {
+        while (bits.readableBytes() >= 4) {
+            writeBits(out, 32, bits.readUnsignedInt());
+        }
+        final int bitCount = bitsWriter.bitCount;
+        if (bitCount > 0) {
+            writeBits(out, bitCount, bitsWriter.bitBuffer >>> 64 - bitCount);
+        }
+    }
+
     /**
      * Writes any remaining bits to the output {@link ByteBuf},
      * zero padding to a whole byte as required.
@@ -16,15 +16,21 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import static io.netty.handler.codec.compression.Bzip2Constants.*;
@@ -67,6 +73,17 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      */
     private Bzip2BlockCompressor blockCompressor;
 
+    /**
+     * Compresses the blocks on another {@link EventExecutorGroup}, or {@code null} if they are compressed by the
+     * {@link EventExecutor} of the handler.
+     */
+    private final ParallelBlockCompressor<CompressedBlock> parallelCompressor;
+
+    /**
+     * The writer of the current block if {@link #parallelCompressor} is used, as each block is written separately.
+     */
+    private Bzip2BitWriter blockWriter;
+
     /**
      * (@code true} if the compressed stream has been finished, otherwise {@code false}.
      */
@@ -92,11 +109,135 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      *        but give better compression ratios. {@code 9} will usually be the best value to use.
      */
     public Bzip2Encoder(final int blockSizeMultiplier) {
+        streamBlockSize = streamBlockSize(blockSizeMultiplier);
+        parallelCompressor = null;
+    }
+
+    /**
+     * Creates a new bzip2 encoder with the specified {@code blockSizeMultiplier} which compresses blocks in parallel
+     * on the given {@link EventExecutorGroup}, so a single large stream is not limited to the throughput of its
+     * {@link EventExecutor}. The compressed blocks are still written in order as a single bzip2 stream.
+     * @param blockSizeMultiplier
+     *        The Bzip2 block size as a multiple of 100,000 bytes (minimum {@code 1}, maximum {@code 9}).
+     * @param executorGroup
+     *        The {@link EventExecutorGroup} which compresses the blocks.
+     * @param maxPendingBlocks
+     *        The maximum number of blocks which are compressed at the same time. Once reached, further blocks are
+     *        compressed by the {@link EventExecutor} of the handler.
+     */
+    public Bzip2Encoder(final int blockSizeMultiplier, EventExecutorGroup executorGroup, int maxPendingBlocks) {
+        streamBlockSize = streamBlockSize(blockSizeMultiplier);
+        parallelCompressor = new ParallelBlockCompressor<CompressedBlock>(executorGroup, maxPendingBlocks) {
+            @Override
+            protected ByteBuf output(ChannelHandlerContext ctx, CompressedBlock block) {
+                return writeBlock(ctx, block);
+            }
+        };
+    }
+
+    private static int streamBlockSize(int blockSizeMultiplier) {
         if (blockSizeMultiplier < MIN_BLOCK_SIZE || blockSizeMultiplier > MAX_BLOCK_SIZE) {
             throw new IllegalArgumentException(
                     "blockSizeMultiplier: " + blockSizeMultiplier + " (expected: 1-9)");
         }
-        streamBlockSize = blockSizeMultiplier * BASE_BLOCK_SIZE;
+        return blockSizeMultiplier * BASE_BLOCK_SIZE;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (parallelCompressor == null || !acceptOutboundMessage(msg)) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        ByteBuf in = (ByteBuf) msg;
+        try {
+            if (finished) {
+                // Must be written after the blocks which are still compressed.
+                parallelCompressor.add(ctx, new CompressedBlock(in.retain(), null, 0));
+            } else {
+                encodeParallel(ctx, in);
+            }
+        } catch (EncoderException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EncoderException(e);
+        } finally {
+            in.release();
+        }
+        parallelCompressor.addPromise(ctx, promise);
+    }
+
+    private void encodeParallel(ChannelHandlerContext ctx, ByteBuf in) {
+        if (currentState == State.INIT) {
+            ByteBuf header = ctx.alloc().buffer(4);
+            header.writeMedium(MAGIC_NUMBER);
+            header.writeByte('0' + streamBlockSize / BASE_BLOCK_SIZE);
+            parallelCompressor.add(ctx, new CompressedBlock(header, null, 0));
+            currentState = State.WRITE_DATA;
+        }
+        while (in.isReadable()) {
+            if (blockCompressor == null) {
+                blockWriter = new Bzip2BitWriter();
+                blockCompressor = new Bzip2BlockCompressor(blockWriter, streamBlockSize);
+            }
+            final int length = Math.min(in.readableBytes(), blockCompressor.availableSize());
+            in.skipBytes(blockCompressor.write(in, in.readerIndex(), length));
+            if (blockCompressor.isFull()) {
+                submitBlock(ctx);
+            }
+        }
+    }
+
+    /**
+     * Hands the current block over to the {@link #parallelCompressor}.
+     */
+    private void submitBlock(ChannelHandlerContext ctx) {
+        final Bzip2BlockCompressor blockCompressor = this.blockCompressor;
+        final Bzip2BitWriter blockWriter = this.blockWriter;
+        this.blockCompressor = null;
+        this.blockWriter = null;
+        if (blockCompressor == null || blockCompressor.isEmpty()) {
+            return;
+        }
+        final ByteBufAllocator alloc = ctx.alloc();
+        parallelCompressor.submit(ctx, new Callable<CompressedBlock>() {
+            @Override
+            public CompressedBlock call() {
+                ByteBuf out = alloc.buffer();
+                try {
+                    blockCompressor.close(out);
+                    return new CompressedBlock(out, blockWriter, blockCompressor.crc());
+                } catch (RuntimeException e) {
+                    out.release();
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Appends a block which was compressed by the {@link #parallelCompressor} to the stream.
+     */
+    private ByteBuf writeBlock(ChannelHandlerContext ctx, CompressedBlock block) {
+        if (block.writer == null && block != CompressedBlock.END_OF_STREAM) {
+            // Already byte aligned.
+            return block.content();
+        }
+        final ByteBuf out = ctx.alloc().buffer(block.content().readableBytes() + 16);
+        try {
+            if (block == CompressedBlock.END_OF_STREAM) {
+                writeFooter(out);
+            } else {
+                writer.writeBits(out, block.content(), block.writer);
+                streamCRC = (streamCRC << 1 | streamCRC >>> 31) ^ block.crc;
+            }
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            block.release();
+        }
     }
 
     @Override
@@ -223,22 +364,34 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         }
         finished = true;
 
+        if (parallelCompressor != null) {
+            encodeParallel(ctx, Unpooled.EMPTY_BUFFER);
+            submitBlock(ctx);
+            parallelCompressor.add(ctx, CompressedBlock.END_OF_STREAM);
+            parallelCompressor.addPromise(ctx, promise);
+            parallelCompressor.flush(ctx);
+            return promise;
+        }
+
         final ByteBuf footer = ctx.alloc().buffer();
         closeBlock(footer);
 
-        final int streamCRC = this.streamCRC;
-        final Bzip2BitWriter writer = this.writer;
         try {
-            writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_1);
-            writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_2);
-            writer.writeInt(footer, streamCRC);
-            writer.flush(footer);
+            writeFooter(footer);
         } finally {
             blockCompressor = null;
         }
         return ctx.writeAndFlush(footer, promise);
     }
 
+    private void writeFooter(ByteBuf footer) {
+        final Bzip2BitWriter writer = this.writer;
+        writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_1);
+        writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_2);
+        writer.writeInt(footer, streamCRC);
+        writer.flush(footer);
+    }
+
     private ChannelHandlerContext ctx() {
         ChannelHandlerContext ctx = this.ctx;
         if (ctx == null) {
@@ -251,4 +404,29 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            parallelCompressor.release();
+        }
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * A block which was compressed by the {@link #parallelCompressor}. If there is no {@link #writer} the content is
+     * byte aligned and written as it is.
+     */
+    private static final class CompressedBlock extends DefaultByteBufHolder {
+        static final CompressedBlock END_OF_STREAM = new CompressedBlock(Unpooled.EMPTY_BUFFER, null, 0);
+
+        final Bzip2BitWriter writer;
+        final int crc;
+
+        CompressedBlock(ByteBuf content, Bzip2BitWriter writer, int crc) {
+            super(content);
+            this.writer = writer;
+            this.crc = crc;
+        }
+    }
 }
@@ -37,7 +37,11 @@ final class CompressionUtil {
     }
 
     static ByteBuffer safeNioBuffer(ByteBuf buffer) {
-        return buffer.nioBufferCount() == 1 ? buffer.internalNioBuffer(buffer.readerIndex(), buffer.readableBytes())
-                : buffer.nioBuffer();
+        return safeNioBuffer(buffer, buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    static ByteBuffer safeNioBuffer(ByteBuf buffer, int index, int length) {
+        return buffer.nioBufferCount() == 1 ? buffer.internalNioBuffer(index, length)
+                : buffer.nioBuffer(index, length);
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Gives access to the {@link ByteBuffer} based methods of {@link Deflater} and {@link Inflater} which were added in
+ * Java 11, so the memory of direct {@link ByteBuf}s can be passed to zlib without copying it to a {@code byte[]}.
+ */
+final class JdkZlibByteBuffers {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibByteBuffers.class);
+
+    private static final Method DEFLATER_SET_INPUT;
+    private static final Method DEFLATER_DEFLATE;
+    private static final Method INFLATER_SET_INPUT;
+    private static final Method INFLATER_INFLATE;
+
+    static {
+        Method deflaterSetInput = null;
+        Method deflaterDeflate = null;
+        Method inflaterSetInput = null;
+        Method inflaterInflate = null;
+        if (PlatformDependent.javaVersion() >= 11) {
+            try {
+                deflaterSetInput = Deflater.class.getMethod("setInput", ByteBuffer.class);
+                deflaterDeflate = Deflater.class.getMethod("deflate", ByteBuffer.class, int.class);
+                inflaterSetInput = Inflater.class.getMethod("setInput", ByteBuffer.class);
+                inflaterInflate = Inflater.class.getMethod("inflate", ByteBuffer.class);
+            } catch (Throwable cause) {
+                logger.debug("ByteBuffer based Deflater / Inflater methods not available", cause);
+                deflaterSetInput = null;
+                deflaterDeflate = null;
+                inflaterSetInput = null;
+                inflaterInflate = null;
+            }
+        }
+        DEFLATER_SET_INPUT = deflaterSetInput;
+        DEFLATER_DEFLATE = deflaterDeflate;
+        INFLATER_SET_INPUT = inflaterSetInput;
+        INFLATER_INFLATE = inflaterInflate;
+        logger.debug("ByteBuffer based Deflater / Inflater methods available: {}", isAvailable());
+    }
+
+    private JdkZlibByteBuffers() { }
+
+    /**
+     * Returns {@code true} if the {@link ByteBuffer} based methods are available.
+     */
+    static boolean isAvailable() {
+        return DEFLATER_SET_INPUT != null;
+    }
+
+    /**
+     * Returns {@code true} if the readable bytes of the given {@link ByteBuf} should be passed to zlib as a
+     * {@link ByteBuffer}, because it is not backed by an array.
+     */
+    static boolean isDirect(ByteBuf buf) {
+        return isAvailable() && !buf.hasArray() && buf.nioBufferCount() == 1;
+    }
+
+    static void setInput(Deflater deflater, ByteBuffer input) {
+        invoke(DEFLATER_SET_INPUT, deflater, input);
+    }
+
+    static int deflate(Deflater deflater, ByteBuffer output, int flush) {
+        return (Integer) invoke(DEFLATER_DEFLATE, deflater, output, flush);
+    }
+
+    static void setInput(Inflater inflater, ByteBuffer input) {
+        invoke(INFLATER_SET_INPUT, inflater, input);
+    }
+
+    static int inflate(Inflater inflater, ByteBuffer output) throws DataFormatException {
+        try {
+            return (Integer) INFLATER_INFLATE.invoke(inflater, output);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof DataFormatException) {
+                throw (DataFormatException) e.getCause();
+            }
+            throw rethrow(e);
+        } catch (IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e);
+        } catch (IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    private static RuntimeException rethrow(InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new CompressionException(cause);
+    }
+}
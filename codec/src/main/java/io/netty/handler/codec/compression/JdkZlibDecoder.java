@@ -17,7 +17,10 @@ package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.ObjectUtil;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
@@ -26,6 +29,12 @@ import java.util.zip.Inflater;
 
 /**
  * Decompress a {@link ByteBuf} using the inflate algorithm.
+ * <p>
+ * On Java 11 and later direct {@link ByteBuf}s are passed to the {@link Inflater} as they are and decompressed into a
+ * direct {@link ByteBuf}, older versions copy them to a {@code byte[]} first.
+ * <p>
+ * The {@link Inflater} is taken from the {@link JdkZlibPool} when the first data is decompressed and returned once the
+ * stream is finished or this handler is removed.
  */
 public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FHCRC = 0x02;
@@ -35,6 +44,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FRESERVED = 0xE0;
 
     private Inflater inflater;
+    private boolean nowrap;
     private final byte[] dictionary;
 
     // GZIP related
@@ -85,6 +95,20 @@ public class JdkZlibDecoder extends ZlibDecoder {
         this(wrapper, null, false);
     }
 
+    /**
+     * Creates a new instance with the specified wrapper and the specified preset dictionary. Only
+     * {@link ZlibWrapper#ZLIB}, {@link ZlibWrapper#NONE} and {@link ZlibWrapper#ZLIB_OR_NONE} support a preset
+     * dictionary. The dictionary is copied, so the array may be modified afterwards.
+     *
+     * @see JdkZlibEncoder#JdkZlibEncoder(ZlibWrapper, int, byte[])
+     */
+    public JdkZlibDecoder(ZlibWrapper wrapper, byte[] dictionary) {
+        this(wrapper, ObjectUtil.checkNotNull(dictionary, "dictionary"), false);
+        if (wrapper == ZlibWrapper.GZIP) {
+            throw new IllegalArgumentException("wrapper '" + wrapper + "' does not support a preset dictionary.");
+        }
+    }
+
     public JdkZlibDecoder(ZlibWrapper wrapper, boolean decompressConcatenated) {
         this(wrapper, null, decompressConcatenated);
     }
@@ -100,15 +124,15 @@ public class JdkZlibDecoder extends ZlibDecoder {
         this.decompressConcatenated = decompressConcatenated;
         switch (wrapper) {
             case GZIP:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = ByteBufChecksum.wrapChecksum(new CRC32());
                 break;
             case NONE:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = null;
                 break;
             case ZLIB:
-                inflater = new Inflater();
+                nowrap = false;
                 crc = null;
                 break;
             case ZLIB_OR_NONE:
@@ -119,7 +143,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
             default:
                 throw new IllegalArgumentException("Only GZIP or ZLIB is supported, but you used " + wrapper);
         }
-        this.dictionary = dictionary;
+        this.dictionary = dictionary == null ? null : dictionary.clone();
     }
 
     @Override
@@ -146,16 +170,24 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 return;
             }
 
-            boolean nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
-            inflater = new Inflater(nowrap);
+            nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
             decideZlibOrNone = false;
         }
 
+        if (inflater == null) {
+            inflater = JdkZlibPool.borrowInflater(nowrap);
+            if (nowrap && dictionary != null) {
+                // A raw deflate stream does not ask for the dictionary, so it must be set up front.
+                inflater.setDictionary(dictionary);
+            }
+        }
+
         if (crc != null) {
             switch (gzipState) {
                 case FOOTER_START:
                     if (readGZIPFooter(in)) {
                         finished = true;
+                        releaseInflater();
                     }
                     return;
                 default:
@@ -169,7 +201,10 @@ public class JdkZlibDecoder extends ZlibDecoder {
             readableBytes = in.readableBytes();
         }
 
-        if (in.hasArray()) {
+        final boolean direct = JdkZlibByteBuffers.isDirect(in);
+        if (direct) {
+            JdkZlibByteBuffers.setInput(inflater, in.internalNioBuffer(in.readerIndex(), readableBytes));
+        } else if (in.hasArray()) {
             inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readableBytes);
         } else {
             byte[] array = new byte[readableBytes];
@@ -177,18 +212,17 @@ public class JdkZlibDecoder extends ZlibDecoder {
             inflater.setInput(array);
         }
 
-        ByteBuf decompressed = ctx.alloc().heapBuffer(inflater.getRemaining() << 1);
+        ByteBuf decompressed = direct ? ctx.alloc().directBuffer(inflater.getRemaining() << 1) :
+                ctx.alloc().heapBuffer(inflater.getRemaining() << 1);
         try {
             boolean readFooter = false;
             while (!inflater.needsInput()) {
-                byte[] outArray = decompressed.array();
                 int writerIndex = decompressed.writerIndex();
-                int outIndex = decompressed.arrayOffset() + writerIndex;
-                int outputLength = inflater.inflate(outArray, outIndex, decompressed.writableBytes());
+                int outputLength = inflate(decompressed);
                 if (outputLength > 0) {
                     decompressed.writerIndex(writerIndex + outputLength);
                     if (crc != null) {
-                        crc.update(outArray, outIndex, outputLength);
+                        crc.update(decompressed, writerIndex, outputLength);
                     }
                 } else {
                     if (inflater.needsDictionary()) {
@@ -213,6 +247,10 @@ public class JdkZlibDecoder extends ZlibDecoder {
             }
 
             in.skipBytes(readableBytes - inflater.getRemaining());
+            if (direct) {
+                // Do not keep a reference to the memory of the ByteBuf, which may be released once we return.
+                inflater.setInput(EmptyArrays.EMPTY_BYTES);
+            }
 
             if (readFooter) {
                 gzipState = GzipState.FOOTER_START;
@@ -226,6 +264,9 @@ public class JdkZlibDecoder extends ZlibDecoder {
                     }
                 }
             }
+            if (finished) {
+                releaseInflater();
+            }
         } catch (DataFormatException e) {
             throw new DecompressionException("decompression failure", e);
         } finally {
@@ -238,11 +279,26 @@ public class JdkZlibDecoder extends ZlibDecoder {
         }
     }
 
+    private int inflate(ByteBuf decompressed) throws DataFormatException {
+        int writerIndex = decompressed.writerIndex();
+        if (decompressed.hasArray()) {
+            return inflater.inflate(
+                    decompressed.array(), decompressed.arrayOffset() + writerIndex, decompressed.writableBytes());
+        }
+        ByteBuffer output = decompressed.internalNioBuffer(writerIndex, decompressed.writableBytes());
+        return JdkZlibByteBuffers.inflate(inflater, output);
+    }
+
     @Override
     protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved0(ctx);
+        releaseInflater();
+    }
+
+    private void releaseInflater() {
         if (inflater != null) {
-            inflater.end();
+            JdkZlibPool.releaseInflater(inflater, nowrap);
+            inflater = null;
         }
     }
 
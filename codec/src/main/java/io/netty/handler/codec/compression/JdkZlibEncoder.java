@@ -22,25 +22,35 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelPromiseNotifier;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.EmptyArrays;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 
 /**
  * Compresses a {@link ByteBuf} using the deflate algorithm.
+ * <p>
+ * On Java 11 and later direct {@link ByteBuf}s are passed to the {@link Deflater} as they are and compressed into a
+ * direct {@link ByteBuf}, older versions copy them to a {@code byte[]} first.
+ * <p>
+ * The {@link Deflater} is taken from the {@link JdkZlibPool} when the first data is compressed and returned once the
+ * stream is finished or this handler is removed.
  */
 public class JdkZlibEncoder extends ZlibEncoder {
 
     private final ZlibWrapper wrapper;
-    private final Deflater deflater;
+    private final int compressionLevel;
+    private final byte[] dictionary;
+    private Deflater deflater;
     private volatile boolean finished;
     private volatile ChannelHandlerContext ctx;
 
     /*
      * GZIP support
      */
-    private final CRC32 crc = new CRC32();
+    private final ByteBufChecksum crc = ByteBufChecksum.wrapChecksum(new CRC32());
     private static final byte[] gzipHeader = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
     private boolean writeHeader = true;
 
@@ -105,7 +115,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         this.wrapper = wrapper;
-        deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        this.compressionLevel = compressionLevel;
+        dictionary = null;
     }
 
     /**
@@ -137,17 +148,50 @@ public class JdkZlibEncoder extends ZlibEncoder {
      * @throws CompressionException if failed to initialize zlib
      */
     public JdkZlibEncoder(int compressionLevel, byte[] dictionary) {
+        this(ZlibWrapper.ZLIB, compressionLevel, dictionary);
+    }
+
+    /**
+     * Creates a new zlib encoder with the specified {@code compressionLevel},
+     * the specified wrapper and the specified preset dictionary. Only
+     * {@link ZlibWrapper#ZLIB} and {@link ZlibWrapper#NONE} support a preset
+     * dictionary. {@link ZlibWrapper#NONE} does not tell the decoder which
+     * dictionary was used, so it must be given to the decoder as well. The
+     * dictionary is copied, so the array may be modified afterwards.
+     * <p>
+     * A dictionary which contains the content that is common to many messages,
+     * like one built by {@link ZlibDictionaryBuilder}, allows to compress small
+     * messages well even if every message is compressed on its own.
+     *
+     * @param wrapper  {@link ZlibWrapper#ZLIB} or {@link ZlibWrapper#NONE}
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.  The default
+     *        compression level is {@code 6}.
+     * @param dictionary  the preset dictionary
+     *
+     * @throws CompressionException if failed to initialize zlib
+     */
+    public JdkZlibEncoder(ZlibWrapper wrapper, int compressionLevel, byte[] dictionary) {
         if (compressionLevel < 0 || compressionLevel > 9) {
             throw new IllegalArgumentException(
                     "compressionLevel: " + compressionLevel + " (expected: 0-9)");
         }
+        if (wrapper == null) {
+            throw new NullPointerException("wrapper");
+        }
+        if (wrapper != ZlibWrapper.ZLIB && wrapper != ZlibWrapper.NONE) {
+            throw new IllegalArgumentException(
+                    "wrapper '" + wrapper + "' does not support a preset dictionary.");
+        }
         if (dictionary == null) {
             throw new NullPointerException("dictionary");
         }
 
-        wrapper = ZlibWrapper.ZLIB;
-        deflater = new Deflater(compressionLevel);
-        deflater.setDictionary(dictionary);
+        this.wrapper = wrapper;
+        this.compressionLevel = compressionLevel;
+        // The Deflater is only borrowed once the first data is written, so keep the dictionary as it is now.
+        this.dictionary = dictionary.clone();
     }
 
     @Override
@@ -199,6 +243,24 @@ public class JdkZlibEncoder extends ZlibEncoder {
             return;
         }
 
+        borrowDeflaterIfNeeded();
+
+        if (JdkZlibByteBuffers.isDirect(uncompressed)) {
+            writeHeaderIfNeeded(out);
+            if (wrapper == ZlibWrapper.GZIP) {
+                crc.update(uncompressed, uncompressed.readerIndex(), len);
+            }
+            ByteBuffer input = uncompressed.internalNioBuffer(uncompressed.readerIndex(), len);
+            JdkZlibByteBuffers.setInput(deflater, input);
+            while (!deflater.needsInput()) {
+                deflate(out);
+            }
+            uncompressed.skipBytes(len);
+            // Do not keep a reference to the memory of the ByteBuf, which may be released after this method returns.
+            deflater.setInput(EmptyArrays.EMPTY_BYTES);
+            return;
+        }
+
         int offset;
         byte[] inAry;
         if (uncompressed.hasArray()) {
@@ -213,12 +275,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             offset = 0;
         }
 
-        if (writeHeader) {
-            writeHeader = false;
-            if (wrapper == ZlibWrapper.GZIP) {
-                out.writeBytes(gzipHeader);
-            }
-        }
+        writeHeaderIfNeeded(out);
 
         if (wrapper == ZlibWrapper.GZIP) {
             crc.update(inAry, offset, len);
@@ -230,6 +287,31 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
     }
 
+    private void borrowDeflaterIfNeeded() {
+        if (deflater == null) {
+            deflater = JdkZlibPool.borrowDeflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+        }
+    }
+
+    private void releaseDeflater() {
+        if (deflater != null) {
+            JdkZlibPool.releaseDeflater(deflater, compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            deflater = null;
+        }
+    }
+
+    private void writeHeaderIfNeeded(ByteBuf out) {
+        if (writeHeader) {
+            writeHeader = false;
+            if (wrapper == ZlibWrapper.GZIP) {
+                out.writeBytes(gzipHeader);
+            }
+        }
+    }
+
     @Override
     protected final ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg,
                                            boolean preferDirect) throws Exception {
@@ -246,6 +328,10 @@ public class JdkZlibEncoder extends ZlibEncoder {
                     // no op
             }
         }
+        if (JdkZlibByteBuffers.isDirect(msg)) {
+            // Keep the data off-heap, the Deflater can write to a direct buffer as well.
+            return ctx.alloc().directBuffer(sizeEstimate);
+        }
         return ctx.alloc().heapBuffer(sizeEstimate);
     }
 
@@ -284,6 +370,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeBytes(gzipHeader);
         }
 
+        borrowDeflaterIfNeeded();
         deflater.finish();
 
         while (!deflater.finished()) {
@@ -306,7 +393,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeByte(uncBytes >>> 16);
             footer.writeByte(uncBytes >>> 24);
         }
-        deflater.end();
+        releaseDeflater();
         return ctx.writeAndFlush(footer, promise);
     }
 
@@ -314,8 +401,13 @@ public class JdkZlibEncoder extends ZlibEncoder {
         int numBytes;
         do {
             int writerIndex = out.writerIndex();
-            numBytes = deflater.deflate(
-                    out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), Deflater.SYNC_FLUSH);
+            if (out.hasArray()) {
+                numBytes = deflater.deflate(
+                        out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), Deflater.SYNC_FLUSH);
+            } else {
+                numBytes = JdkZlibByteBuffers.deflate(
+                        deflater, out.internalNioBuffer(writerIndex, out.writableBytes()), Deflater.SYNC_FLUSH);
+            }
             out.writerIndex(writerIndex + numBytes);
         } while (numBytes > 0);
     }
@@ -324,4 +416,10 @@ public class JdkZlibEncoder extends ZlibEncoder {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseDeflater();
+        super.handlerRemoved(ctx);
+    }
 }
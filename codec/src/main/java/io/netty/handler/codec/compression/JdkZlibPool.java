@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Per thread pools of {@link Deflater}s and {@link Inflater}s, which hold tens to hundreds of KiB of native memory
+ * each.
+ * <p>
+ * {@link JdkZlibEncoder} and {@link JdkZlibDecoder} borrow their {@link Deflater} or {@link Inflater} on the first
+ * use and return it once the stream is finished or the handler is removed, so a connection only holds native zlib
+ * memory while a message is compressed or decompressed. This is the case for {@code HttpContentCompressor},
+ * {@code HttpContentDecompressor} and WebSocket compression without context takeover.
+ * <p>
+ * Only threads which clean up their {@link FastThreadLocal}s on exit, like the threads of an
+ * {@link io.netty.channel.EventLoop}, pool instances. The number of pooled instances per thread and configuration
+ * can be changed with {@code -Dio.netty.jdkZlib.maxPooledDeflatersPerThread} and
+ * {@code -Dio.netty.jdkZlib.maxPooledInflatersPerThread}, {@code 0} disables pooling.
+ */
+public final class JdkZlibPool {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibPool.class);
+
+    private static final int DEFAULT_MAX_POOLED_PER_THREAD = 8;
+    private static final int MAX_POOLED_DEFLATERS;
+    private static final int MAX_POOLED_INFLATERS;
+
+    // Estimated with the defaults of the JDK (windowBits = 15, memLevel = 8), see zlib's zconf.h.
+    static final int DEFLATER_NATIVE_MEMORY = (256 + 6) * 1024;
+    static final int INFLATER_NATIVE_MEMORY = (32 + 7) * 1024;
+
+    private static final LongCounter HITS = PlatformDependent.newLongCounter();
+    private static final LongCounter MISSES = PlatformDependent.newLongCounter();
+    private static final LongCounter POOLED_DEFLATERS = PlatformDependent.newLongCounter();
+    private static final LongCounter POOLED_INFLATERS = PlatformDependent.newLongCounter();
+
+    private static final JdkZlibPoolMetric METRIC = new JdkZlibPoolMetric();
+
+    private static final FastThreadLocal<Pools> POOLS = new FastThreadLocal<Pools>() {
+        @Override
+        protected Pools initialValue() {
+            return new Pools();
+        }
+
+        @Override
+        protected void onRemoval(Pools pools) {
+            pools.end();
+        }
+    };
+
+    static {
+        MAX_POOLED_DEFLATERS = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.jdkZlib.maxPooledDeflatersPerThread", DEFAULT_MAX_POOLED_PER_THREAD));
+        MAX_POOLED_INFLATERS = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.jdkZlib.maxPooledInflatersPerThread", DEFAULT_MAX_POOLED_PER_THREAD));
+        logger.debug("-Dio.netty.jdkZlib.maxPooledDeflatersPerThread: {}", MAX_POOLED_DEFLATERS);
+        logger.debug("-Dio.netty.jdkZlib.maxPooledInflatersPerThread: {}", MAX_POOLED_INFLATERS);
+    }
+
+    private JdkZlibPool() { }
+
+    /**
+     * Returns the metric of the pools of all threads.
+     */
+    public static JdkZlibPoolMetric metric() {
+        return METRIC;
+    }
+
+    static Deflater borrowDeflater(int level, boolean nowrap) {
+        Pools pools = pools();
+        if (pools != null) {
+            Deflater deflater = pools.deflaters(level, nowrap).poll();
+            if (deflater != null) {
+                HITS.increment();
+                POOLED_DEFLATERS.decrement();
+                return deflater;
+            }
+        }
+        MISSES.increment();
+        return new Deflater(level, nowrap);
+    }
+
+    /**
+     * Returns a {@link Deflater} which was created by {@link #borrowDeflater(int, boolean)} with the same arguments.
+     * The {@link Deflater} must not be used anymore afterwards.
+     */
+    static void releaseDeflater(Deflater deflater, int level, boolean nowrap) {
+        Pools pools = pools();
+        if (pools != null) {
+            ArrayDeque<Deflater> deflaters = pools.deflaters(level, nowrap);
+            if (deflaters.size() < MAX_POOLED_DEFLATERS) {
+                deflater.reset();
+                deflaters.add(deflater);
+                POOLED_DEFLATERS.increment();
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    static Inflater borrowInflater(boolean nowrap) {
+        Pools pools = pools();
+        if (pools != null) {
+            Inflater inflater = pools.inflaters(nowrap).poll();
+            if (inflater != null) {
+                HITS.increment();
+                POOLED_INFLATERS.decrement();
+                return inflater;
+            }
+        }
+        MISSES.increment();
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Returns an {@link Inflater} which was created by {@link #borrowInflater(boolean)} with the same argument.
+     * The {@link Inflater} must not be used anymore afterwards.
+     */
+    static void releaseInflater(Inflater inflater, boolean nowrap) {
+        Pools pools = pools();
+        if (pools != null) {
+            ArrayDeque<Inflater> inflaters = pools.inflaters(nowrap);
+            if (inflaters.size() < MAX_POOLED_INFLATERS) {
+                inflater.reset();
+                inflaters.add(inflater);
+                POOLED_INFLATERS.increment();
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    private static Pools pools() {
+        // Only pool on threads which will end the pooled instances once they terminate.
+        return FastThreadLocalThread.willCleanupFastThreadLocals(Thread.currentThread()) ? POOLS.get() : null;
+    }
+
+    static long hits() {
+        return HITS.value();
+    }
+
+    static long misses() {
+        return MISSES.value();
+    }
+
+    static long pooledDeflaters() {
+        return POOLED_DEFLATERS.value();
+    }
+
+    static long pooledInflaters() {
+        return POOLED_INFLATERS.value();
+    }
+
+    private static final class Pools {
+        // Indexed by compression level, one array for each value of nowrap.
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<Deflater>[][] deflaters = new ArrayDeque[2][10];
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<Inflater>[] inflaters = new ArrayDeque[2];
+
+        ArrayDeque<Deflater> deflaters(int level, boolean nowrap) {
+            ArrayDeque<Deflater>[] byLevel = deflaters[nowrap ? 1 : 0];
+            ArrayDeque<Deflater> pool = byLevel[level];
+            if (pool == null) {
+                pool = byLevel[level] = new ArrayDeque<Deflater>();
+            }
+            return pool;
+        }
+
+        ArrayDeque<Inflater> inflaters(boolean nowrap) {
+            int index = nowrap ? 1 : 0;
+            ArrayDeque<Inflater> pool = inflaters[index];
+            if (pool == null) {
+                pool = inflaters[index] = new ArrayDeque<Inflater>();
+            }
+            return pool;
+        }
+
+        void end() {
+            for (ArrayDeque<Deflater>[] byLevel : deflaters) {
+                for (ArrayDeque<Deflater> pool : byLevel) {
+                    if (pool != null) {
+                        POOLED_DEFLATERS.add(-pool.size());
+                        for (Deflater deflater : pool) {
+                            deflater.end();
+                        }
+                        pool.clear();
+                    }
+                }
+            }
+            for (ArrayDeque<Inflater> pool : inflaters) {
+                if (pool != null) {
+                    POOLED_INFLATERS.add(-pool.size());
+                    for (Inflater inflater : pool) {
+                        inflater.end();
+                    }
+                    pool.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Exposed metric for {@link JdkZlibPool}.
+ */
+public final class JdkZlibPoolMetric {
+
+    JdkZlibPoolMetric() { }
+
+    /**
+     * Return the number of {@link java.util.zip.Deflater}s and {@link java.util.zip.Inflater}s which were taken from
+     * a pool.
+     */
+    public long hits() {
+        return JdkZlibPool.hits();
+    }
+
+    /**
+     * Return the number of {@link java.util.zip.Deflater}s and {@link java.util.zip.Inflater}s which were created
+     * because no pooled instance was available.
+     */
+    public long misses() {
+        return JdkZlibPool.misses();
+    }
+
+    /**
+     * Return the number of {@link java.util.zip.Deflater}s which are pooled right now.
+     */
+    public long pooledDeflaters() {
+        return JdkZlibPool.pooledDeflaters();
+    }
+
+    /**
+     * Return the number of {@link java.util.zip.Inflater}s which are pooled right now.
+     */
+    public long pooledInflaters() {
+        return JdkZlibPool.pooledInflaters();
+    }
+
+    /**
+     * Return an estimate of the native memory which is held by the pooled instances.
+     */
+    public long pooledNativeMemory() {
+        return pooledDeflaters() * JdkZlibPool.DEFLATER_NATIVE_MEMORY +
+                pooledInflaters() * JdkZlibPool.INFLATER_NATIVE_MEMORY;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(StringUtil.simpleClassName(this))
+                .append("(hits: ").append(hits())
+                .append("; misses: ").append(misses())
+                .append("; pooledDeflaters: ").append(pooledDeflaters())
+                .append("; pooledInflaters: ").append(pooledInflaters())
+                .append("; pooledNativeMemory: ").append(pooledNativeMemory()).append(')');
+        return sb.toString();
+    }
+}
@@ -17,6 +17,7 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -27,6 +28,7 @@ import io.netty.channel.ChannelPromiseNotifier;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.internal.ObjectUtil;
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Exception;
@@ -34,6 +36,7 @@ import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.xxhash.XXHashFactory;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.Checksum;
 
@@ -101,6 +104,12 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private final int maxEncodeSize;
 
+    /**
+     * Compresses the blocks on another {@link EventExecutorGroup}, or {@code null} if they are compressed by the
+     * {@link EventExecutor} of the handler.
+     */
+    private final ParallelBlockCompressor<ByteBuf> parallelCompressor;
+
     /**
      * Indicates if the compressed stream has been finished.
      */
@@ -164,6 +173,35 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
          */
     public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize,
                            Checksum checksum, int maxEncodeSize) {
+        this(factory, highCompressor, blockSize, checksum, maxEncodeSize, null, 0);
+    }
+
+    /**
+     * Creates a new customizable LZ4 encoder which compresses blocks in parallel on the given
+     * {@link EventExecutorGroup}, so a single large stream is not limited to the throughput of its
+     * {@link EventExecutor}. The blocks are written in order. The checksum of each block is still calculated by the
+     * {@link EventExecutor} of the handler as the given {@link Checksum} is not thread-safe.
+     *
+     * @param factory           user customizable {@link LZ4Factory} instance
+     *                          which may be JNI bindings to the original C implementation, a pure Java implementation
+     *                          or a Java implementation that uses the {@link sun.misc.Unsafe}
+     * @param highCompressor    if {@code true} codec will use compressor which requires more memory
+     *                          and is slower but compresses more efficiently
+     * @param blockSize         the maximum number of bytes to try to compress at once,
+     *                          must be >= 64 and <= 32 M
+     * @param checksum          the {@link Checksum} instance to use to check data for integrity
+     * @param executorGroup     the {@link EventExecutorGroup} which compresses the blocks
+     * @param maxPendingBlocks  the maximum number of blocks which are compressed at the same time. Once reached,
+     *                          further blocks are compressed by the {@link EventExecutor} of the handler.
+     */
+    public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize, Checksum checksum,
+                           EventExecutorGroup executorGroup, int maxPendingBlocks) {
+        this(factory, highCompressor, blockSize, checksum, DEFAULT_MAX_ENCODE_SIZE,
+                ObjectUtil.checkNotNull(executorGroup, "executorGroup"), maxPendingBlocks);
+    }
+
+    private Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize, Checksum checksum,
+                            int maxEncodeSize, EventExecutorGroup executorGroup, int maxPendingBlocks) {
         if (factory == null) {
             throw new NullPointerException("factory");
         }
@@ -178,6 +216,16 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         this.blockSize = blockSize;
         this.maxEncodeSize = ObjectUtil.checkPositive(maxEncodeSize, "maxEncodeSize");
         finished = false;
+        if (executorGroup == null) {
+            parallelCompressor = null;
+        } else {
+            parallelCompressor = new ParallelBlockCompressor<ByteBuf>(executorGroup, maxPendingBlocks) {
+                @Override
+                protected ByteBuf output(ChannelHandlerContext ctx, ByteBuf result) {
+                    return result;
+                }
+            };
+        }
     }
 
     /**
@@ -265,14 +313,25 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
     }
 
     private void flushBufferedData(ByteBuf out) {
-        int flushableBytes = buffer.readableBytes();
-        if (flushableBytes == 0) {
+        if (!buffer.isReadable()) {
             return;
         }
+        compressBlock(buffer, checksum(buffer), out);
+        buffer.clear();
+    }
+
+    private int checksum(ByteBuf block) {
         checksum.reset();
-        checksum.update(buffer, buffer.readerIndex(), flushableBytes);
-        final int check = (int) checksum.getValue();
+        checksum.update(block, block.readerIndex(), block.readableBytes());
+        return (int) checksum.getValue();
+    }
 
+    /**
+     * Compresses the readable bytes of the {@code block} and writes them to {@code out}. This may be called by any
+     * {@link Thread}, as the {@link #compressor} is thread-safe.
+     */
+    private void compressBlock(ByteBuf block, int check, ByteBuf out) {
+        final int flushableBytes = block.readableBytes();
         final int bufSize = compressor.maxCompressedLength(flushableBytes) + HEADER_LENGTH;
         out.ensureWritable(bufSize);
         final int idx = out.writerIndex();
@@ -281,7 +340,7 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
             ByteBuffer outNioBuffer = out.internalNioBuffer(idx + HEADER_LENGTH, out.writableBytes() - HEADER_LENGTH);
             int pos = outNioBuffer.position();
             // We always want to start at position 0 as we take care of reusing the buffer in the encode(...) loop.
-            compressor.compress(buffer.internalNioBuffer(buffer.readerIndex(), flushableBytes), outNioBuffer);
+            compressor.compress(block.internalNioBuffer(block.readerIndex(), flushableBytes), outNioBuffer);
             compressedLength = outNioBuffer.position() - pos;
         } catch (LZ4Exception e) {
             throw new CompressionException(e);
@@ -290,7 +349,7 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         if (compressedLength >= flushableBytes) {
             blockType = BLOCK_TYPE_NON_COMPRESSED;
             compressedLength = flushableBytes;
-            out.setBytes(idx + HEADER_LENGTH, buffer, 0, flushableBytes);
+            out.setBytes(idx + HEADER_LENGTH, block, block.readerIndex(), flushableBytes);
         } else {
             blockType = BLOCK_TYPE_COMPRESSED;
         }
@@ -301,11 +360,81 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         out.setIntLE(idx + DECOMPRESSED_LENGTH_OFFSET, flushableBytes);
         out.setIntLE(idx + CHECKSUM_OFFSET, check);
         out.writerIndex(idx + HEADER_LENGTH + compressedLength);
-        buffer.clear();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (parallelCompressor == null || !acceptOutboundMessage(msg)) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        ByteBuf in = (ByteBuf) msg;
+        try {
+            if (finished) {
+                // Must be written after the blocks which are still compressed.
+                parallelCompressor.add(ctx, in.retain());
+            } else {
+                encodeParallel(ctx, in);
+            }
+        } catch (EncoderException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EncoderException(e);
+        } finally {
+            in.release();
+        }
+        parallelCompressor.addPromise(ctx, promise);
+    }
+
+    private void encodeParallel(ChannelHandlerContext ctx, ByteBuf in) {
+        while (in.isReadable()) {
+            ByteBuf buffer = this.buffer;
+            in.readBytes(buffer, Math.min(in.readableBytes(), buffer.writableBytes()));
+            if (!buffer.isWritable()) {
+                submitBufferedData(ctx);
+            }
+        }
+    }
+
+    /**
+     * Hands the buffered data over to the {@link #parallelCompressor} and starts a new block.
+     */
+    private void submitBufferedData(ChannelHandlerContext ctx) {
+        final ByteBuf block = buffer;
+        if (!block.isReadable()) {
+            return;
+        }
+        final int check = checksum(block);
+        final ByteBufAllocator alloc = ctx.alloc();
+        final boolean preferDirect = isPreferDirect();
+        buffer = alloc.heapBuffer(blockSize, blockSize);
+        parallelCompressor.submit(ctx, new Callable<ByteBuf>() {
+            @Override
+            public ByteBuf call() {
+                final int bufSize = compressor.maxCompressedLength(block.readableBytes()) + HEADER_LENGTH;
+                ByteBuf out = preferDirect ? alloc.ioBuffer(bufSize, bufSize) : alloc.heapBuffer(bufSize, bufSize);
+                try {
+                    compressBlock(block, check, out);
+                    return out;
+                } catch (RuntimeException e) {
+                    out.release();
+                    throw e;
+                } finally {
+                    block.release();
+                }
+            }
+        });
     }
 
     @Override
     public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            if (!finished) {
+                submitBufferedData(ctx);
+            }
+            parallelCompressor.flush(ctx);
+            return;
+        }
         if (buffer != null && buffer.isReadable()) {
             final ByteBuf buf = allocateBuffer(ctx, Unpooled.EMPTY_BUFFER, isPreferDirect(), false);
             flushBufferedData(buf);
@@ -321,10 +450,25 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         }
         finished = true;
 
+        if (parallelCompressor != null) {
+            submitBufferedData(ctx);
+            final ByteBuf footer = ctx.alloc().heapBuffer(HEADER_LENGTH);
+            writeFooter(footer);
+            parallelCompressor.add(ctx, footer);
+            parallelCompressor.addPromise(ctx, promise);
+            parallelCompressor.flush(ctx);
+            return promise;
+        }
+
         final ByteBuf footer = ctx.alloc().heapBuffer(
                 compressor.maxCompressedLength(buffer.readableBytes()) + HEADER_LENGTH);
         flushBufferedData(footer);
+        writeFooter(footer);
+
+        return ctx.writeAndFlush(footer, promise);
+    }
 
+    private void writeFooter(ByteBuf footer) {
         final int idx = footer.writerIndex();
         footer.setLong(idx, MAGIC_NUMBER);
         footer.setByte(idx + TOKEN_OFFSET, (byte) (BLOCK_TYPE_NON_COMPRESSED | compressionLevel));
@@ -333,8 +477,6 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         footer.setInt(idx + CHECKSUM_OFFSET, 0);
 
         footer.writerIndex(idx + HEADER_LENGTH);
-
-        return ctx.writeAndFlush(footer, promise);
     }
 
     /**
@@ -415,6 +557,9 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved(ctx);
+        if (parallelCompressor != null) {
+            parallelCompressor.release();
+        }
         if (buffer != null) {
             buffer.release();
             buffer = null;
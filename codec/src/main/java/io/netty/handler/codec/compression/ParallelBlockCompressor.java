@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.internal.ObjectUtil;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+
+/**
+ * Compresses independent blocks of a stream on the {@link EventExecutor}s of an {@link EventExecutorGroup} and writes
+ * the results in the order in which they were submitted.
+ * <p>
+ * At most {@code maxPendingBlocks} blocks are compressed or waiting to be written at the same time. Once this limit is
+ * reached further blocks are compressed by the calling {@link EventExecutor} itself, which slows down the producer
+ * until the {@link EventExecutorGroup} caught up.
+ * <p>
+ * All methods must be called from the {@link EventExecutor} of the {@link ChannelHandlerContext}.
+ *
+ * @param <R> the type of the result of a compressed block
+ */
+abstract class ParallelBlockCompressor<R> {
+
+    private final ArrayDeque<Entry<R>> pending = new ArrayDeque<Entry<R>>();
+    private final EventExecutorGroup executorGroup;
+    private final int maxPendingBlocks;
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            writeCompleted();
+        }
+    };
+    private final FutureListener<R> completionListener = new FutureListener<R>() {
+        @Override
+        public void operationComplete(Future<R> future) {
+            EventExecutor executor = ctx.executor();
+            if (executor.inEventLoop()) {
+                writeCompleted();
+            } else {
+                executor.execute(writeTask);
+            }
+        }
+    };
+
+    private ChannelHandlerContext ctx;
+    private int pendingBlocks;
+
+    ParallelBlockCompressor(EventExecutorGroup executorGroup, int maxPendingBlocks) {
+        this.executorGroup = ObjectUtil.checkNotNull(executorGroup, "executorGroup");
+        this.maxPendingBlocks = ObjectUtil.checkPositive(maxPendingBlocks, "maxPendingBlocks");
+    }
+
+    /**
+     * Converts the result of a compressed block into the {@link ByteBuf} that is written. This is called in the order
+     * in which the blocks were submitted.
+     */
+    protected abstract ByteBuf output(ChannelHandlerContext ctx, R result);
+
+    /**
+     * Submits the compression of a block. The {@code task} takes the ownership of the block.
+     */
+    void submit(ChannelHandlerContext ctx, Callable<R> task) {
+        this.ctx = ctx;
+        if (pendingBlocks >= maxPendingBlocks) {
+            // Back-pressure: do the work ourselves until the EventExecutorGroup caught up.
+            R result;
+            try {
+                result = task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompressionException(e);
+            }
+            add(ctx, result);
+            return;
+        }
+        Future<R> future = executorGroup.next().submit(task);
+        pendingBlocks++;
+        pending.add(new Entry<R>(future, true));
+        future.addListener(completionListener);
+    }
+
+    /**
+     * Adds a result that is written once all previously submitted blocks were written.
+     */
+    void add(ChannelHandlerContext ctx, R result) {
+        this.ctx = ctx;
+        pending.add(new Entry<R>(ImmediateEventExecutor.INSTANCE.newSucceededFuture(result), false));
+        writeCompleted();
+    }
+
+    /**
+     * Notifies the {@link ChannelPromise} once all previously submitted blocks were written.
+     */
+    void addPromise(ChannelHandlerContext ctx, ChannelPromise promise) {
+        Entry<R> tail = pending.peekLast();
+        if (tail == null) {
+            ctx.write(Unpooled.EMPTY_BUFFER, promise);
+        } else if (!promise.isVoid()) {
+            if (tail.promise == null) {
+                tail.promise = promise;
+            } else {
+                tail.promise.addListener(new ChannelPromiseNotifier(promise));
+            }
+        }
+    }
+
+    /**
+     * Flushes once all previously submitted blocks were written.
+     */
+    void flush(ChannelHandlerContext ctx) {
+        Entry<R> tail = pending.peekLast();
+        if (tail == null) {
+            ctx.flush();
+        } else {
+            tail.flush = true;
+        }
+    }
+
+    /**
+     * Returns the number of blocks which were submitted but not written yet.
+     */
+    int pendingBlocks() {
+        return pendingBlocks;
+    }
+
+    private void writeCompleted() {
+        ChannelHandlerContext ctx = this.ctx;
+        boolean flush = false;
+        for (;;) {
+            Entry<R> entry = pending.peek();
+            if (entry == null || !entry.future.isDone()) {
+                break;
+            }
+            pending.poll();
+            if (entry.block) {
+                pendingBlocks--;
+            }
+            flush |= entry.flush;
+
+            ByteBuf buf;
+            if (entry.future.isSuccess()) {
+                try {
+                    buf = output(ctx, entry.future.getNow());
+                } catch (Throwable cause) {
+                    failed(ctx, entry, cause);
+                    continue;
+                }
+            } else {
+                failed(ctx, entry, entry.future.cause());
+                continue;
+            }
+            if (entry.promise == null) {
+                ctx.write(buf, ctx.voidPromise());
+            } else {
+                ctx.write(buf, entry.promise);
+            }
+        }
+        if (flush) {
+            ctx.flush();
+        }
+    }
+
+    private static void failed(ChannelHandlerContext ctx, Entry<?> entry, Throwable cause) {
+        CompressionException e = cause instanceof CompressionException ?
+                (CompressionException) cause : new CompressionException(cause);
+        if (entry.promise != null) {
+            entry.promise.tryFailure(e);
+        }
+        ctx.fireExceptionCaught(e);
+    }
+
+    /**
+     * Releases all blocks which were not written yet and fails their {@link ChannelPromise}s.
+     */
+    void release() {
+        for (;;) {
+            Entry<R> entry = pending.poll();
+            if (entry == null) {
+                break;
+            }
+            entry.future.addListener(new GenericFutureListener<Future<R>>() {
+                @Override
+                public void operationComplete(Future<R> future) {
+                    if (future.isSuccess()) {
+                        ReferenceCountUtil.release(future.getNow());
+                    }
+                }
+            });
+            if (entry.promise != null) {
+                entry.promise.tryFailure(new CompressionException("encoder removed before the block was written"));
+            }
+        }
+        pendingBlocks = 0;
+    }
+
+    private static final class Entry<R> {
+        final Future<R> future;
+        final boolean block;
+        ChannelPromise promise;
+        boolean flush;
+
+        Entry(Future<R> future, boolean block) {
+            this.future = future;
+            this.block = block;
+        }
+    }
+}
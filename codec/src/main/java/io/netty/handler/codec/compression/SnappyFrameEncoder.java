@@ -16,8 +16,17 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.internal.ObjectUtil;
+
+import java.util.concurrent.Callable;
 
 import static io.netty.handler.codec.compression.Snappy.*;
 
@@ -45,6 +54,127 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
     private final Snappy snappy = new Snappy();
     private boolean started;
 
+    /**
+     * Compresses the blocks on another {@link EventExecutorGroup}, or {@code null} if each written {@link ByteBuf} is
+     * compressed by the {@link EventExecutor} of the handler.
+     */
+    private final ParallelBlockCompressor<ByteBuf> parallelCompressor;
+    private final int blockSize;
+    private ByteBuf buffer;
+
+    /**
+     * Creates a new encoder which compresses each written {@link ByteBuf} right away.
+     */
+    public SnappyFrameEncoder() {
+        parallelCompressor = null;
+        blockSize = 0;
+    }
+
+    /**
+     * Creates a new encoder which buffers the written data into blocks of {@code blockSize} bytes and compresses
+     * them in parallel on the given {@link EventExecutorGroup}, so a single large stream is not limited to the
+     * throughput of its {@link EventExecutor}. The blocks are written in order, a partial block is compressed once the
+     * handler is flushed.
+     *
+     * @param executorGroup     the {@link EventExecutorGroup} which compresses the blocks
+     * @param blockSize         the number of bytes which are compressed by a single task
+     * @param maxPendingBlocks  the maximum number of blocks which are compressed at the same time. Once reached,
+     *                          further blocks are compressed by the {@link EventExecutor} of the handler.
+     */
+    public SnappyFrameEncoder(EventExecutorGroup executorGroup, int blockSize, int maxPendingBlocks) {
+        this.blockSize = ObjectUtil.checkPositive(blockSize, "blockSize");
+        parallelCompressor = new ParallelBlockCompressor<ByteBuf>(executorGroup, maxPendingBlocks) {
+            @Override
+            protected ByteBuf output(ChannelHandlerContext ctx, ByteBuf result) {
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (parallelCompressor == null || !acceptOutboundMessage(msg)) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        ByteBuf in = (ByteBuf) msg;
+        try {
+            if (!started && in.isReadable()) {
+                started = true;
+                parallelCompressor.add(ctx, Unpooled.wrappedBuffer(STREAM_START));
+            }
+            while (in.isReadable()) {
+                if (buffer == null) {
+                    buffer = ctx.alloc().heapBuffer(blockSize, blockSize);
+                }
+                in.readBytes(buffer, Math.min(in.readableBytes(), buffer.writableBytes()));
+                if (!buffer.isWritable()) {
+                    submitBufferedData(ctx);
+                }
+            }
+        } catch (EncoderException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EncoderException(e);
+        } finally {
+            in.release();
+        }
+        parallelCompressor.addPromise(ctx, promise);
+    }
+
+    /**
+     * Hands the buffered data over to the {@link #parallelCompressor}.
+     */
+    private void submitBufferedData(ChannelHandlerContext ctx) {
+        final ByteBuf block = buffer;
+        if (block == null) {
+            return;
+        }
+        buffer = null;
+        final ByteBufAllocator alloc = ctx.alloc();
+        final boolean preferDirect = isPreferDirect();
+        parallelCompressor.submit(ctx, new Callable<ByteBuf>() {
+            @Override
+            public ByteBuf call() {
+                // The output is usually smaller than the block, it grows if needed.
+                int initialCapacity = block.readableBytes();
+                ByteBuf out = preferDirect ? alloc.ioBuffer(initialCapacity) : alloc.heapBuffer(initialCapacity);
+                try {
+                    // The Snappy instance of the handler is only used for encoding, which does not change its state.
+                    encodeChunks(snappy, block, out);
+                    return out;
+                } catch (RuntimeException e) {
+                    out.release();
+                    throw e;
+                } finally {
+                    block.release();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor == null) {
+            super.flush(ctx);
+            return;
+        }
+        submitBufferedData(ctx);
+        parallelCompressor.flush(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            parallelCompressor.release();
+        }
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+        super.handlerRemoved(ctx);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
         if (!in.isReadable()) {
@@ -56,6 +186,10 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
             out.writeBytes(STREAM_START);
         }
 
+        encodeChunks(snappy, in, out);
+    }
+
+    private static void encodeChunks(Snappy snappy, ByteBuf in, ByteBuf out) {
         int dataLength = in.readableBytes();
         if (dataLength > MIN_COMPRESSIBLE_LENGTH) {
             for (;;) {
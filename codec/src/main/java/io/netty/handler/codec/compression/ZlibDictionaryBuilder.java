@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.ObjectUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a preset dictionary for {@link JdkZlibEncoder} and {@link JdkZlibDecoder} from samples of the messages which
+ * will be compressed.
+ * <p>
+ * The dictionary is made of the segments of the samples which contain the most substrings that are common to many
+ * samples. The segments are picked from all parts of the samples, and the most valuable ones are placed at the end of
+ * the dictionary where zlib can reference them with the shortest distances.
+ * <p>
+ * Samples should be representative of the messages, and there should be many more of them than fit into the
+ * dictionary. This class is not thread-safe.
+ */
+public final class ZlibDictionaryBuilder {
+
+    /**
+     * The size of the sliding window of deflate, a bigger dictionary would not be used completely.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    // The length of the substrings which are counted, in the order of the minimum match length of deflate.
+    private static final int DMER_SIZE = 8;
+    private static final int SEGMENT_SIZE = 64;
+
+    private final int maxSize;
+    private final List<byte[]> samples = new ArrayList<byte[]>();
+    private int totalSize;
+
+    /**
+     * Creates a new builder for dictionaries of at most {@link #MAX_DICTIONARY_SIZE} bytes.
+     */
+    public ZlibDictionaryBuilder() {
+        this(MAX_DICTIONARY_SIZE);
+    }
+
+    /**
+     * Creates a new builder for dictionaries of at most {@code maxSize} bytes.
+     */
+    public ZlibDictionaryBuilder(int maxSize) {
+        if (maxSize <= 0 || maxSize > MAX_DICTIONARY_SIZE) {
+            throw new IllegalArgumentException(
+                    "maxSize: " + maxSize + " (expected: 1-" + MAX_DICTIONARY_SIZE + ')');
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds the readable bytes of the given {@link ByteBuf} as a sample. Neither the indexes nor the reference count of
+     * the {@link ByteBuf} are modified.
+     */
+    public ZlibDictionaryBuilder addSample(ByteBuf sample) {
+        ObjectUtil.checkNotNull(sample, "sample");
+        if (sample.isReadable()) {
+            if (totalSize + sample.readableBytes() < 0) {
+                throw new IllegalStateException("too many samples");
+            }
+            samples.add(ByteBufUtil.getBytes(sample));
+            totalSize += sample.readableBytes();
+        }
+        return this;
+    }
+
+    /**
+     * Builds the dictionary from all samples which were added so far.
+     */
+    public byte[] build() {
+        if (totalSize < DMER_SIZE) {
+            return EmptyArrays.EMPTY_BYTES;
+        }
+
+        // Lay out all samples one after another and remember where each one ends, so no segment spans two samples.
+        byte[] content = new byte[totalSize];
+        int[] sampleEnds = new int[samples.size()];
+        int offset = 0;
+        for (int i = 0; i < sampleEnds.length; i++) {
+            byte[] sample = samples.get(i);
+            System.arraycopy(sample, 0, content, offset, sample.length);
+            offset += sample.length;
+            sampleEnds[i] = offset;
+        }
+
+        LongObjectHashMap<int[]> frequencies = countSamplesContainingDmers(content, sampleEnds);
+
+        // Pick the best segment of every epoch, so the dictionary covers the content of all samples.
+        int segmentSize = Math.min(SEGMENT_SIZE, maxSize);
+        int epochs = Math.max(1, Math.min(maxSize / segmentSize, totalSize / segmentSize));
+        int epochSize = totalSize / epochs;
+        List<Segment> segments = new ArrayList<Segment>(epochs);
+        LongObjectHashMap<int[]> window = new LongObjectHashMap<int[]>();
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            int epochEnd = epoch == epochs - 1 ? totalSize : (epoch + 1) * epochSize;
+            Segment segment = bestSegment(content, sampleEnds, frequencies, window, epoch * epochSize, epochEnd,
+                    segmentSize);
+            if (segment != null) {
+                // The substrings of the segment are in the dictionary now, prefer other content from now on.
+                for (int i = segment.start; i + DMER_SIZE <= segment.end; i++) {
+                    frequencies.get(dmer(content, i))[0] = 0;
+                }
+                segments.add(segment);
+            }
+        }
+
+        // The most valuable segments go last, as zlib can reference them with the shortest distances.
+        Collections.sort(segments, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment o1, Segment o2) {
+                return o1.score < o2.score ? -1 : o1.score == o2.score ? 0 : 1;
+            }
+        });
+        int size = 0;
+        int first = segments.size();
+        while (first > 0) {
+            Segment segment = segments.get(first - 1);
+            int length = segment.end - segment.start;
+            if (size + length > maxSize) {
+                break;
+            }
+            size += length;
+            first--;
+        }
+        byte[] dictionary = new byte[size];
+        offset = 0;
+        for (int i = first; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            int length = segment.end - segment.start;
+            System.arraycopy(content, segment.start, dictionary, offset, length);
+            offset += length;
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the number of samples which contain each substring of {@link #DMER_SIZE} bytes.
+     */
+    private static LongObjectHashMap<int[]> countSamplesContainingDmers(byte[] content, int[] sampleEnds) {
+        LongObjectHashMap<int[]> frequencies = new LongObjectHashMap<int[]>();
+        int sampleStart = 0;
+        for (int sample = 0; sample < sampleEnds.length; sample++) {
+            int sampleEnd = sampleEnds[sample];
+            for (int i = sampleStart; i + DMER_SIZE <= sampleEnd; i++) {
+                long dmer = dmer(content, i);
+                // [0] is the number of samples, [1] the last sample which was counted.
+                int[] frequency = frequencies.get(dmer);
+                if (frequency == null) {
+                    frequencies.put(dmer, new int[] { 1, sample });
+                } else if (frequency[1] != sample) {
+                    frequency[0]++;
+                    frequency[1] = sample;
+                }
+            }
+            sampleStart = sampleEnd;
+        }
+        return frequencies;
+    }
+
+    /**
+     * Returns the segment of at most {@code segmentSize} bytes within {@code [start, end)} whose distinct substrings
+     * are contained in the most samples, or {@code null} if no substring is contained in more than one sample.
+     */
+    private static Segment bestSegment(byte[] content, int[] sampleEnds, LongObjectHashMap<int[]> frequencies,
+                                       LongObjectHashMap<int[]> window, int start, int end, int segmentSize) {
+        int sample = sampleIndex(sampleEnds, start);
+        long score = 0;
+        int windowStart = start;
+        Segment best = null;
+        window.clear();
+        for (int i = start; i < end; i++) {
+            if (i + DMER_SIZE > sampleEnds[sample]) {
+                // Start over with the next sample.
+                if (i + 1 >= sampleEnds[sample]) {
+                    sample++;
+                }
+                window.clear();
+                score = 0;
+                windowStart = i + 1;
+                continue;
+            }
+
+            long dmer = dmer(content, i);
+            int[] count = window.get(dmer);
+            if (count == null) {
+                window.put(dmer, new int[] { 1 });
+                score += value(frequencies, dmer);
+            } else {
+                count[0]++;
+            }
+
+            if (i + DMER_SIZE - windowStart > segmentSize) {
+                long removed = dmer(content, windowStart);
+                int[] removedCount = window.get(removed);
+                if (--removedCount[0] == 0) {
+                    window.remove(removed);
+                    score -= value(frequencies, removed);
+                }
+                windowStart++;
+            }
+
+            if (score > 0 && (best == null || score > best.score)) {
+                best = new Segment(windowStart, i + DMER_SIZE, score);
+            }
+        }
+        return best;
+    }
+
+    private static int value(LongObjectHashMap<int[]> frequencies, long dmer) {
+        int samples = frequencies.get(dmer)[0];
+        // A substring which is only contained in a single sample is not worth a place in the dictionary.
+        return samples > 1 ? samples : 0;
+    }
+
+    private static int sampleIndex(int[] sampleEnds, int offset) {
+        int low = 0;
+        int high = sampleEnds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sampleEnds[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long dmer(byte[] content, int index) {
+        long dmer = 0;
+        for (int i = 0; i < DMER_SIZE; i++) {
+            dmer = dmer << 8 | content[index + i] & 0xFF;
+        }
+        return dmer;
+    }
+
+    private static final class Segment {
+        final int start;
+        final int end;
+        final long score;
+
+        Segment(int start, int end, long score) {
+            this.start = start;
+            this.end = end;
+            this.score = score;
+        }
+    }
+}
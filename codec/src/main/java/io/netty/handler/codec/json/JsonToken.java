@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * A token of a JSON text as produced by {@link JsonTokenDecoder}.
+ * <p>
+ * The {@link #content()} of {@link Type#FIELD_NAME} and {@link Type#STRING} tokens holds the raw UTF-8 bytes between
+ * the quotes, with escape sequences left as they are, and the one of {@link Type#NUMBER} tokens holds the number as
+ * written. All other tokens have no content. Use {@link #text()} to get the decoded text.
+ */
+public final class JsonToken extends DefaultByteBufHolder {
+
+    /**
+     * The type of a {@link JsonToken}.
+     */
+    public enum Type {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        STRING,
+        NUMBER,
+        TRUE,
+        FALSE,
+        NULL
+    }
+
+    public static final JsonToken START_OBJECT = new JsonToken(Type.START_OBJECT, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken END_OBJECT = new JsonToken(Type.END_OBJECT, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken START_ARRAY = new JsonToken(Type.START_ARRAY, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken END_ARRAY = new JsonToken(Type.END_ARRAY, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken TRUE = new JsonToken(Type.TRUE, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken FALSE = new JsonToken(Type.FALSE, Unpooled.EMPTY_BUFFER);
+    public static final JsonToken NULL = new JsonToken(Type.NULL, Unpooled.EMPTY_BUFFER);
+
+    private final Type type;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param type      the type of the token
+     * @param content   the raw bytes of the token, see {@link JsonToken}
+     */
+    public JsonToken(Type type, ByteBuf content) {
+        super(content);
+        this.type = ObjectUtil.checkNotNull(type, "type");
+    }
+
+    /**
+     * Returns the {@link Type} of this token.
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Returns the text of this token. Escape sequences of {@link Type#FIELD_NAME} and {@link Type#STRING} tokens are
+     * decoded, all other tokens return their JSON representation.
+     */
+    public String text() {
+        switch (type) {
+            case START_OBJECT:
+                return "{";
+            case END_OBJECT:
+                return "}";
+            case START_ARRAY:
+                return "[";
+            case END_ARRAY:
+                return "]";
+            case TRUE:
+                return "true";
+            case FALSE:
+                return "false";
+            case NULL:
+                return "null";
+            case NUMBER:
+                return content().toString(CharsetUtil.US_ASCII);
+            default:
+                return unescape(content().toString(CharsetUtil.UTF_8));
+        }
+    }
+
+    private static String unescape(String raw) {
+        int escape = raw.indexOf('\\');
+        if (escape < 0) {
+            return raw;
+        }
+        StringBuilder buf = new StringBuilder(raw.length());
+        buf.append(raw, 0, escape);
+        for (int i = escape; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                buf.append(c);
+                continue;
+            }
+            if (++i == raw.length()) {
+                throw new CorruptedFrameException("incomplete escape sequence: " + raw);
+            }
+            c = raw.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    buf.append(c);
+                    break;
+                case 'b':
+                    buf.append('\b');
+                    break;
+                case 'f':
+                    buf.append('\f');
+                    break;
+                case 'n':
+                    buf.append('\n');
+                    break;
+                case 'r':
+                    buf.append('\r');
+                    break;
+                case 't':
+                    buf.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= raw.length()) {
+                        throw new CorruptedFrameException("incomplete unicode escape sequence: " + raw);
+                    }
+                    try {
+                        buf.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw new CorruptedFrameException("invalid unicode escape sequence: " + raw, e);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    throw new CorruptedFrameException("invalid escape sequence: \\" + c);
+            }
+        }
+        return buf.toString();
+    }
+
+    @Override
+    public JsonToken copy() {
+        return (JsonToken) super.copy();
+    }
+
+    @Override
+    public JsonToken duplicate() {
+        return (JsonToken) super.duplicate();
+    }
+
+    @Override
+    public JsonToken retainedDuplicate() {
+        return (JsonToken) super.retainedDuplicate();
+    }
+
+    @Override
+    public JsonToken replace(ByteBuf content) {
+        return new JsonToken(type, content);
+    }
+
+    @Override
+    public JsonToken retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public JsonToken retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public JsonToken touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public JsonToken touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JsonToken && type == ((JsonToken) o).type && super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        // Print the raw content, as text() fails on invalid escape sequences.
+        ByteBuf content = content();
+        String raw = content.refCnt() == 0 ? contentToString()
+                : content.isReadable() ? content.toString(CharsetUtil.UTF_8) : text();
+        return StringUtil.simpleClassName(this) + '(' + type + ": " + raw + ')';
+    }
+}
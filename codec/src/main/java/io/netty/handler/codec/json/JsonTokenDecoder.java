@@ -0,0 +1,392 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.ByteProcessor;
+
+import java.util.List;
+
+/**
+ * Splits a byte stream of JSON texts into {@link JsonToken}s and passes each of them up the {@link ChannelPipeline}
+ * as soon as it was fully received.
+ * <p>
+ * Unlike {@link JsonObjectDecoder}, which hands whole objects to the next handler which then parses them again, this
+ * decoder processes the bytes in a single pass and only buffers the bytes of the token it is currently decoding.
+ * So the elements of arrays of unbounded size, or huge objects, can be processed without aggregating them first.
+ * <p>
+ * The structure of the JSON text is validated, the content of strings and numbers is not. The input may consist of
+ * multiple JSON texts, which are optionally separated by whitespace. A number at the top-level is only complete once
+ * it is followed by another character or the input is closed.
+ * <p>
+ * The {@link JsonToken}s of strings, field names and numbers hold a slice of the received bytes, and so must be
+ * released once they were processed.
+ */
+public class JsonTokenDecoder extends ByteToMessageDecoder {
+
+    // What the decoder expects next.
+    private static final byte EXPECT_VALUE = 0;
+    private static final byte EXPECT_VALUE_OR_END_ARRAY = 1;
+    private static final byte EXPECT_FIELD_NAME_OR_END_OBJECT = 2;
+    private static final byte EXPECT_FIELD_NAME = 3;
+    private static final byte EXPECT_COLON = 4;
+    private static final byte EXPECT_COMMA_OR_END = 5;
+
+    // The token which is decoded right now.
+    private static final byte TOKEN_NONE = 0;
+    private static final byte TOKEN_STRING = 1;
+    private static final byte TOKEN_FIELD_NAME = 2;
+    private static final byte TOKEN_NUMBER = 3;
+    private static final byte TOKEN_LITERAL = 4;
+
+    private static final byte[] TRUE_BYTES = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE_BYTES = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL_BYTES = { 'n', 'u', 'l', 'l' };
+
+    private static final ByteProcessor FIND_NON_WHITESPACE = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) {
+            return isWhitespace(value);
+        }
+    };
+
+    private static final ByteProcessor FIND_NON_NUMBER = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) {
+            return isNumberChar(value);
+        }
+    };
+
+    // Stops at the closing quote or at an unescaped control character of a string.
+    private final ByteProcessor findEndOfString = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) {
+            if (escaped) {
+                escaped = false;
+                return true;
+            }
+            if (value == '\\') {
+                escaped = true;
+                return true;
+            }
+            return value != '"' && (value & 0xFF) >= 0x20;
+        }
+    };
+
+    private final int maxDepth;
+    private final int maxTokenLength;
+    // true if the container at the given depth is an object, false if it is an array.
+    private final boolean[] objectStack;
+
+    private int depth;
+    private byte expect = EXPECT_VALUE;
+    private byte token = TOKEN_NONE;
+    // The number of bytes after the readerIndex which belong to the current token and were already scanned.
+    private int tokenLength;
+    private boolean escaped;
+    private JsonToken literal;
+    private boolean corrupted;
+
+    /**
+     * Creates a new instance which allows a nesting depth of {@code 64} and tokens of up to {@code 1 MB}.
+     */
+    public JsonTokenDecoder() {
+        // 1 MB
+        this(64, 1024 * 1024);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxDepth          the maximum number of nested objects and arrays. Deeper nested JSON texts are
+     *                          rejected with a {@link CorruptedFrameException}.
+     * @param maxTokenLength    the maximum number of bytes of a single string, field name or number. Longer tokens
+     *                          are rejected with a {@link TooLongFrameException}.
+     */
+    public JsonTokenDecoder(int maxDepth, int maxTokenLength) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be a positive int");
+        }
+        if (maxTokenLength < 1) {
+            throw new IllegalArgumentException("maxTokenLength must be a positive int");
+        }
+        this.maxDepth = maxDepth;
+        this.maxTokenLength = maxTokenLength;
+        objectStack = new boolean[maxDepth];
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (corrupted) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        try {
+            for (;;) {
+                if (token != TOKEN_NONE) {
+                    if (!decodeToken(in, out)) {
+                        // Need more data.
+                        return;
+                    }
+                    continue;
+                }
+                int idx = in.forEachByte(FIND_NON_WHITESPACE);
+                if (idx < 0) {
+                    in.skipBytes(in.readableBytes());
+                    return;
+                }
+                in.readerIndex(idx);
+                byte c = in.getByte(idx);
+                switch (expect) {
+                    case EXPECT_COLON:
+                        expectByte(c, ':');
+                        in.skipBytes(1);
+                        expect = EXPECT_VALUE;
+                        break;
+                    case EXPECT_COMMA_OR_END:
+                        if (c == ',') {
+                            in.skipBytes(1);
+                            expect = objectStack[depth - 1] ? EXPECT_FIELD_NAME : EXPECT_VALUE;
+                        } else {
+                            endContainer(c, in, out);
+                        }
+                        break;
+                    case EXPECT_FIELD_NAME_OR_END_OBJECT:
+                        if (c == '}') {
+                            endContainer(c, in, out);
+                            break;
+                        }
+                        // fall through
+                    case EXPECT_FIELD_NAME:
+                        expectByte(c, '"');
+                        in.skipBytes(1);
+                        startToken(TOKEN_FIELD_NAME);
+                        break;
+                    case EXPECT_VALUE_OR_END_ARRAY:
+                        if (c == ']') {
+                            endContainer(c, in, out);
+                            break;
+                        }
+                        // fall through
+                    default:
+                        startValue(c, in, out);
+                        break;
+                }
+            }
+        } catch (Exception e) {
+            corrupted = true;
+            in.skipBytes(in.readableBytes());
+            throw e;
+        }
+    }
+
+    @Override
+    protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        super.decodeLast(ctx, in, out);
+        if (corrupted || token == TOKEN_NONE) {
+            return;
+        }
+        if (token == TOKEN_NUMBER && depth == 0) {
+            // A top-level number which is not followed by anything is complete once the input is closed.
+            emit(JsonToken.Type.NUMBER, in, in.readableBytes(), 0, out);
+            return;
+        }
+        corrupted = true;
+        in.skipBytes(in.readableBytes());
+        throw new CorruptedFrameException("input closed before the end of a token");
+    }
+
+    private void startValue(byte c, ByteBuf in, List<Object> out) {
+        switch (c) {
+            case '{':
+                push(true);
+                in.skipBytes(1);
+                out.add(JsonToken.START_OBJECT);
+                expect = EXPECT_FIELD_NAME_OR_END_OBJECT;
+                break;
+            case '[':
+                push(false);
+                in.skipBytes(1);
+                out.add(JsonToken.START_ARRAY);
+                expect = EXPECT_VALUE_OR_END_ARRAY;
+                break;
+            case '"':
+                in.skipBytes(1);
+                startToken(TOKEN_STRING);
+                break;
+            case 't':
+                startLiteral(JsonToken.TRUE);
+                break;
+            case 'f':
+                startLiteral(JsonToken.FALSE);
+                break;
+            case 'n':
+                startLiteral(JsonToken.NULL);
+                break;
+            default:
+                if (c == '-' || c >= '0' && c <= '9') {
+                    startToken(TOKEN_NUMBER);
+                    break;
+                }
+                throw new CorruptedFrameException("unexpected character: '" + (char) c + '\'');
+        }
+    }
+
+    private void startToken(byte token) {
+        this.token = token;
+        tokenLength = 0;
+        escaped = false;
+    }
+
+    private void startLiteral(JsonToken literal) {
+        startToken(TOKEN_LITERAL);
+        this.literal = literal;
+    }
+
+    /**
+     * Decodes the rest of the current token. Returns {@code true} if it was complete.
+     */
+    private boolean decodeToken(ByteBuf in, List<Object> out) {
+        final int start = in.readerIndex();
+        final int end = in.writerIndex();
+        int idx = start + tokenLength;
+        switch (token) {
+            case TOKEN_STRING:
+            case TOKEN_FIELD_NAME:
+                if (idx < end) {
+                    idx = in.forEachByte(idx, end - idx, findEndOfString);
+                    if (idx < 0) {
+                        idx = end;
+                        break;
+                    }
+                    byte c = in.getByte(idx);
+                    if (c != '"') {
+                        throw new CorruptedFrameException("unescaped control character in string: " + c);
+                    }
+                    boolean fieldName = token == TOKEN_FIELD_NAME;
+                    emit(fieldName ? JsonToken.Type.FIELD_NAME : JsonToken.Type.STRING, in, idx - start, 1, out);
+                    if (fieldName) {
+                        expect = EXPECT_COLON;
+                    } else {
+                        valueCompleted();
+                    }
+                    return true;
+                }
+                break;
+            case TOKEN_NUMBER:
+                if (idx < end) {
+                    idx = in.forEachByte(idx, end - idx, FIND_NON_NUMBER);
+                    if (idx < 0) {
+                        idx = end;
+                        break;
+                    }
+                    emit(JsonToken.Type.NUMBER, in, idx - start, 0, out);
+                    valueCompleted();
+                    return true;
+                }
+                break;
+            case TOKEN_LITERAL:
+                byte[] expected = literalBytes(literal);
+                for (; idx < end && idx - start < expected.length; idx++) {
+                    byte c = in.getByte(idx);
+                    if (c != expected[idx - start]) {
+                        throw new CorruptedFrameException("unexpected character: '" + (char) c + '\'');
+                    }
+                }
+                if (idx - start == expected.length) {
+                    in.skipBytes(expected.length);
+                    out.add(literal);
+                    token = TOKEN_NONE;
+                    literal = null;
+                    valueCompleted();
+                    return true;
+                }
+                break;
+            default:
+                throw new Error();
+        }
+        tokenLength = idx - start;
+        checkTokenLength(tokenLength);
+        return false;
+    }
+
+    private void emit(JsonToken.Type type, ByteBuf in, int length, int trailingBytes, List<Object> out) {
+        checkTokenLength(length);
+        out.add(new JsonToken(type, in.readRetainedSlice(length)));
+        in.skipBytes(trailingBytes);
+        token = TOKEN_NONE;
+    }
+
+    private void checkTokenLength(int length) {
+        if (length > maxTokenLength) {
+            throw new TooLongFrameException("token length exceeds " + maxTokenLength + ": " + length);
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == maxDepth) {
+            throw new CorruptedFrameException("nesting depth exceeds " + maxDepth);
+        }
+        objectStack[depth++] = object;
+    }
+
+    private void endContainer(byte c, ByteBuf in, List<Object> out) {
+        if (depth == 0) {
+            throw new CorruptedFrameException("unexpected character: '" + (char) c + '\'');
+        }
+        boolean object = objectStack[depth - 1];
+        if (object ? c != '}' : c != ']') {
+            throw new CorruptedFrameException("unexpected character: '" + (char) c + '\'');
+        }
+        depth--;
+        in.skipBytes(1);
+        out.add(object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
+        valueCompleted();
+    }
+
+    private void valueCompleted() {
+        expect = depth == 0 ? EXPECT_VALUE : EXPECT_COMMA_OR_END;
+    }
+
+    private static void expectByte(byte c, char expected) {
+        if (c != expected) {
+            throw new CorruptedFrameException("expected '" + expected + "' but got: '" + (char) c + '\'');
+        }
+    }
+
+    private static byte[] literalBytes(JsonToken literal) {
+        if (literal == JsonToken.TRUE) {
+            return TRUE_BYTES;
+        }
+        if (literal == JsonToken.FALSE) {
+            return FALSE_BYTES;
+        }
+        return NULL_BYTES;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isNumberChar(byte c) {
+        return c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+}
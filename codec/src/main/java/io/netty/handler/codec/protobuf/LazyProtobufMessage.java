@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.protobuf;
+
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * A <a href="https://github.com/google/protobuf">Google Protocol Buffers</a> message which is only parsed from its
+ * serialized form, the {@link #content()}, once {@link #message()} is called.
+ * <p>
+ * The serialized form stays available after parsing, so the message can still be forwarded as it is. Like any other
+ * {@link io.netty.buffer.ByteBufHolder} it must be released once it is not needed anymore.
+ *
+ * @param <M> the type of the message
+ * @see ProtobufDecoder#ProtobufDecoder(MessageLite, ExtensionRegistryLite, boolean)
+ */
+public final class LazyProtobufMessage<M extends MessageLite> extends DefaultByteBufHolder {
+
+    private final M prototype;
+    private final ExtensionRegistryLite extensionRegistry;
+    private volatile M message;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param content            the serialized message
+     * @param prototype          an instance of the type of the message
+     * @param extensionRegistry  the extensions to parse or {@code null}
+     */
+    public LazyProtobufMessage(ByteBuf content, M prototype, ExtensionRegistryLite extensionRegistry) {
+        super(content);
+        this.prototype = ObjectUtil.checkNotNull(prototype, "prototype");
+        this.extensionRegistry = extensionRegistry;
+    }
+
+    private LazyProtobufMessage(ByteBuf content, M prototype, ExtensionRegistryLite extensionRegistry, M message) {
+        this(content, prototype, extensionRegistry);
+        this.message = message;
+    }
+
+    /**
+     * Returns the message, which is parsed from the {@link #content()} on the first call.
+     *
+     * @throws InvalidProtocolBufferException if the {@link #content()} is not a valid message
+     */
+    @SuppressWarnings("unchecked")
+    public M message() throws InvalidProtocolBufferException {
+        M message = this.message;
+        if (message == null) {
+            // Parsing twice from different threads is harmless, as the result is the same immutable message.
+            message = (M) ProtobufDecoder.parse(prototype, extensionRegistry, content());
+            this.message = message;
+        }
+        return message;
+    }
+
+    /**
+     * Returns {@code true} if {@link #message()} was parsed already.
+     */
+    public boolean isParsed() {
+        return message != null;
+    }
+
+    @Override
+    public LazyProtobufMessage<M> copy() {
+        return replace(content().copy());
+    }
+
+    @Override
+    public LazyProtobufMessage<M> duplicate() {
+        return replace(content().duplicate());
+    }
+
+    @Override
+    public LazyProtobufMessage<M> retainedDuplicate() {
+        return replace(content().retainedDuplicate());
+    }
+
+    @Override
+    public LazyProtobufMessage<M> replace(ByteBuf content) {
+        return new LazyProtobufMessage<M>(content, prototype, extensionRegistry, message);
+    }
+
+    @Override
+    public LazyProtobufMessage<M> retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public LazyProtobufMessage<M> retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public LazyProtobufMessage<M> touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public LazyProtobufMessage<M> touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(parsed: " + isParsed() + ", " + contentToString() + ')';
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.handler.codec.protobuf;
 
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import io.netty.buffer.ByteBuf;
@@ -27,6 +28,8 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.MathUtil;
 
 import java.util.List;
 
@@ -60,6 +63,9 @@ import java.util.List;
  *     ch.write(res);
  * }
  * </pre>
+ * If the decoder is created with {@code lazy} set to {@code true} a {@link LazyProtobufMessage} is passed on instead,
+ * which keeps the frame and only parses it once {@link LazyProtobufMessage#message()} is called. This saves the
+ * parsing for messages that are only forwarded or dropped.
  */
 @Sharable
 public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
@@ -79,8 +85,18 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
         HAS_PARSER = hasParser;
     }
 
+    // Direct frames up to this size are copied to a byte[] which is reused by the thread.
+    private static final int MAX_CACHED_ARRAY_SIZE = 64 * 1024;
+    private static final FastThreadLocal<byte[]> ARRAY = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[1024];
+        }
+    };
+
     private final MessageLite prototype;
     private final ExtensionRegistryLite extensionRegistry;
+    private final boolean lazy;
 
     /**
      * Creates a new instance.
@@ -94,16 +110,35 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
     }
 
     public ProtobufDecoder(MessageLite prototype, ExtensionRegistryLite extensionRegistry) {
+        this(prototype, extensionRegistry, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param lazy  {@code true} to pass on {@link LazyProtobufMessage}s which are parsed on demand
+     */
+    public ProtobufDecoder(MessageLite prototype, ExtensionRegistryLite extensionRegistry, boolean lazy) {
         if (prototype == null) {
             throw new NullPointerException("prototype");
         }
         this.prototype = prototype.getDefaultInstanceForType();
         this.extensionRegistry = extensionRegistry;
+        this.lazy = lazy;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
             throws Exception {
+        if (lazy) {
+            out.add(new LazyProtobufMessage<MessageLite>(msg.retain(), prototype, extensionRegistry));
+        } else {
+            out.add(parse(prototype, extensionRegistry, msg));
+        }
+    }
+
+    static MessageLite parse(MessageLite prototype, ExtensionRegistryLite extensionRegistry, ByteBuf msg)
+            throws InvalidProtocolBufferException {
         final byte[] array;
         final int offset;
         final int length = msg.readableBytes();
@@ -111,25 +146,35 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
             array = msg.array();
             offset = msg.arrayOffset() + msg.readerIndex();
         } else {
-            array = new byte[length];
+            // The parsed message does not reference the array as aliasing is not enabled, so it can be reused.
+            array = length <= MAX_CACHED_ARRAY_SIZE ? array(length) : new byte[length];
             msg.getBytes(msg.readerIndex(), array, 0, length);
             offset = 0;
         }
 
         if (extensionRegistry == null) {
             if (HAS_PARSER) {
-                out.add(prototype.getParserForType().parseFrom(array, offset, length));
+                return prototype.getParserForType().parseFrom(array, offset, length);
             } else {
-                out.add(prototype.newBuilderForType().mergeFrom(array, offset, length).build());
+                return prototype.newBuilderForType().mergeFrom(array, offset, length).build();
             }
         } else {
             if (HAS_PARSER) {
-                out.add(prototype.getParserForType().parseFrom(
-                        array, offset, length, extensionRegistry));
+                return prototype.getParserForType().parseFrom(
+                        array, offset, length, extensionRegistry);
             } else {
-                out.add(prototype.newBuilderForType().mergeFrom(
-                        array, offset, length, extensionRegistry).build());
+                return prototype.newBuilderForType().mergeFrom(
+                        array, offset, length, extensionRegistry).build();
             }
         }
     }
+
+    private static byte[] array(int length) {
+        byte[] array = ARRAY.get();
+        if (array.length < length) {
+            array = new byte[MathUtil.findNextPositivePowerOfTwo(length)];
+            ARRAY.set(array);
+        }
+        return array;
+    }
 }
@@ -48,74 +48,66 @@ public class ProtobufVarint32FrameDecoder extends ByteToMessageDecoder {
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out)
             throws Exception {
-        in.markReaderIndex();
-        int preIndex = in.readerIndex();
-        int length = readRawVarint32(in);
-        if (preIndex == in.readerIndex()) {
-            return;
+        final int readerIndex = in.readerIndex();
+        final int readable = in.readableBytes();
+        final int length;
+        final int lengthSize;
+        if (readable >= 4) {
+            // Read the first 4 bytes of the varint at once, the most significant bit of every byte tells if the
+            // varint continues.
+            int word = in.getIntLE(readerIndex);
+            if ((word & 0x80) == 0) {
+                length = word & 0x7F;
+                lengthSize = 1;
+            } else if ((word & 0x8000) == 0) {
+                length = word & 0x7F | (word >> 1) & 0x3F80;
+                lengthSize = 2;
+            } else if ((word & 0x800000) == 0) {
+                length = word & 0x7F | (word >> 1) & 0x3F80 | (word >> 2) & 0x1FC000;
+                lengthSize = 3;
+            } else if (word < 0) {
+                if (readable < 5) {
+                    return;
+                }
+                byte last = in.getByte(readerIndex + 4);
+                if (last < 0) {
+                    in.skipBytes(5);
+                    throw new CorruptedFrameException("malformed varint.");
+                }
+                length = word & 0x7F | (word >> 1) & 0x3F80 | (word >> 2) & 0x1FC000 | (word >>> 3) & 0xFE00000 |
+                        last << 28;
+                lengthSize = 5;
+            } else {
+                length = word & 0x7F | (word >> 1) & 0x3F80 | (word >> 2) & 0x1FC000 | (word >>> 3) & 0xFE00000;
+                lengthSize = 4;
+            }
+        } else {
+            int result = 0;
+            int i = 0;
+            for (;;) {
+                if (i == readable) {
+                    return;
+                }
+                byte b = in.getByte(readerIndex + i);
+                result |= (b & 0x7F) << i * 7;
+                i ++;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            length = result;
+            lengthSize = i;
         }
+
         if (length < 0) {
+            in.skipBytes(lengthSize);
             throw new CorruptedFrameException("negative length: " + length);
         }
 
-        if (in.readableBytes() < length) {
-            in.resetReaderIndex();
-        } else {
-            out.add(in.readRetainedSlice(length));
-        }
-    }
-
-    /**
-     * Reads variable length 32bit int from buffer
-     *
-     * @return decoded int if buffers readerIndex has been forwarded else nonsense value
-     */
-    private static int readRawVarint32(ByteBuf buffer) {
-        if (!buffer.isReadable()) {
-            return 0;
-        }
-        buffer.markReaderIndex();
-        byte tmp = buffer.readByte();
-        if (tmp >= 0) {
-            return tmp;
-        } else {
-            int result = tmp & 127;
-            if (!buffer.isReadable()) {
-                buffer.resetReaderIndex();
-                return 0;
-            }
-            if ((tmp = buffer.readByte()) >= 0) {
-                result |= tmp << 7;
-            } else {
-                result |= (tmp & 127) << 7;
-                if (!buffer.isReadable()) {
-                    buffer.resetReaderIndex();
-                    return 0;
-                }
-                if ((tmp = buffer.readByte()) >= 0) {
-                    result |= tmp << 14;
-                } else {
-                    result |= (tmp & 127) << 14;
-                    if (!buffer.isReadable()) {
-                        buffer.resetReaderIndex();
-                        return 0;
-                    }
-                    if ((tmp = buffer.readByte()) >= 0) {
-                        result |= tmp << 21;
-                    } else {
-                        result |= (tmp & 127) << 21;
-                        if (!buffer.isReadable()) {
-                            buffer.resetReaderIndex();
-                            return 0;
-                        }
-                        result |= (tmp = buffer.readByte()) << 28;
-                        if (tmp < 0) {
-                            throw new CorruptedFrameException("malformed varint.");
-                        }
-                    }
-                }
-            }
-            return result;
+        if (readable - lengthSize >= length) {
+            int frameIndex = readerIndex + lengthSize;
+            out.add(in.retainedSlice(frameIndex, length));
+            in.readerIndex(frameIndex + length);
         }
     }
 }
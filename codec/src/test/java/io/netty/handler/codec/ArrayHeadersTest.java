@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.util.HashingStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static io.netty.util.AsciiString.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ArrayHeaders}.
+ */
+public class ArrayHeadersTest {
+
+    // Only a few distinct hash codes, so that most names collide.
+    private static final HashingStrategy<CharSequence> COLLIDING_HASHER = new HashingStrategy<CharSequence>() {
+        @Override
+        public int hashCode(CharSequence obj) {
+            return obj.charAt(obj.length() - 1) & 3;
+        }
+
+        @Override
+        public boolean equals(CharSequence a, CharSequence b) {
+            return a.toString().equals(b.toString());
+        }
+    };
+
+    private static final class TestArrayHeaders extends
+            ArrayHeaders<CharSequence, CharSequence, TestArrayHeaders> {
+        @SuppressWarnings("unchecked")
+        TestArrayHeaders(HashingStrategy<CharSequence> hashingStrategy, int initialCapacity) {
+            super(hashingStrategy, CharSequenceValueConverter.INSTANCE, NameValidator.NOT_NULL, initialCapacity);
+        }
+
+        @Override
+        protected boolean isOrderedFirst(CharSequence name) {
+            return name.charAt(0) == ':';
+        }
+    }
+
+    private static final class TestDefaultHeaders extends
+            DefaultHeaders<CharSequence, CharSequence, TestDefaultHeaders> {
+        TestDefaultHeaders(HashingStrategy<CharSequence> hashingStrategy) {
+            super(hashingStrategy, CharSequenceValueConverter.INSTANCE);
+        }
+    }
+
+    @Test
+    public void testSameAsDefaultHeaders() {
+        testSameAsDefaultHeaders(COLLIDING_HASHER);
+    }
+
+    @Test
+    public void testSameAsDefaultHeadersWithoutCollisions() {
+        @SuppressWarnings("unchecked")
+        HashingStrategy<CharSequence> hasher = HashingStrategy.JAVA_HASHER;
+        testSameAsDefaultHeaders(hasher);
+    }
+
+    private static void testSameAsDefaultHeaders(HashingStrategy<CharSequence> hasher) {
+        Random random = new Random(42);
+        TestArrayHeaders headers = new TestArrayHeaders(hasher, 2);
+        TestDefaultHeaders expected = new TestDefaultHeaders(hasher);
+        for (int i = 0; i < 20000; i++) {
+            CharSequence name = "name" + random.nextInt(24);
+            CharSequence value = "value" + i;
+            switch (random.nextInt(10)) {
+            case 0:
+                assertEquals(expected.getAndRemove(name), headers.getAndRemove(name));
+                break;
+            case 1:
+                expected.set(name, value);
+                headers.set(name, value);
+                break;
+            case 2:
+                if (random.nextInt(100) == 0) {
+                    expected.clear();
+                    headers.clear();
+                }
+                break;
+            default:
+                expected.add(name, value);
+                headers.add(name, value);
+                break;
+            }
+            assertEquals(expected.get(name), headers.get(name));
+            assertEquals(expected.getAll(name), headers.getAll(name));
+            assertEquals(expected.contains(name, value), headers.contains(name, value));
+            List<CharSequence> values = new ArrayList<CharSequence>();
+            for (Iterator<CharSequence> itr = headers.valueIterator(name); itr.hasNext();) {
+                values.add(itr.next());
+            }
+            assertEquals(expected.getAll(name), values);
+            assertEquals(expected.size(), headers.size());
+            if (i % 100 == 0) {
+                assertSameIterationOrder(expected, headers);
+                assertEquals(expected.names(), headers.names());
+            }
+        }
+    }
+
+    @Test
+    public void testOrderedFirst() {
+        TestArrayHeaders headers = new TestArrayHeaders(COLLIDING_HASHER, 2);
+        headers.add(of("a"), of("1"));
+        headers.add(of(":x"), of("2"));
+        headers.add(of("b"), of("3"));
+        headers.add(of(":y"), of("4"));
+        headers.remove(of(":x"));
+        headers.add(of(":z"), of("5"));
+        headers.add(of(":x"), of("6"));
+
+        assertIterationOrder(headers, ":y", ":z", ":x", "a", "b");
+        assertEquals(of("6"), headers.get(of(":x")));
+
+        headers.remove(of(":y"));
+        headers.remove(of(":z"));
+        headers.remove(of(":x"));
+        headers.add(of(":w"), of("7"));
+        assertIterationOrder(headers, ":w", "a", "b");
+    }
+
+    @Test
+    public void testAddBetweenImplementations() {
+        @SuppressWarnings("unchecked")
+        HashingStrategy<CharSequence> hasher = HashingStrategy.JAVA_HASHER;
+        TestArrayHeaders headers = new TestArrayHeaders(hasher, 2);
+        TestDefaultHeaders defaultHeaders = new TestDefaultHeaders(hasher);
+        for (int i = 0; i < 40; i++) {
+            headers.add(of("name" + i % 7), of("value" + i));
+            defaultHeaders.add(of("name" + i % 7), of("value" + i));
+        }
+        assertSameIterationOrder(defaultHeaders, headers);
+
+        assertSameIterationOrder(defaultHeaders, new TestArrayHeaders(hasher, 2).add(defaultHeaders));
+        assertSameIterationOrder(defaultHeaders, new TestDefaultHeaders(hasher).add(headers));
+        assertSameIterationOrder(defaultHeaders, new TestArrayHeaders(hasher, 2).add(headers));
+        assertSameIterationOrder(defaultHeaders, headers.copy());
+        assertTrue(headers.equals(defaultHeaders));
+        assertTrue(defaultHeaders.equals(headers));
+        assertEquals(defaultHeaders.hashCode(), headers.hashCode());
+    }
+
+    @Test
+    public void testSetValueThroughIterator() {
+        TestArrayHeaders headers = new TestArrayHeaders(COLLIDING_HASHER, 2);
+        headers.add(of("a"), of("1"));
+        headers.add(of("b"), of("2"));
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            entry.setValue(of("3"));
+        }
+        assertEquals(of("3"), headers.get(of("a")));
+        assertEquals(of("3"), headers.get(of("b")));
+        assertFalse(headers.contains(of("a"), of("1")));
+    }
+
+    @Test
+    public void testSetValueAfterModification() {
+        TestArrayHeaders headers = new TestArrayHeaders(COLLIDING_HASHER, 2);
+        CharSequence name = of("a");
+        headers.add(name, of("1"));
+        Entry<CharSequence, CharSequence> entry = headers.iterator().next();
+        // The new header is stored at the index of the removed one.
+        headers.remove(name);
+        headers.add(name, of("2"));
+        entry.setValue(of("3"));
+        assertEquals(of("3"), entry.getValue());
+        assertEquals(of("2"), headers.get(name));
+
+        entry = headers.iterator().next();
+        headers.add(of(":x"), of("4"));
+        entry.setValue(of("5"));
+        assertEquals(of("2"), headers.get(name));
+        assertEquals(of("4"), headers.get(of(":x")));
+    }
+
+    private static void assertIterationOrder(Headers<CharSequence, CharSequence, ?> headers, String... names) {
+        List<String> actual = new ArrayList<String>();
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            actual.add(entry.getKey().toString());
+        }
+        assertEquals(Arrays.asList(names), actual);
+    }
+
+    private static void assertSameIterationOrder(Headers<CharSequence, CharSequence, ?> expected,
+                                                 Headers<CharSequence, CharSequence, ?> actual) {
+        Iterator<Entry<CharSequence, CharSequence>> expectedItr = expected.iterator();
+        Iterator<Entry<CharSequence, CharSequence>> actualItr = actual.iterator();
+        while (expectedItr.hasNext()) {
+            assertTrue(actualItr.hasNext());
+            assertEquals(expectedItr.next(), actualItr.next());
+        }
+        assertFalse(actualItr.hasNext());
+    }
+}
@@ -15,8 +15,13 @@
  */
 package io.netty.handler.codec;
 
+import io.netty.buffer.AbstractByteBufAllocator;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.UnpooledHeapByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -24,12 +29,14 @@ import io.netty.util.internal.PlatformDependent;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ByteToMessageDecoderTest {
@@ -305,4 +312,127 @@ public class ByteToMessageDecoderTest {
         assertFalse(channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { (byte) 2 })));
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testAdaptiveCumulatorCopiesSmallBuffers() {
+        ByteBuf cumulation = Unpooled.buffer(16, 64).writeByte(1);
+        ByteBuf in = Unpooled.wrappedBuffer(new byte[] { 2, 3 });
+        ByteBuf result = ByteToMessageDecoder.ADAPTIVE_CUMULATOR.cumulate(UnpooledByteBufAllocator.DEFAULT,
+                cumulation, in);
+        assertSame(cumulation, result);
+        assertEquals(0, in.refCnt());
+        assertEquals(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3 }), result);
+        result.release();
+    }
+
+    @Test
+    public void testAdaptiveCumulatorComposesLargeBuffers() {
+        ByteBuf cumulation = Unpooled.wrappedBuffer(new byte[128 * 1024]);
+        ByteBuf in = Unpooled.wrappedBuffer(new byte[2048]);
+        ByteBuf result = ByteToMessageDecoder.ADAPTIVE_CUMULATOR.cumulate(UnpooledByteBufAllocator.DEFAULT,
+                cumulation, in);
+        assertTrue(result instanceof CompositeByteBuf);
+        assertEquals(2, ((CompositeByteBuf) result).numComponents());
+        assertEquals(128 * 1024 + 2048, result.readableBytes());
+        // Nothing was copied, the ByteBufs are now owned by the CompositeByteBuf.
+        assertEquals(1, in.refCnt());
+        result.release();
+        assertEquals(0, in.refCnt());
+    }
+
+    @Test
+    public void testAdaptiveCumulatorConsolidatesManyComponents() {
+        ByteBuf cumulation = Unpooled.wrappedBuffer(new byte[128 * 1024]);
+        for (int i = 0; i < 32; i++) {
+            cumulation = ByteToMessageDecoder.ADAPTIVE_CUMULATOR.cumulate(UnpooledByteBufAllocator.DEFAULT,
+                    cumulation, Unpooled.wrappedBuffer(new byte[2048]));
+            if (cumulation instanceof CompositeByteBuf) {
+                assertTrue(((CompositeByteBuf) cumulation).numComponents() <= 16);
+            }
+        }
+        assertEquals(128 * 1024 + 32 * 2048, cumulation.readableBytes());
+        cumulation.release();
+    }
+
+    @Test
+    public void testAdaptiveCumulatorCopiesLargeMessageLinearly() {
+        final int messageSize = 16 * 1024 * 1024;
+        final int readSize = 64 * 1024;
+        final long[] allocated = new long[1];
+        ByteBufAllocator alloc = new AbstractByteBufAllocator(false) {
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                allocated[0] += initialCapacity;
+                return new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+            }
+
+            @Override
+            protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean isDirectBufferPooled() {
+                return false;
+            }
+        };
+        ByteToMessageDecoder decoder = new ByteToMessageDecoder() {
+            @Override
+            protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+                // Consume nothing until the whole message was received.
+                if (in.readableBytes() >= messageSize) {
+                    out.add(in.readRetainedSlice(messageSize));
+                }
+            }
+        };
+        decoder.setCumulator(ByteToMessageDecoder.ADAPTIVE_CUMULATOR);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        channel.config().setAllocator(alloc);
+
+        byte[] read = new byte[readSize];
+        for (int i = 0; i < messageSize / readSize; i++) {
+            channel.writeInbound(Unpooled.wrappedBuffer(read));
+        }
+        ByteBuf message = channel.readInbound();
+        assertEquals(messageSize, message.readableBytes());
+        message.release();
+        assertFalse(channel.finish());
+
+        // Every consolidation copies everything received so far into a new ByteBuf. Their capacity must grow
+        // geometrically, so the bytes copied stay proportional to the message size. Consolidating to the exact size
+        // every few reads allocates more than 7 times the message size here.
+        assertTrue("allocated: " + allocated[0], allocated[0] < 4L * messageSize);
+    }
+
+    @Test
+    public void testAdaptiveCumulatorRandomSplits() {
+        final byte[] bytes = new byte[64 * 1024];
+        Random random = new Random();
+        random.nextBytes(bytes);
+        ByteToMessageDecoder decoder = new ByteToMessageDecoder() {
+            @Override
+            protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+                // Emit fixed size frames, which needs access across component boundaries.
+                if (in.readableBytes() >= 100) {
+                    out.add(in.readRetainedSlice(100));
+                }
+            }
+        };
+        decoder.setCumulator(ByteToMessageDecoder.ADAPTIVE_CUMULATOR);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        for (int i = 0; i < bytes.length;) {
+            int length = Math.min(random.nextInt(4096) + 1, bytes.length - i);
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, i, length));
+            i += length;
+        }
+        channel.finish();
+
+        ByteBuf expected = Unpooled.wrappedBuffer(bytes);
+        ByteBuf frame;
+        while ((frame = channel.readInbound()) != null) {
+            assertEquals(expected.readSlice(100), frame);
+            frame.release();
+        }
+        assertEquals(bytes.length % 100, expected.readableBytes());
+    }
 }
@@ -15,6 +15,7 @@
  */
 package io.netty.handler.codec;
 
+import io.netty.util.AsciiString;
 import org.junit.Test;
 
 import java.util.Date;
@@ -111,4 +112,60 @@ public class DateFormatterTest {
     public void testFormat() {
         assertEquals("Sun, 6 Nov 1994 08:49:37 GMT", format(DATE));
     }
+
+    @Test
+    public void testFormatSameSecond() {
+        assertEquals("Sun, 6 Nov 1994 08:49:37 GMT", format(new Date(TIMESTAMP + 999)));
+        assertEquals("Sun, 6 Nov 1994 08:49:37 GMT", format(DATE));
+        assertEquals("Sun, 6 Nov 1994 08:49:38 GMT", format(new Date(TIMESTAMP + 1000)));
+        assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", format(new Date(-1)));
+        assertEquals("Thu, 1 Jan 1970 00:00:00 GMT", format(new Date(0)));
+    }
+
+    @Test
+    public void testAppend() {
+        StringBuilder sb = new StringBuilder("Expires=");
+        assertSame(sb, append(new Date(TIMESTAMP + 60000), sb));
+        assertEquals("Expires=Sun, 6 Nov 1994 08:50:37 GMT", sb.toString());
+
+        // Appends the formatted value of the same second.
+        format(DATE);
+        sb.setLength(0);
+        assertSame(sb, append(DATE, sb));
+        assertEquals("Sun, 6 Nov 1994 08:49:37 GMT", sb.toString());
+    }
+
+    @Test
+    public void testCurrentHttpDate() {
+        AsciiString date = currentHttpDate(TIMESTAMP);
+        assertEquals(new AsciiString("Sun, 6 Nov 1994 08:49:37 GMT"), date);
+        // Only rendered again once the second changed.
+        assertSame(date, currentHttpDate(TIMESTAMP + 999));
+        assertEquals(new AsciiString("Sun, 6 Nov 1994 08:49:38 GMT"), currentHttpDate(TIMESTAMP + 1000));
+
+        assertNotNull(parseHttpDate(currentHttpDate()));
+    }
+
+    @Test
+    public void testParseSameTextTwice() {
+        Date date = parseHttpDate("Sun, 06 Nov 1994 08:49:37 GMT");
+        assertEquals(DATE, date);
+        Date cached = parseHttpDate(new StringBuilder("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(DATE, cached);
+        // Date is mutable, so each call must return a new instance.
+        assertNotSame(date, cached);
+
+        assertEquals(new Date(TIMESTAMP + 1000), parseHttpDate("Sun, 06 Nov 1994 08:49:38 GMT"));
+        assertNull(parseHttpDate("Sun, 06 Nov 1994 08:49:99 GMT"));
+        assertEquals(DATE, parseHttpDate("Sun, 06 Nov 1994 08:49:37 GMT"));
+    }
+
+    @Test
+    public void testParseRange() {
+        String txt = "Expires=Sun, 06 Nov 1994 08:49:37 GMT; Path=/";
+        assertEquals(DATE, parseHttpDate(txt, 8, 37));
+        assertEquals(DATE, parseHttpDate(txt, 8, 37));
+        // The time is the trailing token of the range.
+        assertNull(parseHttpDate("Sun, 06 Nov 1994 08:49:37", 0, 23));
+    }
 }
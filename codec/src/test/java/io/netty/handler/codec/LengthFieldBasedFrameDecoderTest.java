@@ -83,4 +83,80 @@ public class LengthFieldBasedFrameDecoderTest {
 
         buf.release();
     }
+
+    @Test
+    public void testBatchFrames() {
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(64, 0, 2, 0, 2);
+        decoder.setBatchFrames(true);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        ByteBuf buf = Unpooled.buffer();
+        for (int i = 0; i < 40; i++) {
+            buf.writeShort(i % 4);
+            for (int j = 0; j < i % 4; j++) {
+                buf.writeByte(i);
+            }
+        }
+        // The first half of the next frame.
+        buf.writeShort(4).writeShort(40);
+        Assert.assertTrue(channel.writeInbound(buf));
+
+        FrameBatch batch = channel.readInbound();
+        Assert.assertEquals(40, batch.count());
+        for (int i = 0; i < 40; i++) {
+            ByteBuf frame = batch.frame(i);
+            Assert.assertEquals(i % 4, frame.readableBytes());
+            for (int j = 0; j < i % 4; j++) {
+                Assert.assertEquals(i, frame.getByte(j));
+            }
+        }
+        batch.release();
+        Assert.assertNull(channel.readInbound());
+
+        Assert.assertTrue(channel.writeInbound(Unpooled.buffer().writeShort(40)));
+        batch = channel.readInbound();
+        Assert.assertEquals(1, batch.count());
+        Assert.assertEquals(4, batch.frameLength(0));
+        Assert.assertEquals(40, batch.frame(0).getShort(0));
+        Assert.assertEquals(40, batch.frame(0).getShort(2));
+        batch.release();
+
+        Assert.assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatchFramesBeforeTooLongFrame() {
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(16, 0, 4);
+        decoder.setBatchFrames(true);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(1).writeByte('a');
+        buf.writeInt(1).writeByte('b');
+        buf.writeInt(32);
+        for (int i = 0; i < 32; i++) {
+            buf.writeByte(i);
+        }
+        buf.writeInt(1).writeByte('c');
+        try {
+            channel.writeInbound(buf);
+            Assert.fail();
+        } catch (TooLongFrameException e) {
+            // expected
+        }
+        Assert.assertTrue(channel.finish());
+
+        // The frames before the too long frame are passed on first.
+        FrameBatch batch = channel.readInbound();
+        Assert.assertEquals(2, batch.count());
+        Assert.assertEquals('a', batch.frame(0).getByte(4));
+        Assert.assertEquals('b', batch.frame(1).getByte(4));
+        batch.release();
+
+        batch = channel.readInbound();
+        Assert.assertEquals(1, batch.count());
+        Assert.assertEquals('c', batch.frame(0).getByte(4));
+        batch.release();
+        Assert.assertNull(channel.readInbound());
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+
+public class JdkZlibPoolTest {
+
+    private static final byte[] BYTES = ("Netty is an asynchronous event-driven network application framework " +
+            "for rapid development of maintainable high performance protocol servers & clients.")
+            .getBytes(CharsetUtil.US_ASCII);
+
+    private static EventLoop eventLoop;
+
+    @BeforeClass
+    public static void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        eventLoop.shutdownGracefully();
+    }
+
+    @Test
+    public void testReusedOnEventLoop() throws Exception {
+        final JdkZlibPoolMetric metric = JdkZlibPool.metric();
+        eventLoop.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                // Make sure one Deflater and one Inflater are pooled.
+                assertEquals(Unpooled.wrappedBuffer(BYTES), roundTrip(ZlibWrapper.GZIP));
+                long hits = metric.hits();
+                long pooledDeflaters = metric.pooledDeflaters();
+                long pooledInflaters = metric.pooledInflaters();
+
+                for (int i = 0; i < 3; i++) {
+                    ByteBuf decompressed = roundTrip(ZlibWrapper.GZIP);
+                    assertEquals(Unpooled.wrappedBuffer(BYTES), decompressed);
+                    decompressed.release();
+                }
+                // Every round trip borrowed the pooled Deflater and Inflater and returned them afterwards.
+                assertEquals(hits + 6, metric.hits());
+                assertEquals(pooledDeflaters, metric.pooledDeflaters());
+                assertEquals(pooledInflaters, metric.pooledInflaters());
+                return null;
+            }
+        }).sync();
+    }
+
+    @Test
+    public void testReusedWithDifferentWrappers() throws Exception {
+        eventLoop.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (ZlibWrapper wrapper : new ZlibWrapper[] {
+                        ZlibWrapper.GZIP, ZlibWrapper.ZLIB, ZlibWrapper.NONE, ZlibWrapper.ZLIB, ZlibWrapper.GZIP }) {
+                    ByteBuf decompressed = roundTrip(wrapper);
+                    assertEquals(Unpooled.wrappedBuffer(BYTES), decompressed);
+                    decompressed.release();
+                }
+                return null;
+            }
+        }).sync();
+    }
+
+    @Test
+    public void testNotPooledOnOtherThreads() {
+        JdkZlibPoolMetric metric = JdkZlibPool.metric();
+        long pooledDeflaters = metric.pooledDeflaters();
+        long pooledInflaters = metric.pooledInflaters();
+
+        ByteBuf decompressed = roundTrip(ZlibWrapper.ZLIB);
+        assertEquals(Unpooled.wrappedBuffer(BYTES), decompressed);
+        decompressed.release();
+
+        assertEquals(pooledDeflaters, metric.pooledDeflaters());
+        assertEquals(pooledInflaters, metric.pooledInflaters());
+    }
+
+    @Test
+    public void testDictionaryCopied() {
+        byte[] dictionary = BYTES.clone();
+        JdkZlibEncoder encoder = new JdkZlibEncoder(6, dictionary);
+        // The Deflater is only borrowed once the first data is written, which must not see this change.
+        Arrays.fill(dictionary, (byte) 0);
+
+        ByteBuf decompressed = roundTrip(encoder, new JdkZlibDecoder(BYTES));
+        assertEquals(Unpooled.wrappedBuffer(BYTES), decompressed);
+        decompressed.release();
+    }
+
+    @Test
+    public void testDecoderDictionaryCopied() {
+        byte[] dictionary = BYTES.clone();
+        JdkZlibDecoder decoder = new JdkZlibDecoder(ZlibWrapper.NONE, dictionary);
+        Arrays.fill(dictionary, (byte) 0);
+
+        ByteBuf decompressed = roundTrip(new JdkZlibEncoder(ZlibWrapper.NONE, 6, BYTES), decoder);
+        assertEquals(Unpooled.wrappedBuffer(BYTES), decompressed);
+        decompressed.release();
+    }
+
+    private static ByteBuf roundTrip(ZlibWrapper wrapper) {
+        return roundTrip(new JdkZlibEncoder(wrapper), new JdkZlibDecoder(wrapper));
+    }
+
+    private static ByteBuf roundTrip(JdkZlibEncoder zlibEncoder, JdkZlibDecoder zlibDecoder) {
+        EmbeddedChannel encoder = new EmbeddedChannel(zlibEncoder);
+        encoder.writeOutbound(Unpooled.wrappedBuffer(BYTES));
+        encoder.finish();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(zlibDecoder);
+        for (;;) {
+            ByteBuf compressed = encoder.readOutbound();
+            if (compressed == null) {
+                break;
+            }
+            decoder.writeInbound(compressed);
+        }
+        decoder.finish();
+
+        CompositeByteBuf decompressed = Unpooled.compositeBuffer();
+        for (;;) {
+            ByteBuf buf = decoder.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.addComponent(true, buf);
+        }
+        return decompressed;
+    }
+}
@@ -69,6 +69,56 @@ public class JdkZlibTest extends ZlibTest {
         }
     }
 
+    @Test
+    public void testDirectBuffersGzip() {
+        byte[] bytes = new byte[64 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 7 == 0 ? i : 'a');
+        }
+        EmbeddedChannel chEncoder = new EmbeddedChannel(createEncoder(ZlibWrapper.GZIP));
+        EmbeddedChannel chDecoder = new EmbeddedChannel(createDecoder(ZlibWrapper.GZIP));
+        try {
+            ByteBuf decompressed = Unpooled.buffer(bytes.length);
+            for (int i = 0; i < bytes.length; i += 4096) {
+                chEncoder.writeOutbound(Unpooled.directBuffer(4096).writeBytes(bytes, i, 4096));
+                ByteBuf compressed = chEncoder.readOutbound();
+                // Direct input is compressed into a direct buffer if the JDK supports it.
+                assertEquals(!JdkZlibByteBuffers.isAvailable(), compressed.hasArray());
+                inflateDirect(chDecoder, compressed, decompressed);
+            }
+            assertTrue(chEncoder.finish());
+            for (;;) {
+                ByteBuf compressed = chEncoder.readOutbound();
+                if (compressed == null) {
+                    break;
+                }
+                inflateDirect(chDecoder, compressed, decompressed);
+            }
+            assertEquals(Unpooled.wrappedBuffer(bytes), decompressed);
+            decompressed.release();
+        } finally {
+            chEncoder.finishAndReleaseAll();
+            chDecoder.finishAndReleaseAll();
+        }
+    }
+
+    private static void inflateDirect(EmbeddedChannel chDecoder, ByteBuf compressed, ByteBuf decompressed) {
+        // Copy to a direct buffer as the footer is always a heap buffer.
+        ByteBuf input = Unpooled.directBuffer(compressed.readableBytes()).writeBytes(compressed);
+        compressed.release();
+        chDecoder.writeInbound(input);
+        for (;;) {
+            ByteBuf buf = chDecoder.readInbound();
+            if (buf == null) {
+                break;
+            }
+            // Direct input is decompressed into a direct buffer if the JDK supports it.
+            assertEquals(!JdkZlibByteBuffers.isAvailable(), buf.hasArray());
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+    }
+
     @Test
     public void testConcatenatedStreamsReadFully() throws IOException {
         EmbeddedChannel chDecoderGZip = new EmbeddedChannel(new JdkZlibDecoder(true));
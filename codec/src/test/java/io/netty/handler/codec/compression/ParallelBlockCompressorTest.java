@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static io.netty.handler.codec.compression.Lz4Constants.DEFAULT_SEED;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelBlockCompressorTest {
+
+    private static final Random random = new Random();
+
+    private static EventLoopGroup eventLoopGroup;
+    private static EventExecutorGroup compressionGroup;
+
+    @BeforeClass
+    public static void setUp() {
+        eventLoopGroup = new DefaultEventLoopGroup(1);
+        compressionGroup = new DefaultEventExecutorGroup(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        eventLoopGroup.shutdownGracefully();
+        compressionGroup.shutdownGracefully();
+    }
+
+    @Test(timeout = 30000)
+    public void testLz4() throws Exception {
+        testIdentity(newLz4Encoder(compressionGroup, 4096, 4), new Lz4FrameDecoder(), 1024 * 1024);
+    }
+
+    @Test(timeout = 30000)
+    public void testSnappy() throws Exception {
+        testIdentity(new SnappyFrameEncoder(compressionGroup, 65536, 4), new SnappyFrameDecoder(), 1024 * 1024);
+    }
+
+    @Test(timeout = 30000)
+    public void testBzip2() throws Exception {
+        testIdentity(new Bzip2Encoder(1, compressionGroup, 4), new Bzip2Decoder(), 512 * 1024);
+    }
+
+    @Test(timeout = 30000)
+    public void testEmpty() throws Exception {
+        testIdentity(newLz4Encoder(compressionGroup, 4096, 4), new Lz4FrameDecoder(), 0);
+        testIdentity(new SnappyFrameEncoder(compressionGroup, 65536, 4), new SnappyFrameDecoder(), 0);
+        testIdentity(new Bzip2Encoder(1, compressionGroup, 4), new Bzip2Decoder(), 0);
+    }
+
+    @Test(timeout = 30000)
+    public void testBlocksAreCompressedByCallerWhenMaxPendingBlocksReached() throws Exception {
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch block = new CountDownLatch(1);
+            SingleThreadEventExecutor executor = (SingleThreadEventExecutor) group.next();
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        block.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            started.await();
+
+            final ByteBuf data = newData(64 * 10);
+            final CompositeByteBuf compressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+            final Channel ch = newChannel(newLz4Encoder(group, 64, 2), compressed);
+            ch.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    ch.write(data.retainedDuplicate());
+                }
+            }).sync();
+
+            // Only two blocks were handed over, the others were compressed by the EventLoop.
+            assertEquals(2, executor.pendingTasks());
+            // Nothing is written until the first block is done.
+            assertEquals(0, compressed.readableBytes());
+
+            block.countDown();
+            finish(ch);
+            assertDecoded(data, compressed, new Lz4FrameDecoder());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    private static Lz4FrameEncoder newLz4Encoder(EventExecutorGroup group, int blockSize, int maxPendingBlocks) {
+        return new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, blockSize,
+                XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum(),
+                group, maxPendingBlocks);
+    }
+
+    private static void testIdentity(ChannelHandler encoder, ChannelHandler decoder, int length) throws Exception {
+        ByteBuf data = newData(length);
+        CompositeByteBuf compressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        Channel ch = newChannel(encoder, compressed);
+        // Write chunks of random size, so the blocks do not line up with them.
+        ByteBuf in = data.duplicate();
+        while (in.isReadable()) {
+            ch.write(in.readRetainedSlice(Math.min(in.readableBytes(), 1 + random.nextInt(32768))));
+        }
+        finish(ch);
+        assertDecoded(data, compressed, decoder);
+    }
+
+    private static ByteBuf newData(int length) {
+        byte[] data = new byte[length];
+        // Half random and half repeated data so it is compressible.
+        for (int i = 0; i < length; i++) {
+            data[i] = i % 2 == 0 ? (byte) random.nextInt() : (byte) (i >>> 8);
+        }
+        return Unpooled.wrappedBuffer(data);
+    }
+
+    private static Channel newChannel(ChannelHandler encoder, final CompositeByteBuf compressed) throws Exception {
+        Channel ch = new LocalChannel();
+        ch.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                compressed.addComponent(true, (ByteBuf) msg);
+                promise.setSuccess();
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                // The channel is not connected.
+            }
+        }, encoder);
+        eventLoopGroup.register(ch).sync();
+        return ch;
+    }
+
+    private static void finish(Channel ch) throws Exception {
+        ch.flush();
+        // Completes once all blocks which were submitted by the flush were written.
+        ch.writeAndFlush(Unpooled.EMPTY_BUFFER).sync();
+        ch.close().sync();
+    }
+
+    private static void assertDecoded(ByteBuf data, CompositeByteBuf compressed, ChannelHandler decoder) {
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        channel.writeInbound(compressed);
+        CompositeByteBuf decompressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        for (;;) {
+            ByteBuf msg = channel.readInbound();
+            if (msg == null) {
+                break;
+            }
+            decompressed.addComponent(true, msg);
+        }
+        assertEquals(data, decompressed);
+        decompressed.release();
+        data.release();
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZlibDictionaryBuilderTest {
+
+    private static final String[] NAMES = { "alice", "bob", "carol", "dave", "erin", "frank" };
+    private static final String[] STATES = { "active", "suspended", "pending-verification" };
+
+    @Test
+    public void testSmallMessagesCompressBetterWithDictionary() {
+        Random random = new Random(42);
+        ZlibDictionaryBuilder builder = new ZlibDictionaryBuilder();
+        for (int i = 0; i < 2000; i++) {
+            ByteBuf sample = newMessage(random);
+            builder.addSample(sample);
+            assertTrue(sample.isReadable());
+            sample.release();
+        }
+        byte[] dictionary = builder.build();
+        assertTrue(dictionary.length > 0);
+        assertTrue(dictionary.length <= ZlibDictionaryBuilder.MAX_DICTIONARY_SIZE);
+
+        int withoutDictionary = 0;
+        int withDictionary = 0;
+        for (int i = 0; i < 100; i++) {
+            ByteBuf message = newMessage(random);
+            for (ZlibWrapper wrapper : new ZlibWrapper[] { ZlibWrapper.NONE, ZlibWrapper.ZLIB }) {
+                ByteBuf compressed = compress(new JdkZlibEncoder(wrapper, 6, dictionary), message.duplicate());
+                if (wrapper == ZlibWrapper.NONE) {
+                    withDictionary += compressed.readableBytes();
+                }
+                ByteBuf decompressed = decompress(new JdkZlibDecoder(wrapper, dictionary), compressed);
+                assertEquals(message, decompressed);
+                decompressed.release();
+            }
+            ByteBuf compressed = compress(new JdkZlibEncoder(ZlibWrapper.NONE, 6), message.duplicate());
+            withoutDictionary += compressed.readableBytes();
+            compressed.release();
+            message.release();
+        }
+        assertTrue("with dictionary: " + withDictionary + ", without: " + withoutDictionary,
+                withDictionary * 2 < withoutDictionary);
+    }
+
+    @Test
+    public void testMaxSize() {
+        Random random = new Random(42);
+        ZlibDictionaryBuilder builder = new ZlibDictionaryBuilder(100);
+        for (int i = 0; i < 100; i++) {
+            builder.addSample(newMessage(random));
+        }
+        assertTrue(builder.build().length <= 100);
+    }
+
+    @Test
+    public void testNoSamples() {
+        assertEquals(0, new ZlibDictionaryBuilder().build().length);
+        assertEquals(0, new ZlibDictionaryBuilder().addSample(Unpooled.wrappedBuffer(new byte[3])).build().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxSizeTooBig() {
+        new ZlibDictionaryBuilder(ZlibDictionaryBuilder.MAX_DICTIONARY_SIZE + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGzipDoesNotSupportDictionary() {
+        new JdkZlibEncoder(ZlibWrapper.GZIP, 6, new byte[1]);
+    }
+
+    private static ByteBuf newMessage(Random random) {
+        String name = NAMES[random.nextInt(NAMES.length)];
+        String json = "{\"id\":" + random.nextInt(1000000) +
+                ",\"user\":{\"name\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}" +
+                ",\"status\":\"" + STATES[random.nextInt(STATES.length)] + '"' +
+                ",\"score\":" + random.nextInt(100) +
+                ",\"tags\":[\"notifications\",\"newsletter\"],\"createdAt\":\"2018-0" + (1 + random.nextInt(9)) +
+                "-1" + random.nextInt(10) + "T12:00:00Z\"}";
+        return Unpooled.copiedBuffer(json, CharsetUtil.UTF_8);
+    }
+
+    private static ByteBuf compress(ZlibEncoder encoder, ByteBuf message) {
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        channel.writeOutbound(message.retain());
+        channel.finish();
+        return readAll(channel, false);
+    }
+
+    private static ByteBuf decompress(ZlibDecoder decoder, ByteBuf compressed) {
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        channel.writeInbound(compressed);
+        channel.finish();
+        return readAll(channel, true);
+    }
+
+    private static ByteBuf readAll(EmbeddedChannel channel, boolean inbound) {
+        CompositeByteBuf all = Unpooled.compositeBuffer();
+        for (;;) {
+            ByteBuf buf = inbound ? channel.<ByteBuf>readInbound() : channel.<ByteBuf>readOutbound();
+            if (buf == null) {
+                break;
+            }
+            all.addComponent(true, buf);
+        }
+        return all;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonTokenDecoderTest {
+
+    @Test
+    public void testTokensOfNestedDocument() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        String json = "{ \"name\" : \"netty\", \"tags\": [\"nio\", 1, -2.5e3, true, false, null, {}], \"empty\": [] }";
+        // Feed byte by byte so every token is split.
+        for (byte b : json.getBytes(CharsetUtil.UTF_8)) {
+            ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { b }));
+        }
+
+        assertTokens(ch,
+                JsonToken.Type.START_OBJECT, "{",
+                JsonToken.Type.FIELD_NAME, "name",
+                JsonToken.Type.STRING, "netty",
+                JsonToken.Type.FIELD_NAME, "tags",
+                JsonToken.Type.START_ARRAY, "[",
+                JsonToken.Type.STRING, "nio",
+                JsonToken.Type.NUMBER, "1",
+                JsonToken.Type.NUMBER, "-2.5e3",
+                JsonToken.Type.TRUE, "true",
+                JsonToken.Type.FALSE, "false",
+                JsonToken.Type.NULL, "null",
+                JsonToken.Type.START_OBJECT, "{",
+                JsonToken.Type.END_OBJECT, "}",
+                JsonToken.Type.END_ARRAY, "]",
+                JsonToken.Type.FIELD_NAME, "empty",
+                JsonToken.Type.START_ARRAY, "[",
+                JsonToken.Type.END_ARRAY, "]",
+                JsonToken.Type.END_OBJECT, "}");
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testElementsOfUnboundedArrayAreStreamed() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer("[", CharsetUtil.UTF_8));
+        assertEquals(JsonToken.START_ARRAY, ch.readInbound());
+
+        for (int i = 0; i < 10000; i++) {
+            ch.writeInbound(Unpooled.copiedBuffer("{\"id\":" + i + "},", CharsetUtil.UTF_8));
+            assertEquals(JsonToken.START_OBJECT, ch.readInbound());
+            assertToken(ch, JsonToken.Type.FIELD_NAME, "id");
+            assertToken(ch, JsonToken.Type.NUMBER, String.valueOf(i));
+            assertEquals(JsonToken.END_OBJECT, ch.readInbound());
+            assertNull(ch.readInbound());
+        }
+        ch.writeInbound(Unpooled.copiedBuffer("null]", CharsetUtil.UTF_8));
+        assertEquals(JsonToken.NULL, ch.readInbound());
+        assertEquals(JsonToken.END_ARRAY, ch.readInbound());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMultipleRootValues() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer("{}\n\"a\" 42", CharsetUtil.UTF_8));
+        assertEquals(JsonToken.START_OBJECT, ch.readInbound());
+        assertEquals(JsonToken.END_OBJECT, ch.readInbound());
+        assertToken(ch, JsonToken.Type.STRING, "a");
+        // The number is only complete once the input is closed.
+        assertNull(ch.readInbound());
+        assertTrue(ch.finish());
+        assertToken(ch, JsonToken.Type.NUMBER, "42");
+        assertNull(ch.readInbound());
+    }
+
+    @Test
+    public void testEscapes() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer("[\"a\\\"b\\\\c\\/\\n\\u00e9\"]", CharsetUtil.UTF_8));
+        assertEquals(JsonToken.START_ARRAY, ch.readInbound());
+        JsonToken token = ch.readInbound();
+        assertEquals(JsonToken.Type.STRING, token.type());
+        assertEquals("a\\\"b\\\\c\\/\\n\\u00e9", token.content().toString(CharsetUtil.UTF_8));
+        assertEquals("a\"b\\c/\né", token.text());
+        token.release();
+        assertEquals(JsonToken.END_ARRAY, ch.readInbound());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMaxDepth() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder(2, 1024));
+        try {
+            ch.writeInbound(Unpooled.copiedBuffer("[[[", CharsetUtil.UTF_8));
+            fail();
+        } catch (CorruptedFrameException expected) {
+            // expected
+        }
+        assertEquals(JsonToken.START_ARRAY, ch.readInbound());
+        assertEquals(JsonToken.START_ARRAY, ch.readInbound());
+        assertNull(ch.readInbound());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMaxTokenLength() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder(64, 8));
+        ch.writeInbound(Unpooled.copiedBuffer("[\"12345678\", \"1234", CharsetUtil.UTF_8));
+        assertEquals(JsonToken.START_ARRAY, ch.readInbound());
+        assertToken(ch, JsonToken.Type.STRING, "12345678");
+        try {
+            // The limit is enforced before the end of the token was received.
+            ch.writeInbound(Unpooled.copiedBuffer("56789", CharsetUtil.UTF_8));
+            fail();
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+        // All further input is discarded.
+        assertFalse(ch.writeInbound(Unpooled.copiedBuffer("\"]", CharsetUtil.UTF_8)));
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testInvalidJson() {
+        assertCorrupted("[1,]");
+        assertCorrupted("{\"a\" 1}");
+        assertCorrupted("{1:2}");
+        assertCorrupted("[}");
+        assertCorrupted("]");
+        assertCorrupted("[tru]");
+        assertCorrupted("[\"a\nb\"]");
+    }
+
+    @Test
+    public void testTruncatedToken() {
+        assertTruncated("[\"abc");
+        assertTruncated("{\"ab");
+        assertTruncated("[12");
+        assertTruncated("[tr");
+        assertTruncated("\"");
+    }
+
+    @Test
+    public void testToStringOfInvalidEscape() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer("\"a\\x\"", CharsetUtil.UTF_8));
+        JsonToken token = ch.readInbound();
+        try {
+            token.text();
+            fail();
+        } catch (CorruptedFrameException expected) {
+            // expected
+        }
+        assertEquals("JsonToken(STRING: a\\x)", token.toString());
+        token.release();
+        assertEquals("JsonToken(NULL: null)", JsonToken.NULL.toString());
+        assertFalse(ch.finish());
+    }
+
+    private static void assertTruncated(String json) {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer(json, CharsetUtil.UTF_8));
+        try {
+            ch.finish();
+            fail(json);
+        } catch (CorruptedFrameException expected) {
+            // expected
+        }
+        ch.releaseInbound();
+    }
+
+    private static void assertCorrupted(String json) {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        try {
+            ch.writeInbound(Unpooled.copiedBuffer(json, CharsetUtil.UTF_8));
+            fail(json);
+        } catch (CorruptedFrameException expected) {
+            // expected
+        }
+        ch.finishAndReleaseAll();
+    }
+
+    private static void assertTokens(EmbeddedChannel ch, Object... expected) {
+        List<Object> tokens = new ArrayList<Object>();
+        for (;;) {
+            JsonToken token = ch.readInbound();
+            if (token == null) {
+                break;
+            }
+            tokens.add(token.type());
+            tokens.add(token.text());
+            token.release();
+        }
+        assertEquals(Arrays.asList(expected), tokens);
+    }
+
+    private static void assertToken(EmbeddedChannel ch, JsonToken.Type type, String text) {
+        JsonToken token = ch.readInbound();
+        assertEquals(type, token.type());
+        assertEquals(text, token.text());
+        token.release();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.protobuf;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProtobufDecoderTest {
+
+    private static final FileDescriptorProto MESSAGE = FileDescriptorProto.newBuilder()
+            .setName("test.proto").setPackage("io.netty.test").addDependency("other.proto").build();
+
+    @Test
+    public void testDecode() {
+        testDecode(Unpooled.wrappedBuffer(MESSAGE.toByteArray()));
+    }
+
+    @Test
+    public void testDecodeDirect() {
+        testDecode(Unpooled.directBuffer().writeBytes(MESSAGE.toByteArray()));
+    }
+
+    private static void testDecode(ByteBuf frame) {
+        EmbeddedChannel ch = new EmbeddedChannel(new ProtobufDecoder(FileDescriptorProto.getDefaultInstance()));
+        assertTrue(ch.writeInbound(frame));
+        assertEquals(MESSAGE, ch.readInbound());
+        assertEquals(0, frame.refCnt());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDecodeLazy() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(
+                new ProtobufDecoder(FileDescriptorProto.getDefaultInstance(), null, true));
+        ByteBuf frame = Unpooled.directBuffer().writeBytes(MESSAGE.toByteArray());
+        assertTrue(ch.writeInbound(frame));
+
+        LazyProtobufMessage<MessageLite> lazy = ch.readInbound();
+        assertFalse(lazy.isParsed());
+        assertSame(frame, lazy.content());
+        assertEquals(1, frame.refCnt());
+        assertEquals(MESSAGE, lazy.message());
+        assertTrue(lazy.isParsed());
+        assertSame(lazy.message(), lazy.message());
+
+        // The serialized form is still there after parsing.
+        assertEquals(Unpooled.wrappedBuffer(MESSAGE.toByteArray()), lazy.content());
+        assertTrue(lazy.release());
+        assertFalse(ch.finish());
+    }
+}
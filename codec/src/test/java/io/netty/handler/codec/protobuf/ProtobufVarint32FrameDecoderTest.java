@@ -16,12 +16,16 @@
 package io.netty.handler.codec.protobuf;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
 import org.junit.Before;
 import org.junit.Test;
 
 import static io.netty.buffer.Unpooled.*;
 import static org.hamcrest.core.Is.*;
+import static org.hamcrest.core.IsInstanceOf.*;
 import static org.hamcrest.core.IsNull.*;
 import static org.junit.Assert.*;
 
@@ -77,4 +81,60 @@ public class ProtobufVarint32FrameDecoderTest {
         expected.release();
         actual.release();
     }
+
+    @Test
+    public void testAllVarintSizes() {
+        for (int length : new int[] { 0, 1, 127, 128, 16383, 16384, 2097151, 2097152 }) {
+            for (boolean direct : new boolean[] { false, true }) {
+                ByteBuf frame = direct ? Unpooled.directBuffer() : Unpooled.buffer();
+                ProtobufVarint32LengthFieldPrepender.writeRawVarint32(frame, length);
+                int varintSize = frame.readableBytes();
+                for (int i = 0; i < length; i ++) {
+                    frame.writeByte(i);
+                }
+                // A second frame to make sure the first one is sliced correctly.
+                frame.writeBytes(new byte[] { 1, 42 });
+
+                // Write all but the last byte of the varint one by one to exercise the decoding of partial input.
+                for (int i = 1; i < varintSize; i ++) {
+                    assertFalse(ch.writeInbound(frame.readRetainedSlice(1)));
+                }
+                assertTrue(ch.writeInbound(frame));
+
+                ByteBuf actual = ch.readInbound();
+                assertEquals(length, actual.readableBytes());
+                for (int i = 0; i < length; i ++) {
+                    assertEquals((byte) i, actual.getByte(actual.readerIndex() + i));
+                }
+                actual.release();
+                actual = ch.readInbound();
+                assertEquals(wrappedBuffer(new byte[] { 42 }), actual);
+                actual.release();
+                assertThat(ch.readInbound(), is(nullValue()));
+            }
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMalformedVarint() {
+        try {
+            ch.writeInbound(wrappedBuffer(new byte[] { -1, -1, -1, -1, -1 }));
+            fail();
+        } catch (DecoderException e) {
+            assertThat(e, is(instanceOf(CorruptedFrameException.class)));
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testNegativeLength() {
+        try {
+            ch.writeInbound(wrappedBuffer(new byte[] { -1, -1, -1, -1, 15 }));
+            fail();
+        } catch (DecoderException e) {
+            assertThat(e, is(instanceOf(CorruptedFrameException.class)));
+        }
+        assertFalse(ch.finish());
+    }
 }
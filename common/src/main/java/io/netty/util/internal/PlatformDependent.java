@@ -21,10 +21,12 @@ import org.jctools.queues.MpscArrayQueue;
 import org.jctools.queues.MpscChunkedArrayQueue;
 import org.jctools.queues.MpscUnboundedArrayQueue;
 import org.jctools.queues.SpscLinkedQueue;
+import org.jctools.queues.SpscUnboundedArrayQueue;
 import org.jctools.queues.atomic.MpscAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscGrowableAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscUnboundedAtomicArrayQueue;
 import org.jctools.queues.atomic.SpscLinkedAtomicQueue;
+import org.jctools.queues.atomic.SpscUnboundedAtomicArrayQueue;
 import org.jctools.util.Pow2;
 import org.jctools.util.UnsafeAccess;
 
@@ -890,6 +892,16 @@ public final class PlatformDependent {
         return hasUnsafe() ? new SpscLinkedQueue<T>() : new SpscLinkedAtomicQueue<T>();
     }
 
+    /**
+     * Create a new unbounded {@link Queue} which is safe to use for single producer (one thread!) and a single
+     * consumer (one thread!). The elements are stored in linked ring buffers of {@code chunkSize} elements each, so
+     * unlike {@link #newSpscQueue()} no node needs to be allocated per element.
+     */
+    public static <T> Queue<T> newSpscQueue(int chunkSize) {
+        return hasUnsafe() ? new SpscUnboundedArrayQueue<T>(chunkSize)
+                           : new SpscUnboundedAtomicArrayQueue<T>(chunkSize);
+    }
+
     /**
      * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
      * consumer (one thread!) with the given fixes {@code capacity}.
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.handler.ssl.SslHandler;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link ChunkedInput} that fetches data from a {@link FileRegion} chunk by chunk, so its content can be passed
+ * through handlers which need to see it, like {@link SslHandler}. The content is transferred into direct buffers
+ * and so never copied to the heap. The content of a {@link DefaultFileRegion} is read straight into them, while
+ * any other {@link FileRegion} has to write it via {@link FileRegion#transferTo(WritableByteChannel, long)}.
+ * <p>
+ * {@link ChunkedWriteHandler} uses it automatically for {@link FileRegion}s if a {@link SslHandler} is placed
+ * between it and the head of the pipeline. The default chunk size is the maximum plaintext size of a TLS record,
+ * so each chunk is encrypted into exactly one record.
+ */
+public class ChunkedFileRegion implements ChunkedInput<ByteBuf> {
+
+    /**
+     * The maximum number of plaintext bytes in a TLS record.
+     */
+    static final int TLS_RECORD_SIZE = 16 * 1024;
+
+    private final FileRegion region;
+    private final int chunkSize;
+    private final ByteBufWritableChannel target = new ByteBufWritableChannel();
+
+    /**
+     * Creates a new instance that fetches data from the specified {@link FileRegion} in chunks of the maximum
+     * plaintext size of a TLS record. The {@link FileRegion} is released once this input is closed.
+     */
+    public ChunkedFileRegion(FileRegion region) {
+        this(region, TLS_RECORD_SIZE);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified {@link FileRegion}. The {@link FileRegion} is
+     * released once this input is closed.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ChannelHandlerContext)} call
+     */
+    public ChunkedFileRegion(FileRegion region, int chunkSize) {
+        if (region == null) {
+            throw new NullPointerException("region");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize: " + chunkSize +
+                    " (expected: a positive integer)");
+        }
+        this.region = region;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return region.transferred() >= region.count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        region.release();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        long remaining = region.count() - region.transferred();
+        if (remaining <= 0) {
+            return null;
+        }
+
+        int chunkSize = (int) Math.min(this.chunkSize, remaining);
+        ByteBuf buffer = allocator.directBuffer(chunkSize, chunkSize);
+        boolean release = true;
+        try {
+            while (buffer.isWritable()) {
+                if (transferTo(buffer) <= 0) {
+                    throw new EOFException("FileRegion ended after " + region.transferred() + " of " +
+                            region.count() + " bytes");
+                }
+            }
+            release = false;
+            return buffer;
+        } finally {
+            target.buffer = null;
+            if (release) {
+                buffer.release();
+            }
+        }
+    }
+
+    private long transferTo(ByteBuf buffer) throws Exception {
+        if (region instanceof DefaultFileRegion) {
+            // Read straight into the buffer, without the temporary buffer FileChannel.transferTo(...) would use.
+            return ((DefaultFileRegion) region).transferTo(buffer, region.transferred());
+        }
+        target.buffer = buffer;
+        return region.transferTo(target, region.transferred());
+    }
+
+    @Override
+    public long length() {
+        return region.count();
+    }
+
+    @Override
+    public long progress() {
+        return region.transferred();
+    }
+
+    /**
+     * Copies everything that is written to it into a {@link ByteBuf} until it is full.
+     */
+    private static final class ByteBufWritableChannel implements WritableByteChannel {
+        ByteBuf buffer;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(src.remaining(), buffer.writableBytes());
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + length);
+            buffer.writeBytes(slice);
+            src.position(src.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
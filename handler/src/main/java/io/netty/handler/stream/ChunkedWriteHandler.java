@@ -26,12 +26,15 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelProgressivePromise;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
 
 /**
@@ -64,6 +67,12 @@ import java.util.Queue;
  * {@link ChunkedInput#readChunk(ChannelHandlerContext)}, resulting in the indefinitely suspended
  * transfer.  To resume the transfer when a new chunk is available, you have to
  * call {@link #resumeTransfer()}.
+ *
+ * <h3>Sending a {@link FileRegion} over TLS</h3>
+ *
+ * A {@link FileRegion} can not be encrypted by {@link SslHandler}. If a {@link SslHandler} is placed between this
+ * handler and the head of the pipeline, a {@link FileRegion} that is written is therefore transferred as a
+ * {@link ChunkedFileRegion}, which reads the file into direct buffers of the size of a TLS record.
  */
 public class ChunkedWriteHandler extends ChannelDuplexHandler {
 
@@ -129,9 +138,29 @@ public class ChunkedWriteHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof FileRegion && isSslHandlerBefore(ctx)) {
+            msg = new ChunkedFileRegion((FileRegion) msg);
+        }
         queue.add(new PendingWrite(msg, promise));
     }
 
+    /**
+     * Returns {@code true} if a {@link SslHandler} will see the messages written by this handler, which is the case
+     * if it is placed between the head of the pipeline and this handler.
+     */
+    private static boolean isSslHandlerBefore(ChannelHandlerContext ctx) {
+        for (Map.Entry<String, ChannelHandler> entry : ctx.pipeline()) {
+            ChannelHandler handler = entry.getValue();
+            if (handler == ctx.handler()) {
+                return false;
+            }
+            if (handler instanceof SslHandler) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void flush(ChannelHandlerContext ctx) throws Exception {
         doFlush(ctx);
@@ -21,8 +21,14 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
@@ -32,6 +38,9 @@ import java.io.IOException;
 import java.nio.channels.Channels;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -98,6 +107,78 @@ public class ChunkedWriteHandlerTest {
         check(new ChunkedNioFile(TMP), new ChunkedNioFile(TMP), new ChunkedNioFile(TMP));
     }
 
+    @Test
+    public void testChunkedFileRegion() throws IOException {
+        check(new ChunkedFileRegion(new DefaultFileRegion(TMP, 0, TMP.length())));
+
+        check(new ChunkedFileRegion(new DefaultFileRegion(TMP, 0, TMP.length())),
+              new ChunkedFileRegion(new DefaultFileRegion(TMP, 0, TMP.length())));
+    }
+
+    @Test
+    public void testChunkedFileRegionUsesDirectTlsRecordSizedChunks() throws Exception {
+        DefaultFileRegion region = new DefaultFileRegion(TMP, 0, TMP.length());
+        ChunkedFileRegion input = new ChunkedFileRegion(region);
+        assertEquals(BYTES.length, input.length());
+        int read = 0;
+        while (!input.isEndOfInput()) {
+            ByteBuf chunk = input.readChunk(ByteBufAllocator.DEFAULT);
+            assertTrue(chunk.isDirect());
+            assertEquals(Math.min(ChunkedFileRegion.TLS_RECORD_SIZE, BYTES.length - read), chunk.readableBytes());
+            read += chunk.readableBytes();
+            assertEquals(read, input.progress());
+            chunk.release();
+        }
+        assertNull(input.readChunk(ByteBufAllocator.DEFAULT));
+        input.close();
+        assertEquals(0, region.refCnt());
+    }
+
+    @Test
+    public void testFileRegionIsChunkedIfSslHandlerIsBefore() throws Exception {
+        FileRegionRecorder recorder = new FileRegionRecorder();
+        EmbeddedChannel ch = new EmbeddedChannel(newSslHandler(), recorder, new ChunkedWriteHandler());
+
+        ch.writeAndFlush(new DefaultFileRegion(TMP, 0, TMP.length()));
+        assertEquals(BYTES.length / ChunkedFileRegion.TLS_RECORD_SIZE, recorder.chunks);
+        assertEquals(0, recorder.regions);
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFileRegionIsNotChunkedIfSslHandlerIsAfter() throws Exception {
+        FileRegionRecorder recorder = new FileRegionRecorder();
+        EmbeddedChannel ch = new EmbeddedChannel(recorder, new ChunkedWriteHandler());
+        ch.pipeline().addLast("ssl", newSslHandler());
+
+        ch.pipeline().context("ssl").writeAndFlush(new DefaultFileRegion(TMP, 0, TMP.length()));
+        assertEquals(0, recorder.chunks);
+        assertEquals(1, recorder.regions);
+        ch.finishAndReleaseAll();
+    }
+
+    private static SslHandler newSslHandler() throws Exception {
+        SSLEngine engine = SSLContext.getDefault().createSSLEngine();
+        engine.setUseClientMode(false);
+        return new SslHandler(engine);
+    }
+
+    private static final class FileRegionRecorder extends ChannelOutboundHandlerAdapter {
+        int chunks;
+        int regions;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof FileRegion) {
+                regions++;
+            } else {
+                chunks++;
+            }
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+    }
+
     @Test
     public void testUnchunkedData() throws IOException {
         check(Unpooled.wrappedBuffer(BYTES));
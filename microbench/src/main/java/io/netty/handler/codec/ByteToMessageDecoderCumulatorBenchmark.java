@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Compares the {@link ByteToMessageDecoder.Cumulator}s with input which is split at random boundaries, like it is
+ * received from a socket.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class ByteToMessageDecoderCumulatorBenchmark extends AbstractMicrobenchmark {
+
+    public enum CumulatorType {
+        MERGE(ByteToMessageDecoder.MERGE_CUMULATOR),
+        COMPOSITE(ByteToMessageDecoder.COMPOSITE_CUMULATOR),
+        ADAPTIVE(ByteToMessageDecoder.ADAPTIVE_CUMULATOR);
+
+        final ByteToMessageDecoder.Cumulator cumulator;
+
+        CumulatorType(ByteToMessageDecoder.Cumulator cumulator) {
+            this.cumulator = cumulator;
+        }
+    }
+
+    public enum Protocol {
+        LENGTH_FIELD {
+            @Override
+            ByteToMessageDecoder newDecoder() {
+                return new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+            }
+
+            @Override
+            ByteBuf newInput(Random random) {
+                ByteBuf input = Unpooled.buffer();
+                for (int i = 0; i < 256; i++) {
+                    byte[] payload = new byte[16 + random.nextInt(8192)];
+                    random.nextBytes(payload);
+                    input.writeInt(payload.length).writeBytes(payload);
+                }
+                return input;
+            }
+        },
+        HTTP {
+            @Override
+            ByteToMessageDecoder newDecoder() {
+                return new HttpRequestDecoder();
+            }
+
+            @Override
+            ByteBuf newInput(Random random) {
+                ByteBuf input = Unpooled.buffer();
+                for (int i = 0; i < 64; i++) {
+                    byte[] content = new byte[random.nextInt(4096)];
+                    random.nextBytes(content);
+                    input.writeCharSequence("POST /some/path?foo=bar&wibble=eek HTTP/1.1\r\n" +
+                            "Host: localhost\r\n" +
+                            "Referer: http://www.site.ru/index.html\r\n" +
+                            "User-Agent: Mozilla/5.0 (X11; U; Linux i686; ru; rv:1.9b5) Gecko/2008050509 " +
+                            "Firefox/3.0b5\r\n" +
+                            "Accept: text/html\r\n" +
+                            "Cookie: income=1\r\n" +
+                            "Content-Type: application/octet-stream\r\n" +
+                            "Content-Length: " + content.length + "\r\n" +
+                            "\r\n", CharsetUtil.US_ASCII);
+                    input.writeBytes(content);
+                }
+                return input;
+            }
+        };
+
+        abstract ByteToMessageDecoder newDecoder();
+
+        abstract ByteBuf newInput(Random random);
+    }
+
+    @Param
+    public CumulatorType cumulator;
+
+    @Param
+    public Protocol protocol;
+
+    @Param({ "64", "1500", "16384" })
+    public int maxChunkSize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private ByteBuf input;
+    private int[] chunkSizes;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Use a fixed seed so all cumulators see the same input.
+        Random random = new Random(42);
+        input = protocol.newInput(random);
+
+        int[] sizes = new int[input.readableBytes()];
+        int numChunks = 0;
+        for (int remaining = input.readableBytes(); remaining > 0; numChunks++) {
+            int size = Math.min(remaining, 1 + random.nextInt(maxChunkSize));
+            sizes[numChunks] = size;
+            remaining -= size;
+        }
+        chunkSizes = new int[numChunks];
+        System.arraycopy(sizes, 0, chunkSizes, 0, numChunks);
+
+        ByteToMessageDecoder decoder = protocol.newDecoder();
+        decoder.setCumulator(cumulator.cumulator);
+        channel = new EmbeddedChannel(decoder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        input.release();
+    }
+
+    @Benchmark
+    public int decode() {
+        int messages = 0;
+        int index = input.readerIndex();
+        for (int size : chunkSizes) {
+            // Copy each chunk to a new buffer, as the transport would read it into one.
+            ByteBuf chunk = alloc.directBuffer(size);
+            chunk.writeBytes(input, index, size);
+            index += size;
+            channel.writeInbound(chunk);
+
+            for (;;) {
+                Object msg = channel.readInbound();
+                if (msg == null) {
+                    break;
+                }
+                ReferenceCountUtil.release(msg);
+                messages++;
+            }
+        }
+        return messages;
+    }
+}
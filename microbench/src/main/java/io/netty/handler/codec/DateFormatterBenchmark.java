@@ -16,23 +16,39 @@
 package io.netty.handler.codec;
 
 import io.netty.handler.codec.http.HttpHeaderDateFormat;
+import io.netty.util.AsciiString;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
+@State(Scope.Thread)
 @OutputTimeUnit(TimeUnit.SECONDS)
 public class DateFormatterBenchmark {
 
     private static final String DATE_STRING = "Sun, 27 Nov 2016 19:18:46 GMT";
+    private static final String[] DATE_STRINGS = { DATE_STRING, "Mon, 28 Nov 2016 19:18:46 GMT" };
     private static final Date DATE = new Date(784111777000L);
+    private static final Date[] DATES = { DATE, new Date(784111778000L) };
+
+    private int index;
 
     @Benchmark
     public Date parseHttpHeaderDateFormatter() {
         return DateFormatter.parseHttpDate(DATE_STRING);
     }
 
+    /**
+     * Alternates between two texts, so every call has to parse.
+     */
+    @Benchmark
+    public Date parseHttpHeaderDateFormatterDistinct() {
+        return DateFormatter.parseHttpDate(DATE_STRINGS[index++ & 1]);
+    }
+
     @Benchmark
     public Date parseHttpHeaderDateFormat() throws Exception {
         return HttpHeaderDateFormat.get().parse(DATE_STRING);
@@ -43,6 +59,19 @@ public class DateFormatterBenchmark {
         return DateFormatter.format(DATE);
     }
 
+    /**
+     * Alternates between two dates, so every call has to render.
+     */
+    @Benchmark
+    public String formatHttpHeaderDateFormatterDistinct() {
+        return DateFormatter.format(DATES[index++ & 1]);
+    }
+
+    @Benchmark
+    public AsciiString currentHttpDate() {
+        return DateFormatter.currentHttpDate();
+    }
+
     @Benchmark
     public String formatHttpHeaderDateFormat() throws Exception {
         return HttpHeaderDateFormat.get().format(DATE);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Decodes 64 KiB reads of small frames with and without {@link LengthFieldBasedFrameDecoder#setBatchFrames(boolean)}.
+ * Each operation decodes {@link #READS} reads.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class LengthFieldBasedFrameDecoderBenchmark extends AbstractMicrobenchmark {
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int READS = 16;
+
+    @Param({ "true", "false" })
+    public boolean batch;
+
+    @Param({ "200", "1000" })
+    public int frameSize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private ByteBuf input;
+    private EmbeddedChannel channel;
+    private long checksum;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        input = Unpooled.buffer(READ_SIZE * READS);
+        while (input.isWritable()) {
+            // The last frame fills up the input, so no frame is left incomplete after the last read.
+            int size = input.writableBytes() < 2 * frameSize ? input.writableBytes() : frameSize;
+            byte[] payload = new byte[size - 4];
+            random.nextBytes(payload);
+            input.writeInt(payload.length).writeBytes(payload);
+        }
+
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+        decoder.setBatchFrames(batch);
+        channel = new EmbeddedChannel(decoder, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                // Touch every frame like an application would.
+                if (msg instanceof FrameBatch) {
+                    FrameBatch batch = (FrameBatch) msg;
+                    ByteBuf content = batch.content();
+                    for (int i = 0; i < batch.count(); i++) {
+                        checksum += content.getByte(batch.frameOffset(i));
+                    }
+                    batch.release();
+                } else {
+                    ByteBuf frame = (ByteBuf) msg;
+                    checksum += frame.getByte(frame.readerIndex());
+                    frame.release();
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        input.release();
+    }
+
+    @Benchmark
+    public long decode() {
+        for (int i = 0; i < READS; i++) {
+            // Copy each read to a new buffer, as the transport would read it into one.
+            ByteBuf read = alloc.directBuffer(READ_SIZE);
+            read.writeBytes(input, i * READ_SIZE, READ_SIZE);
+            channel.writeInbound(read);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Measures how the throughput of a single compressed stream scales with the number of threads which compress its
+ * blocks. {@code threads = 0} compresses on the {@link io.netty.channel.EventLoop} like before.
+ * <p>
+ * Each operation compresses {@link #STREAM_SIZE} bytes, so the throughput in bytes per second is the score times
+ * {@link #STREAM_SIZE}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ParallelBlockCompressionBenchmark extends AbstractMicrobenchmark {
+    private static final int STREAM_SIZE = 16 * 1024 * 1024;
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    public enum Encoder {
+        LZ4 {
+            @Override
+            ChannelHandler newEncoder(EventExecutorGroup group, int blockSize, int maxPendingBlocks) {
+                LZ4Factory factory = LZ4Factory.fastestInstance();
+                if (group == null) {
+                    return new Lz4FrameEncoder(factory, false, blockSize,
+                            XXHashFactory.fastestInstance().newStreamingHash32(Lz4Constants.DEFAULT_SEED).asChecksum());
+                }
+                return new Lz4FrameEncoder(factory, false, blockSize,
+                        XXHashFactory.fastestInstance().newStreamingHash32(Lz4Constants.DEFAULT_SEED).asChecksum(),
+                        group, maxPendingBlocks);
+            }
+        },
+        SNAPPY {
+            @Override
+            ChannelHandler newEncoder(EventExecutorGroup group, int blockSize, int maxPendingBlocks) {
+                return group == null ? new SnappyFrameEncoder() :
+                        new SnappyFrameEncoder(group, blockSize, maxPendingBlocks);
+            }
+        };
+
+        abstract ChannelHandler newEncoder(EventExecutorGroup group, int blockSize, int maxPendingBlocks);
+    }
+
+    @Param
+    public Encoder encoder;
+
+    @Param({ "65536", "1048576", "4194304" })
+    public int blockSize;
+
+    @Param({ "0", "1", "2", "4", "8" })
+    public int threads;
+
+    private EventLoopGroup eventLoopGroup;
+    private EventExecutorGroup compressionGroup;
+    private Channel channel;
+    private ByteBuf data;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        // Half random and half repeated data, so it is compressible.
+        byte[] bytes = new byte[STREAM_SIZE];
+        Random random = new Random(42);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = i % 2 == 0 ? (byte) random.nextInt() : (byte) (i >>> 8);
+        }
+        data = Unpooled.directBuffer(STREAM_SIZE).writeBytes(bytes);
+
+        eventLoopGroup = new DefaultEventLoopGroup(1);
+        if (threads > 0) {
+            compressionGroup = new DefaultEventExecutorGroup(threads);
+        }
+        channel = new LocalChannel();
+        channel.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // Discard the compressed data, only the compression is measured.
+                ((ByteBuf) msg).release();
+                promise.setSuccess();
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                // The channel is not connected.
+            }
+        }, encoder.newEncoder(compressionGroup, blockSize, 2 * threads));
+        eventLoopGroup.register(channel).sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        eventLoopGroup.shutdownGracefully().sync();
+        if (compressionGroup != null) {
+            compressionGroup.shutdownGracefully().sync();
+        }
+        data.release();
+    }
+
+    @Benchmark
+    public void compressStream() throws Exception {
+        for (int i = 0; i < STREAM_SIZE; i += WRITE_SIZE) {
+            channel.write(data.retainedSlice(i, WRITE_SIZE));
+        }
+        channel.flush();
+        // Completes once all blocks which were submitted by the flush were written.
+        channel.writeAndFlush(Unpooled.EMPTY_BUFFER).sync();
+    }
+}
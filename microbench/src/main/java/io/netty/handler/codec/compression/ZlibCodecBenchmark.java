@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Compares the zlib implementations with heap and direct buffers. On Java 11 and later {@link JdkZlibEncoder} and
+ * {@link JdkZlibDecoder} pass direct buffers to zlib without copying them, older versions copy them to a
+ * {@code byte[]} first.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class ZlibCodecBenchmark extends AbstractMicrobenchmark {
+
+    public enum Codec {
+        JDK_ZLIB {
+            @Override
+            ZlibEncoder newEncoder() {
+                return new JdkZlibEncoder(ZlibWrapper.GZIP);
+            }
+
+            @Override
+            ZlibDecoder newDecoder() {
+                return new JdkZlibDecoder(ZlibWrapper.GZIP);
+            }
+        },
+        JZLIB {
+            @Override
+            ZlibEncoder newEncoder() {
+                return new JZlibEncoder(ZlibWrapper.GZIP);
+            }
+
+            @Override
+            ZlibDecoder newDecoder() {
+                return new JZlibDecoder(ZlibWrapper.GZIP);
+            }
+        };
+
+        abstract ZlibEncoder newEncoder();
+
+        abstract ZlibDecoder newDecoder();
+    }
+
+    @Param
+    public Codec codec;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    @Param({ "16384", "262144" })
+    public int size;
+
+    private ByteBufAllocator alloc;
+    private ByteBuf uncompressed;
+    private ByteBuf compressed;
+    private EmbeddedChannel encoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Text like data which compresses roughly as well as HTML.
+        byte[] bytes = new byte[size];
+        Random random = new Random(42);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+        }
+        alloc = new PooledByteBufAllocator(direct);
+        uncompressed = alloc.buffer(size).writeBytes(bytes);
+
+        EmbeddedChannel channel = new EmbeddedChannel(Codec.JDK_ZLIB.newEncoder());
+        channel.writeOutbound(uncompressed.retainedDuplicate());
+        channel.finish();
+        compressed = alloc.buffer();
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed.writeBytes(buf);
+            buf.release();
+        }
+
+        encoder = newChannel();
+        encoder.pipeline().addLast(codec.newEncoder());
+    }
+
+    private EmbeddedChannel newChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setAllocator(alloc);
+        return channel;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoder.finishAndReleaseAll();
+        uncompressed.release();
+        compressed.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        encoder.writeOutbound(uncompressed.retainedDuplicate());
+        return drainOutbound(encoder);
+    }
+
+    @Benchmark
+    public int decode() {
+        // A gzip stream can only be decoded once, so every operation uses a new decoder.
+        EmbeddedChannel decoder = newChannel();
+        decoder.pipeline().addLast(codec.newDecoder());
+        decoder.writeInbound(compressed.retainedDuplicate());
+        int bytes = 0;
+        for (;;) {
+            ByteBuf buf = decoder.readInbound();
+            if (buf == null) {
+                break;
+            }
+            bytes += buf.readableBytes();
+            buf.release();
+        }
+        decoder.finishAndReleaseAll();
+        return bytes;
+    }
+
+    private static int drainOutbound(EmbeddedChannel channel) {
+        int bytes = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            bytes += buf.readableBytes();
+            buf.release();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Compresses every message of a corpus of small, similar JSON messages on its own, with and without a dictionary
+ * built by {@link ZlibDictionaryBuilder}. The {@code compressedBytes} and {@code uncompressedBytes} counters give the
+ * compression ratio.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class ZlibDictionaryBenchmark extends AbstractMicrobenchmark {
+
+    private static final String[] NAMES = { "alice", "bob", "carol", "dave", "erin", "frank" };
+    private static final String[] STATES = { "active", "suspended", "pending-verification" };
+    private static final int MESSAGES = 1024;
+
+    @Param({ "true", "false" })
+    public boolean dictionary;
+
+    private byte[] dictionaryBytes;
+    private ByteBuf[] messages;
+    private ByteBuf[] compressedMessages;
+    private int next;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Sizes {
+        public long compressedBytes;
+        public long uncompressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            compressedBytes = 0;
+            uncompressedBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ZlibDictionaryBuilder builder = new ZlibDictionaryBuilder();
+        for (int i = 0; i < 4096; i++) {
+            ByteBuf sample = newMessage(random);
+            builder.addSample(sample);
+            sample.release();
+        }
+        dictionaryBytes = builder.build();
+
+        messages = new ByteBuf[MESSAGES];
+        compressedMessages = new ByteBuf[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = newMessage(random);
+            EmbeddedChannel channel = new EmbeddedChannel(newEncoder());
+            channel.writeOutbound(messages[i].retainedDuplicate());
+            channel.finish();
+            ByteBuf compressed = Unpooled.buffer();
+            for (;;) {
+                ByteBuf buf = channel.readOutbound();
+                if (buf == null) {
+                    break;
+                }
+                compressed.writeBytes(buf);
+                buf.release();
+            }
+            compressedMessages[i] = compressed;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i].release();
+            compressedMessages[i].release();
+        }
+    }
+
+    private ZlibEncoder newEncoder() {
+        return dictionary ? new JdkZlibEncoder(ZlibWrapper.NONE, 6, dictionaryBytes) :
+                new JdkZlibEncoder(ZlibWrapper.NONE, 6);
+    }
+
+    private ZlibDecoder newDecoder() {
+        return dictionary ? new JdkZlibDecoder(ZlibWrapper.NONE, dictionaryBytes) :
+                new JdkZlibDecoder(ZlibWrapper.NONE);
+    }
+
+    @Benchmark
+    public void compress(Sizes sizes) {
+        ByteBuf message = messages[next++ & MESSAGES - 1];
+        EmbeddedChannel channel = new EmbeddedChannel(newEncoder());
+        channel.writeOutbound(message.retainedDuplicate());
+        channel.finish();
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            sizes.compressedBytes += buf.readableBytes();
+            buf.release();
+        }
+        sizes.uncompressedBytes += message.readableBytes();
+    }
+
+    @Benchmark
+    public int decompress() {
+        ByteBuf compressed = compressedMessages[next++ & MESSAGES - 1];
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder());
+        channel.writeInbound(compressed.retainedDuplicate());
+        channel.finish();
+        int bytes = 0;
+        for (;;) {
+            ByteBuf buf = channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            bytes += buf.readableBytes();
+            buf.release();
+        }
+        return bytes;
+    }
+
+    private static ByteBuf newMessage(Random random) {
+        String name = NAMES[random.nextInt(NAMES.length)];
+        String json = "{\"id\":" + random.nextInt(1000000) +
+                ",\"user\":{\"name\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}" +
+                ",\"status\":\"" + STATES[random.nextInt(STATES.length)] + '"' +
+                ",\"score\":" + random.nextInt(100) +
+                ",\"tags\":[\"notifications\",\"newsletter\"],\"createdAt\":\"2018-0" + (1 + random.nextInt(9)) +
+                "-1" + random.nextInt(10) + "T12:00:00Z\"}";
+        return Unpooled.copiedBuffer(json, CharsetUtil.UTF_8);
+    }
+}
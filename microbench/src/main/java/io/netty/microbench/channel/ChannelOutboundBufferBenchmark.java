@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures the cost of flushing a number of pending small messages through
+ * {@link ChannelOutboundBuffer#nioBuffers(int, long)}, either in a single gathering write or in several partial
+ * writes as happens when the socket send buffer is almost full.
+ */
+@State(Scope.Benchmark)
+public class ChannelOutboundBufferBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "16", "256" })
+    public int messages;
+
+    @Param({ "64" })
+    public int messageSize;
+
+    private EmbeddedChannel channel;
+    private ChannelOutboundBuffer buffer;
+    private ByteBuf message;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        buffer = channel.unsafe().outboundBuffer();
+        message = PooledByteBufAllocator.DEFAULT.directBuffer(messageSize).writeZero(messageSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        message.release();
+    }
+
+    @Benchmark
+    public long flushCompleteWrite() {
+        addAndFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers(1024, Integer.MAX_VALUE);
+        long size = buffer.nioBufferSize();
+        write(buffers, buffer.nioBufferCount(), size);
+        buffer.removeBytes(size);
+        return size;
+    }
+
+    @Benchmark
+    public long flushPartialWrites() {
+        addAndFlush();
+        // Simulate a socket that only accepts a bit more than a single message per write.
+        final int bytesPerWrite = messageSize + (messageSize >>> 1);
+        long written = 0;
+        while (!buffer.isEmpty()) {
+            ByteBuffer[] buffers = buffer.nioBuffers(1024, Integer.MAX_VALUE);
+            long size = Math.min(bytesPerWrite, buffer.nioBufferSize());
+            write(buffers, buffer.nioBufferCount(), size);
+            buffer.removeBytes(size);
+            written += size;
+        }
+        return written;
+    }
+
+    private void addAndFlush() {
+        for (int i = 0; i < messages; i++) {
+            buffer.addMessage(message.retainedDuplicate(), messageSize, channel.voidPromise());
+        }
+        buffer.addFlush();
+    }
+
+    private static void write(ByteBuffer[] buffers, int count, long bytes) {
+        for (int i = 0; i < count && bytes > 0; i++) {
+            ByteBuffer buf = buffers[i];
+            int written = (int) Math.min(bytes, buf.remaining());
+            buf.position(buf.position() + written);
+            bytes -= written;
+        }
+    }
+}
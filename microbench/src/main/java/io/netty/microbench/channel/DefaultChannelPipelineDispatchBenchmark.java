@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of passing events through a long {@link ChannelPipeline} in which most handlers only handle a
+ * few events, for example a {@link ChannelDuplexHandler} that only intercepts writes. Those handlers are skipped for
+ * all the other events instead of forwarding them.
+ */
+@State(Scope.Benchmark)
+public class DefaultChannelPipelineDispatchBenchmark extends AbstractMicrobenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "10", "20" })
+    public int handlers;
+
+    private EmbeddedChannel channel;
+    private ChannelPipeline pipeline;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        pipeline = channel.pipeline();
+        for (int i = 0; i < handlers; i++) {
+            switch (i % 3) {
+            case 0:
+                pipeline.addLast(new WriteOnlyHandler());
+                break;
+            case 1:
+                pipeline.addLast(new ReadOnlyHandler());
+                break;
+            default:
+                pipeline.addLast(new UserEventOnlyHandler());
+                break;
+            }
+        }
+        pipeline.addLast(new ConsumingHandler());
+        pipeline.addFirst(new DiscardingHandler());
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void read() {
+        pipeline.fireChannelRead(MESSAGE);
+        pipeline.fireChannelReadComplete();
+    }
+
+    @Benchmark
+    public void write() {
+        pipeline.write(MESSAGE, channel.voidPromise());
+        pipeline.flush();
+    }
+
+    @Sharable
+    private static final class WriteOnlyHandler extends ChannelDuplexHandler {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Sharable
+    private static final class ReadOnlyHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Sharable
+    private static final class UserEventOnlyHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+
+    @Sharable
+    private static final class ConsumingHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // Consume the message so it does not end up in the inbound buffer of the EmbeddedChannel.
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            // NOOP
+        }
+    }
+
+    @Sharable
+    private static final class DiscardingHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            // Discard the message so it does not end up in the outbound buffer of the EmbeddedChannel.
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            // NOOP
+        }
+    }
+}
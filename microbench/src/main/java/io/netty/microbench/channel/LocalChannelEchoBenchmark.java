@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the echo throughput of {@link LocalChannel}s, either sharing a single {@link io.netty.channel.EventLoop}
+ * or running on different ones. Run it against two revisions to compare local transport implementations.
+ */
+@State(Scope.Benchmark)
+public class LocalChannelEchoBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "true", "false" })
+    public boolean sameEventLoop;
+
+    @Param({ "1", "64" })
+    public int messagesPerFlush;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private ByteBuf message;
+    private EchoClientHandler clientHandler;
+    private Runnable writeTask;
+
+    @Setup
+    public void setup() throws Exception {
+        serverGroup = new DefaultEventLoopGroup(1);
+        clientGroup = sameEventLoop ? serverGroup : new DefaultEventLoopGroup(1);
+        message = Unpooled.unreleasableBuffer(Unpooled.directBuffer(64).writeZero(64));
+
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new EchoServerHandler())
+                .bind(new LocalAddress("LocalChannelEchoBenchmark"))
+                .sync().channel();
+
+        clientHandler = new EchoClientHandler();
+        clientChannel = new Bootstrap()
+                .group(clientGroup)
+                .channel(LocalChannel.class)
+                .handler(clientHandler)
+                .connect(serverChannel.localAddress())
+                .sync().channel();
+
+        writeTask = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < messagesPerFlush; i++) {
+                    clientChannel.write(message.duplicate(), clientChannel.voidPromise());
+                }
+                clientChannel.flush();
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        if (clientGroup != serverGroup) {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Benchmark
+    public Object echo() throws Exception {
+        Promise<Void> promise = clientChannel.eventLoop().newPromise();
+        clientHandler.expect(messagesPerFlush, promise);
+        clientChannel.eventLoop().execute(writeTask);
+        return promise.sync();
+    }
+
+    @Sharable
+    private static final class EchoServerHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg, ctx.voidPromise());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class EchoClientHandler extends ChannelInboundHandlerAdapter {
+        private volatile int remaining;
+        private volatile Promise<Void> promise;
+
+        void expect(int messages, Promise<Void> promise) {
+            this.promise = promise;
+            remaining = messages;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+            if (--remaining == 0) {
+                promise.setSuccess(null);
+            }
+        }
+    }
+}
@@ -16,8 +16,11 @@
 package io.netty.microbench.headers;
 
 import io.netty.handler.codec.Headers;
+import io.netty.handler.codec.http.ArrayHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http2.ArrayHttp2Headers;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.AsciiString;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -59,29 +62,47 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         return (name.equals("host")) ? "xhost" : name;
     }
 
+    public enum HeadersImpl {
+        DEFAULT,
+        ARRAY
+    }
+
     @Param
     ExampleHeaders.HeaderExample exampleHeader;
 
+    @Param
+    HeadersImpl impl;
+
     AsciiString[] httpNames;
     AsciiString[] http2Names;
     AsciiString[] httpValues;
 
     DefaultHttpHeaders httpHeaders;
-    DefaultHttp2Headers http2Headers;
+    Http2Headers http2Headers;
+    DefaultHttpHeaders removableHttpHeaders;
+    Http2Headers removableHttp2Headers;
     DefaultHttpHeaders emptyHttpHeaders;
-    DefaultHttp2Headers emptyHttp2Headers;
+    Http2Headers emptyHttp2Headers;
     DefaultHttpHeaders emptyHttpHeadersNoValidate;
-    DefaultHttp2Headers emptyHttp2HeadersNoValidate;
+    Http2Headers emptyHttp2HeadersNoValidate;
     SlowHeaders slowHttp2Headers;
 
+    private DefaultHttpHeaders newHttpHeaders(boolean validate) {
+        return impl == HeadersImpl.ARRAY ? new ArrayHttpHeaders(validate) : new DefaultHttpHeaders(validate);
+    }
+
+    private Http2Headers newHttp2Headers(boolean validate) {
+        return impl == HeadersImpl.ARRAY ? new ArrayHttp2Headers(validate) : new DefaultHttp2Headers(validate);
+    }
+
     @Setup(Level.Trial)
     public void setup() {
         Map<String, String> headers = ExampleHeaders.EXAMPLES.get(exampleHeader);
         httpNames = new AsciiString[headers.size()];
         http2Names = new AsciiString[headers.size()];
         httpValues = new AsciiString[headers.size()];
-        httpHeaders = new DefaultHttpHeaders(false);
-        http2Headers = new DefaultHttp2Headers(false);
+        httpHeaders = newHttpHeaders(false);
+        http2Headers = newHttp2Headers(false);
         int idx = 0;
         for (Map.Entry<String, String> header : headers.entrySet()) {
             String name = header.getKey();
@@ -96,10 +117,12 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
             idx++;
         }
         slowHttp2Headers = new SlowHeaders(http2Headers);
-        emptyHttpHeaders = new DefaultHttpHeaders(true);
-        emptyHttp2Headers = new DefaultHttp2Headers(true);
-        emptyHttpHeadersNoValidate = new DefaultHttpHeaders(false);
-        emptyHttp2HeadersNoValidate = new DefaultHttp2Headers(false);
+        removableHttpHeaders = newHttpHeaders(false);
+        removableHttp2Headers = newHttp2Headers(false);
+        emptyHttpHeaders = newHttpHeaders(true);
+        emptyHttp2Headers = newHttp2Headers(true);
+        emptyHttpHeadersNoValidate = newHttpHeaders(false);
+        emptyHttp2HeadersNoValidate = newHttp2Headers(false);
     }
 
     @Setup(Level.Invocation)
@@ -108,13 +131,16 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         emptyHttp2Headers .clear();
         emptyHttpHeadersNoValidate.clear();
         emptyHttp2HeadersNoValidate.clear();
+        // The remove benchmarks need all headers to be present again.
+        removableHttpHeaders.set(httpHeaders);
+        removableHttp2Headers.set(http2Headers);
     }
 
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void httpRemove(Blackhole bh) {
         for (AsciiString name : httpNames) {
-            bh.consume(httpHeaders.remove(name));
+            bh.consume(removableHttpHeaders.remove(name));
         }
     }
 
@@ -129,7 +155,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public DefaultHttpHeaders httpPut() {
-        DefaultHttpHeaders headers = new DefaultHttpHeaders(false);
+        DefaultHttpHeaders headers = newHttpHeaders(false);
         for (int i = 0; i < httpNames.length; i++) {
             headers.add(httpNames[i], httpValues[i]);
         }
@@ -149,7 +175,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
     @BenchmarkMode(Mode.AverageTime)
     public void http2Remove(Blackhole bh) {
         for (AsciiString name : http2Names) {
-            bh.consume(http2Headers.remove(name));
+            bh.consume(removableHttp2Headers.remove(name));
         }
     }
 
@@ -163,8 +189,8 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
 
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
-    public DefaultHttp2Headers http2Put() {
-        DefaultHttp2Headers headers = new DefaultHttp2Headers(false);
+    public Http2Headers http2Put() {
+        Http2Headers headers = newHttp2Headers(false);
         for (int i = 0; i < http2Names.length; i++) {
             headers.add(http2Names[i], httpValues[i]);
         }
@@ -20,11 +20,13 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.AdaptiveWriteSpinStrategy;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.oio.OioEventLoopGroup;
 import io.netty.testsuite.util.TestUtils;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
@@ -109,6 +111,23 @@ public class SocketGatheringWriteTest extends AbstractSocketTest {
         testGatheringWrite0(sb, cb, bigData, false, true);
     }
 
+    @Test
+    public void testGatheringWriteAdaptiveWriteSpin() throws Throwable {
+        run();
+    }
+
+    public void testGatheringWriteAdaptiveWriteSpin(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        AdaptiveWriteSpinStrategy strategy = new AdaptiveWriteSpinStrategy();
+        cb.option(ChannelOption.WRITE_SPIN_STRATEGY, strategy);
+        cb.option(ChannelOption.SO_SNDBUF, 8192);
+        testGatheringWrite0(sb, cb, data, false, true);
+        if (!(cb.config().group() instanceof OioEventLoopGroup)) {
+            // The blocking transport does not use a WriteSpinStrategy.
+            assertTrue(strategy.writeAttempts() > 0);
+            assertEquals(data.length, strategy.writtenBytes());
+        }
+    }
+
     private void testGatheringWrite0(
             ServerBootstrap sb, Bootstrap cb, byte[] data, boolean composite, boolean autoRead) throws Throwable {
         sb.childOption(ChannelOption.AUTO_READ, autoRead);
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.oio.OioEventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the round trip latency of connections which only exchange a few bytes while another connection
+ * saturates the server with data.
+ */
+public class SocketReadFairnessTest extends AbstractSocketTest {
+
+    private static final int SMALL_FLOWS = 8;
+    private static final int ROUND_TRIPS = 100;
+    private static final int FIREHOSE_CHUNK = 64 * 1024;
+    private static final long MAX_P99_LATENCY = TimeUnit.SECONDS.toNanos(1);
+
+    @Test(timeout = 60000)
+    public void testSmallFlowLatencyNextToSaturatingFlow() throws Throwable {
+        run();
+    }
+
+    public void testSmallFlowLatencyNextToSaturatingFlow(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        if (sb.config().childGroup() instanceof OioEventLoopGroup || cb.config().group() instanceof OioEventLoopGroup) {
+            // Every connection has its own thread, so there is nothing to share and the saturating flow would never
+            // give up its thread to process the close.
+            return;
+        }
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Channel sinkChannel = null;
+        Channel echoChannel = null;
+        Channel firehose = null;
+        List<Channel> clients = new ArrayList<Channel>();
+        try {
+            sb.childHandler(new SinkHandler());
+            sinkChannel = sb.bind().sync().channel();
+
+            sb.childHandler(new EchoHandler(error));
+            echoChannel = sb.bind().sync().channel();
+
+            final CountDownLatch firehoseStarted = new CountDownLatch(1);
+            cb.handler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelActive(ChannelHandlerContext ctx) {
+                    writeWhileWritable(ctx);
+                    firehoseStarted.countDown();
+                }
+
+                @Override
+                public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                    writeWhileWritable(ctx);
+                }
+
+                private void writeWhileWritable(ChannelHandlerContext ctx) {
+                    while (ctx.channel().isWritable()) {
+                        ctx.write(ctx.alloc().buffer(FIREHOSE_CHUNK).writeZero(FIREHOSE_CHUNK));
+                    }
+                    ctx.flush();
+                }
+
+                @Override
+                public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                    ctx.close();
+                }
+            });
+            firehose = cb.connect(sinkChannel.localAddress()).sync().channel();
+            assertTrue(firehoseStarted.await(10, TimeUnit.SECONDS));
+
+            final long[] latencies = new long[SMALL_FLOWS * ROUND_TRIPS];
+            final CountDownLatch done = new CountDownLatch(SMALL_FLOWS);
+            for (int i = 0; i < SMALL_FLOWS; i++) {
+                final int offset = i * ROUND_TRIPS;
+                cb.handler(new SimpleChannelInboundHandler<ByteBuf>() {
+                    private int roundTrips;
+                    private long sendTime;
+
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) {
+                        ping(ctx);
+                    }
+
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                        // Each ping is a single byte, so every read completes one round trip.
+                        latencies[offset + roundTrips] = System.nanoTime() - sendTime;
+                        if (++roundTrips == ROUND_TRIPS) {
+                            done.countDown();
+                        } else {
+                            ping(ctx);
+                        }
+                    }
+
+                    private void ping(ChannelHandlerContext ctx) {
+                        sendTime = System.nanoTime();
+                        ctx.writeAndFlush(ctx.alloc().buffer(1).writeByte(1));
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        error.compareAndSet(null, cause);
+                        ctx.close();
+                    }
+                });
+                clients.add(cb.connect(echoChannel.localAddress()).sync().channel());
+            }
+
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertNull(error.get());
+
+            Arrays.sort(latencies);
+            long p50 = percentile(latencies, 0.5);
+            long p99 = percentile(latencies, 0.99);
+            logger.info(String.format("Small flow round trip latency next to a saturating flow: p50: %d us, " +
+                            "p99: %d us, max: %d us",
+                    TimeUnit.NANOSECONDS.toMicros(p50), TimeUnit.NANOSECONDS.toMicros(p99),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1])));
+            assertTrue("p99 latency too high: " + p99 + "ns", p99 < MAX_P99_LATENCY);
+        } finally {
+            for (Channel ch: clients) {
+                ch.close().sync();
+            }
+            if (firehose != null) {
+                firehose.close().sync();
+            }
+            if (echoChannel != null) {
+                echoChannel.close().sync();
+            }
+            if (sinkChannel != null) {
+                sinkChannel.close().sync();
+            }
+        }
+    }
+
+    @Sharable
+    private static final class SinkHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+    @Sharable
+    private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+        private final AtomicReference<Throwable> error;
+
+        EchoHandler(AtomicReference<Throwable> error) {
+            this.error = error;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.writeAndFlush(msg);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            error.compareAndSet(null, cause);
+            ctx.close();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * percentile) - 1)];
+    }
+}
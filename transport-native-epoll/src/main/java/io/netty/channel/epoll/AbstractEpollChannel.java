@@ -75,6 +75,11 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
     protected int flags = Native.EPOLLET;
     boolean inputClosedSeenErrorOnRead;
     boolean epollInReadyRunnablePending;
+    // true if this Channel was accepted in batched mode and so is registered together with the other Channels that
+    // were accepted by the same wakeup, see EpollEventLoop.register(ChannelPromise).
+    boolean batchRegistration;
+    // true if EPOLLOUT is only kept registered because of the WriteSpinStrategy and no flush is waiting for it.
+    boolean epollOutRetained;
 
     protected volatile boolean active;
 
@@ -358,6 +363,7 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
     protected final int doWriteBytes(ChannelOutboundBuffer in, ByteBuf buf) throws Exception {
         if (buf.hasMemoryAddress()) {
             int localFlushedAmount = socket.writeAddress(buf.memoryAddress(), buf.readerIndex(), buf.writerIndex());
+            recordWrite(buf.readableBytes(), localFlushedAmount);
             if (localFlushedAmount > 0) {
                 in.removeBytes(localFlushedAmount);
                 return 1;
@@ -366,6 +372,7 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
             final ByteBuffer nioBuf = buf.nioBufferCount() == 1 ?
                     buf.internalNioBuffer(buf.readerIndex(), buf.readableBytes()) : buf.nioBuffer();
             int localFlushedAmount = socket.write(nioBuf, nioBuf.position(), nioBuf.limit());
+            recordWrite(nioBuf.remaining(), localFlushedAmount);
             if (localFlushedAmount > 0) {
                 nioBuf.position(nioBuf.position() + localFlushedAmount);
                 in.removeBytes(localFlushedAmount);
@@ -421,7 +428,13 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
                 return;
             }
             epollInReadyRunnablePending = true;
-            eventLoop().execute(epollInReadyRunnable);
+            EpollEventLoop loop = (EpollEventLoop) eventLoop();
+            if (allocHandle != null && allocHandle.isReadBudgetExhausted() && loop.inEventLoop()) {
+                // Give the other ready channels their turn first.
+                loop.addPendingRead(AbstractEpollChannel.this);
+            } else {
+                loop.execute(epollInReadyRunnable);
+            }
         }
 
         /**
@@ -510,8 +523,9 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
         protected final void flush0() {
             // Flush immediately only when there's no pending flush.
             // If there's a pending flush operation, event loop will call forceFlush() later,
-            // and thus there's no need to call it now.
-            if (!isFlagSet(Native.EPOLLOUT)) {
+            // and thus there's no need to call it now. If EPOLLOUT is only kept registered by the WriteSpinStrategy
+            // there is no pending flush.
+            if (!isFlagSet(Native.EPOLLOUT) || epollOutRetained) {
                 super.flush0();
             }
         }
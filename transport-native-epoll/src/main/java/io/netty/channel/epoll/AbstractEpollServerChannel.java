@@ -30,6 +30,8 @@ import java.net.SocketAddress;
 public abstract class AbstractEpollServerChannel extends AbstractEpollChannel implements ServerChannel {
     private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
 
+    private final EpollAcceptMetrics acceptMetrics = new EpollAcceptMetrics(this);
+
     protected AbstractEpollServerChannel(int fd) {
         this(new LinuxSocket(fd), false);
     }
@@ -42,6 +44,13 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
         super(null, fd, Native.EPOLLIN, active);
     }
 
+    /**
+     * Returns the {@link EpollAcceptMetrics} of this {@link io.netty.channel.ServerChannel}.
+     */
+    public EpollAcceptMetrics acceptMetrics() {
+        return acceptMetrics;
+    }
+
     @Override
     public ChannelMetadata metadata() {
         return METADATA;
@@ -79,6 +88,8 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
         // We need 24 bytes for the address as maximum + 1 byte for storing the length.
         // So use 26 bytes as it's a power of two.
         private final byte[] acceptedAddress = new byte[26];
+        // Holds the children which were accepted in batched mode until they are passed to the pipeline.
+        private Channel[] acceptedChildren;
 
         @Override
         public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
@@ -102,26 +113,34 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
             allocHandle.attemptedBytesRead(1);
             epollInBefore();
 
+            final int acceptBatchSize = ((EpollServerChannelConfig) config).getAcceptBatchSize();
             Throwable exception = null;
             try {
-                try {
-                    do {
-                        // lastBytesRead represents the fd. We use lastBytesRead because it must be set so that the
-                        // EpollRecvByteAllocatorHandle knows if it should try to read again or not when autoRead is
-                        // enabled.
-                        allocHandle.lastBytesRead(socket.accept(acceptedAddress));
-                        if (allocHandle.lastBytesRead() == -1) {
-                            // this means everything was handled for now
-                            break;
-                        }
-                        allocHandle.incMessagesRead(1);
-
-                        readPending = false;
-                        pipeline.fireChannelRead(newChildChannel(allocHandle.lastBytesRead(), acceptedAddress, 1,
-                                                                 acceptedAddress[0]));
-                    } while (allocHandle.continueReading());
-                } catch (Throwable t) {
-                    exception = t;
+                if (acceptBatchSize > 0) {
+                    exception = acceptBatch(config, allocHandle, pipeline, acceptBatchSize);
+                } else {
+                    int accepted = 0;
+                    try {
+                        do {
+                            // lastBytesRead represents the fd. We use lastBytesRead because it must be set so that
+                            // the EpollRecvByteAllocatorHandle knows if it should try to read again or not when
+                            // autoRead is enabled.
+                            allocHandle.lastBytesRead(socket.accept(acceptedAddress));
+                            if (allocHandle.lastBytesRead() == -1) {
+                                // this means everything was handled for now
+                                break;
+                            }
+                            allocHandle.incMessagesRead(1);
+                            accepted++;
+
+                            readPending = false;
+                            pipeline.fireChannelRead(newChildChannel(allocHandle.lastBytesRead(), acceptedAddress, 1,
+                                                                     acceptedAddress[0]));
+                        } while (allocHandle.continueReading());
+                    } catch (Throwable t) {
+                        exception = t;
+                    }
+                    acceptMetrics.record(accepted);
                 }
                 allocHandle.readComplete();
                 pipeline.fireChannelReadComplete();
@@ -133,6 +152,51 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
                 epollInFinally(config);
             }
         }
+
+        /**
+         * Accepts up to {@code acceptBatchSize} connections before passing any of them to the {@link ChannelPipeline},
+         * so accepting is not interleaved with setting up the children. Returns the {@link Throwable} which stopped
+         * accepting, if any.
+         */
+        private Throwable acceptBatch(ChannelConfig config, EpollRecvByteAllocatorHandle allocHandle,
+                                      ChannelPipeline pipeline, int acceptBatchSize) {
+            Channel[] children = acceptedChildren;
+            if (children == null || children.length != acceptBatchSize) {
+                acceptedChildren = children = new Channel[acceptBatchSize];
+            }
+            Throwable exception = null;
+            int accepted = 0;
+            try {
+                do {
+                    allocHandle.lastBytesRead(socket.accept(acceptedAddress));
+                    if (allocHandle.lastBytesRead() == -1) {
+                        // this means everything was handled for now
+                        break;
+                    }
+                    allocHandle.incMessagesRead(1);
+
+                    Channel child = newChildChannel(allocHandle.lastBytesRead(), acceptedAddress, 1,
+                                                    acceptedAddress[0]);
+                    if (child instanceof AbstractEpollChannel) {
+                        ((AbstractEpollChannel) child).batchRegistration = true;
+                    }
+                    children[accepted++] = child;
+                } while (accepted < acceptBatchSize && config.isAutoRead());
+            } catch (Throwable t) {
+                exception = t;
+            }
+
+            if (accepted > 0) {
+                readPending = false;
+            }
+            for (int i = 0; i < accepted; i++) {
+                Channel child = children[i];
+                children[i] = null;
+                pipeline.fireChannelRead(child);
+            }
+            acceptMetrics.record(accepted);
+            return exception;
+        }
     }
 
     @Override
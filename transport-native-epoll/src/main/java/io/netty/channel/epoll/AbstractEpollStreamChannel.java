@@ -28,6 +28,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
+import io.netty.channel.WriteSpinStrategy;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.DuplexChannel;
@@ -78,11 +79,23 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             ((AbstractEpollUnsafe) unsafe()).flush0();
         }
     };
+    private final ChannelOutboundBuffer.FileRegionWriter fileRegionWriter =
+            new ChannelOutboundBuffer.FileRegionWriter() {
+        @Override
+        public long write(DefaultFileRegion region) throws Exception {
+            final long attemptedBytes = region.count();
+            final long flushedAmount = socket.sendFile(region, region.position(), 0, attemptedBytes);
+            recordWrite(attemptedBytes, flushedAmount);
+            return flushedAmount;
+        }
+    };
     private Queue<SpliceInTask> spliceQueue;
 
     // Lazy init these if we need to splice(...)
     private FileDescriptor pipeIn;
     private FileDescriptor pipeOut;
+    // The number of bytes which were spliced into the pipe but not spliced out of it yet.
+    private int pipeBytes;
 
     private WritableByteChannel byteChannel;
 
@@ -314,6 +327,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         assert cnt != 0;
 
         final long localWrittenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
+        recordWrite(expectedWrittenBytes, localWrittenBytes);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
             in.removeBytes(localWrittenBytes);
@@ -349,6 +363,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
 
         final long localWrittenBytes = socket.writev(nioBuffers, 0, nioBufferCnt, expectedWrittenBytes);
+        recordWrite(expectedWrittenBytes, localWrittenBytes);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, maxBytesPerGatheringWrite);
             in.removeBytes(localWrittenBytes);
@@ -378,8 +393,15 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return 0;
         }
 
+        // Transfer all regions which continue each other in the same file with one sendfile call.
+        long adjacentFlushedAmount = in.writeAdjacentFileRegions(fileRegionWriter);
+        if (adjacentFlushedAmount >= 0) {
+            return adjacentFlushedAmount > 0 ? 1 : WRITE_STATUS_SNDBUF_FULL;
+        }
+
         final long offset = region.transferred();
         final long flushedAmount = socket.sendFile(region, region.position(), offset, regionCount - offset);
+        recordWrite(regionCount - offset, flushedAmount);
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= regionCount) {
@@ -413,7 +435,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         if (byteChannel == null) {
             byteChannel = new EpollSocketWritableByteChannel();
         }
+        final long attemptedBytes = region.count() - region.transferred();
         final long flushedAmount = region.transferTo(byteChannel, region.transferred());
+        recordWrite(attemptedBytes, flushedAmount);
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= region.count()) {
@@ -426,7 +450,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        final WriteSpinStrategy.Handle writeSpinHandle = writeSpinHandle();
         int writeSpinCount = config().getWriteSpinCount();
+        epollOutRetained = false;
         do {
             final int msgCount = in.size();
             // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
@@ -434,13 +460,29 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 writeSpinCount -= doWriteMultiple(in);
             } else if (msgCount == 0) {
                 // Wrote all messages.
-                clearFlag(Native.EPOLLOUT);
+                if (isFlagSet(Native.EPOLLET) && isFlagSet(Native.EPOLLOUT) &&
+                        writeSpinHandle.keepWritabilityInterest()) {
+                    // The send buffer is expected to run full again soon, so keep EPOLLOUT registered instead of
+                    // removing it now and adding it back then. In edge-triggered mode this only results in an
+                    // additional wakeup when the send buffer was full before.
+                    epollOutRetained = true;
+                } else {
+                    clearFlag(Native.EPOLLOUT);
+                }
                 // Return here so we not set the EPOLLOUT flag.
                 return;
             } else {  // msgCount == 1
                 writeSpinCount -= doWriteSingle(in);
             }
 
+            if (!writeSpinHandle.continueWriting() && !in.isEmpty()) {
+                // The send buffer is expected to be full, so wait for EPOLLOUT instead of making another attempt.
+                // This must not schedule the flushTask even if the write quantum was used up, as it would retry
+                // writing to the full socket right away.
+                setFlag(Native.EPOLLOUT);
+                return;
+            }
+
             // We do not break the loop here even if the outbound buffer was flushed completely,
             // because a user might have triggered another write and flush when we notify his or her
             // listeners.
@@ -694,6 +736,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         } finally {
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
+            pipeBytes = 0;
             clearSpliceQueue();
         }
     }
@@ -762,6 +805,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             }
             final EpollRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
             allocHandle.edgeTriggered(isFlagSet(Native.EPOLLET));
+            allocHandle.readBudget(((EpollEventLoop) eventLoop()).getReadBudget());
 
             final ChannelPipeline pipeline = pipeline();
             final ByteBufAllocator allocator = config.getAllocator();
@@ -782,9 +826,15 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                                     spliceQueue.remove();
                                 }
                                 continue;
-                            } else {
+                            } else if (spliceTask.lastSplicedIn != 0 || !allocHandle.isReceivedRdHup() ||
+                                    spliceTask.hasPendingSpliceOut()) {
+                                // splice(...) returns 0 for EAGAIN as well, which is also the case if the pipe is
+                                // full because the target was not writable. Keep the task and wait for the next
+                                // EPOLLIN or EPOLLRDHUP.
                                 break;
                             }
+                            // splice(...) returns 0 for EOF as well. The remote peer shutdown its output and the
+                            // pipe is empty, so confirm the EOF with a read below which will return -1 in this case.
                         }
                     }
 
@@ -792,6 +842,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                     // to handle direct buffers.
                     byteBuf = allocHandle.allocate(allocator);
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
+                    recordRead(allocHandle.lastBytesRead());
                     if (allocHandle.lastBytesRead() <= 0) {
                         // nothing was read, release the buffer.
                         byteBuf.release();
@@ -862,6 +913,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     protected abstract class SpliceInTask {
         final ChannelPromise promise;
         int len;
+        // The number of bytes that were spliced by the last call of spliceIn(...).
+        int lastSplicedIn;
 
         protected SpliceInTask(int len, ChannelPromise promise) {
             this.promise = promise;
@@ -870,6 +923,13 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
         abstract boolean spliceIn(RecvByteBufAllocator.Handle handle);
 
+        /**
+         * Returns {@code true} if data which was spliced in is still waiting in the pipe to be spliced out.
+         */
+        boolean hasPendingSpliceOut() {
+            return false;
+        }
+
         protected final int spliceIn(FileDescriptor pipeOut, RecvByteBufAllocator.Handle handle) throws IOException {
             // calculate the maximum amount of data we are allowed to splice
             int length = Math.min(handle.guess(), len);
@@ -883,7 +943,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 splicedIn += localSplicedIn;
                 length -= localSplicedIn;
             }
-
+            lastSplicedIn = splicedIn;
             return splicedIn;
         }
     }
@@ -904,6 +964,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             }
         }
 
+        @Override
+        boolean hasPendingSpliceOut() {
+            return ch.pipeBytes != 0;
+        }
+
         @Override
         public boolean spliceIn(RecvByteBufAllocator.Handle handle) {
             assert ch.eventLoop().inEventLoop();
@@ -925,6 +990,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
                 int splicedIn = spliceIn(pipeOut, handle);
                 if (splicedIn > 0) {
+                    ch.pipeBytes += splicedIn;
                     // Integer.MAX_VALUE is a special value which will result in splice forever.
                     if (len != Integer.MAX_VALUE) {
                         len -= splicedIn;
@@ -978,6 +1044,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             try {
                 int splicedOut = Native.splice(ch.pipeIn.intValue(), -1, ch.socket.intValue(), -1, len);
                 len -= splicedOut;
+                ch.pipeBytes -= splicedOut;
                 if (len == 0) {
                     if (autoRead) {
                         // AutoRead was used and we spliced everything so start reading again
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics about the connections accepted by an {@link AbstractEpollServerChannel}, which help to size
+ * {@link EpollChannelOption#EPOLL_ACCEPT_BATCH_SIZE} and {@link io.netty.channel.ChannelOption#SO_BACKLOG} during
+ * connection storms.
+ * <p>
+ * All methods may be called from any {@link Thread}.
+ */
+public final class EpollAcceptMetrics {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollAcceptMetrics.class);
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final File NETSTAT = new File("/proc/net/netstat");
+
+    private final AbstractEpollServerChannel channel;
+
+    // Only written by the EventLoop of the channel.
+    private volatile long acceptedConnections;
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+    private volatile long windowStartNanos = System.nanoTime();
+    private volatile long windowStartConnections;
+    private volatile double acceptRate;
+
+    EpollAcceptMetrics(AbstractEpollServerChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Records the number of connections that were accepted by one {@code epollInReady()} call.
+     */
+    void record(int accepted) {
+        if (accepted == 0) {
+            return;
+        }
+        long connections = acceptedConnections + accepted;
+        acceptedConnections = connections;
+        lastBatchSize = accepted;
+        if (accepted > maxBatchSize) {
+            maxBatchSize = accepted;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            acceptRate = rate(connections - windowStartConnections, elapsed);
+            windowStartConnections = connections;
+            windowStartNanos = now;
+        }
+    }
+
+    private static double rate(long connections, long elapsedNanos) {
+        return connections * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Returns the number of connections that were accepted since the {@link AbstractEpollServerChannel} was created.
+     */
+    public long acceptedConnections() {
+        return acceptedConnections;
+    }
+
+    /**
+     * Returns the number of connections accepted per second, measured over the last window of at least one second.
+     */
+    public double acceptRate() {
+        long elapsed = System.nanoTime() - windowStartNanos;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            // No connection was accepted since the window ended, so it is still open.
+            return rate(acceptedConnections - windowStartConnections, elapsed);
+        }
+        return acceptRate;
+    }
+
+    /**
+     * Returns the number of connections that were accepted by the last wakeup of the {@link EpollEventLoop}.
+     */
+    public int lastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of connections that were accepted by a single wakeup of the {@link EpollEventLoop}.
+     */
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the number of connections that are currently waiting in the accept queue of the socket, as reported by
+     * {@code TCP_INFO}, or {@code -1} if it is not available, for example because it is not a TCP socket.
+     */
+    public int backlogLength() {
+        EpollTcpInfo info = tcpInfo();
+        return info == null ? -1 : (int) info.unacked();
+    }
+
+    /**
+     * Returns the size of the accept queue of the socket, as reported by {@code TCP_INFO}, or {@code -1} if it is not
+     * available, for example because it is not a TCP socket. This is the
+     * {@link io.netty.channel.ChannelOption#SO_BACKLOG} capped by {@code net.core.somaxconn}.
+     */
+    public int backlogCapacity() {
+        EpollTcpInfo info = tcpInfo();
+        return info == null ? -1 : (int) info.sacked();
+    }
+
+    private EpollTcpInfo tcpInfo() {
+        if (!channel.isOpen()) {
+            return null;
+        }
+        EpollTcpInfo info = new EpollTcpInfo();
+        try {
+            channel.socket.getTcpInfo(info);
+            return info;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of times a connection was dropped because the accept queue of a socket was full, or
+     * {@code -1} if it is not available. This is the {@code ListenOverflows} counter of {@code /proc/net/netstat} and
+     * so covers all listening sockets of the network namespace. Compare it before and after a connection storm to
+     * detect if {@link io.netty.channel.ChannelOption#SO_BACKLOG} is too small.
+     */
+    public static long listenOverflows() {
+        if (!NETSTAT.canRead()) {
+            return -1;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(NETSTAT), CharsetUtil.US_ASCII));
+            // The file consists of pairs of lines, the first one holds the names and the second one the values.
+            String names;
+            while ((names = reader.readLine()) != null) {
+                String values = reader.readLine();
+                if (values == null) {
+                    break;
+                }
+                if (!names.startsWith("TcpExt:")) {
+                    continue;
+                }
+                String[] nameArray = names.split(" ");
+                String[] valueArray = values.split(" ");
+                for (int i = 1; i < nameArray.length && i < valueArray.length; i++) {
+                    if ("ListenOverflows".equals(nameArray[i])) {
+                        return Long.parseLong(valueArray[i]);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to read {}", NETSTAT, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+        }
+        return -1;
+    }
+}
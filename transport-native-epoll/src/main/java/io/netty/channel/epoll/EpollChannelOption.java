@@ -40,6 +40,8 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
 
     public static final ChannelOption<EpollMode> EPOLL_MODE =
             ChannelOption.valueOf(EpollChannelOption.class, "EPOLL_MODE");
+    public static final ChannelOption<Integer> EPOLL_ACCEPT_BATCH_SIZE =
+            ChannelOption.valueOf(EpollChannelOption.class, "EPOLL_ACCEPT_BATCH_SIZE");
 
     public static final ChannelOption<Map<InetAddress, byte[]>> TCP_MD5SIG = valueOf("TCP_MD5SIG");
 
@@ -15,6 +15,9 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SelectStrategy;
@@ -32,6 +35,7 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Queue;
@@ -48,6 +52,8 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollEventLoop.class);
     private static final AtomicIntegerFieldUpdater<EpollEventLoop> WAKEN_UP_UPDATER =
             AtomicIntegerFieldUpdater.newUpdater(EpollEventLoop.class, "wakenUp");
+    private static final AtomicIntegerFieldUpdater<EpollEventLoop> REGISTRATIONS_SCHEDULED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(EpollEventLoop.class, "registrationsScheduled");
 
     static {
         // Ensure JNI is initialized by the time this class is loaded by this time!
@@ -75,8 +81,20 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             return EpollEventLoop.super.pendingTasks();
         }
     };
+    // Channels which used up their read budget while there may be more data to read. Only accessed by the EventLoop.
+    private final ArrayDeque<AbstractEpollChannel> pendingReads = new ArrayDeque<AbstractEpollChannel>();
+    // Channels accepted in batched mode which wait to be registered, see register(ChannelPromise).
+    private final Queue<ChannelPromise> pendingRegistrations = PlatformDependent.newMpscQueue();
+    private final Runnable registerPendingTask = new Runnable() {
+        @Override
+        public void run() {
+            registerPending();
+        }
+    };
+    private volatile int registrationsScheduled;
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
+    private volatile int readBudget;
 
     EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents,
                    SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler) {
@@ -151,6 +169,50 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    @Override
+    public ChannelFuture register(ChannelPromise promise) {
+        ObjectUtil.checkNotNull(promise, "promise");
+        Channel channel = promise.channel();
+        if (channel instanceof AbstractEpollChannel && ((AbstractEpollChannel) channel).batchRegistration &&
+                !inEventLoop()) {
+            // The Channel was accepted together with others, so register all of them with a single task instead of
+            // submitting one task per Channel.
+            pendingRegistrations.add(promise);
+            if (REGISTRATIONS_SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                try {
+                    execute(registerPendingTask);
+                } catch (Throwable cause) {
+                    registrationsScheduled = 0;
+                    failPendingRegistrations(cause);
+                }
+            }
+            return promise;
+        }
+        return super.register(promise);
+    }
+
+    private void registerPending() {
+        registrationsScheduled = 0;
+        for (;;) {
+            ChannelPromise promise = pendingRegistrations.poll();
+            if (promise == null) {
+                break;
+            }
+            // We are on the EventLoop so the registration completes right away.
+            super.register(promise);
+        }
+    }
+
+    private void failPendingRegistrations(Throwable cause) {
+        for (;;) {
+            ChannelPromise promise = pendingRegistrations.poll();
+            if (promise == null) {
+                break;
+            }
+            promise.setFailure(cause);
+        }
+    }
+
     /**
      * Register the given epoll with this {@link EventLoop}.
      */
@@ -175,6 +237,12 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     void remove(AbstractEpollChannel ch) throws IOException {
         assert inEventLoop();
 
+        if (ch.epollInReadyRunnablePending && pendingReads.remove(ch)) {
+            // The EventLoop the Channel is registered with next will be notified by epoll if there is still something
+            // to read, so drop the pending read. Otherwise it would never read again as the read seems to be pending.
+            ch.epollInReadyRunnablePending = false;
+        }
+
         if (ch.isOpen()) {
             int fd = ch.socket.intValue();
             if (channels.remove(fd) != null) {
@@ -221,6 +289,51 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the maximum number of bytes a stream {@link io.netty.channel.Channel} may read per round of this
+     * event loop, or {@code 0} if there is no limit.
+     */
+    public int getReadBudget() {
+        return readBudget;
+    }
+
+    /**
+     * Sets the maximum number of bytes a stream {@link io.netty.channel.Channel} may read per round of this event loop.
+     * The default value is {@code 0}, which means every ready {@link io.netty.channel.Channel} reads until its
+     * {@link io.netty.channel.RecvByteBufAllocator} stops it.
+     * <p>
+     * Once the budget is used up, a {@link io.netty.channel.Channel} in {@link EpollMode#EDGE_TRIGGERED} mode that
+     * may have more data to read is moved to the end of a queue of this event loop and continues reading in the next
+     * round, after all the other ready {@link io.netty.channel.Channel}s had their turn. A
+     * {@link io.netty.channel.Channel} in {@link EpollMode#LEVEL_TRIGGERED} mode is simply reported by
+     * {@code epoll_wait} again. This prevents a few connections which receive a lot of data from delaying the
+     * processing of all the others.
+     */
+    public void setReadBudget(int readBudget) {
+        this.readBudget = ObjectUtil.checkPositiveOrZero(readBudget, "readBudget");
+    }
+
+    /**
+     * Continue reading from the given {@link AbstractEpollChannel} in the next round of this {@link EventLoop}.
+     */
+    void addPendingRead(AbstractEpollChannel ch) {
+        assert inEventLoop();
+        pendingReads.add(ch);
+    }
+
+    private void processPendingReads() {
+        // Only process the channels that were queued in a previous round, channels that run out of budget again are
+        // added to the end of the queue and so will be processed in the next round.
+        for (int i = pendingReads.size(); i > 0; i--) {
+            // Channels are removed from the queue when they are deregistered, see remove(AbstractEpollChannel).
+            AbstractEpollChannel ch = pendingReads.poll();
+            ch.epollInReadyRunnablePending = false;
+            if (ch.isActive()) {
+                ((AbstractEpollUnsafe) ch.unsafe()).epollInReady();
+            }
+        }
+    }
+
     private int epollWait(boolean oldWakeup) throws IOException {
         // If a task was submitted when wakenUp value was 1, the task didn't get a chance to produce wakeup event.
         // So we need to check task queue again before calling epoll_wait. If we don't, the task might be pended
@@ -244,7 +357,8 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     protected void run() {
         for (;;) {
             try {
-                int strategy = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
+                int strategy = selectStrategy.calculateStrategy(selectNowSupplier,
+                        hasTasks() || !pendingReads.isEmpty());
                 switch (strategy) {
                     case SelectStrategy.CONTINUE:
                         continue;
@@ -289,6 +403,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                 final int ioRatio = this.ioRatio;
                 if (ioRatio == 100) {
                     try {
+                        processPendingReads();
                         if (strategy > 0) {
                             processReady(events, strategy);
                         }
@@ -300,6 +415,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                     final long ioStartTime = System.nanoTime();
 
                     try {
+                        processPendingReads();
                         if (strategy > 0) {
                             processReady(events, strategy);
                         }
@@ -399,7 +515,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                     //
                     // If EPOLLIN or EPOLLERR was received and the channel is still open call epollInReady(). This will
                     // try to read from the underlying file descriptor and so notify the user about the error.
-                    if ((ev & (Native.EPOLLERR | Native.EPOLLIN)) != 0) {
+                    //
+                    // A Channel which is queued because it used up its read budget will continue reading once it is
+                    // its turn again, so an EPOLLIN does not need to be handled.
+                    if ((ev & Native.EPOLLERR) != 0 ||
+                            (ev & Native.EPOLLIN) != 0 && !(ch.epollInReadyRunnablePending && readBudget > 0)) {
                         // The Channel is still open and there is something to read. Do it now.
                         unsafe.epollInReady();
                     }
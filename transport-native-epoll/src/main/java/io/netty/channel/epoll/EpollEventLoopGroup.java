@@ -129,6 +129,17 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets the maximum number of bytes a stream {@link io.netty.channel.Channel} may read per round of the child event
+     * loops. The default value is {@code 0}, which means there is no limit. See
+     * {@link EpollEventLoop#setReadBudget(int)} for details.
+     */
+    public void setReadBudget(int readBudget) {
+        for (EventExecutor e: this) {
+            ((EpollEventLoop) e).setReadBudget(readBudget);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         return new EpollEventLoop(this, executor, (Integer) args[0],
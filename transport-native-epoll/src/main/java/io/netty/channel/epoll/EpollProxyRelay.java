@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Relays all data between two connected {@link AbstractEpollStreamChannel}s, which is the core of a TCP proxy.
+ * <p>
+ * If possible the data is moved from one socket to the other in the kernel via {@code splice(...)} and a pipe,
+ * without ever being copied to user space. This is the case if:
+ * <ul>
+ *     <li>both {@link Channel}s are registered to the same {@link io.netty.channel.EventLoop}</li>
+ *     <li>both {@link Channel}s use {@link EpollMode#LEVEL_TRIGGERED}</li>
+ *     <li>the {@link ChannelPipeline}s of both {@link Channel}s are empty, as otherwise a handler may need to see
+ *     the data. So handlers that are only needed to set up the connection should remove themselves before the
+ *     relay is started.</li>
+ * </ul>
+ * Otherwise it falls back to reading the data into {@link io.netty.buffer.ByteBuf}s which are then written to the
+ * other {@link Channel} via its {@link ChannelPipeline}. In both cases reading from a {@link Channel} is suspended
+ * while the other {@link Channel} can not keep up with writing. Use {@link #isSplicing()} to find out which way is
+ * used.
+ * <p>
+ * <strong>Be aware that the default {@link EpollMode} is {@link EpollMode#EDGE_TRIGGERED}</strong>, which
+ * {@link AbstractEpollStreamChannel#spliceTo(AbstractEpollStreamChannel, int)} does not support, so without further
+ * configuration the data is always copied. As the {@link EpollMode} can not be changed once a {@link Channel} is
+ * registered, {@link EpollChannelOption#EPOLL_MODE} must be set to {@link EpollMode#LEVEL_TRIGGERED} up front for
+ * both {@link Channel}s, for example as child option of the {@link io.netty.bootstrap.ServerBootstrap} which accepts
+ * the inbound {@link Channel} and as option of the {@link io.netty.bootstrap.Bootstrap} which connects the outbound
+ * {@link Channel}. The {@link io.netty.bootstrap.Bootstrap} must also use the {@link io.netty.channel.EventLoop} of
+ * the inbound {@link Channel}.
+ * <p>
+ * Once one of the {@link Channel}s is closed the other one is closed as well after all data that was already read
+ * was written.
+ */
+public final class EpollProxyRelay {
+    private final AbstractEpollStreamChannel inbound;
+    private final AbstractEpollStreamChannel outbound;
+    private final Promise<Void> closePromise;
+    private volatile boolean splicing;
+
+    private EpollProxyRelay(AbstractEpollStreamChannel inbound, AbstractEpollStreamChannel outbound) {
+        this.inbound = inbound;
+        this.outbound = outbound;
+        closePromise = inbound.eventLoop().newPromise();
+    }
+
+    /**
+     * Starts to relay all data between the given {@link AbstractEpollStreamChannel}s, which both must be active
+     * already.
+     */
+    public static EpollProxyRelay relay(AbstractEpollStreamChannel inbound, AbstractEpollStreamChannel outbound) {
+        checkNotNull(inbound, "inbound");
+        checkNotNull(outbound, "outbound");
+        if (inbound == outbound) {
+            throw new IllegalArgumentException("inbound and outbound must not be the same Channel");
+        }
+        final EpollProxyRelay relay = new EpollProxyRelay(inbound, outbound);
+        if (inbound.eventLoop().inEventLoop()) {
+            relay.start();
+        } else {
+            inbound.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    relay.start();
+                }
+            });
+        }
+        return relay;
+    }
+
+    /**
+     * Returns {@code true} if the data is moved via {@code splice(...)} and {@code false} if it is copied through the
+     * {@link ChannelPipeline}s. This is only accurate once the relay was started on the
+     * {@link io.netty.channel.EventLoop} of the inbound {@link Channel}.
+     */
+    public boolean isSplicing() {
+        return splicing;
+    }
+
+    /**
+     * Returns a {@link Future} which is notified once both {@link Channel}s are closed.
+     */
+    public Future<Void> closeFuture() {
+        return closePromise;
+    }
+
+    private void start() {
+        ChannelFutureListener closeListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                Channel other = future.channel() == inbound ? outbound : inbound;
+                closeOnFlush(other);
+                if (!inbound.isOpen() && !outbound.isOpen()) {
+                    closePromise.trySuccess(null);
+                }
+            }
+        };
+        inbound.closeFuture().addListener(closeListener);
+        outbound.closeFuture().addListener(closeListener);
+
+        if (canSplice()) {
+            splicing = true;
+            ChannelFutureListener failureListener = new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess()) {
+                        inbound.close();
+                        outbound.close();
+                    }
+                }
+            };
+            inbound.spliceTo(outbound, Integer.MAX_VALUE).addListener(failureListener);
+            outbound.spliceTo(inbound, Integer.MAX_VALUE).addListener(failureListener);
+        } else {
+            inbound.pipeline().addLast(new RelayHandler(outbound));
+            outbound.pipeline().addLast(new RelayHandler(inbound));
+        }
+        inbound.config().setAutoRead(true);
+        outbound.config().setAutoRead(true);
+    }
+
+    private boolean canSplice() {
+        return inbound.eventLoop() == outbound.eventLoop() &&
+                inbound.isActive() && outbound.isActive() &&
+                inbound.config().getEpollMode() == EpollMode.LEVEL_TRIGGERED &&
+                outbound.config().getEpollMode() == EpollMode.LEVEL_TRIGGERED &&
+                isEmpty(inbound.pipeline()) && isEmpty(outbound.pipeline());
+    }
+
+    private static boolean isEmpty(ChannelPipeline pipeline) {
+        return pipeline.first() == null;
+    }
+
+    /**
+     * Closes the given {@link Channel} after all pending writes, which may also be pending {@code splice(...)}
+     * calls, are flushed.
+     */
+    private static void closeOnFlush(Channel ch) {
+        if (ch.isActive()) {
+            ch.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            ch.close();
+        }
+    }
+
+    /**
+     * Writes everything that is read to the other {@link Channel} and stops reading while it is not writable.
+     */
+    private static final class RelayHandler extends ChannelInboundHandlerAdapter {
+        private final Channel relayTo;
+
+        RelayHandler(Channel relayTo) {
+            this.relayTo = relayTo;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            relayTo.write(msg, relayTo.voidPromise());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            relayTo.flush();
+            if (!relayTo.isWritable()) {
+                // Stop reading until the other side caught up, which is signaled via channelWritabilityChanged(...)
+                // of its RelayHandler. Check again afterwards as it may run on another EventLoop.
+                ctx.channel().config().setAutoRead(false);
+                if (relayTo.isWritable()) {
+                    ctx.channel().config().setAutoRead(true);
+                }
+            }
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            if (ctx.channel().isWritable()) {
+                // Everything that was read from the other side can be written again, so continue reading from it.
+                relayTo.config().setAutoRead(true);
+            }
+            ctx.fireChannelWritabilityChanged();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
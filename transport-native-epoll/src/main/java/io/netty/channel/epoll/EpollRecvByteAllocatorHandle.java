@@ -32,6 +32,8 @@ class EpollRecvByteAllocatorHandle implements RecvByteBufAllocator.ExtendedHandl
     };
     private boolean isEdgeTriggered;
     private boolean receivedRdHup;
+    private int readBudget;
+    private int budgetBytesRead;
 
     EpollRecvByteAllocatorHandle(RecvByteBufAllocator.ExtendedHandle handle) {
         this.delegate = ObjectUtil.checkNotNull(handle, "handle");
@@ -58,6 +60,21 @@ class EpollRecvByteAllocatorHandle implements RecvByteBufAllocator.ExtendedHandl
                 receivedRdHup;
     }
 
+    /**
+     * Sets the number of bytes that may be read until {@link #reset(ChannelConfig)} is called again, {@code 0} means
+     * no limit.
+     */
+    final void readBudget(int readBudget) {
+        this.readBudget = readBudget;
+    }
+
+    /**
+     * Returns {@code true} if the read budget that was set via {@link #readBudget(int)} is used up.
+     */
+    final boolean isReadBudgetExhausted() {
+        return readBudget > 0 && budgetBytesRead >= readBudget;
+    }
+
     final void edgeTriggered(boolean edgeTriggered) {
         isEdgeTriggered = edgeTriggered;
     }
@@ -78,6 +95,7 @@ class EpollRecvByteAllocatorHandle implements RecvByteBufAllocator.ExtendedHandl
 
     @Override
     public final void reset(ChannelConfig config) {
+        budgetBytesRead = 0;
         delegate.reset(config);
     }
 
@@ -88,6 +106,9 @@ class EpollRecvByteAllocatorHandle implements RecvByteBufAllocator.ExtendedHandl
 
     @Override
     public final void lastBytesRead(int bytes) {
+        if (bytes > 0) {
+            budgetBytesRead += bytes;
+        }
         delegate.lastBytesRead(bytes);
     }
 
@@ -113,12 +134,12 @@ class EpollRecvByteAllocatorHandle implements RecvByteBufAllocator.ExtendedHandl
 
     @Override
     public final boolean continueReading(UncheckedBooleanSupplier maybeMoreDataSupplier) {
-        return delegate.continueReading(maybeMoreDataSupplier);
+        return !isReadBudgetExhausted() && delegate.continueReading(maybeMoreDataSupplier);
     }
 
     @Override
     public final boolean continueReading() {
         // We must override the supplier which determines if there maybe more data to read.
-        return delegate.continueReading(defaultMaybeMoreDataSupplier);
+        return !isReadBudgetExhausted() && delegate.continueReading(defaultMaybeMoreDataSupplier);
     }
 }
@@ -35,6 +35,7 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
     protected final AbstractEpollChannel channel;
     private volatile int backlog = NetUtil.SOMAXCONN;
     private volatile int pendingFastOpenRequestsThreshold;
+    private volatile int acceptBatchSize;
 
     EpollServerChannelConfig(AbstractEpollChannel channel) {
         super(channel);
@@ -43,7 +44,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN);
+        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN,
+                EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE);
     }
 
     @SuppressWarnings("unchecked")
@@ -61,6 +63,9 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         if (option == EpollChannelOption.TCP_FASTOPEN) {
             return (T) Integer.valueOf(getTcpFastopen());
         }
+        if (option == EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE) {
+            return (T) Integer.valueOf(getAcceptBatchSize());
+        }
         return super.getOption(option);
     }
 
@@ -76,6 +81,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
             setBacklog((Integer) value);
         } else if (option == EpollChannelOption.TCP_FASTOPEN) {
             setTcpFastopen((Integer) value);
+        } else if (option == EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE) {
+            setAcceptBatchSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -155,6 +162,31 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         return this;
     }
 
+    /**
+     * Returns the maximum number of connections that are accepted per wakeup in batched mode, or {@code 0} if
+     * batched accepting is disabled.
+     */
+    public int getAcceptBatchSize() {
+        return acceptBatchSize;
+    }
+
+    /**
+     * Enables batched accepting if {@code acceptBatchSize} is greater than {@code 0}. Then up to
+     * {@code acceptBatchSize} connections are accepted per wakeup, independent of
+     * {@link #setMaxMessagesPerRead(int)}, before any of them is passed to the
+     * {@link io.netty.channel.ChannelPipeline}.
+     * The accepted {@link io.netty.channel.Channel}s are then registered to their {@link EpollEventLoop}s with one
+     * task per {@link EpollEventLoop} instead of one task per {@link io.netty.channel.Channel}, which keeps the
+     * accept loop short during connection storms.
+     */
+    public EpollServerChannelConfig setAcceptBatchSize(int acceptBatchSize) {
+        if (acceptBatchSize < 0) {
+            throw new IllegalArgumentException("acceptBatchSize: " + acceptBatchSize + " (expected: >= 0)");
+        }
+        this.acceptBatchSize = acceptBatchSize;
+        return this;
+    }
+
     @Override
     public EpollServerChannelConfig setPerformancePreferences(int connectionTime, int latency, int bandwidth) {
         return this;
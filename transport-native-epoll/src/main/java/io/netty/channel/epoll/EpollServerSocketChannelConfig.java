@@ -109,6 +109,12 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         return this;
     }
 
+    @Override
+    public EpollServerSocketChannelConfig setAcceptBatchSize(int acceptBatchSize) {
+        super.setAcceptBatchSize(acceptBatchSize);
+        return this;
+    }
+
     @Override
     public EpollServerSocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
         super.setConnectTimeoutMillis(connectTimeoutMillis);
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EpollAcceptBatchTest {
+    private static final int CONNECTIONS = 64;
+    private static final int BATCH_SIZE = 8;
+
+    private static EventLoopGroup bossGroup;
+    private static EventLoopGroup workerGroup;
+
+    @BeforeClass
+    public static void createEventLoops() {
+        bossGroup = new EpollEventLoopGroup(1);
+        workerGroup = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroyEventLoops() {
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+
+    @Test(timeout = 30000)
+    public void testAcceptBatch() throws Exception {
+        final CountDownLatch active = new CountDownLatch(CONNECTIONS);
+        EpollServerSocketChannel server = (EpollServerSocketChannel) new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE, BATCH_SIZE)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) {
+                        assertTrue(ctx.channel().eventLoop().inEventLoop());
+                        active.countDown();
+                    }
+
+                    @Override
+                    public boolean isSharable() {
+                        return true;
+                    }
+                })
+                .bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+        Socket[] sockets = new Socket[CONNECTIONS];
+        try {
+            for (int i = 0; i < sockets.length; i++) {
+                sockets[i] = new Socket();
+                sockets[i].connect(new InetSocketAddress(NetUtil.LOCALHOST, server.localAddress().getPort()));
+            }
+            active.await();
+
+            EpollAcceptMetrics metrics = server.acceptMetrics();
+            assertEquals(CONNECTIONS, metrics.acceptedConnections());
+            assertTrue(metrics.maxBatchSize() <= BATCH_SIZE);
+            assertTrue(metrics.lastBatchSize() > 0);
+            assertTrue(metrics.acceptRate() >= 0);
+            assertTrue(metrics.backlogCapacity() > 0);
+            assertEquals(0, metrics.backlogLength());
+        } finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+            server.close().syncUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.testsuite.transport.TestsuitePermutation;
+import io.netty.testsuite.transport.socket.SocketReadFairnessTest;
+
+import java.util.List;
+
+public class EpollETSocketReadFairnessTest extends SocketReadFairnessTest {
+
+    @Override
+    protected List<TestsuitePermutation.BootstrapComboFactory<ServerBootstrap, Bootstrap>> newFactories() {
+        return EpollSocketTestPermutation.INSTANCE.socket();
+    }
+
+    @Override
+    protected void configure(ServerBootstrap bootstrap, Bootstrap bootstrap2, ByteBufAllocator allocator) {
+        super.configure(bootstrap, bootstrap2, allocator);
+        bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        bootstrap2.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+    }
+
+    @Override
+    public void testSmallFlowLatencyNextToSaturatingFlow(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        EventLoopGroup childGroup = sb.config().childGroup();
+        if (!(childGroup instanceof EpollEventLoopGroup)) {
+            super.testSmallFlowLatencyNextToSaturatingFlow(sb, cb);
+            return;
+        }
+        EpollEventLoopGroup group = (EpollEventLoopGroup) childGroup;
+        group.setReadBudget(64 * 1024);
+        try {
+            super.testSmallFlowLatencyNextToSaturatingFlow(sb, cb);
+        } finally {
+            group.setReadBudget(0);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EpollProxyRelayTest {
+    private static final Random random = new Random();
+    private static final byte[] data = new byte[16 * 1024 * 1024];
+
+    static {
+        random.nextBytes(data);
+    }
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testRelayViaSplice() throws Throwable {
+        assertTrue(relay(EpollMode.LEVEL_TRIGGERED).isSplicing());
+    }
+
+    @Test(timeout = 30000)
+    public void testRelayFallsBackToCopy() throws Throwable {
+        // splice(...) is only supported with level-triggered mode.
+        assertFalse(relay(EpollMode.EDGE_TRIGGERED).isSplicing());
+    }
+
+    private static EpollProxyRelay relay(final EpollMode mode) throws Throwable {
+        Channel echoServer = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new EchoHandler());
+                    }
+                })
+                .bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+
+        final BlockingQueue<EpollProxyRelay> relays = new LinkedBlockingQueue<EpollProxyRelay>();
+        final Bootstrap outboundBootstrap = new Bootstrap()
+                .channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.EPOLL_MODE, mode)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        // Nothing to add, so the pipeline is empty once the ChannelInitializer removed itself.
+                    }
+                })
+                .remoteAddress(echoServer.localAddress());
+        Channel proxyServer = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childOption(EpollChannelOption.EPOLL_MODE, mode)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ProxyFrontendHandler(outboundBootstrap, relays));
+                    }
+                })
+                .bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+
+        VerifyingHandler verifier = new VerifyingHandler();
+        Channel client = new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .handler(verifier)
+                .connect(proxyServer.localAddress()).syncUninterruptibly().channel();
+        try {
+            for (int i = 0; i < data.length;) {
+                int length = Math.min(random.nextInt(1024 * 64) + 1, data.length - i);
+                client.write(Unpooled.wrappedBuffer(data, i, length));
+                i += length;
+            }
+            client.flush();
+
+            verifier.latch.await();
+            assertNull(verifier.exception.get());
+            assertEquals(data.length, verifier.counter);
+        } finally {
+            client.close().syncUninterruptibly();
+            proxyServer.close().syncUninterruptibly();
+            echoServer.close().syncUninterruptibly();
+        }
+
+        EpollProxyRelay relay = relays.take();
+        // Closing the client closes the proxied connection as well.
+        relay.closeFuture().syncUninterruptibly();
+        return relay;
+    }
+
+    private static final class ProxyFrontendHandler extends ChannelInboundHandlerAdapter {
+        private final Bootstrap outboundBootstrap;
+        private final BlockingQueue<EpollProxyRelay> relays;
+
+        ProxyFrontendHandler(Bootstrap outboundBootstrap, BlockingQueue<EpollProxyRelay> relays) {
+            this.outboundBootstrap = outboundBootstrap;
+            this.relays = relays;
+        }
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            outboundBootstrap.clone(ctx.channel().eventLoop()).connect().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (future.isSuccess()) {
+                        ctx.pipeline().remove(ProxyFrontendHandler.this);
+                        relays.add(EpollProxyRelay.relay(
+                                (AbstractEpollStreamChannel) ctx.channel(),
+                                (AbstractEpollStreamChannel) future.channel()));
+                    } else {
+                        ctx.close();
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class VerifyingHandler extends ChannelInboundHandlerAdapter {
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile int counter;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf in = (ByteBuf) msg;
+            try {
+                byte[] actual = new byte[in.readableBytes()];
+                in.readBytes(actual);
+                int lastIdx = counter;
+                for (int i = 0; i < actual.length; i++) {
+                    assertEquals(data[i + lastIdx], actual[i]);
+                }
+                counter += actual.length;
+                if (counter == data.length) {
+                    latch.countDown();
+                }
+            } finally {
+                ReferenceCountUtil.release(in);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (exception.compareAndSet(null, cause)) {
+                latch.countDown();
+                ctx.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.util.NetUtil;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+
+public class EpollReadBudgetTest {
+
+    // Small enough to fit into the socket buffers, so it is readable all at once.
+    private static final int SIZE = 16 * 1024;
+
+    @Test(timeout = 10000)
+    public void testDeregisterWithPendingRead() throws Exception {
+        testDeregisterWithPendingRead(false);
+    }
+
+    @Test(timeout = 10000)
+    public void testDeregisterWithPendingReadAndRegisterWithOtherEventLoop() throws Exception {
+        testDeregisterWithPendingRead(true);
+    }
+
+    private static void testDeregisterWithPendingRead(final boolean otherEventLoop) throws Exception {
+        final EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        final EpollEventLoopGroup otherGroup = new EpollEventLoopGroup(1);
+        group.setReadBudget(1024);
+        otherGroup.setReadBudget(1024);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<Channel>();
+        final AtomicBoolean pendingAfterDeregister = new AtomicBoolean(true);
+        Channel serverChannel = null;
+        Socket socket = null;
+        try {
+            serverChannel = new ServerBootstrap()
+                    .group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                    .childOption(ChannelOption.RCVBUF_ALLOCATOR,
+                            new FixedRecvByteBufAllocator(256).maxMessagesPerRead(16))
+                    .childOption(ChannelOption.AUTO_READ, false)
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        private int received;
+
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            accepted.add(ctx.channel());
+                        }
+
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ByteBuf buf = (ByteBuf) msg;
+                            received += buf.readableBytes();
+                            buf.release();
+                            if (received == SIZE) {
+                                latch.countDown();
+                            } else if (received == 256) {
+                                // The Channel keeps reading until the budget is used up and then queues the next
+                                // read, before it is deregistered.
+                                final Channel ch = ctx.channel();
+                                ch.deregister().addListener(new ChannelFutureListener() {
+                                    @Override
+                                    public void operationComplete(ChannelFuture future) {
+                                        pendingAfterDeregister.set(
+                                                ((AbstractEpollChannel) ch).epollInReadyRunnablePending);
+                                        (otherEventLoop ? otherGroup : group).register(ch);
+                                    }
+                                });
+                            }
+                        }
+                    })
+                    .bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+
+            socket = new Socket();
+            socket.connect(serverChannel.localAddress());
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[SIZE]);
+            out.flush();
+            // Only start reading once all the data was received, so the Channel uses up its budget in the first
+            // read and so is queued as pending read when it is deregistered.
+            accepted.take().config().setAutoRead(true);
+            latch.await();
+            assertFalse(pendingAfterDeregister.get());
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+            otherGroup.shutdownGracefully();
+        }
+    }
+}
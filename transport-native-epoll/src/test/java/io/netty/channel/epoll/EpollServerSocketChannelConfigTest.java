@@ -78,6 +78,21 @@ public class EpollServerSocketChannelConfigTest {
         assertTrue(ch.config().isFreeBind());
     }
 
+    @Test
+    public void testAcceptBatchSize() {
+        assertEquals(0, ch.config().getAcceptBatchSize());
+        assertTrue(ch.config().setOption(EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE, 64));
+        assertEquals(64, (int) ch.config().getOption(EpollChannelOption.EPOLL_ACCEPT_BATCH_SIZE));
+        ch.config().setAcceptBatchSize(0);
+        assertEquals(0, ch.config().getAcceptBatchSize());
+        try {
+            ch.config().setAcceptBatchSize(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
     @Test
     public void getGetOptions() {
         Map<ChannelOption<?>, Object> map = ch.config().getOptions();
@@ -24,7 +24,9 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.unix.FileDescriptor;
 import io.netty.testsuite.util.TestUtils;
@@ -190,6 +192,81 @@ public class EpollSpliceTest {
         }
     }
 
+    @Test
+    public void spliceHalfClosedSourceWhileTargetIsNotReading() throws Throwable {
+        // The first part of the data is written to the target directly so it can not accept any spliced data
+        // until the destination starts reading, the rest is spliced from the source.
+        final int prefixLength = 128 * 1024;
+        final int spliceLength = data.length - prefixLength;
+        final CountingHandler dh = new CountingHandler();
+        final AtomicReference<Channel> source = new AtomicReference<Channel>();
+
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        ServerBootstrap bs = new ServerBootstrap();
+        bs.channel(EpollServerSocketChannel.class);
+        bs.option(ChannelOption.SO_RCVBUF, 4096);
+        bs.childOption(ChannelOption.AUTO_READ, false);
+        bs.group(group).childHandler(dh);
+        Channel dc = bs.bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+
+        Bootstrap tb = new Bootstrap();
+        tb.group(group);
+        tb.channel(EpollSocketChannel.class);
+        tb.option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        tb.option(ChannelOption.SO_SNDBUF, 4096);
+        tb.handler(new ChannelInboundHandlerAdapter());
+        final Channel tc = tb.connect(dc.localAddress()).syncUninterruptibly().channel();
+        tc.writeAndFlush(Unpooled.wrappedBuffer(data, 0, prefixLength));
+
+        ServerBootstrap bs2 = new ServerBootstrap();
+        bs2.channel(EpollServerSocketChannel.class);
+        bs2.option(ChannelOption.SO_RCVBUF, 1024 * 1024);
+        bs2.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        // Guess more than the pipe can hold so the pipe is full after the first splice(...).
+        bs2.childOption(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(1024 * 1024));
+        bs2.group(group).childHandler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                source.set(ctx.channel());
+                ((EpollSocketChannel) ctx.channel()).spliceTo((EpollSocketChannel) tc, Integer.MAX_VALUE);
+            }
+        });
+        Channel pc = bs2.bind(NetUtil.LOCALHOST, 0).syncUninterruptibly().channel();
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group);
+        cb.channel(EpollSocketChannel.class);
+        cb.handler(new ChannelInboundHandlerAdapter());
+        Channel cc = cb.connect(pc.localAddress()).syncUninterruptibly().channel();
+
+        try {
+            cc.writeAndFlush(Unpooled.wrappedBuffer(data, prefixLength, spliceLength)).syncUninterruptibly();
+            Thread.sleep(200);
+            // Half-close the source while the pipe is full and the destination is still not reading.
+            ((EpollSocketChannel) cc).shutdownOutput().syncUninterruptibly();
+            Thread.sleep(500);
+
+            dh.channel.config().setAutoRead(true);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (dh.counter < prefixLength + spliceLength && dh.exception.get() == null &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            if (dh.exception.get() != null) {
+                throw dh.exception.get();
+            }
+            assertEquals(prefixLength + spliceLength, dh.counter);
+            // Once everything was spliced the EOF must still be seen.
+            Assert.assertTrue(source.get().closeFuture().await(10000));
+        } finally {
+            cc.close().sync();
+            tc.close().sync();
+            pc.close().sync();
+            dc.close().sync();
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void spliceToFile() throws Throwable {
         EventLoopGroup group = new EpollEventLoopGroup(1);
@@ -289,6 +366,33 @@ public class EpollSpliceTest {
         }
     }
 
+    private static class CountingHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void channelRead0(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            int lastIdx = counter;
+            for (int i = 0; i < in.readableBytes(); i ++) {
+                assertEquals(data[i + lastIdx], in.getByte(in.readerIndex() + i));
+            }
+            counter += in.readableBytes();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+
     private static class SpliceHandler extends ChannelInboundHandlerAdapter {
         private final File file;
 
@@ -64,6 +64,16 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
             ((AbstractKQueueUnsafe) unsafe()).flush0();
         }
     };
+    private final ChannelOutboundBuffer.FileRegionWriter fileRegionWriter =
+            new ChannelOutboundBuffer.FileRegionWriter() {
+        @Override
+        public long write(DefaultFileRegion region) throws Exception {
+            final long attemptedBytes = region.count();
+            final long flushedAmount = socket.sendFile(region, region.position(), 0, attemptedBytes);
+            recordWrite(attemptedBytes, flushedAmount);
+            return flushedAmount;
+        }
+    };
 
     AbstractKQueueStreamChannel(Channel parent, BsdSocket fd, boolean active) {
         super(parent, fd, active);
@@ -152,6 +162,7 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
         assert cnt != 0;
 
         final long localWrittenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
+        recordWrite(expectedWrittenBytes, localWrittenBytes);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
             in.removeBytes(localWrittenBytes);
@@ -187,6 +198,7 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
         }
 
         final long localWrittenBytes = socket.writev(nioBuffers, 0, nioBufferCnt, expectedWrittenBytes);
+        recordWrite(expectedWrittenBytes, localWrittenBytes);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, maxBytesPerGatheringWrite);
             in.removeBytes(localWrittenBytes);
@@ -216,8 +228,15 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
             return 0;
         }
 
+        // Transfer all regions which continue each other in the same file with one sendfile call.
+        long adjacentFlushedAmount = in.writeAdjacentFileRegions(fileRegionWriter);
+        if (adjacentFlushedAmount >= 0) {
+            return adjacentFlushedAmount > 0 ? 1 : WRITE_STATUS_SNDBUF_FULL;
+        }
+
         final long offset = region.transferred();
         final long flushedAmount = socket.sendFile(region, region.position(), offset, regionCount - offset);
+        recordWrite(regionCount - offset, flushedAmount);
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= regionCount) {
@@ -251,7 +270,9 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
         if (byteChannel == null) {
             byteChannel = new KQueueSocketWritableByteChannel();
         }
+        final long attemptedBytes = region.count() - region.transferred();
         final long flushedAmount = region.transferTo(byteChannel, region.transferred());
+        recordWrite(attemptedBytes, flushedAmount);
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= region.count()) {
@@ -535,6 +556,7 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
                     // to handle direct buffers.
                     byteBuf = allocHandle.allocate(allocator);
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
+                    recordRead(allocHandle.lastBytesRead());
                     if (allocHandle.lastBytesRead() <= 0) {
                         // nothing was read, release the buffer.
                         byteBuf.release();
@@ -67,6 +67,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
     private volatile EventLoop eventLoop;
     private volatile boolean registered;
     private boolean closeInitiated;
+    private WriteSpinStrategy.Handle writeSpinHandle;
+    private volatile ChannelIoStatistics ioStatistics;
 
     /** Cache for the string representation of this channel */
     private boolean strValActive;
@@ -501,6 +503,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                     return;
                 }
                 boolean firstRegistration = neverRegistered;
+                initIoStatistics();
                 doRegister();
                 neverRegistered = false;
                 registered = true;
@@ -1110,6 +1113,93 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
      */
     protected abstract void doWrite(ChannelOutboundBuffer in) throws Exception;
 
+    /**
+     * Returns the {@link ChannelIoStatistics} of this {@link Channel} or {@code null} if
+     * {@link ChannelOption#IO_STATISTICS} was not enabled when the {@link Channel} was registered.
+     */
+    public final ChannelIoStatistics ioStatistics() {
+        return ioStatistics;
+    }
+
+    private void initIoStatistics() {
+        if (Boolean.TRUE.equals(config().getOption(ChannelOption.IO_STATISTICS))) {
+            EventLoop loop = eventLoop();
+            ChannelIoStatistics parent = loop instanceof SingleThreadEventLoop ?
+                    ((SingleThreadEventLoop) loop).ioStatistics() : null;
+            ChannelIoStatistics stats = ioStatistics;
+            if (stats == null) {
+                ioStatistics = new ChannelIoStatistics(parent);
+            } else {
+                // Re-registered, keep the statistics but aggregate into the new EventLoop from now on.
+                stats.parent(parent);
+            }
+        }
+    }
+
+    /**
+     * Must be called by transports after each read from the underlying socket.
+     *
+     * @param bytesRead the number of bytes read, {@code 0} if no data was available and {@code -1} if the end of the
+     *                  stream was reached.
+     */
+    protected final void recordRead(long bytesRead) {
+        ChannelIoStatistics stats = ioStatistics;
+        if (stats != null) {
+            stats.recordRead(bytesRead);
+        }
+    }
+
+    /**
+     * Must be called by transports after each write to the underlying socket.
+     *
+     * @param attemptedBytes    the number of bytes that were handed to the OS.
+     * @param writtenBytes      the number of bytes that were accepted by the OS or {@code 0} if the send buffer
+     *                          was full.
+     */
+    protected final void recordWrite(long attemptedBytes, long writtenBytes) {
+        writeSpinHandle().record(attemptedBytes, writtenBytes);
+        ChannelIoStatistics stats = ioStatistics;
+        if (stats != null) {
+            stats.recordWrite(attemptedBytes, writtenBytes);
+        }
+    }
+
+    void recordWritabilityChanged() {
+        final ChannelIoStatistics stats = ioStatistics;
+        if (stats != null) {
+            EventLoop loop = eventLoop();
+            if (loop.inEventLoop()) {
+                stats.recordWritabilityChanged();
+            } else {
+                // The writability may be changed by any thread, but the statistics must only be updated by the
+                // EventLoop.
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        stats.recordWritabilityChanged();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link WriteSpinStrategy.Handle} which should be consulted by {@link #doWrite(ChannelOutboundBuffer)}
+     * implementations. The handle is created from the {@link ChannelOption#WRITE_SPIN_STRATEGY} on first use and
+     * {@link DefaultWriteSpinStrategy} is used if the {@link ChannelConfig} does not support it.
+     */
+    protected final WriteSpinStrategy.Handle writeSpinHandle() {
+        WriteSpinStrategy.Handle handle = writeSpinHandle;
+        if (handle == null) {
+            WriteSpinStrategy strategy = config().getOption(ChannelOption.WRITE_SPIN_STRATEGY);
+            if (strategy == null) {
+                strategy = DefaultWriteSpinStrategy.DEFAULT;
+            }
+            writeSpinHandle = handle = strategy.newHandle();
+        }
+        return handle;
+    }
+
     /**
      * Invoked when a new message is added to a {@link ChannelOutboundBuffer} of this {@link AbstractChannel}, so that
      * the {@link Channel} implementation converts the message to another. (e.g. heap buffer -> direct buffer)
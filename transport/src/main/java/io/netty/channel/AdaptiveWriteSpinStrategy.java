@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * {@link WriteSpinStrategy} which adapts to the observed behaviour of the send buffer of each {@link Channel}:
+ * <ul>
+ *     <li>If a partial write was usually followed by a write that was not accepted at all, the {@link Channel} stops
+ *     writing after a partial write and directly waits for writability instead of making a write attempt that is
+ *     expected to fail. Every {@code 16}th time the write attempt is made anyway to notice when this changes.</li>
+ *     <li>If a large share of the recent write attempts hit a full send buffer, an edge-triggered transport keeps its
+ *     interest in writability registered after everything was written. The next time the send buffer runs full it
+ *     does not need to register it again. This works best in combination with {@code TCP_NOTSENT_LOWAT}, as the
+ *     kernel then only signals writability once the amount of unsent bytes dropped below the configured mark.</li>
+ * </ul>
+ * The statistics exposed by this class are aggregated over all {@link Channel}s that use this instance.
+ */
+public class AdaptiveWriteSpinStrategy implements WriteSpinStrategy {
+
+    // Scores are exponentially weighted moving averages in the range [0, SCORE_MAX].
+    private static final int SCORE_MAX = 1024;
+    private static final int SCORE_SHIFT = 3;
+    private static final int PROBE_INTERVAL = 16;
+
+    private final int stopAfterPartialWriteThreshold;
+    private final int keepInterestThreshold;
+
+    private final LongCounter writeAttempts = PlatformDependent.newLongCounter();
+    private final LongCounter writtenBytes = PlatformDependent.newLongCounter();
+    private final LongCounter sendBufferFull = PlatformDependent.newLongCounter();
+    private final LongCounter writeAttemptsAvoided = PlatformDependent.newLongCounter();
+    private final LongCounter interestUpdatesAvoided = PlatformDependent.newLongCounter();
+
+    /**
+     * Creates a new instance which stops writing after a partial write if at least {@code 75%} of the partial writes
+     * were followed by a write that was not accepted, and keeps the interest in writability if at least {@code 25%}
+     * of the recent write attempts were not accepted.
+     */
+    public AdaptiveWriteSpinStrategy() {
+        this(0.75, 0.25);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param stopAfterPartialWriteRatio    the share of partial writes that must have been followed by a write that
+     *                                      was not accepted to stop writing directly after a partial write.
+     * @param keepInterestRatio             the share of recent write attempts that must have hit a full send buffer
+     *                                      to keep the interest in writability registered.
+     */
+    public AdaptiveWriteSpinStrategy(double stopAfterPartialWriteRatio, double keepInterestRatio) {
+        stopAfterPartialWriteThreshold = toThreshold(stopAfterPartialWriteRatio, "stopAfterPartialWriteRatio");
+        keepInterestThreshold = toThreshold(keepInterestRatio, "keepInterestRatio");
+    }
+
+    private static int toThreshold(double ratio, String name) {
+        if (ratio <= 0 || ratio > 1) {
+            throw new IllegalArgumentException(name + ": " + ratio + " (expected: 0 < " + name + " <= 1)");
+        }
+        return (int) (ratio * SCORE_MAX);
+    }
+
+    @Override
+    public Handle newHandle() {
+        return new HandleImpl();
+    }
+
+    /**
+     * Returns the number of write attempts that were made.
+     */
+    public long writeAttempts() {
+        return writeAttempts.value();
+    }
+
+    /**
+     * Returns the number of bytes that were written.
+     */
+    public long writtenBytes() {
+        return writtenBytes.value();
+    }
+
+    /**
+     * Returns the number of write attempts for which the send buffer was full ({@code EAGAIN}).
+     */
+    public long sendBufferFull() {
+        return sendBufferFull.value();
+    }
+
+    /**
+     * Returns the number of write attempts that were not made because the send buffer was expected to be full.
+     */
+    public long writeAttemptsAvoided() {
+        return writeAttemptsAvoided.value();
+    }
+
+    /**
+     * Returns the number of times the interest in writability was kept registered after everything was written,
+     * each saving a modification of the registration (for example {@code epoll_ctl}).
+     */
+    public long interestUpdatesAvoided() {
+        return interestUpdatesAvoided.value();
+    }
+
+    private static int updateScore(int score, boolean hit) {
+        return score + (((hit ? SCORE_MAX : 0) - score) >> SCORE_SHIFT);
+    }
+
+    private final class HandleImpl implements Handle {
+        // Moving average of how often a partial write was followed by a write that was not accepted at all.
+        private int fullAfterPartialScore;
+        // Moving average of how often a write attempt was not accepted at all.
+        private int fullScore;
+        private boolean lastWritePartial;
+        private int probeCountdown = PROBE_INTERVAL;
+
+        @Override
+        public void record(long attemptedBytes, long writtenBytes) {
+            writeAttempts.increment();
+            boolean full = writtenBytes <= 0;
+            if (full) {
+                sendBufferFull.increment();
+            } else {
+                AdaptiveWriteSpinStrategy.this.writtenBytes.add(writtenBytes);
+            }
+            if (lastWritePartial) {
+                fullAfterPartialScore = updateScore(fullAfterPartialScore, full);
+            }
+            fullScore = updateScore(fullScore, full);
+            lastWritePartial = !full && writtenBytes < attemptedBytes;
+        }
+
+        @Override
+        public boolean continueWriting() {
+            if (!lastWritePartial || fullAfterPartialScore < stopAfterPartialWriteThreshold) {
+                return true;
+            }
+            if (--probeCountdown == 0) {
+                // Make the attempt from time to time so we notice if the send buffer drains faster now.
+                probeCountdown = PROBE_INTERVAL;
+                return true;
+            }
+            lastWritePartial = false;
+            writeAttemptsAvoided.increment();
+            return false;
+        }
+
+        @Override
+        public boolean keepWritabilityInterest() {
+            lastWritePartial = false;
+            if (fullScore >= keepInterestThreshold) {
+                interestUpdatesAvoided.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.StringUtil;
+
+/**
+ * I/O statistics of a single {@link Channel} or of all {@link Channel}s of a {@link SingleThreadEventLoop} which
+ * have {@link ChannelOption#IO_STATISTICS} enabled.
+ * <p>
+ * The statistics are only updated by the {@link EventLoop} of the {@link Channel}, so maintaining them does not need
+ * any synchronization. They can be read from any thread.
+ * </p>
+ */
+public final class ChannelIoStatistics {
+
+    // Only accessed by the EventLoop thread.
+    private ChannelIoStatistics parent;
+
+    // All fields are only written by the EventLoop thread, volatile is only used for visibility to readers.
+    private volatile long bytesRead;
+    private volatile long bytesWritten;
+    private volatile long readCalls;
+    private volatile long writeCalls;
+    private volatile long readWouldBlock;
+    private volatile long writeWouldBlock;
+    private volatile long partialWrites;
+    private volatile long writabilityChanges;
+
+    ChannelIoStatistics(ChannelIoStatistics parent) {
+        this.parent = parent;
+    }
+
+    void parent(ChannelIoStatistics parent) {
+        this.parent = parent;
+    }
+
+    void recordRead(long bytes) {
+        readCalls++;
+        if (bytes > 0) {
+            bytesRead += bytes;
+        } else if (bytes == 0) {
+            readWouldBlock++;
+        }
+        if (parent != null) {
+            parent.recordRead(bytes);
+        }
+    }
+
+    void recordWrite(long attemptedBytes, long writtenBytes) {
+        writeCalls++;
+        if (writtenBytes > 0) {
+            bytesWritten += writtenBytes;
+            if (writtenBytes < attemptedBytes) {
+                partialWrites++;
+            }
+        } else {
+            writeWouldBlock++;
+        }
+        if (parent != null) {
+            parent.recordWrite(attemptedBytes, writtenBytes);
+        }
+    }
+
+    void recordWritabilityChanged() {
+        writabilityChanges++;
+        if (parent != null) {
+            parent.recordWritabilityChanged();
+        }
+    }
+
+    /**
+     * Returns the number of bytes that were read from the underlying socket.
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of bytes that were written to the underlying socket.
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of read calls that were made on the underlying socket.
+     */
+    public long readCalls() {
+        return readCalls;
+    }
+
+    /**
+     * Returns the number of write calls that were made on the underlying socket.
+     */
+    public long writeCalls() {
+        return writeCalls;
+    }
+
+    /**
+     * Returns the number of read calls that returned without any data because none was available ({@code EAGAIN}).
+     */
+    public long readWouldBlock() {
+        return readWouldBlock;
+    }
+
+    /**
+     * Returns the number of write calls that did not write anything because the send buffer was full
+     * ({@code EAGAIN}).
+     */
+    public long writeWouldBlock() {
+        return writeWouldBlock;
+    }
+
+    /**
+     * Returns the number of write calls that only wrote a part of the data.
+     */
+    public long partialWrites() {
+        return partialWrites;
+    }
+
+    /**
+     * Returns the number of times {@link ChannelInboundHandler#channelWritabilityChanged(ChannelHandlerContext)}
+     * was triggered.
+     */
+    public long writabilityChanges() {
+        return writabilityChanges;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(bytesRead: " + bytesRead +
+                ", bytesWritten: " + bytesWritten +
+                ", readCalls: " + readCalls +
+                ", writeCalls: " + writeCalls +
+                ", readWouldBlock: " + readWouldBlock +
+                ", writeWouldBlock: " + writeWouldBlock +
+                ", partialWrites: " + partialWrites +
+                ", writabilityChanges: " + writabilityChanges + ')';
+    }
+}
@@ -82,6 +82,7 @@ public class ChannelOption<T> extends AbstractConstant<ChannelOption<T>> {
     @Deprecated
     public static final ChannelOption<Integer> MAX_MESSAGES_PER_READ = valueOf("MAX_MESSAGES_PER_READ");
     public static final ChannelOption<Integer> WRITE_SPIN_COUNT = valueOf("WRITE_SPIN_COUNT");
+    public static final ChannelOption<WriteSpinStrategy> WRITE_SPIN_STRATEGY = valueOf("WRITE_SPIN_STRATEGY");
     /**
      * @deprecated Use {@link #WRITE_BUFFER_WATER_MARK}
      */
@@ -97,6 +98,7 @@ public class ChannelOption<T> extends AbstractConstant<ChannelOption<T>> {
 
     public static final ChannelOption<Boolean> ALLOW_HALF_CLOSURE = valueOf("ALLOW_HALF_CLOSURE");
     public static final ChannelOption<Boolean> AUTO_READ = valueOf("AUTO_READ");
+    public static final ChannelOption<Boolean> IO_STATISTICS = valueOf("IO_STATISTICS");
 
     /**
      * @deprecated  Auto close will be removed in a future release.
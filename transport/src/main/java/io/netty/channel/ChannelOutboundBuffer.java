@@ -23,12 +23,12 @@ import io.netty.util.Recycler;
 import io.netty.util.Recycler.Handle;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.FastThreadLocal;
-import io.netty.util.internal.InternalThreadLocalMap;
 import io.netty.util.internal.PromiseNotificationUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.Arrays;
@@ -50,26 +50,26 @@ import static java.lang.Math.min;
  * </p>
  */
 public final class ChannelOutboundBuffer {
-    // Assuming a 64-bit JVM:
+    // Assuming a 64-bit JVM without compressed oops:
     //  - 16 bytes object header
-    //  - 8 reference fields
-    //  - 2 long fields
-    //  - 2 int fields
-    //  - 1 boolean field
-    //  - padding
+    //  - 6 reference fields (48 bytes)
+    //  - 2 long fields (16 bytes)
+    //  - 3 int fields (12 bytes)
+    //  - 1 boolean field (1 byte)
+    //  - padding to a multiple of 8 bytes, so 96 bytes in total
     static final int CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD =
             SystemPropertyUtil.getInt("io.netty.transport.outboundBufferEntrySizeOverhead", 96);
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
-    private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
+    private static final FastThreadLocal<NioBufferArray> NIO_BUFFERS = new FastThreadLocal<NioBufferArray>() {
         @Override
-        protected ByteBuffer[] initialValue() throws Exception {
-            return new ByteBuffer[1024];
+        protected NioBufferArray initialValue() throws Exception {
+            return new NioBufferArray();
         }
     };
 
-    private final Channel channel;
+    private final AbstractChannel channel;
 
     // Entry(flushedEntry) --> ... Entry(unflushedEntry) --> ... Entry(tailEntry)
     //
@@ -84,6 +84,11 @@ public final class ChannelOutboundBuffer {
 
     private int nioBufferCount;
     private long nioBufferSize;
+    // The last Entry whose ByteBuffers were completely added to the gather array by nioBuffers(...). As long as this
+    // ChannelOutboundBuffer still owns the thread-local array, the next call can continue after this Entry instead of
+    // walking the whole flushed list again.
+    private Entry nioBufferLastEntry;
+    private boolean nioBuffersResumable;
 
     private boolean inFail;
 
@@ -241,9 +246,14 @@ public final class ChannelOutboundBuffer {
      * messages are ready to be handled.
      */
     public boolean remove() {
+        // The gather array may contain the ByteBuffers of the removed entry, so it can not be reused after this call.
+        clearNioBuffers();
+        return remove1();
+    }
+
+    private boolean remove1() {
         Entry e = flushedEntry;
         if (e == null) {
-            clearNioBuffers();
             return false;
         }
         Object msg = e.msg;
@@ -276,9 +286,9 @@ public final class ChannelOutboundBuffer {
     }
 
     private boolean remove0(Throwable cause, boolean notifyWritability) {
+        clearNioBuffers();
         Entry e = flushedEntry;
         if (e == null) {
-            clearNioBuffers();
             return false;
         }
         Object msg = e.msg;
@@ -315,11 +325,89 @@ public final class ChannelOutboundBuffer {
         }
     }
 
+    /**
+     * Returns a {@link DefaultFileRegion} which covers the remaining bytes of the current {@link DefaultFileRegion} and
+     * of all directly following flushed {@link DefaultFileRegion}s that continue where the previous one ends in the
+     * same file, so all of them can be transferred by a single {@code sendfile} call. Returns {@code null} if the
+     * current message is not followed by such a region, in which case it should be written on its own.
+     * <p>
+     * Once bytes of the returned region were written {@link #removeFileRegionBytes(long)} must be called. The returned
+     * region must be released once it was written, which does not close the file it shares with the regions it
+     * covers.
+     */
+    DefaultFileRegion adjacentFileRegions() throws IOException {
+        Entry entry = flushedEntry;
+        if (entry == null || !(entry.msg instanceof DefaultFileRegion)) {
+            return null;
+        }
+        DefaultFileRegion first = (DefaultFileRegion) entry.msg;
+        DefaultFileRegion last = first;
+        long additionalCount = 0;
+        for (int i = 1; i < flushed; i++) {
+            entry = entry.next;
+            if (!(entry.msg instanceof DefaultFileRegion)) {
+                break;
+            }
+            DefaultFileRegion next = (DefaultFileRegion) entry.msg;
+            if (!last.isFollowedBy(next)) {
+                break;
+            }
+            additionalCount += next.count();
+            last = next;
+        }
+        return last == first ? null : first.extend(additionalCount);
+    }
+
+    /**
+     * Writes the current {@link DefaultFileRegion} together with all directly following flushed
+     * {@link DefaultFileRegion}s that continue where the previous one ends in the same file, so all of them can be
+     * transferred by a single {@code sendfile} call. The {@link FileRegionWriter} is given a temporary
+     * {@link DefaultFileRegion} which covers all of them and the written bytes are removed from this buffer afterwards.
+     *
+     * @return the number of written bytes or {@code -1} if the current message is not followed by such a region, in
+     *         which case it should be written on its own
+     */
+    public long writeAdjacentFileRegions(FileRegionWriter writer) throws Exception {
+        DefaultFileRegion regions = adjacentFileRegions();
+        if (regions == null) {
+            return -1;
+        }
+        try {
+            long writtenBytes = writer.write(regions);
+            if (writtenBytes > 0) {
+                removeFileRegionBytes(writtenBytes);
+            }
+            return writtenBytes;
+        } finally {
+            regions.release();
+        }
+    }
+
+    /**
+     * Marks the given number of bytes of the regions returned by {@link #adjacentFileRegions()} as transferred and
+     * removes all fully written regions.
+     */
+    void removeFileRegionBytes(long writtenBytes) {
+        while (writtenBytes > 0) {
+            DefaultFileRegion region = (DefaultFileRegion) current();
+            long remaining = region.count() - region.transferred();
+            long transferred = min(remaining, writtenBytes);
+            region.addTransferred(transferred);
+            progress(transferred);
+            writtenBytes -= transferred;
+            if (transferred == remaining) {
+                remove();
+            }
+        }
+    }
+
     /**
      * Removes the fully written entries and update the reader index of the partially written entry.
      * This operation assumes all messages in this buffer is {@link ByteBuf}.
      */
     public void removeBytes(long writtenBytes) {
+        final long totalWrittenBytes = writtenBytes;
+        int removedNioBuffers = 0;
         for (;;) {
             Object msg = current();
             if (!(msg instanceof ByteBuf)) {
@@ -336,7 +424,8 @@ public final class ChannelOutboundBuffer {
                     progress(readableBytes);
                     writtenBytes -= readableBytes;
                 }
-                remove();
+                removedNioBuffers += flushedEntry.nioBufferCount;
+                remove1();
             } else { // readableBytes > writtenBytes
                 if (writtenBytes != 0) {
                     buf.readerIndex(readerIndex + (int) writtenBytes);
@@ -345,16 +434,67 @@ public final class ChannelOutboundBuffer {
                 break;
             }
         }
-        clearNioBuffers();
+        if (!compactNioBuffers(removedNioBuffers, totalWrittenBytes)) {
+            clearNioBuffers();
+        }
+    }
+
+    /**
+     * Drops the {@link ByteBuffer}s of the entries that were removed by {@link #removeBytes(long)} from the front of
+     * the gather array, so that the next {@link #nioBuffers(int, long)} call only needs to append newly flushed
+     * entries. Returns {@code false} if the array can not be reused and so must be rebuilt from scratch.
+     */
+    private boolean compactNioBuffers(int removedNioBuffers, long writtenBytes) {
+        final int count = nioBufferCount;
+        if (count == 0 || removedNioBuffers >= count || !nioBuffersResumable) {
+            return false;
+        }
+        NioBufferArray array = NIO_BUFFERS.get();
+        if (array.owner != this) {
+            return false;
+        }
+        ByteBuffer[] nioBuffers = array.buffers;
+        int newCount = count - removedNioBuffers;
+
+        // The ByteBuffers of a partial written entry are only up to date if the write was done through them (which is
+        // not the case if the transport used the memory addresses or a native writev), so validate before reusing.
+        Entry head = flushedEntry;
+        int headCount = head.nioBufferCount;
+        if (headCount == 0 || headCount > newCount) {
+            return false;
+        }
+        long remaining = 0;
+        for (int i = removedNioBuffers; i < removedNioBuffers + headCount; i++) {
+            remaining += nioBuffers[i].remaining();
+        }
+        if (remaining != ((ByteBuf) head.msg).readableBytes()) {
+            return false;
+        }
+
+        if (removedNioBuffers > 0) {
+            System.arraycopy(nioBuffers, removedNioBuffers, nioBuffers, 0, newCount);
+            Arrays.fill(nioBuffers, newCount, count, null);
+        }
+        array.size = newCount;
+        nioBufferCount = newCount;
+        nioBufferSize -= writtenBytes;
+        return true;
     }
 
     // Clear all ByteBuffer from the array so these can be GC'ed.
     // See https://github.com/netty/netty/issues/3837
     private void clearNioBuffers() {
+        nioBufferLastEntry = null;
+        nioBuffersResumable = false;
         int count = nioBufferCount;
         if (count > 0) {
             nioBufferCount = 0;
-            Arrays.fill(NIO_BUFFERS.get(), 0, count, null);
+            NioBufferArray array = NIO_BUFFERS.get();
+            if (array.owner == this) {
+                Arrays.fill(array.buffers, 0, array.size, null);
+                array.size = 0;
+                array.owner = null;
+            }
         }
     }
 
@@ -381,6 +521,11 @@ public final class ChannelOutboundBuffer {
      * {@link AbstractChannel#doWrite(ChannelOutboundBuffer)}.
      * Refer to {@link NioSocketChannel#doWrite(ChannelOutboundBuffer)} for an example.
      * </p>
+     * <p>
+     * If the {@link ByteBuffer}s returned by the previous call were written by advancing their position and
+     * {@link #removeBytes(long)} was called afterwards, the array is not rebuilt but only extended with the
+     * {@link ByteBuffer}s of the entries that were not included before.
+     * </p>
      * @param maxCount The maximum amount of buffers that will be added to the return value.
      * @param maxBytes A hint toward the maximum number of bytes to include as part of the return value. Note that this
      *                 value maybe exceeded because we make a best effort to include at least 1 {@link ByteBuffer}
@@ -389,12 +534,33 @@ public final class ChannelOutboundBuffer {
     public ByteBuffer[] nioBuffers(int maxCount, long maxBytes) {
         assert maxCount > 0;
         assert maxBytes > 0;
-        long nioBufferSize = 0;
-        int nioBufferCount = 0;
-        final InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
-        ByteBuffer[] nioBuffers = NIO_BUFFERS.get(threadLocalMap);
-        Entry entry = flushedEntry;
-        while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
+        long nioBufferSize;
+        int nioBufferCount;
+        final NioBufferArray array = NIO_BUFFERS.get();
+        ByteBuffer[] nioBuffers = array.buffers;
+        Entry entry;
+        Entry lastEntry = nioBufferLastEntry;
+        if (array.owner == this && nioBuffersResumable && lastEntry != null &&
+                this.nioBufferCount <= maxCount && this.nioBufferSize <= maxBytes) {
+            // Still the owner of the array and nothing invalidated it, just append the entries flushed since then.
+            nioBufferCount = this.nioBufferCount;
+            nioBufferSize = this.nioBufferSize;
+            entry = lastEntry.next;
+        } else {
+            if (array.owner != this) {
+                // Clear the ByteBuffers of the previous owner so these can be GC'ed.
+                Arrays.fill(nioBuffers, 0, array.size, null);
+                array.size = 0;
+                array.owner = this;
+            }
+            nioBufferCount = 0;
+            nioBufferSize = 0;
+            lastEntry = null;
+            entry = flushedEntry;
+        }
+        boolean resumable = true;
+        while (nioBufferCount < maxCount && isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
+            entry.nioBufferCount = 0;
             if (!entry.cancelled) {
                 ByteBuf buf = (ByteBuf) entry.msg;
                 final int readerIndex = buf.readerIndex();
@@ -423,8 +589,7 @@ public final class ChannelOutboundBuffer {
                     }
                     int neededSpace = min(maxCount, nioBufferCount + count);
                     if (neededSpace > nioBuffers.length) {
-                        nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
-                        NIO_BUFFERS.set(threadLocalMap, nioBuffers);
+                        array.buffers = nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
                     }
                     if (count == 1) {
                         ByteBuffer nioBuf = entry.buf;
@@ -434,6 +599,7 @@ public final class ChannelOutboundBuffer {
                             entry.buf = nioBuf = buf.internalNioBuffer(readerIndex, readableBytes);
                         }
                         nioBuffers[nioBufferCount++] = nioBuf;
+                        entry.nioBufferCount = 1;
                     } else {
                         ByteBuffer[] nioBufs = entry.bufs;
                         if (nioBufs == null) {
@@ -441,7 +607,9 @@ public final class ChannelOutboundBuffer {
                             // of Object allocation
                             entry.bufs = nioBufs = buf.nioBuffers();
                         }
-                        for (int i = 0; i < nioBufs.length && nioBufferCount < maxCount; ++i) {
+                        int start = nioBufferCount;
+                        int i = 0;
+                        for (; i < nioBufs.length && nioBufferCount < maxCount; ++i) {
                             ByteBuffer nioBuf = nioBufs[i];
                             if (nioBuf == null) {
                                 break;
@@ -450,16 +618,27 @@ public final class ChannelOutboundBuffer {
                             }
                             nioBuffers[nioBufferCount++] = nioBuf;
                         }
-                    }
-                    if (nioBufferCount == maxCount) {
-                        break;
+                        entry.nioBufferCount = nioBufferCount - start;
+                        if (i < nioBufs.length && nioBufs[i] != null) {
+                            // Only some of the ByteBuffers of this entry fit into the array, so the next call can not
+                            // just continue after it.
+                            resumable = false;
+                            break;
+                        }
                     }
                 }
             }
+            lastEntry = entry;
             entry = entry.next;
         }
+        if (array.size > nioBufferCount) {
+            Arrays.fill(nioBuffers, nioBufferCount, array.size, null);
+        }
+        array.size = nioBufferCount;
         this.nioBufferCount = nioBufferCount;
         this.nioBufferSize = nioBufferSize;
+        this.nioBufferLastEntry = lastEntry;
+        this.nioBuffersResumable = resumable;
 
         return nioBuffers;
     }
@@ -599,12 +778,14 @@ public final class ChannelOutboundBuffer {
                 fireChannelWritabilityChangedTask = task = new Runnable() {
                     @Override
                     public void run() {
+                        channel.recordWritabilityChanged();
                         pipeline.fireChannelWritabilityChanged();
                     }
                 };
             }
             channel.eventLoop().execute(task);
         } else {
+            channel.recordWritabilityChanged();
             pipeline.fireChannelWritabilityChanged();
         }
     }
@@ -771,6 +952,16 @@ public final class ChannelOutboundBuffer {
         return e != null && e != unflushedEntry;
     }
 
+    /**
+     * The thread-local gather array used by {@link #nioBuffers(int, long)} together with the
+     * {@link ChannelOutboundBuffer} whose {@link ByteBuffer}s it currently holds.
+     */
+    private static final class NioBufferArray {
+        ByteBuffer[] buffers = new ByteBuffer[1024];
+        ChannelOutboundBuffer owner;
+        int size;
+    }
+
     public interface MessageProcessor {
         /**
          * Will be called for each flushed message until it either there are no more flushed messages or this
@@ -779,6 +970,13 @@ public final class ChannelOutboundBuffer {
         boolean processMessage(Object msg) throws Exception;
     }
 
+    public interface FileRegionWriter {
+        /**
+         * Writes the given {@link DefaultFileRegion} and returns the number of written bytes.
+         */
+        long write(DefaultFileRegion region) throws Exception;
+    }
+
     static final class Entry {
         private static final Recycler<Entry> RECYCLER = new Recycler<Entry>() {
             @Override
@@ -797,6 +995,8 @@ public final class ChannelOutboundBuffer {
         long total;
         int pendingSize;
         int count = -1;
+        // The number of ByteBuffers this entry contributed to the gather array built by nioBuffers(...).
+        int nioBufferCount;
         boolean cancelled;
 
         private Entry(Handle<Entry> handle) {
@@ -841,6 +1041,7 @@ public final class ChannelOutboundBuffer {
             total = 0;
             pendingSize = 0;
             count = -1;
+            nioBufferCount = 0;
             cancelled = false;
             handle.recycle(this);
         }
@@ -27,6 +27,7 @@ import static io.netty.channel.ChannelOption.ALLOCATOR;
 import static io.netty.channel.ChannelOption.AUTO_CLOSE;
 import static io.netty.channel.ChannelOption.AUTO_READ;
 import static io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS;
+import static io.netty.channel.ChannelOption.IO_STATISTICS;
 import static io.netty.channel.ChannelOption.MAX_MESSAGES_PER_READ;
 import static io.netty.channel.ChannelOption.MESSAGE_SIZE_ESTIMATOR;
 import static io.netty.channel.ChannelOption.RCVBUF_ALLOCATOR;
@@ -35,6 +36,7 @@ import static io.netty.channel.ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_LOW_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_SPIN_COUNT;
+import static io.netty.channel.ChannelOption.WRITE_SPIN_STRATEGY;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 /**
@@ -59,11 +61,13 @@ public class DefaultChannelConfig implements ChannelConfig {
 
     private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT;
     private volatile int writeSpinCount = 16;
+    private volatile WriteSpinStrategy writeSpinStrategy = DefaultWriteSpinStrategy.DEFAULT;
     @SuppressWarnings("FieldMayBeFinal")
     private volatile int autoRead = 1;
     private volatile boolean autoClose = true;
     private volatile WriteBufferWaterMark writeBufferWaterMark = WriteBufferWaterMark.DEFAULT;
     private volatile boolean pinEventExecutor = true;
+    private volatile boolean ioStatistics;
 
     public DefaultChannelConfig(Channel channel) {
         this(channel, new AdaptiveRecvByteBufAllocator());
@@ -79,10 +83,10 @@ public class DefaultChannelConfig implements ChannelConfig {
     public Map<ChannelOption<?>, Object> getOptions() {
         return getOptions(
                 null,
-                CONNECT_TIMEOUT_MILLIS, MAX_MESSAGES_PER_READ, WRITE_SPIN_COUNT,
+                CONNECT_TIMEOUT_MILLIS, MAX_MESSAGES_PER_READ, WRITE_SPIN_COUNT, WRITE_SPIN_STRATEGY,
                 ALLOCATOR, AUTO_READ, AUTO_CLOSE, RCVBUF_ALLOCATOR, WRITE_BUFFER_HIGH_WATER_MARK,
                 WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_WATER_MARK, MESSAGE_SIZE_ESTIMATOR,
-                SINGLE_EVENTEXECUTOR_PER_GROUP);
+                SINGLE_EVENTEXECUTOR_PER_GROUP, IO_STATISTICS);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -129,6 +133,9 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == WRITE_SPIN_COUNT) {
             return (T) Integer.valueOf(getWriteSpinCount());
         }
+        if (option == WRITE_SPIN_STRATEGY) {
+            return (T) getWriteSpinStrategy();
+        }
         if (option == ALLOCATOR) {
             return (T) getAllocator();
         }
@@ -156,6 +163,9 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == SINGLE_EVENTEXECUTOR_PER_GROUP) {
             return (T) Boolean.valueOf(getPinEventExecutorPerGroup());
         }
+        if (option == IO_STATISTICS) {
+            return (T) Boolean.valueOf(isIoStatisticsEnabled());
+        }
         return null;
     }
 
@@ -170,6 +180,8 @@ public class DefaultChannelConfig implements ChannelConfig {
             setMaxMessagesPerRead((Integer) value);
         } else if (option == WRITE_SPIN_COUNT) {
             setWriteSpinCount((Integer) value);
+        } else if (option == WRITE_SPIN_STRATEGY) {
+            setWriteSpinStrategy((WriteSpinStrategy) value);
         } else if (option == ALLOCATOR) {
             setAllocator((ByteBufAllocator) value);
         } else if (option == RCVBUF_ALLOCATOR) {
@@ -188,6 +200,8 @@ public class DefaultChannelConfig implements ChannelConfig {
             setMessageSizeEstimator((MessageSizeEstimator) value);
         } else if (option == SINGLE_EVENTEXECUTOR_PER_GROUP) {
             setPinEventExecutorPerGroup((Boolean) value);
+        } else if (option == IO_STATISTICS) {
+            setIoStatisticsEnabled((Boolean) value);
         } else {
             return false;
         }
@@ -276,6 +290,24 @@ public class DefaultChannelConfig implements ChannelConfig {
         return this;
     }
 
+    /**
+     * Returns the {@link WriteSpinStrategy} which decides how many write attempts are made while flushing and when
+     * the {@link Channel} waits for writability. The default is {@link DefaultWriteSpinStrategy#DEFAULT}.
+     */
+    public WriteSpinStrategy getWriteSpinStrategy() {
+        return writeSpinStrategy;
+    }
+
+    /**
+     * Set the {@link WriteSpinStrategy} which decides how many write attempts are made while flushing and when the
+     * {@link Channel} waits for writability. Transports that do not support it ignore the strategy. The strategy
+     * needs to be set before the first write, later changes may not be picked up by the {@link Channel}.
+     */
+    public DefaultChannelConfig setWriteSpinStrategy(WriteSpinStrategy writeSpinStrategy) {
+        this.writeSpinStrategy = checkNotNull(writeSpinStrategy, "writeSpinStrategy");
+        return this;
+    }
+
     @Override
     public ByteBufAllocator getAllocator() {
         return allocator;
@@ -436,4 +468,20 @@ public class DefaultChannelConfig implements ChannelConfig {
         return pinEventExecutor;
     }
 
+    /**
+     * Returns {@code true} if the {@link Channel} maintains {@link ChannelIoStatistics}.
+     */
+    public boolean isIoStatisticsEnabled() {
+        return ioStatistics;
+    }
+
+    /**
+     * Set if the {@link Channel} should maintain {@link ChannelIoStatistics}, which are also aggregated per
+     * {@link SingleThreadEventLoop}. This needs to be set before the {@link Channel} is registered.
+     */
+    public DefaultChannelConfig setIoStatisticsEnabled(boolean ioStatistics) {
+        this.ioStatistics = ioStatistics;
+        return this;
+    }
+
 }
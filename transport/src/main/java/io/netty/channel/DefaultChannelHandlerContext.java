@@ -23,10 +23,7 @@ final class DefaultChannelHandlerContext extends AbstractChannelHandlerContext {
 
     DefaultChannelHandlerContext(
             DefaultChannelPipeline pipeline, EventExecutor executor, String name, ChannelHandler handler) {
-        super(pipeline, executor, name, isInbound(handler), isOutbound(handler));
-        if (handler == null) {
-            throw new NullPointerException("handler");
-        }
+        super(pipeline, executor, name, handlerClass(handler));
         this.handler = handler;
     }
 
@@ -35,11 +32,10 @@ final class DefaultChannelHandlerContext extends AbstractChannelHandlerContext {
         return handler;
     }
 
-    private static boolean isInbound(ChannelHandler handler) {
-        return handler instanceof ChannelInboundHandler;
-    }
-
-    private static boolean isOutbound(ChannelHandler handler) {
-        return handler instanceof ChannelOutboundHandler;
+    private static Class<? extends ChannelHandler> handlerClass(ChannelHandler handler) {
+        if (handler == null) {
+            throw new NullPointerException("handler");
+        }
+        return handler.getClass();
     }
 }
@@ -126,7 +126,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
         Boolean pinEventExecutor = channel.config().getOption(ChannelOption.SINGLE_EVENTEXECUTOR_PER_GROUP);
         if (pinEventExecutor != null && !pinEventExecutor) {
-            return group.next();
+            return newChildExecutor(group);
         }
         Map<EventExecutorGroup, EventExecutor> childExecutors = this.childExecutors;
         if (childExecutors == null) {
@@ -137,11 +137,21 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         // is used to fire events for the same channel.
         EventExecutor childExecutor = childExecutors.get(group);
         if (childExecutor == null) {
-            childExecutor = group.next();
+            childExecutor = newChildExecutor(group);
             childExecutors.put(group, childExecutor);
         }
         return childExecutor;
     }
+
+    private EventExecutor newChildExecutor(EventExecutorGroup group) {
+        EventExecutor childExecutor = group.next();
+        if (childExecutor instanceof OrderedBatchingEventExecutorGroup.ChannelInbox) {
+            // Let the inbox know for which Channel it queues events so it can apply back-pressure.
+            ((OrderedBatchingEventExecutorGroup.ChannelInbox) childExecutor).bind(channel);
+        }
+        return childExecutor;
+    }
+
     @Override
     public final Channel channel() {
         return channel;
@@ -1248,7 +1258,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     final class TailContext extends AbstractChannelHandlerContext implements ChannelInboundHandler {
 
         TailContext(DefaultChannelPipeline pipeline) {
-            super(pipeline, null, TAIL_NAME, true, false);
+            super(pipeline, null, TAIL_NAME, TailContext.class);
             setAddComplete();
         }
 
@@ -1311,7 +1321,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         private final Unsafe unsafe;
 
         HeadContext(DefaultChannelPipeline pipeline) {
-            super(pipeline, null, HEAD_NAME, false, true);
+            super(pipeline, null, HEAD_NAME, HeadContext.class);
             unsafe = pipeline.channel().unsafe();
             setAddComplete();
         }
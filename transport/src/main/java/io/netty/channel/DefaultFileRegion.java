@@ -15,6 +15,7 @@
  */
 package io.netty.channel;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.internal.logging.InternalLogger;
@@ -40,6 +41,7 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
     private final long count;
     private long transferred;
     private FileChannel file;
+    private final boolean closeFile;
 
     /**
      * Create a new instance
@@ -62,6 +64,18 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
         this.position = position;
         this.count = count;
         f = null;
+        closeFile = true;
+    }
+
+    /**
+     * Creates a new instance which shares the {@link FileChannel} of another region and so does not close it.
+     */
+    private DefaultFileRegion(FileChannel file, long position, long count, boolean closeFile) {
+        this.file = file;
+        this.position = position;
+        this.count = count;
+        f = null;
+        this.closeFile = closeFile;
     }
 
     /**
@@ -85,6 +99,7 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
         this.position = position;
         this.count = count;
         this.f = f;
+        closeFile = true;
     }
 
     /**
@@ -149,6 +164,65 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
         return written;
     }
 
+    /**
+     * Transfers the content of this region, starting at the given position relative to the start of this region,
+     * into the given {@link ByteBuf} until it is full or the end of this region is reached. The content is read
+     * straight from the file into the memory of the {@link ByteBuf}.
+     *
+     * @return the number of transferred bytes or {@code -1} if the file ended before this region
+     */
+    public int transferTo(ByteBuf target, long position) throws IOException {
+        long count = this.count - position;
+        if (count < 0 || position < 0) {
+            throw new IllegalArgumentException(
+                    "position out of range: " + position +
+                    " (expected: 0 - " + (this.count - 1) + ')');
+        }
+        if (count == 0 || !target.isWritable()) {
+            return 0;
+        }
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+        // Call open to make sure fc is initialized. This is a no-oop if we called it before.
+        open();
+
+        int written = target.writeBytes(file, this.position + position, (int) Math.min(count, target.writableBytes()));
+        if (written > 0) {
+            transferred += written;
+        }
+        return written;
+    }
+
+    /**
+     * Returns {@code true} if {@code next} was not transferred yet and starts right where this region ends in the same
+     * file, so both regions can be transferred at once.
+     */
+    boolean isFollowedBy(DefaultFileRegion next) {
+        return next.transferred == 0 && position + count == next.position &&
+                (file != null && file == next.file || f != null && f.equals(next.f));
+    }
+
+    /**
+     * Returns a new {@link DefaultFileRegion} which shares the file of this region and covers its remaining bytes plus
+     * the given number of bytes directly after it. Releasing the returned region does not close the shared file.
+     */
+    DefaultFileRegion extend(long additionalCount) throws IOException {
+        open();
+        if (file == null) {
+            throw new IllegalReferenceCountException(0);
+        }
+        return new DefaultFileRegion(file, position + transferred, count - transferred + additionalCount, false);
+    }
+
+    /**
+     * Marks {@code bytes} more bytes of this region as transferred, which were written via a region returned by
+     * {@link #extend(long)}.
+     */
+    void addTransferred(long bytes) {
+        transferred += bytes;
+    }
+
     @Override
     protected void deallocate() {
         FileChannel file = this.file;
@@ -157,6 +231,10 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
             return;
         }
         this.file = null;
+        if (!closeFile) {
+            // The file is shared with the regions this one was extended from.
+            return;
+        }
 
         try {
             file.close();
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+/**
+ * Default {@link WriteSpinStrategy} implementation which always makes {@link ChannelConfig#getWriteSpinCount()}
+ * write attempts and never keeps the interest in writability registered once everything was written.
+ */
+public final class DefaultWriteSpinStrategy implements WriteSpinStrategy {
+
+    public static final WriteSpinStrategy DEFAULT = new DefaultWriteSpinStrategy();
+
+    private static final Handle HANDLE = new Handle() {
+        @Override
+        public void record(long attemptedBytes, long writtenBytes) {
+            // NOOP
+        }
+
+        @Override
+        public boolean continueWriting() {
+            return true;
+        }
+
+        @Override
+        public boolean keepWritabilityInterest() {
+            return false;
+        }
+    };
+
+    private DefaultWriteSpinStrategy() { }
+
+    @Override
+    public Handle newHandle() {
+        return HANDLE;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.internal.MathUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * The {@link RecvByteBufAllocator} that predicts the buffer size from a moving average of the bytes read by a
+ * {@link Channel}, which makes it a good fit for a large number of mostly idle connections that only receive the
+ * occasional burst.
+ * <p>
+ * Compared to {@link AdaptiveRecvByteBufAllocator} it:
+ * <ul>
+ *     <li>keeps an exponentially weighted moving average of the read sizes, so a single large read does not keep
+ *     the prediction up forever, while a read that fills the whole buffer still ramps it up right away.</li>
+ *     <li>halves the average for every second the {@link Channel} was idle, so a {@link Channel} that wakes up
+ *     after a long time starts with a small buffer again.</li>
+ *     <li>copies the received bytes out to a right-sized buffer if a read only used a small part of the buffer.
+ *     With a pooled {@link ByteBufAllocator} the large buffer is handed back to the cache of the
+ *     {@link EventLoop} right away, so all {@link Channel}s of an {@link EventLoop} effectively read into the same
+ *     memory.</li>
+ *     <li>can limit the in-flight read bytes, which are the bytes above the minimum buffer size of the buffers
+ *     that all {@link Channel}s using this allocator read into at the same time. Once the limit is reached buffers
+ *     are only allocated with the minimum size.</li>
+ * </ul>
+ * The in-flight read bytes only cover the buffer of a read that is in progress. They are given back as soon as the
+ * read completed, even if the {@link ByteBuf} is still held by the {@link ChannelPipeline}. So the limit bounds the
+ * size of concurrent reads, but not the memory that is used by the received data.
+ */
+public class MovingAverageRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufAllocator {
+
+    static final int DEFAULT_MINIMUM = 64;
+    static final int DEFAULT_INITIAL = 1024;
+    static final int DEFAULT_MAXIMUM = 65536;
+
+    // The weight of the last read is 1 / (1 << WEIGHT_SHIFT).
+    private static final int WEIGHT_SHIFT = 3;
+    private static final long IDLE_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final class HandleImpl extends MaxMessageHandle {
+        private int average;
+        private int nextReceiveBufferSize;
+        private long lastReadNanos;
+        private ByteBuf lastAllocated;
+        private int lastAllocatedSize;
+        private int reserved;
+
+        HandleImpl() {
+            average = initial;
+            nextReceiveBufferSize = sizeFor(initial);
+        }
+
+        @Override
+        public void reset(ChannelConfig config) {
+            super.reset(config);
+            if (lastReadNanos != 0) {
+                long idleNanos = nanoTime() - lastReadNanos;
+                if (idleNanos >= IDLE_HALF_LIFE_NANOS) {
+                    long halfLives = idleNanos / IDLE_HALF_LIFE_NANOS;
+                    average >>>= (int) min(halfLives, 31);
+                    nextReceiveBufferSize = sizeFor(average);
+                    // Do not apply the same idle time again if the next read does not receive anything either.
+                    lastReadNanos += halfLives * IDLE_HALF_LIFE_NANOS;
+                }
+            }
+        }
+
+        @Override
+        public ByteBuf allocate(ByteBufAllocator alloc) {
+            releaseReservation();
+            int size = nextReceiveBufferSize;
+            if (size > minimum && maxInFlightReadBytes > 0) {
+                reserved = reserve(size - minimum);
+                size = minimum + reserved;
+            }
+            ByteBuf buf = alloc.ioBuffer(size);
+            lastAllocated = buf;
+            lastAllocatedSize = size;
+            return buf;
+        }
+
+        @Override
+        public void lastBytesRead(int bytes) {
+            if (bytes > 0) {
+                ByteBuf buf = lastAllocated;
+                if (buf != null) {
+                    int used = buf.writerIndex();
+                    // Only a small part of the buffer was used, copy the bytes to a buffer of the right size so the
+                    // large one can be reused.
+                    if (used > 0 && used <= buf.capacity() >>> 2) {
+                        buf.capacity(used);
+                    }
+                }
+                record(bytes);
+            }
+            lastAllocated = null;
+            releaseReservation();
+            super.lastBytesRead(bytes);
+        }
+
+        @Override
+        public int guess() {
+            return nextReceiveBufferSize;
+        }
+
+        @Override
+        public void readComplete() {
+            lastAllocated = null;
+            releaseReservation();
+            if (totalBytesRead() > 0) {
+                lastReadNanos = nanoTime();
+            }
+            super.readComplete();
+        }
+
+        private void record(int bytes) {
+            average += (bytes - average) >> WEIGHT_SHIFT;
+            // Compare against the size that was actually allocated, which is smaller than the prediction if the
+            // in-flight read limit was reached.
+            if (bytes >= attemptedBytesRead() && bytes >= lastAllocatedSize) {
+                // The buffer was filled, so there is most likely more data pending. Ramp up quickly to reduce the
+                // number of reads.
+                nextReceiveBufferSize = min(nextReceiveBufferSize << 1, maximum);
+                average = max(average, bytes);
+            } else {
+                nextReceiveBufferSize = sizeFor(average);
+            }
+        }
+
+        private void releaseReservation() {
+            if (reserved != 0) {
+                inFlightReadBytes.addAndGet(-reserved);
+                reserved = 0;
+            }
+        }
+    }
+
+    private final int minimum;
+    private final int initial;
+    private final int maximum;
+    private final long maxInFlightReadBytes;
+    private final AtomicLong inFlightReadBytes = new AtomicLong();
+
+    /**
+     * Creates a new predictor with the default parameters.  With the default
+     * parameters, the expected buffer size starts from {@code 1024}, does not
+     * go down below {@code 64}, does not go up above {@code 65536} and the in-flight read bytes are unlimited.
+     */
+    public MovingAverageRecvByteBufAllocator() {
+        this(DEFAULT_MINIMUM, DEFAULT_INITIAL, DEFAULT_MAXIMUM);
+    }
+
+    /**
+     * Creates a new predictor with the specified parameters and unlimited in-flight read bytes.
+     *
+     * @param minimum  the inclusive lower bound of the expected buffer size
+     * @param initial  the initial buffer size when no feed back was received
+     * @param maximum  the inclusive upper bound of the expected buffer size
+     */
+    public MovingAverageRecvByteBufAllocator(int minimum, int initial, int maximum) {
+        this(minimum, initial, maximum, 0);
+    }
+
+    /**
+     * Creates a new predictor with the specified parameters.
+     *
+     * @param minimum  the inclusive lower bound of the expected buffer size
+     * @param initial  the initial buffer size when no feed back was received
+     * @param maximum  the inclusive upper bound of the expected buffer size
+     * @param maxInFlightReadBytes  the maximum number of bytes above {@code minimum} of the buffers that all
+     *                              {@link Channel}s using this allocator read into at the same time, {@code 0}
+     *                              means unlimited
+     */
+    public MovingAverageRecvByteBufAllocator(int minimum, int initial, int maximum, long maxInFlightReadBytes) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum: " + minimum);
+        }
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+        if (maxInFlightReadBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxInFlightReadBytes: " + maxInFlightReadBytes + " (expected: >= 0)");
+        }
+        this.minimum = minimum;
+        this.initial = initial;
+        this.maximum = maximum;
+        this.maxInFlightReadBytes = maxInFlightReadBytes;
+    }
+
+    /**
+     * Returns the number of bytes above the minimum buffer size of the buffers that are currently read into by all
+     * {@link Channel}s using this allocator. This is only tracked if the in-flight read bytes are limited.
+     */
+    public long inFlightReadBytes() {
+        return inFlightReadBytes.get();
+    }
+
+    /**
+     * This method is visible for testing!
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private int sizeFor(int average) {
+        if (average <= minimum) {
+            return minimum;
+        }
+        return min(MathUtil.findNextPositivePowerOfTwo(average), maximum);
+    }
+
+    private int reserve(int size) {
+        for (;;) {
+            long used = inFlightReadBytes.get();
+            int granted = (int) min(size, maxInFlightReadBytes - used);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (inFlightReadBytes.compareAndSet(used, used + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Handle newHandle() {
+        return new HandleImpl();
+    }
+
+    @Override
+    public MovingAverageRecvByteBufAllocator respectMaybeMoreData(boolean respectMaybeMoreData) {
+        super.respectMaybeMoreData(respectMaybeMoreData);
+        return this;
+    }
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.AbstractEventExecutor;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.OrderedEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EventExecutorGroup} to offload {@link ChannelHandler}s from the {@link EventLoop}, for example because they
+ * execute blocking business logic:
+ * <pre>
+ * {@link EventExecutorGroup} group = new {@link OrderedBatchingEventExecutorGroup}(
+ *         new {@link io.netty.util.concurrent.DefaultEventExecutorGroup}(16));
+ * pipeline.addLast(group, "handler", new MyBusinessLogicHandler());
+ * </pre>
+ * Each {@link Channel} gets its own inbox which queues the events for its handlers in order. Consecutive events of
+ * the same {@link Channel} are then executed by a single task of the wrapped {@link EventExecutorGroup}, instead of
+ * submitting one task per event. This keeps the task queues of the wrapped {@link EventExecutorGroup} short and
+ * reduces the number of times an event needs to cross threads.
+ * <p>
+ * Once more than {@code maxPendingTasks} events of a {@link Channel} are queued,
+ * {@link ChannelConfig#setAutoRead(boolean)} is disabled for it until the inbox is drained to half of that, so a slow
+ * handler can not make the queue grow without bounds. The inbox is not a hard limit, events which are already in
+ * flight, like the rest of the current read loop, are still queued. As the inbox controls
+ * {@link ChannelOption#AUTO_READ} it should not be combined with handlers that toggle it as well.
+ * <p>
+ * The wrapped {@link EventExecutorGroup} may contain any kind of {@link EventExecutor}s. With
+ * {@link OrderedEventExecutor}s all events of a {@link Channel} are executed by the same {@link Thread}, otherwise
+ * the order is still preserved but each batch may be executed by another {@link Thread}.
+ * <p>
+ * The back-pressure only works if the {@link EventExecutor}s of this group are assigned by a
+ * {@link ChannelPipeline}, as only then the inbox knows its {@link Channel}.
+ */
+@UnstableApi
+public final class OrderedBatchingEventExecutorGroup implements EventExecutorGroup {
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(OrderedBatchingEventExecutorGroup.class);
+
+    static final int DEFAULT_MAX_TASK_EXECUTE_PER_RUN = 1024;
+    static final int DEFAULT_MAX_PENDING_TASKS = 1024;
+
+    private final EventExecutorGroup group;
+    private final int maxTaskExecutePerRun;
+    private final int maxPendingTasks;
+
+    /**
+     * Creates a new instance which executes at most {@code 1024} events of a {@link Channel} per task and stops
+     * reading from it once more than {@code 1024} events are queued.
+     */
+    public OrderedBatchingEventExecutorGroup(EventExecutorGroup group) {
+        this(group, DEFAULT_MAX_TASK_EXECUTE_PER_RUN, DEFAULT_MAX_PENDING_TASKS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param group                 the {@link EventExecutorGroup} which executes the batches
+     * @param maxTaskExecutePerRun  the maximum number of events of a {@link Channel} that are executed by one task
+     *                              before the {@link Thread} is given up for other {@link Channel}s
+     * @param maxPendingTasks       the number of queued events of a {@link Channel} at which reading from it is
+     *                              suspended
+     */
+    public OrderedBatchingEventExecutorGroup(EventExecutorGroup group, int maxTaskExecutePerRun, int maxPendingTasks) {
+        this.group = ObjectUtil.checkNotNull(group, "group");
+        this.maxTaskExecutePerRun = ObjectUtil.checkPositive(maxTaskExecutePerRun, "maxTaskExecutePerRun");
+        this.maxPendingTasks = ObjectUtil.checkPositive(maxPendingTasks, "maxPendingTasks");
+    }
+
+    private ChannelInbox newInbox(EventExecutor executor) {
+        return new ChannelInbox(this, executor, maxTaskExecutePerRun, maxPendingTasks);
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return group.isShuttingDown();
+    }
+
+    @Override
+    public Future<?> shutdownGracefully() {
+        return group.shutdownGracefully();
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        return group.shutdownGracefully(quietPeriod, timeout, unit);
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+        return group.terminationFuture();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void shutdown() {
+        group.shutdown();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public List<Runnable> shutdownNow() {
+        return group.shutdownNow();
+    }
+
+    /**
+     * Returns a new inbox which executes its events in order via one of the {@link EventExecutor}s of the wrapped
+     * {@link EventExecutorGroup}.
+     */
+    @Override
+    public EventExecutor next() {
+        return newInbox(group.next());
+    }
+
+    @Override
+    public Iterator<EventExecutor> iterator() {
+        final Iterator<EventExecutor> itr = group.iterator();
+        return new Iterator<EventExecutor>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public EventExecutor next() {
+                return newInbox(itr.next());
+            }
+
+            @Override
+            public void remove() {
+                itr.remove();
+            }
+        };
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return group.submit(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return group.submit(task, result);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return group.submit(task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return group.schedule(command, delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return group.schedule(callable, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return group.scheduleAtFixedRate(command, initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return group.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return group.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return group.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return group.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public <T> List<java.util.concurrent.Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return group.invokeAll(tasks);
+    }
+
+    @Override
+    public <T> List<java.util.concurrent.Future<T>> invokeAll(
+            Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        return group.invokeAll(tasks, timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return group.invokeAny(tasks);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return group.invokeAny(tasks, timeout, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        group.execute(command);
+    }
+
+    /**
+     * Queues the events of one {@link Channel} and executes them in batches.
+     */
+    static final class ChannelInbox extends AbstractEventExecutor implements Runnable, OrderedEventExecutor {
+        private static final int NONE = 0;
+        private static final int SUBMITTED = 1;
+        private static final int RUNNING = 2;
+
+        private final EventExecutor executor;
+        private final Queue<Runnable> tasks = PlatformDependent.newMpscQueue();
+        private final AtomicInteger state = new AtomicInteger();
+        private final AtomicInteger pendingTasks = new AtomicInteger();
+        private final int maxTaskExecutePerRun;
+        private final int maxPendingTasks;
+        private final Runnable updateAutoReadTask = new Runnable() {
+            @Override
+            public void run() {
+                updateAutoRead();
+            }
+        };
+
+        private volatile Channel channel;
+        private volatile boolean suspended;
+        private volatile Thread thread;
+
+        ChannelInbox(EventExecutorGroup parent, EventExecutor executor, int maxTaskExecutePerRun,
+                     int maxPendingTasks) {
+            super(parent);
+            this.executor = executor;
+            this.maxTaskExecutePerRun = maxTaskExecutePerRun;
+            this.maxPendingTasks = maxPendingTasks;
+        }
+
+        /**
+         * Binds this inbox to the {@link Channel} whose reads are suspended while too many events are queued.
+         */
+        void bind(Channel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Returns the number of events which are queued but not executed yet.
+         */
+        int pendingTasks() {
+            return pendingTasks.get();
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(SUBMITTED, RUNNING)) {
+                return;
+            }
+            thread = Thread.currentThread();
+            int i = 0;
+            try {
+                for (; i < maxTaskExecutePerRun; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    try {
+                        safeExecute(task);
+                    } finally {
+                        taskExecuted();
+                    }
+                }
+            } finally {
+                thread = null;
+                state.set(NONE);
+                // Submit again if we gave up the Thread to be fair to other Channels or if an event was added after
+                // the last poll() but before the state was reset.
+                if (!tasks.isEmpty() && state.compareAndSet(NONE, SUBMITTED)) {
+                    try {
+                        executor.execute(this);
+                    } catch (Throwable cause) {
+                        dropPendingTasks();
+                        logger.warn("Failed to submit the remaining events of {} to {}", channel, executor, cause);
+                    }
+                }
+            }
+        }
+
+        private void taskExecuted() {
+            int pending = pendingTasks.decrementAndGet();
+            if (suspended && pending <= maxPendingTasks >>> 1) {
+                suspended = false;
+                scheduleUpdateAutoRead();
+            }
+        }
+
+        private void scheduleUpdateAutoRead() {
+            Channel channel = this.channel;
+            EventLoop eventLoop = channel.eventLoop();
+            if (eventLoop.inEventLoop()) {
+                updateAutoRead();
+            } else {
+                eventLoop.execute(updateAutoReadTask);
+            }
+        }
+
+        private void updateAutoRead() {
+            // Evaluate the state again on the EventLoop, as suspending and resuming may race and so arrive here in
+            // any order.
+            if (suspended && pendingTasks.get() <= maxPendingTasks >>> 1) {
+                suspended = false;
+            }
+            channel.config().setAutoRead(!suspended);
+        }
+
+        @Override
+        public boolean inEventLoop(Thread thread) {
+            return thread == this.thread;
+        }
+
+        @Override
+        public boolean isShuttingDown() {
+            return executor.isShuttingDown();
+        }
+
+        /**
+         * Does nothing, as the lifecycle is managed by the {@link OrderedBatchingEventExecutorGroup}.
+         */
+        @Override
+        public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+            return terminationFuture();
+        }
+
+        @Override
+        public Future<?> terminationFuture() {
+            return executor.terminationFuture();
+        }
+
+        /**
+         * Does nothing, as the lifecycle is managed by the {@link OrderedBatchingEventExecutorGroup}.
+         */
+        @Override
+        @Deprecated
+        public void shutdown() { }
+
+        @Override
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ScheduledInboxTask<Void> task = new ScheduledInboxTask<Void>(command, false);
+            return task.scheduled(executor.schedule(task.submitTask, delay, unit));
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            ObjectUtil.checkNotNull(callable, "callable");
+            ScheduledInboxTask<V> task = new ScheduledInboxTask<V>(callable, false);
+            return task.scheduled(executor.schedule(task.submitTask, delay, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ScheduledInboxTask<Void> task = new ScheduledInboxTask<Void>(command, true);
+            return task.scheduled(executor.scheduleAtFixedRate(task.submitTask, initialDelay, period, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ScheduledInboxTask<Void> task = new ScheduledInboxTask<Void>(command, true);
+            return task.scheduled(executor.scheduleWithFixedDelay(task.submitTask, initialDelay, delay, unit));
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!tasks.offer(command)) {
+                throw new RejectedExecutionException();
+            }
+            int pending = pendingTasks.incrementAndGet();
+            if (pending > maxPendingTasks && !suspended && channel != null) {
+                suspended = true;
+                scheduleUpdateAutoRead();
+            }
+            if (state.compareAndSet(NONE, SUBMITTED)) {
+                try {
+                    executor.execute(this);
+                } catch (Throwable e) {
+                    dropPendingTasks();
+                    PlatformDependent.throwException(e);
+                }
+            }
+        }
+
+        /**
+         * Drops all queued events after the wrapped {@link EventExecutor} rejected to run this inbox, as they would
+         * never be executed otherwise. Must only be called by the thread which set the state to {@link #SUBMITTED}.
+         */
+        private void dropPendingTasks() {
+            do {
+                for (;;) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    if (task instanceof Future) {
+                        ((Future<?>) task).cancel(false);
+                    }
+                    taskExecuted();
+                }
+                state.set(NONE);
+                // Another thread may have added an event after the last poll() but could not submit this inbox, as
+                // the state was still SUBMITTED.
+            } while (!tasks.isEmpty() && state.compareAndSet(NONE, SUBMITTED));
+        }
+
+        /**
+         * A task which is timed by the wrapped {@link EventExecutor} but executed via the inbox once it is due, so it
+         * is ordered with the events of the {@link Channel}.
+         */
+        private final class ScheduledInboxTask<V> extends DefaultPromise<V> implements ScheduledFuture<V>, Runnable {
+            private final Runnable runnable;
+            private final Callable<V> callable;
+            private final boolean periodic;
+            final Runnable submitTask = new Runnable() {
+                @Override
+                public void run() {
+                    if (isDone()) {
+                        return;
+                    }
+                    try {
+                        execute(ScheduledInboxTask.this);
+                    } catch (Throwable cause) {
+                        fail(cause);
+                    }
+                }
+            };
+            private volatile ScheduledFuture<?> future;
+
+            ScheduledInboxTask(Runnable runnable, boolean periodic) {
+                super(ChannelInbox.this);
+                this.runnable = runnable;
+                callable = null;
+                this.periodic = periodic;
+            }
+
+            ScheduledInboxTask(Callable<V> callable, boolean periodic) {
+                super(ChannelInbox.this);
+                runnable = null;
+                this.callable = callable;
+                this.periodic = periodic;
+            }
+
+            ScheduledInboxTask<V> scheduled(ScheduledFuture<?> future) {
+                this.future = future;
+                if (isDone()) {
+                    // Failed or cancelled before the future was known.
+                    future.cancel(false);
+                }
+                return this;
+            }
+
+            @Override
+            public void run() {
+                if (isDone()) {
+                    return;
+                }
+                try {
+                    if (callable != null) {
+                        V result = callable.call();
+                        if (!periodic) {
+                            trySuccess(result);
+                        }
+                    } else {
+                        runnable.run();
+                        if (!periodic) {
+                            trySuccess(null);
+                        }
+                    }
+                } catch (Throwable cause) {
+                    fail(cause);
+                }
+            }
+
+            private void fail(Throwable cause) {
+                if (tryFailure(cause)) {
+                    cancelScheduled();
+                }
+            }
+
+            private void cancelScheduled() {
+                ScheduledFuture<?> future = this.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                if (super.cancel(mayInterruptIfRunning)) {
+                    cancelScheduled();
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                ScheduledFuture<?> future = this.future;
+                return future == null ? 0 : future.getDelay(unit);
+            }
+
+            @Override
+            public int compareTo(Delayed o) {
+                long d = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+                return d < 0 ? -1 : d > 0 ? 1 : 0;
+            }
+        }
+    }
+}
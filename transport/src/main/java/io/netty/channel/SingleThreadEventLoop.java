@@ -36,6 +36,7 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
             SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingTasks", Integer.MAX_VALUE));
 
     private final Queue<Runnable> tailTasks;
+    private final ChannelIoStatistics ioStatistics = new ChannelIoStatistics(null);
 
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         this(parent, threadFactory, addTaskWakesUp, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject());
@@ -59,6 +60,14 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         tailTasks = newTaskQueue(maxPendingTasks);
     }
 
+    /**
+     * Returns the {@link ChannelIoStatistics} aggregated over all {@link Channel}s registered to this
+     * {@link EventLoop} which have {@link ChannelOption#IO_STATISTICS} enabled.
+     */
+    public ChannelIoStatistics ioStatistics() {
+        return ioStatistics;
+    }
+
     @Override
     public EventLoopGroup parent() {
         return (EventLoopGroup) super.parent();
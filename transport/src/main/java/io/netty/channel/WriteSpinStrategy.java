@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+/**
+ * Decides how many write attempts a {@link Channel} makes while flushing and when it should wait for the transport
+ * to signal writability, based on the outcome of previous write attempts.
+ * <p>
+ * The number of attempts per flush is still bounded by {@link ChannelConfig#getWriteSpinCount()}.
+ * </p>
+ */
+public interface WriteSpinStrategy {
+
+    /**
+     * Creates a new handle. The handle provides the actual operations and keeps the internal information which is
+     * required for the decisions of a single {@link Channel}.
+     */
+    Handle newHandle();
+
+    interface Handle {
+        /**
+         * Records the outcome of a single write attempt.
+         *
+         * @param attemptedBytes    the number of bytes that were handed to the OS.
+         * @param writtenBytes      the number of bytes that were accepted by the OS or {@code 0} if the send buffer
+         *                          was full.
+         */
+        void record(long attemptedBytes, long writtenBytes);
+
+        /**
+         * Returns {@code true} if another write attempt should be made for the current flush, {@code false} if the
+         * send buffer is most likely full and the {@link Channel} should wait until the transport signals
+         * writability instead.
+         */
+        boolean continueWriting();
+
+        /**
+         * Called once all flushed data was written. Returns {@code true} if an edge-triggered transport should keep
+         * its interest in writability registered, which saves the system calls to remove and re-add it when the send
+         * buffer keeps on running full.
+         */
+        boolean keepWritabilityInterest();
+    }
+}
@@ -20,18 +20,26 @@ import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.PromiseCombiner;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -429,6 +437,210 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return future;
     }
 
+    /**
+     * Shortcut for calling {@link #writeEncoded(Object, ChannelMatcher, String, ChannelHandler...)} with
+     * {@link ChannelMatchers#all()}.
+     */
+    public ChannelGroupFuture writeEncoded(Object message, String baseName, ChannelHandler... encoders) {
+        return writeEncoded(message, ChannelMatchers.all(), baseName, encoders);
+    }
+
+    /**
+     * Encodes the specified {@code message} only once by passing it through the given {@code encoders} and writes the
+     * result to all {@link Channel}s in this group that are matched by the given {@link ChannelMatcher}.
+     * <p>
+     * The encoded message enters the pipeline of each {@link Channel} right below the handler with the given
+     * {@code baseName}, which is usually the first of the encoders that would otherwise have encoded the
+     * {@code message} once per {@link Channel}. The {@code encoders} must either be {@link ChannelHandler.Sharable} or
+     * new instances as they are added to a private pipeline. Writes are grouped by {@link EventLoop} so each
+     * {@link EventLoop} is only asked to execute a single task for all of its {@link Channel}s.
+     *
+     * @return the {@link ChannelGroupFuture} instance that notifies when
+     *         the operation is done for all channels
+     */
+    public ChannelGroupFuture writeEncoded(Object message, ChannelMatcher matcher, String baseName,
+                                           ChannelHandler... encoders) {
+        return writeEncoded(message, matcher, baseName, false, encoders);
+    }
+
+    /**
+     * Shortcut for calling {@link #writeAndFlushEncoded(Object, ChannelMatcher, String, ChannelHandler...)} with
+     * {@link ChannelMatchers#all()}.
+     */
+    public ChannelGroupFuture writeAndFlushEncoded(Object message, String baseName, ChannelHandler... encoders) {
+        return writeAndFlushEncoded(message, ChannelMatchers.all(), baseName, encoders);
+    }
+
+    /**
+     * Shortcut for calling {@link #writeEncoded(Object, ChannelMatcher, String, ChannelHandler...)} and flushing each
+     * of the matched {@link Channel}s from the same task.
+     */
+    public ChannelGroupFuture writeAndFlushEncoded(Object message, ChannelMatcher matcher, String baseName,
+                                                   ChannelHandler... encoders) {
+        return writeEncoded(message, matcher, baseName, true, encoders);
+    }
+
+    private ChannelGroupFuture writeEncoded(Object message, ChannelMatcher matcher, String baseName, boolean flush,
+                                            ChannelHandler... encoders) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+        if (baseName == null) {
+            throw new NullPointerException("baseName");
+        }
+        if (encoders == null) {
+            throw new NullPointerException("encoders");
+        }
+
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        for (Channel c: nonServerChannels.values()) {
+            if (matcher.matches(c)) {
+                List<Channel> channels = channelsByLoop.get(c.eventLoop());
+                if (channels == null) {
+                    channels = new ArrayList<Channel>();
+                    channelsByLoop.put(c.eventLoop(), channels);
+                }
+                channels.add(c);
+            }
+        }
+        if (channelsByLoop.isEmpty()) {
+            ReferenceCountUtil.release(message);
+            return new DefaultChannelGroupFuture(this, new LinkedHashMap<Channel, ChannelFuture>(0), executor);
+        }
+
+        List<Object> encoded = encode(message, encoders);
+        Map<Channel, ChannelFuture> futures = new LinkedHashMap<Channel, ChannelFuture>(size());
+        try {
+            for (Map.Entry<EventLoop, List<Channel>> entry: channelsByLoop.entrySet()) {
+                List<Channel> channels = entry.getValue();
+                ChannelPromise[] promises = new ChannelPromise[channels.size()];
+                for (int i = 0; i < promises.length; i++) {
+                    Channel c = channels.get(i);
+                    promises[i] = c.newPromise();
+                    futures.put(c, promises[i]);
+                }
+                // Every Channel releases the encoded messages once, so retain them on its behalf before handing
+                // them to the EventLoop.
+                for (Object msg: encoded) {
+                    ReferenceCountUtil.retain(msg, promises.length);
+                }
+
+                EventLoop loop = entry.getKey();
+                EncodedWriteTask task = new EncodedWriteTask(channels, promises, encoded, baseName, flush);
+                if (loop.inEventLoop()) {
+                    task.run();
+                } else {
+                    try {
+                        loop.execute(task);
+                    } catch (Throwable cause) {
+                        task.fail(cause);
+                    }
+                }
+            }
+        } finally {
+            for (Object msg: encoded) {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        return new DefaultChannelGroupFuture(this, futures, executor);
+    }
+
+    private static List<Object> encode(Object message, ChannelHandler... encoders) {
+        EmbeddedChannel channel = new EmbeddedChannel(encoders);
+        try {
+            channel.writeOutbound(message);
+            List<Object> encoded = new ArrayList<Object>(channel.outboundMessages().size());
+            for (;;) {
+                Object msg = channel.readOutbound();
+                if (msg == null) {
+                    break;
+                }
+                encoded.add(msg);
+            }
+            return encoded;
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    // Unlike safeDuplicate(...) this does not retain as the retains were done by writeEncoded(...) already.
+    private static Object duplicate(Object message) {
+        if (message instanceof ByteBuf) {
+            return ((ByteBuf) message).duplicate();
+        } else if (message instanceof ByteBufHolder) {
+            return ((ByteBufHolder) message).duplicate();
+        } else {
+            return message;
+        }
+    }
+
+    /**
+     * Writes the already encoded messages to all {@link Channel}s of a single {@link EventLoop}.
+     */
+    private static final class EncodedWriteTask implements Runnable {
+        private final List<Channel> channels;
+        private final ChannelPromise[] promises;
+        private final List<Object> encoded;
+        private final String baseName;
+        private final boolean flush;
+
+        EncodedWriteTask(List<Channel> channels, ChannelPromise[] promises, List<Object> encoded, String baseName,
+                         boolean flush) {
+            this.channels = channels;
+            this.promises = promises;
+            this.encoded = encoded;
+            this.baseName = baseName;
+            this.flush = flush;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < promises.length; i++) {
+                ChannelHandlerContext ctx = channels.get(i).pipeline().context(baseName);
+                if (ctx == null) {
+                    fail(i, new IllegalArgumentException("No handler named " + baseName + " in the pipeline of "
+                            + channels.get(i)));
+                    continue;
+                }
+                write(ctx, promises[i]);
+                if (flush) {
+                    ctx.flush();
+                }
+            }
+        }
+
+        private void write(ChannelHandlerContext ctx, ChannelPromise promise) {
+            int size = encoded.size();
+            if (size == 0) {
+                promise.trySuccess();
+            } else if (size == 1) {
+                ctx.write(duplicate(encoded.get(0)), promise);
+            } else {
+                PromiseCombiner combiner = new PromiseCombiner();
+                for (Object msg: encoded) {
+                    combiner.add(ctx.write(duplicate(msg)));
+                }
+                combiner.finish(promise);
+            }
+        }
+
+        void fail(Throwable cause) {
+            for (int i = 0; i < promises.length; i++) {
+                fail(i, cause);
+            }
+        }
+
+        private void fail(int index, Throwable cause) {
+            for (Object msg: encoded) {
+                ReferenceCountUtil.release(msg);
+            }
+            promises[index].tryFailure(cause);
+        }
+    }
+
     @Override
     public ChannelGroupFuture newCloseFuture() {
         return newCloseFuture(ChannelMatchers.all());
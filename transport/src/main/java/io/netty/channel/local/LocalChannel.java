@@ -42,6 +42,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -52,8 +53,11 @@ public class LocalChannel extends AbstractChannel {
     @SuppressWarnings({ "rawtypes" })
     private static final AtomicReferenceFieldUpdater<LocalChannel, Future> FINISH_READ_FUTURE_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(LocalChannel.class, Future.class, "finishReadFuture");
+    private static final AtomicIntegerFieldUpdater<LocalChannel> FINISH_READ_SCHEDULED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(LocalChannel.class, "finishReadScheduled");
     private static final ChannelMetadata METADATA = new ChannelMetadata(false);
     private static final int MAX_READER_STACK_DEPTH = 8;
+    private static final int INBOUND_BUFFER_CHUNK_SIZE = 128;
     private static final ClosedChannelException DO_WRITE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), LocalChannel.class, "doWrite(...)");
     private static final ClosedChannelException DO_CLOSE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
@@ -62,8 +66,8 @@ public class LocalChannel extends AbstractChannel {
     private enum State { OPEN, BOUND, CONNECTED, CLOSED }
 
     private final ChannelConfig config = new DefaultChannelConfig(this);
-    // To further optimize this we could write our own SPSC queue.
-    final Queue<Object> inboundBuffer = PlatformDependent.newSpscQueue();
+    // Linked ring buffers, so handing over a message to the peer does not need to allocate a queue node.
+    final Queue<Object> inboundBuffer = PlatformDependent.newSpscQueue(INBOUND_BUFFER_CHUNK_SIZE);
     private final Runnable readTask = new Runnable() {
         @Override
         public void run() {
@@ -78,6 +82,20 @@ public class LocalChannel extends AbstractChannel {
             pipeline.fireChannelReadComplete();
         }
     };
+    // Scheduled by the peer if it wrote to this channel from another EventLoop. As long as it was not run yet, further
+    // writes of the peer don't need to schedule it again, which batches the wakeups of this channel's EventLoop.
+    private final Runnable finishReadTask = new Runnable() {
+        @Override
+        public void run() {
+            // Reset before reading, any message added after this point will either be read now or schedule the task
+            // again.
+            finishReadScheduled = 0;
+            LocalChannel peer = LocalChannel.this.peer;
+            if (peer != null) {
+                peer.finishPeerRead0(LocalChannel.this);
+            }
+        }
+    };
     private final Runnable shutdownHook = new Runnable() {
         @Override
         public void run() {
@@ -93,6 +111,7 @@ public class LocalChannel extends AbstractChannel {
     private volatile boolean readInProgress;
     private volatile boolean writeInProgress;
     private volatile Future<?> finishReadFuture;
+    private volatile int finishReadScheduled;
 
     public LocalChannel() {
         super(null);
@@ -394,19 +413,19 @@ public class LocalChannel extends AbstractChannel {
     private void runFinishPeerReadTask(final LocalChannel peer) {
         // If the peer is writing, we must wait until after reads are completed for that peer before we can read. So
         // we keep track of the task, and coordinate later that our read can't happen until the peer is done.
-        final Runnable finishPeerReadTask = new Runnable() {
-            @Override
-            public void run() {
-                finishPeerRead0(peer);
-            }
-        };
         try {
             if (peer.writeInProgress) {
-                peer.finishReadFuture = peer.eventLoop().submit(finishPeerReadTask);
-            } else {
-                peer.eventLoop().execute(finishPeerReadTask);
+                peer.finishReadFuture = peer.eventLoop().submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        finishPeerRead0(peer);
+                    }
+                });
+            } else if (FINISH_READ_SCHEDULED_UPDATER.compareAndSet(peer, 0, 1)) {
+                peer.eventLoop().execute(peer.finishReadTask);
             }
         } catch (Throwable cause) {
+            peer.finishReadScheduled = 0;
             logger.warn("Closing Local channels {}-{} because exception occurred!", this, peer, cause);
             close();
             peer.close();
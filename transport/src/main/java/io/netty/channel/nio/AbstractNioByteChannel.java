@@ -24,8 +24,10 @@ import io.netty.channel.ChannelMetadata;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteSpinStrategy;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.ChannelInputShutdownEvent;
 import io.netty.channel.socket.ChannelInputShutdownReadComplete;
@@ -55,6 +57,17 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
         }
     };
 
+    private final ChannelOutboundBuffer.FileRegionWriter fileRegionWriter =
+            new ChannelOutboundBuffer.FileRegionWriter() {
+        @Override
+        public long write(DefaultFileRegion region) throws Exception {
+            final long attemptedBytes = region.count();
+            long localFlushedAmount = doWriteFileRegion(region);
+            recordWrite(attemptedBytes, localFlushedAmount);
+            return localFlushedAmount;
+        }
+    };
+
     /**
      * Create a new instance
      *
@@ -131,6 +144,7 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 do {
                     byteBuf = allocHandle.allocate(allocator);
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
+                    recordRead(allocHandle.lastBytesRead());
                     if (allocHandle.lastBytesRead() <= 0) {
                         // nothing was read. release the buffer.
                         byteBuf.release();
@@ -202,7 +216,9 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 return 0;
             }
 
+            final int attemptedBytes = buf.readableBytes();
             final int localFlushedAmount = doWriteBytes(buf);
+            recordWrite(attemptedBytes, localFlushedAmount);
             if (localFlushedAmount > 0) {
                 in.progress(localFlushedAmount);
                 if (!buf.isReadable()) {
@@ -217,7 +233,15 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 return 0;
             }
 
+            // Transfer all regions which continue each other in the same file at once.
+            long adjacentFlushedAmount = in.writeAdjacentFileRegions(fileRegionWriter);
+            if (adjacentFlushedAmount >= 0) {
+                return adjacentFlushedAmount > 0 ? 1 : WRITE_STATUS_SNDBUF_FULL;
+            }
+
+            final long attemptedBytes = region.count() - region.transferred();
             long localFlushedAmount = doWriteFileRegion(region);
+            recordWrite(attemptedBytes, localFlushedAmount);
             if (localFlushedAmount > 0) {
                 in.progress(localFlushedAmount);
                 if (region.transferred() >= region.count()) {
@@ -234,6 +258,7 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
 
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        final WriteSpinStrategy.Handle writeSpinHandle = writeSpinHandle();
         int writeSpinCount = config().getWriteSpinCount();
         do {
             Object msg = in.current();
@@ -244,6 +269,11 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 return;
             }
             writeSpinCount -= doWriteInternal(in, msg);
+            if (!writeSpinHandle.continueWriting() && !in.isEmpty()) {
+                // The send buffer is expected to be full, so wait until the channel becomes writable again.
+                incompleteWrite(true);
+                return;
+            }
         } while (writeSpinCount > 0);
 
         incompleteWrite(writeSpinCount < 0);
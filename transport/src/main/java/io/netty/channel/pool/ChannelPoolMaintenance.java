@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.channel.Channel;
+
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Configures the background maintenance of the idle {@link Channel}s of a {@link SimpleChannelPool}. The maintenance
+ * runs periodically once the pool was first used or warmed up and:
+ * <ul>
+ *     <li>closes {@link Channel}s which were idle for longer than {@link #maxIdleTimeMillis()}, as long as this
+ *     keeps at least {@link #minIdle()} idle {@link Channel}s in the pool</li>
+ *     <li>runs the {@link ChannelHealthChecker} on the idle {@link Channel}s if {@link #healthCheckIdle()} is
+ *     {@code true}, so unhealthy ones are not discovered on acquire</li>
+ *     <li>opens new {@link Channel}s until there are at least {@link #minIdle()} idle ones.</li>
+ * </ul>
+ */
+public final class ChannelPoolMaintenance {
+
+    /**
+     * No background maintenance at all.
+     */
+    public static final ChannelPoolMaintenance DISABLED = new ChannelPoolMaintenance(0, 0, 0, false);
+
+    private final long intervalMillis;
+    private final long maxIdleTimeMillis;
+    private final int minIdle;
+    private final boolean healthCheckIdle;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param intervalMillis        the time (in milliseconds) between two maintenance runs or {@code 0} to disable the
+     *                              maintenance.
+     * @param maxIdleTimeMillis     the time (in milliseconds) after which an idle {@link Channel} is closed or
+     *                              {@code 0} to never close idle {@link Channel}s.
+     * @param minIdle               the number of idle {@link Channel}s which should be kept open.
+     * @param healthCheckIdle       {@code true} if the idle {@link Channel}s should be checked on every maintenance
+     *                              run.
+     */
+    public ChannelPoolMaintenance(long intervalMillis, long maxIdleTimeMillis, int minIdle, boolean healthCheckIdle) {
+        this.intervalMillis = checkPositiveOrZero(intervalMillis, "intervalMillis");
+        this.maxIdleTimeMillis = checkPositiveOrZero(maxIdleTimeMillis, "maxIdleTimeMillis");
+        this.minIdle = checkPositiveOrZero(minIdle, "minIdle");
+        this.healthCheckIdle = healthCheckIdle;
+    }
+
+    /**
+     * Returns the time (in milliseconds) between two maintenance runs or {@code 0} if disabled.
+     */
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the time (in milliseconds) after which an idle {@link Channel} is closed or {@code 0} if idle
+     * {@link Channel}s are never closed.
+     */
+    public long maxIdleTimeMillis() {
+        return maxIdleTimeMillis;
+    }
+
+    /**
+     * Returns the number of idle {@link Channel}s which should be kept open.
+     */
+    public int minIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Returns {@code true} if idle {@link Channel}s are checked by the {@link ChannelHealthChecker} on every
+     * maintenance run.
+     */
+    public boolean healthCheckIdle() {
+        return healthCheckIdle;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelPoolMaintenance(intervalMillis: " + intervalMillis + ", maxIdleTimeMillis: " +
+                maxIdleTimeMillis + ", minIdle: " + minIdle + ", healthCheckIdle: " + healthCheckIdle + ')';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.channel.Channel;
+
+/**
+ * Exposes the state of a {@link ChannelPool} and the acquire operations it served. The values are sampled
+ * independently of each other, so they may not be consistent while the {@link ChannelPool} is in use.
+ */
+public interface ChannelPoolMetric {
+    /**
+     * Returns the number of idle {@link Channel}s which are kept in the {@link ChannelPool}.
+     */
+    int idleChannels();
+
+    /**
+     * Returns the number of {@link Channel}s which were acquired and not released yet.
+     */
+    int acquiredChannels();
+
+    /**
+     * Returns the number of acquire operations which wait for a {@link Channel} to become available.
+     */
+    int pendingAcquires();
+
+    /**
+     * Returns the number of successful acquire operations.
+     */
+    long acquireCount();
+
+    /**
+     * Returns the sum of the time (in nanoseconds) the successful acquire operations took, including the time they
+     * were pending. Divide the difference of two samples by the difference of their {@link #acquireCount()} to get
+     * the average acquire latency of that period.
+     */
+    long totalAcquireTimeNanos();
+}
@@ -0,0 +1,678 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThrowableUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * {@link ChannelPool} implementation which keeps a sub-pool of idle {@link Channel}s per {@link EventLoop} of the
+ * {@link EventLoopGroup} used by the {@link Bootstrap}.
+ * <p>
+ * When {@link #acquire()} is called from one of these {@link EventLoop}s, a {@link Channel} registered to the same
+ * {@link EventLoop} is preferred, so that the caller can write to it without any thread hand-off. Only if the
+ * sub-pool of the caller is empty an idle {@link Channel} of another {@link EventLoop} is used, before a new
+ * connection is created on the {@link EventLoop} of the caller. Calls from other threads are spread over the
+ * {@link EventLoop}s via {@link EventLoopGroup#next()}.
+ * <p>
+ * Like {@link FixedChannelPool} this implementation enforces a maximum number of concurrently acquired
+ * {@link Channel}s and a maximum number of pending acquire operations, but these limits are tracked without
+ * funneling every operation through a single {@link EventExecutor}.
+ */
+public class EventLoopAffineChannelPool implements ChannelPool {
+    private static final AttributeKey<EventLoopAffineChannelPool> POOL_KEY =
+            AttributeKey.newInstance("eventLoopAffineChannelPool");
+    private static final IllegalStateException FULL_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("Too many outstanding acquire operations"),
+            EventLoopAffineChannelPool.class, "acquire0(...)");
+    private static final IllegalStateException OFFER_FAILED_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("ChannelPool full"),
+            EventLoopAffineChannelPool.class, "releaseAndOffer(...)");
+    private static final TimeoutException TIMEOUT_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new TimeoutException("Acquire operation took longer then configured maximum time"),
+            EventLoopAffineChannelPool.class, "<init>(...)");
+    static final IllegalStateException POOL_CLOSED_ON_RELEASE_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("EventLoopAffineChannelPool was closed"),
+            EventLoopAffineChannelPool.class, "release(...)");
+    static final IllegalStateException POOL_CLOSED_ON_ACQUIRE_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("EventLoopAffineChannelPool was closed"),
+            EventLoopAffineChannelPool.class, "acquire0(...)");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthCheck;
+    private final boolean releaseHealthCheck;
+    private final long acquireTimeoutNanos;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+
+    private final SubPool[] subPools;
+    private final Map<EventExecutor, SubPool> subPoolsByLoop;
+
+    // Number of acquired Channels, including the ones that are still being connected or health checked.
+    private final AtomicInteger acquiredChannelCount = new AtomicInteger();
+    private final AtomicInteger pendingAcquireCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections    the number of maximal active connections, once this is reached new tries to acquire
+     *                          a {@link Channel} will be delayed until a connection is returned to the pool again.
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, maxConnections, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections        the number of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                      int maxConnections, int maxPendingAcquires) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, -1, maxConnections, maxPendingAcquires, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healthy when obtain from the {@link ChannelPool}
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which a pending acquire is failed with a
+     *                              {@link TimeoutException} or {@code -1} if pending acquires should never time out.
+     * @param maxConnections        the number of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param releaseHealthCheck    will check channel health before offering back if this parameter set to
+     *                              {@code true}.
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck, long acquireTimeoutMillis,
+                                      int maxConnections, int maxPendingAcquires, boolean releaseHealthCheck) {
+        this.handler = checkNotNull(handler, "handler");
+        this.healthCheck = checkNotNull(healthCheck, "healthCheck");
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
+        }
+        if (maxPendingAcquires < 1) {
+            throw new IllegalArgumentException("maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 1)");
+        }
+        if (acquireTimeoutMillis == -1) {
+            acquireTimeoutNanos = -1;
+        } else if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException(
+                    "acquireTimeoutMillis: " + acquireTimeoutMillis + " (expected: >= 0 or -1)");
+        } else {
+            acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        }
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.releaseHealthCheck = releaseHealthCheck;
+
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+
+        EventLoopGroup group = checkNotNull(this.bootstrap.config().group(), "bootstrap.config().group()");
+        List<SubPool> pools = new ArrayList<SubPool>();
+        subPoolsByLoop = new IdentityHashMap<EventExecutor, SubPool>();
+        for (EventExecutor executor: group) {
+            if (!(executor instanceof EventLoop)) {
+                throw new IllegalArgumentException("bootstrap.config().group() must only contain EventLoops");
+            }
+            SubPool pool = new SubPool(pools.size(), (EventLoop) executor);
+            pools.add(pool);
+            subPoolsByLoop.put(executor, pool);
+        }
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("bootstrap.config().group() contains no EventLoop");
+        }
+        subPools = pools.toArray(new SubPool[0]);
+    }
+
+    /**
+     * Returns the {@link Bootstrap} this pool will use to open new connections.
+     *
+     * @return the {@link Bootstrap} this pool will use to open new connections
+     */
+    protected Bootstrap bootstrap() {
+        return bootstrap;
+    }
+
+    /**
+     * Returns the {@link ChannelPoolHandler} that will be notified for the different pool actions.
+     *
+     * @return the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    protected ChannelPoolHandler handler() {
+        return handler;
+    }
+
+    /**
+     * Returns the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is healthy.
+     *
+     * @return the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is healthy
+     */
+    protected ChannelHealthChecker healthChecker() {
+        return healthCheck;
+    }
+
+    /**
+     * Indicates whether this pool will check the health of channels before offering them back into the pool.
+     *
+     * @return {@code true} if this pool will check the health of channels before offering them back into the pool, or
+     * {@code false} if channel health is only checked at acquisition time
+     */
+    protected boolean releaseHealthCheck() {
+        return releaseHealthCheck;
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        SubPool pool = callerSubPool();
+        return acquire(pool, pool.loop.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        return acquire(callerSubPool(), promise);
+    }
+
+    /**
+     * Returns the {@link SubPool} of the {@link EventLoop} the caller runs in, or the one of the next
+     * {@link EventLoop} of the {@link EventLoopGroup} if the caller is not running in any of them.
+     */
+    private SubPool callerSubPool() {
+        for (SubPool pool: subPools) {
+            if (pool.loop.inEventLoop()) {
+                return pool;
+            }
+        }
+        SubPool pool = subPoolsByLoop.get(bootstrap.config().group().next());
+        return pool != null ? pool : subPools[0];
+    }
+
+    private Future<Channel> acquire(final SubPool pool, final Promise<Channel> promise) {
+        try {
+            if (pool.loop.inEventLoop()) {
+                acquire0(pool, promise);
+            } else {
+                pool.loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        acquire0(pool, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+        return promise;
+    }
+
+    private void acquire0(SubPool pool, Promise<Channel> promise) {
+        assert pool.loop.inEventLoop();
+
+        if (closed) {
+            promise.tryFailure(POOL_CLOSED_ON_ACQUIRE_EXCEPTION);
+            return;
+        }
+        if (tryReserveConnection()) {
+            acquireReserved(pool, promise);
+            return;
+        }
+        if (pendingAcquireCount.incrementAndGet() > maxPendingAcquires) {
+            pendingAcquireCount.decrementAndGet();
+            promise.tryFailure(FULL_EXCEPTION);
+            return;
+        }
+        AcquireTask task = new AcquireTask(pool, promise);
+        pool.pendingAcquires.offer(task);
+        if (acquireTimeoutNanos >= 0) {
+            task.timeoutFuture = pool.loop.schedule(task, acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        if (closed) {
+            // The pool was closed concurrently and may have missed the task.
+            task.fail(new ClosedChannelException());
+            return;
+        }
+        // A Channel may have been released between the failed reservation and adding the task, in which case
+        // nobody else will pick it up.
+        runPendingAcquires(pool);
+    }
+
+    private boolean tryReserveConnection() {
+        for (;;) {
+            int count = acquiredChannelCount.get();
+            if (count >= maxConnections) {
+                return false;
+            }
+            if (acquiredChannelCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseConnection(SubPool pool) {
+        int count = acquiredChannelCount.decrementAndGet();
+
+        // We should never have a negative value.
+        assert count >= 0;
+        runPendingAcquires(pool);
+    }
+
+    /**
+     * Hands out free connection slots to pending acquire operations, preferring the ones waiting on the given
+     * {@link SubPool}.
+     */
+    private void runPendingAcquires(SubPool preferred) {
+        while (pendingAcquireCount.get() > 0 && tryReserveConnection()) {
+            AcquireTask task = pollPendingAcquire(preferred);
+            if (task == null) {
+                // The task was either not yet added or picked up by someone else.
+                acquiredChannelCount.decrementAndGet();
+                break;
+            }
+            pendingAcquireCount.decrementAndGet();
+
+            // Cancel the timeout if one was scheduled
+            ScheduledFuture<?> timeoutFuture = task.timeoutFuture;
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            acquireReserved(task.pool, task.promise);
+        }
+    }
+
+    private AcquireTask pollPendingAcquire(SubPool preferred) {
+        AcquireTask task = preferred.pendingAcquires.poll();
+        if (task != null) {
+            return task;
+        }
+        for (int i = 1; i < subPools.length; i++) {
+            task = subPools[(preferred.index + i) % subPools.length].pendingAcquires.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Acquires a {@link Channel} for the given {@link SubPool} after a connection slot was reserved. Idle
+     * {@link Channel}s of the {@link SubPool} itself are preferred, then idle {@link Channel}s of other
+     * {@link SubPool}s, and only if there are none a new connection is created.
+     */
+    private void acquireReserved(final SubPool pool, final Promise<Channel> promise) {
+        try {
+            if (closed) {
+                releaseConnection(pool);
+                promise.tryFailure(POOL_CLOSED_ON_ACQUIRE_EXCEPTION);
+                return;
+            }
+            Channel ch = pool.idleChannels.pollLast();
+            if (ch == null) {
+                ch = steal(pool);
+            }
+            if (ch == null) {
+                // No Channel left in the pool bootstrap a new Channel on the EventLoop of the caller.
+                ChannelFuture f = connectChannel(pool.bootstrap.clone());
+                if (f.isDone()) {
+                    notifyConnect(f, pool, promise);
+                } else {
+                    f.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            notifyConnect(future, pool, promise);
+                        }
+                    });
+                }
+                return;
+            }
+            final Channel channel = ch;
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doHealthCheck(channel, pool, promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doHealthCheck(channel, pool, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            releaseConnection(pool);
+            promise.tryFailure(cause);
+        }
+    }
+
+    /**
+     * Takes the least recently used idle {@link Channel} of another {@link SubPool}, or returns {@code null} if
+     * all of them are empty.
+     */
+    private Channel steal(SubPool pool) {
+        for (int i = 1; i < subPools.length; i++) {
+            Channel ch = subPools[(pool.index + i) % subPools.length].idleChannels.pollFirst();
+            if (ch != null) {
+                return ch;
+            }
+        }
+        return null;
+    }
+
+    private void notifyConnect(ChannelFuture future, SubPool pool, Promise<Channel> promise) {
+        if (future.isSuccess()) {
+            Channel channel = future.channel();
+            if (!promise.trySuccess(channel)) {
+                // Promise was completed in the meantime (like cancelled), just release the channel again
+                release(channel);
+            }
+        } else {
+            releaseConnection(pool);
+            promise.tryFailure(future.cause());
+        }
+    }
+
+    private void doHealthCheck(final Channel ch, final SubPool pool, final Promise<Channel> promise) {
+        assert ch.eventLoop().inEventLoop();
+
+        Future<Boolean> f = healthCheck.isHealthy(ch);
+        if (f.isDone()) {
+            notifyHealthCheck(f, ch, pool, promise);
+        } else {
+            f.addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) throws Exception {
+                    notifyHealthCheck(future, ch, pool, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyHealthCheck(Future<Boolean> future, Channel ch, SubPool pool, Promise<Channel> promise) {
+        assert ch.eventLoop().inEventLoop();
+
+        if (future.isSuccess() && future.getNow()) {
+            try {
+                ch.attr(POOL_KEY).set(this);
+                handler.channelAcquired(ch);
+            } catch (Throwable cause) {
+                closeChannel(ch);
+                releaseConnection(pool);
+                promise.tryFailure(cause);
+                return;
+            }
+            if (!promise.trySuccess(ch)) {
+                // Promise was completed in the meantime (like cancelled), just release the channel again
+                release(ch);
+            }
+        } else {
+            // Keep the reserved connection slot and try the next Channel.
+            closeChannel(ch);
+            acquireReserved(pool, promise);
+        }
+    }
+
+    /**
+     * Bootstrap a new {@link Channel}. The default implementation uses {@link Bootstrap#connect()}, sub-classes may
+     * override this.
+     * <p>
+     * The {@link Bootstrap} that is passed in here is cloned via {@link Bootstrap#clone()} and uses the
+     * {@link EventLoop} the {@link Channel} should be registered to as {@link EventLoopGroup}, so it is safe to
+     * modify.
+     */
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        return bs.connect();
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        try {
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doReleaseChannel(channel, promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doReleaseChannel(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeChannel(channel);
+            promise.tryFailure(cause);
+        }
+        return promise;
+    }
+
+    private void doReleaseChannel(Channel channel, Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+        // Remove the POOL_KEY attribute from the Channel and check if it was acquired from this pool, if not fail.
+        if (channel.attr(POOL_KEY).getAndSet(null) != this) {
+            closeChannel(channel);
+            // Better include a stacktrace here as this is an user error.
+            promise.tryFailure(new IllegalArgumentException(
+                    "Channel " + channel + " was not acquired from this ChannelPool"));
+            return;
+        }
+        SubPool pool = subPool(channel);
+        if (closed) {
+            // Since the pool is closed, we have no choice but to close the channel
+            channel.close();
+            releaseConnection(pool);
+            promise.tryFailure(POOL_CLOSED_ON_RELEASE_EXCEPTION);
+            return;
+        }
+        try {
+            if (releaseHealthCheck) {
+                doHealthCheckOnRelease(channel, pool, promise);
+            } else {
+                releaseAndOffer(channel, pool, promise);
+            }
+        } catch (Throwable cause) {
+            closeChannel(channel);
+            releaseConnection(pool);
+            promise.tryFailure(cause);
+        }
+    }
+
+    private void doHealthCheckOnRelease(final Channel channel, final SubPool pool, final Promise<Void> promise)
+            throws Exception {
+        final Future<Boolean> f = healthCheck.isHealthy(channel);
+        if (f.isDone()) {
+            releaseAndOfferIfHealthy(channel, pool, promise, f);
+        } else {
+            f.addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) throws Exception {
+                    try {
+                        releaseAndOfferIfHealthy(channel, pool, promise, future);
+                    } catch (Throwable cause) {
+                        closeChannel(channel);
+                        releaseConnection(pool);
+                        promise.tryFailure(cause);
+                    }
+                }
+            });
+        }
+    }
+
+    private void releaseAndOfferIfHealthy(Channel channel, SubPool pool, Promise<Void> promise,
+                                          Future<Boolean> future) throws Exception {
+        if (future.isSuccess() && future.getNow()) {
+            releaseAndOffer(channel, pool, promise);
+        } else {
+            // Channel not healthy, just releasing it.
+            handler.channelReleased(channel);
+            releaseConnection(pool);
+            promise.setSuccess(null);
+        }
+    }
+
+    private void releaseAndOffer(Channel channel, SubPool pool, Promise<Void> promise) throws Exception {
+        if (!channel.isActive()) {
+            // The Channel was closed while the health check was in progress, so it must not be offered back.
+            closeChannel(channel);
+            handler.channelReleased(channel);
+            releaseConnection(pool);
+            promise.setSuccess(null);
+            return;
+        }
+        if (pool.idleChannels.offerLast(channel)) {
+            handler.channelReleased(channel);
+            // Run the pending acquire tasks before notify the original promise so a pending acquire on the same
+            // EventLoop can pick up the Channel directly.
+            releaseConnection(pool);
+            promise.setSuccess(null);
+        } else {
+            closeChannel(channel);
+            releaseConnection(pool);
+            promise.tryFailure(OFFER_FAILED_EXCEPTION);
+        }
+    }
+
+    private SubPool subPool(Channel channel) {
+        SubPool pool = subPoolsByLoop.get(channel.eventLoop());
+        // Only happens if the Channel was registered to another EventLoop by the user, which is allowed but
+        // defeats the purpose of this pool.
+        return pool != null ? pool : subPools[0];
+    }
+
+    private static void closeChannel(Channel channel) {
+        channel.attr(POOL_KEY).getAndSet(null);
+        channel.close();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (SubPool pool: subPools) {
+            for (;;) {
+                AcquireTask task = pool.pendingAcquires.peek();
+                if (task == null) {
+                    break;
+                }
+                task.fail(new ClosedChannelException());
+            }
+            for (;;) {
+                Channel channel = pool.idleChannels.pollLast();
+                if (channel == null) {
+                    break;
+                }
+                channel.close();
+            }
+        }
+    }
+
+    private final class SubPool {
+        final int index;
+        final EventLoop loop;
+        final Bootstrap bootstrap;
+        // Accessed by other EventLoops when stealing Channels or handing out connection slots.
+        final Deque<Channel> idleChannels = PlatformDependent.newConcurrentDeque();
+        final Deque<AcquireTask> pendingAcquires = PlatformDependent.newConcurrentDeque();
+
+        SubPool(int index, EventLoop loop) {
+            this.index = index;
+            this.loop = loop;
+            bootstrap = EventLoopAffineChannelPool.this.bootstrap.clone(loop);
+            bootstrap.attr(POOL_KEY, EventLoopAffineChannelPool.this);
+        }
+    }
+
+    private final class AcquireTask implements Runnable {
+        final SubPool pool;
+        final Promise<Channel> promise;
+        ScheduledFuture<?> timeoutFuture;
+
+        AcquireTask(SubPool pool, Promise<Channel> promise) {
+            this.pool = pool;
+            this.promise = promise;
+        }
+
+        // Called when the acquire timeout expires.
+        @Override
+        public void run() {
+            fail(TIMEOUT_EXCEPTION);
+        }
+
+        void fail(Throwable cause) {
+            // Only fail the task if nobody else dequeued it in the meantime.
+            if (pool.pendingAcquires.remove(this)) {
+                pendingAcquireCount.decrementAndGet();
+                ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+                promise.tryFailure(cause);
+            }
+        }
+    }
+}
@@ -70,7 +70,8 @@ public class FixedChannelPool extends SimpleChannelPool {
     private final int maxConnections;
     private final int maxPendingAcquires;
     private int acquiredChannelCount;
-    private int pendingAcquireCount;
+    // Volatile as it is also read by the metric.
+    private volatile int pendingAcquireCount;
     private boolean closed;
 
     /**
@@ -181,7 +182,39 @@ public class FixedChannelPool extends SimpleChannelPool {
                             final long acquireTimeoutMillis,
                             int maxConnections, int maxPendingAcquires,
                             boolean releaseHealthCheck, boolean lastRecentUsed) {
-        super(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed);
+        this(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                releaseHealthCheck, lastRecentUsed, ChannelPoolMaintenance.DISABLED);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healthy when obtain from the {@link ChannelPool}
+     * @param action                the {@link AcquireTimeoutAction} to use or {@code null} if non should be used.
+     *                              In this case {@param acquireTimeoutMillis} must be {@code -1}.
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which an pending acquire must complete or
+     *                              the {@link AcquireTimeoutAction} takes place.
+     * @param maxConnections        the number of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param releaseHealthCheck    will check channel health before offering back if this parameter set to
+     *                              {@code true}.
+     * @param lastRecentUsed        {@code true} {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     * @param maintenance           the {@link ChannelPoolMaintenance} which configures the background maintenance
+     *                              of the idle {@link Channel}s.
+     */
+    public FixedChannelPool(Bootstrap bootstrap,
+                            ChannelPoolHandler handler,
+                            ChannelHealthChecker healthCheck, AcquireTimeoutAction action,
+                            final long acquireTimeoutMillis,
+                            int maxConnections, int maxPendingAcquires,
+                            boolean releaseHealthCheck, boolean lastRecentUsed, ChannelPoolMaintenance maintenance) {
+        super(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed, maintenance);
         if (maxConnections < 1) {
             throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
         }
@@ -215,7 +248,7 @@ public class FixedChannelPool extends SimpleChannelPool {
                         // create a new connection.
                         task.acquired();
 
-                        FixedChannelPool.super.acquire(task.promise);
+                        acquireFromPoolOrNew(task.promise);
                     }
                 };
                 break;
@@ -231,6 +264,7 @@ public class FixedChannelPool extends SimpleChannelPool {
     @Override
     public Future<Channel> acquire(final Promise<Channel> promise) {
         try {
+            recordAcquireTime(promise);
             if (executor.inEventLoop()) {
                 acquire0(promise);
             } else {
@@ -263,7 +297,7 @@ public class FixedChannelPool extends SimpleChannelPool {
             AcquireListener l = new AcquireListener(promise);
             l.acquired();
             p.addListener(l);
-            super.acquire(p);
+            acquireFromPoolOrNew(p);
         } else {
             if (pendingAcquireCount >= maxPendingAcquires) {
                 promise.setFailure(FULL_EXCEPTION);
@@ -317,6 +351,11 @@ public class FixedChannelPool extends SimpleChannelPool {
         return promise;
     }
 
+    @Override
+    int pendingAcquireCount() {
+        return pendingAcquireCount;
+    }
+
     private void decrementAndRunTaskQueue() {
         --acquiredChannelCount;
 
@@ -346,7 +385,7 @@ public class FixedChannelPool extends SimpleChannelPool {
             --pendingAcquireCount;
             task.acquired();
 
-            super.acquire(task.promise);
+            acquireFromPoolOrNew(task.promise);
         }
 
         // We should never have a negative value.
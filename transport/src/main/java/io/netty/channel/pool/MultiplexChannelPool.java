@@ -0,0 +1,569 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.ThrowableUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * {@link ChannelPool} implementation for multiplexed protocols like HTTP/2, in which a single connection can be
+ * used by many acquirers at the same time.
+ * <p>
+ * Each {@link Channel} is handed out until the number of acquirers that did not release it yet reaches its
+ * concurrency limit. This limit starts with the value given to the constructor and can be updated at any time via
+ * {@link #maxConcurrency(Channel, int)}, for example once the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the remote
+ * peer are known. Only if all connections are saturated a new one is created, until {@code maxConnections} is
+ * reached, after which acquire operations are queued until some capacity becomes available.
+ * <p>
+ * A connection which should not be used for new acquires anymore, for example because a {@code GOAWAY} frame was
+ * received, can be retired via {@link #retire(Channel)}. It is closed once all its acquirers released it.
+ * <p>
+ * As acquired {@link Channel}s are shared, releasing a {@link Channel} that was not acquired from this pool fails
+ * the {@link Promise} without closing the {@link Channel}.
+ */
+public class MultiplexChannelPool implements ChannelPool {
+    private static final AttributeKey<Connection> CONNECTION_KEY =
+            AttributeKey.newInstance("multiplexChannelPoolConnection");
+    private static final IllegalStateException FULL_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("Too many outstanding acquire operations"),
+            MultiplexChannelPool.class, "acquire0(...)");
+    private static final TimeoutException TIMEOUT_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new TimeoutException("Acquire operation took longer then configured maximum time"),
+            MultiplexChannelPool.class, "<init>(...)");
+    static final IllegalStateException POOL_CLOSED_ON_ACQUIRE_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new IllegalStateException("MultiplexChannelPool was closed"),
+            MultiplexChannelPool.class, "acquire0(...)");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final EventExecutor executor;
+    private final long acquireTimeoutNanos;
+    private final int maxConnections;
+    private final int maxConcurrency;
+    private final int maxPendingAcquires;
+
+    // There is no need to worry about synchronization as everything that modified the connections, queue or counts
+    // is done by the above EventExecutor.
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private final Queue<AcquireTask> pendingAcquireQueue = new ArrayDeque<AcquireTask>();
+    private int connectingCount;
+    private boolean closed;
+
+    /**
+     * Creates a new instance which does not limit the number of connections.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConcurrency    the number of acquirers that can use a {@link Channel} at the same time until
+     *                          {@link #maxConcurrency(Channel, int)} is called for it.
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConcurrency) {
+        this(bootstrap, handler, -1, Integer.MAX_VALUE, maxConcurrency, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which a pending acquire is failed with a
+     *                              {@link TimeoutException} or {@code -1} if pending acquires should never time out.
+     * @param maxConnections        the number of maximal connections, once this is reached and all of them are
+     *                              saturated new tries to acquire a {@link Channel} will be delayed until a
+     *                              connection is released again.
+     * @param maxConcurrency        the number of acquirers that can use a {@link Channel} at the same time until
+     *                              {@link #maxConcurrency(Channel, int)} is called for it.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     */
+    public MultiplexChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, long acquireTimeoutMillis,
+                                int maxConnections, int maxConcurrency, int maxPendingAcquires) {
+        this.handler = checkNotNull(handler, "handler");
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency: " + maxConcurrency + " (expected: >= 1)");
+        }
+        if (maxPendingAcquires < 1) {
+            throw new IllegalArgumentException("maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 1)");
+        }
+        if (acquireTimeoutMillis == -1) {
+            acquireTimeoutNanos = -1;
+        } else if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException(
+                    "acquireTimeoutMillis: " + acquireTimeoutMillis + " (expected: >= 0 or -1)");
+        } else {
+            acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        }
+        this.maxConnections = maxConnections;
+        this.maxConcurrency = maxConcurrency;
+        this.maxPendingAcquires = maxPendingAcquires;
+
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                // Attach the Connection before the handler can see any traffic, so that an early call of
+                // maxConcurrency(...) or retire(...) is not lost.
+                ch.attr(CONNECTION_KEY).set(new Connection(ch, MultiplexChannelPool.this.maxConcurrency));
+                handler.channelCreated(ch);
+            }
+        });
+        executor = this.bootstrap.config().group().next();
+    }
+
+    /**
+     * Returns the {@link Bootstrap} this pool will use to open new connections.
+     *
+     * @return the {@link Bootstrap} this pool will use to open new connections
+     */
+    protected Bootstrap bootstrap() {
+        return bootstrap;
+    }
+
+    /**
+     * Returns the {@link ChannelPoolHandler} that will be notified for the different pool actions.
+     *
+     * @return the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    protected ChannelPoolHandler handler() {
+        return handler;
+    }
+
+    /**
+     * Updates the number of acquirers that can use the given {@link Channel} of this pool at the same time. Lowering
+     * the limit never affects the acquirers that already use the {@link Channel}.
+     */
+    public void maxConcurrency(final Channel channel, final int maxConcurrency) {
+        checkNotNull(channel, "channel");
+        checkPositiveOrZero(maxConcurrency, "maxConcurrency");
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                Connection connection = connection(channel);
+                if (connection != null) {
+                    connection.maxConcurrency = maxConcurrency;
+                    runTaskQueue();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops handing out the given {@link Channel} of this pool to new acquirers, for example because the remote peer
+     * is going away. The {@link Channel} is closed once it was released by all its current acquirers. A new
+     * connection may be opened in its place.
+     */
+    public void retire(final Channel channel) {
+        checkNotNull(channel, "channel");
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                Connection connection = connection(channel);
+                if (connection != null && !connection.retired) {
+                    retire(connection);
+                    runTaskQueue();
+                }
+            }
+        });
+    }
+
+    private Connection connection(Channel channel) {
+        Connection connection = channel.attr(CONNECTION_KEY).get();
+        return connection != null && connection.pool() == this ? connection : null;
+    }
+
+    private void retire(Connection connection) {
+        assert executor.inEventLoop();
+
+        connection.retired = true;
+        connections.remove(connection);
+        if (connection.acquiredCount == 0) {
+            connection.channel.close();
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        return acquire(executor.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(final Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        try {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    acquire0(promise);
+                }
+            });
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+        return promise;
+    }
+
+    private void acquire0(Promise<Channel> promise) {
+        assert executor.inEventLoop();
+
+        if (closed) {
+            promise.tryFailure(POOL_CLOSED_ON_ACQUIRE_EXCEPTION);
+            return;
+        }
+        if (pendingAcquireQueue.isEmpty()) {
+            Connection connection = availableConnection();
+            if (connection != null) {
+                acquired(connection, promise);
+                return;
+            }
+        }
+        if (pendingAcquireQueue.size() >= maxPendingAcquires) {
+            promise.tryFailure(FULL_EXCEPTION);
+            return;
+        }
+        AcquireTask task = new AcquireTask(promise);
+        pendingAcquireQueue.offer(task);
+        if (acquireTimeoutNanos >= 0) {
+            task.timeoutFuture = executor.schedule(task, acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        runTaskQueue();
+    }
+
+    /**
+     * Returns the oldest connection which can take another acquirer, so that load is packed onto as few
+     * connections as possible, or {@code null} if all of them are saturated.
+     */
+    private Connection availableConnection() {
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            if (connection.acquiredCount < connection.maxConcurrency && connection.channel.isActive()) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private void runTaskQueue() {
+        assert executor.inEventLoop();
+
+        while (!pendingAcquireQueue.isEmpty()) {
+            Connection connection = availableConnection();
+            if (connection == null) {
+                break;
+            }
+            AcquireTask task = pendingAcquireQueue.poll();
+            task.cancelTimeout();
+            acquired(connection, task.promise);
+        }
+
+        // Only open a new connection if the ones that are currently being opened can not serve all pending
+        // acquires.
+        while (!closed && connectingCount < maxConnections - connections.size() &&
+                (long) connectingCount * maxConcurrency < pendingAcquireQueue.size()) {
+            connectingCount++;
+            connect();
+        }
+    }
+
+    private void connect() {
+        try {
+            ChannelFuture f = connectChannel(bootstrap.clone());
+            f.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(final ChannelFuture future) {
+                    execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            notifyConnect(future);
+                        }
+                    });
+                }
+            });
+        } catch (Throwable cause) {
+            connectFailed(cause);
+        }
+    }
+
+    /**
+     * Bootstrap a new {@link Channel}. The default implementation uses {@link Bootstrap#connect()}, sub-classes may
+     * override this.
+     * <p>
+     * The {@link Bootstrap} that is passed in here is cloned via {@link Bootstrap#clone()}, so it is safe to modify.
+     */
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        return bs.connect();
+    }
+
+    private void notifyConnect(ChannelFuture future) {
+        assert executor.inEventLoop();
+
+        if (!future.isSuccess()) {
+            connectFailed(future.cause());
+            return;
+        }
+        connectingCount--;
+        Channel channel = future.channel();
+        if (closed) {
+            channel.close();
+            return;
+        }
+        final Connection connection = connection(channel);
+        if (connection == null || connection.retired) {
+            channel.close();
+            runTaskQueue();
+            return;
+        }
+        connections.add(connection);
+        channel.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Acquirers that still use the Channel will release it later on.
+                        if (connections.remove(connection)) {
+                            runTaskQueue();
+                        }
+                    }
+                });
+            }
+        });
+        runTaskQueue();
+    }
+
+    private void connectFailed(Throwable cause) {
+        assert executor.inEventLoop();
+
+        connectingCount--;
+        // Fail the pending acquires that were waiting for this connection.
+        while ((long) connectingCount * maxConcurrency < pendingAcquireQueue.size()) {
+            AcquireTask task = pendingAcquireQueue.poll();
+            task.cancelTimeout();
+            task.promise.tryFailure(cause);
+        }
+    }
+
+    private void acquired(final Connection connection, final Promise<Channel> promise) {
+        assert executor.inEventLoop();
+
+        connection.acquiredCount++;
+        EventLoop loop = connection.channel.eventLoop();
+        if (loop.inEventLoop()) {
+            notifyAcquired(connection, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    notifyAcquired(connection, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyAcquired(final Connection connection, Promise<Channel> promise) {
+        Channel channel = connection.channel;
+        assert channel.eventLoop().inEventLoop();
+
+        try {
+            handler.channelAcquired(channel);
+        } catch (Throwable cause) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    released(connection);
+                    runTaskQueue();
+                }
+            });
+            promise.tryFailure(cause);
+            return;
+        }
+        if (!promise.trySuccess(channel)) {
+            // Promise was completed in the meantime (like cancelled), just release the channel again
+            release(channel);
+        }
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        try {
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doReleaseChannel(channel, promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doReleaseChannel(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+        return promise;
+    }
+
+    private void doReleaseChannel(Channel channel, final Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+
+        final Connection connection = connection(channel);
+        if (connection == null) {
+            // Better include a stacktrace here as this is an user error.
+            promise.tryFailure(new IllegalArgumentException(
+                    "Channel " + channel + " was not acquired from this ChannelPool"));
+            return;
+        }
+        Throwable cause = null;
+        try {
+            handler.channelReleased(channel);
+        } catch (Throwable t) {
+            cause = t;
+        }
+        final Throwable releaseCause = cause;
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (connection.acquiredCount == 0) {
+                    promise.tryFailure(new IllegalStateException(
+                            "Channel " + connection.channel + " was released more often than acquired"));
+                    return;
+                }
+                released(connection);
+
+                // Run the pending acquire tasks before notify the original promise so if the user would
+                // try to acquire again from the listener we may be able to run some pending tasks first.
+                runTaskQueue();
+                if (releaseCause == null) {
+                    promise.setSuccess(null);
+                } else {
+                    promise.tryFailure(releaseCause);
+                }
+            }
+        });
+    }
+
+    private void released(Connection connection) {
+        assert executor.inEventLoop();
+
+        if (--connection.acquiredCount == 0 && connection.retired) {
+            connection.channel.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!closed) {
+                    closed = true;
+                    for (;;) {
+                        AcquireTask task = pendingAcquireQueue.poll();
+                        if (task == null) {
+                            break;
+                        }
+                        task.cancelTimeout();
+                        task.promise.tryFailure(new ClosedChannelException());
+                    }
+                    // Connections which are still in use are closed once they were released by all acquirers.
+                    while (!connections.isEmpty()) {
+                        retire(connections.get(connections.size() - 1));
+                    }
+                }
+            }
+        });
+    }
+
+    private final class Connection {
+        final Channel channel;
+        int maxConcurrency;
+        int acquiredCount;
+        boolean retired;
+
+        Connection(Channel channel, int maxConcurrency) {
+            this.channel = channel;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        MultiplexChannelPool pool() {
+            return MultiplexChannelPool.this;
+        }
+    }
+
+    private final class AcquireTask implements Runnable {
+        final Promise<Channel> promise;
+        ScheduledFuture<?> timeoutFuture;
+
+        AcquireTask(Promise<Channel> promise) {
+            this.promise = promise;
+        }
+
+        // Called when the acquire timeout expires.
+        @Override
+        public void run() {
+            assert executor.inEventLoop();
+            if (pendingAcquireQueue.remove(this)) {
+                promise.tryFailure(TIMEOUT_EXCEPTION);
+            }
+        }
+
+        void cancelTimeout() {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -25,10 +25,19 @@ import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.ThrowableUtil;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.netty.util.internal.ObjectUtil.*;
 
@@ -38,9 +47,20 @@ import static io.netty.util.internal.ObjectUtil.*;
  *
  * This implementation uses LIFO order for {@link Channel}s in the {@link ChannelPool}.
  *
+ * The idle {@link Channel}s can be maintained in the background as configured by a {@link ChannelPoolMaintenance}
+ * and the pool can be filled up front via {@link #warmUp(int)}.
  */
-public class SimpleChannelPool implements ChannelPool {
+public class SimpleChannelPool implements ChannelPool, ChannelPoolMetricProvider {
     private static final AttributeKey<SimpleChannelPool> POOL_KEY = AttributeKey.newInstance("channelPool");
+    private static final AttributeKey<Long> IDLE_SINCE_KEY = AttributeKey.newInstance("channelPoolIdleSince");
+    private static final Comparator<Channel> IDLE_SINCE_COMPARATOR = new Comparator<Channel>() {
+        @Override
+        public int compare(Channel o1, Channel o2) {
+            // Compare nanoTime as descripted in the javadocs of System.nanoTime()
+            long diff = o1.attr(IDLE_SINCE_KEY).get() - o2.attr(IDLE_SINCE_KEY).get();
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+        }
+    };
     private static final IllegalStateException FULL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new IllegalStateException("ChannelPool full"), SimpleChannelPool.class, "releaseAndOffer(...)");
 
@@ -50,6 +70,21 @@ public class SimpleChannelPool implements ChannelPool {
     private final Bootstrap bootstrap;
     private final boolean releaseHealthCheck;
     private final boolean lastRecentUsed;
+    private final ChannelPoolMaintenance maintenance;
+    private final AtomicBoolean maintenanceStarted = new AtomicBoolean();
+    private volatile ScheduledFuture<?> maintenanceFuture;
+    // Channels which are being created or health checked by the maintenance and so are not in the pool.
+    private final AtomicInteger warmingUpCount = new AtomicInteger();
+    private final AtomicInteger healthCheckingCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    // Channels which were offered to the pool via offerChannel(...) and not polled again via pollChannel().
+    private final AtomicInteger idleChannelCount = new AtomicInteger();
+    private final AtomicInteger acquiredChannelCount = new AtomicInteger();
+    private volatile boolean recordAcquireTime;
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter totalAcquireTimeNanos = PlatformDependent.newLongCounter();
+    private final ChannelPoolMetric metric = new SimpleChannelPoolMetric();
 
     /**
      * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
@@ -101,6 +136,24 @@ public class SimpleChannelPool implements ChannelPool {
      */
     public SimpleChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
                              boolean releaseHealthCheck, boolean lastRecentUsed) {
+        this(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed, ChannelPoolMaintenance.DISABLED);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap          the {@link Bootstrap} that is used for connections
+     * @param handler            the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck        the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                           still healthy when obtain from the {@link ChannelPool}
+     * @param releaseHealthCheck will check channel health before offering back if this parameter set to {@code true};
+     *                           otherwise, channel health is only checked at acquisition time
+     * @param lastRecentUsed    {@code true} {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     * @param maintenance        the {@link ChannelPoolMaintenance} which configures the background maintenance of
+     *                           the idle {@link Channel}s.
+     */
+    public SimpleChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
+                             boolean releaseHealthCheck, boolean lastRecentUsed, ChannelPoolMaintenance maintenance) {
         this.handler = checkNotNull(handler, "handler");
         this.healthCheck = checkNotNull(healthCheck, "healthCheck");
         this.releaseHealthCheck = releaseHealthCheck;
@@ -114,6 +167,7 @@ public class SimpleChannelPool implements ChannelPool {
             }
         });
         this.lastRecentUsed = lastRecentUsed;
+        this.maintenance = checkNotNull(maintenance, "maintenance");
     }
 
     /**
@@ -153,6 +207,16 @@ public class SimpleChannelPool implements ChannelPool {
         return releaseHealthCheck;
     }
 
+    /**
+     * Returns the {@link ChannelPoolMetric} of this pool. The time of the acquire operations is only recorded once
+     * this method was called for the first time, so pools whose metric is never used do not pay for it.
+     */
+    @Override
+    public ChannelPoolMetric metric() {
+        recordAcquireTime = true;
+        return metric;
+    }
+
     @Override
     public final Future<Channel> acquire() {
         return acquire(bootstrap.config().group().next().<Channel>newPromise());
@@ -161,9 +225,42 @@ public class SimpleChannelPool implements ChannelPool {
     @Override
     public Future<Channel> acquire(final Promise<Channel> promise) {
         checkNotNull(promise, "promise");
+        recordAcquireTime(promise);
+        return acquireFromPoolOrNew(promise);
+    }
+
+    /**
+     * Acquires a {@link Channel} without recording it in the {@link #metric()}, which is useful for sub-classes that
+     * already recorded the acquire operation that lead to this call.
+     */
+    final Future<Channel> acquireFromPoolOrNew(Promise<Channel> promise) {
+        startMaintenance();
         return acquireHealthyFromPoolOrNew(promise);
     }
 
+    final void recordAcquireTime(Promise<Channel> promise) {
+        if (!recordAcquireTime) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        promise.addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) {
+                if (future.isSuccess()) {
+                    acquireCount.increment();
+                    totalAcquireTimeNanos.add(System.nanoTime() - startTime);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of acquire operations which wait for a {@link Channel} to become available.
+     */
+    int pendingAcquireCount() {
+        return 0;
+    }
+
     /**
      * Tries to retrieve healthy channel from the pool if any or creates a new channel otherwise.
      * @param promise the promise to provide acquire result.
@@ -171,7 +268,7 @@ public class SimpleChannelPool implements ChannelPool {
      */
     private Future<Channel> acquireHealthyFromPoolOrNew(final Promise<Channel> promise) {
         try {
-            final Channel ch = pollChannel();
+            final Channel ch = pollIdleChannel();
             if (ch == null) {
                 // No Channel left in the pool bootstrap a new Channel
                 Bootstrap bs = bootstrap.clone();
@@ -209,6 +306,7 @@ public class SimpleChannelPool implements ChannelPool {
     private void notifyConnect(ChannelFuture future, Promise<Channel> promise) {
         if (future.isSuccess()) {
             Channel channel = future.channel();
+            acquiredChannelCount.incrementAndGet();
             if (!promise.trySuccess(channel)) {
                 // Promise was completed in the meantime (like cancelled), just release the channel again
                 release(channel);
@@ -242,6 +340,7 @@ public class SimpleChannelPool implements ChannelPool {
                 try {
                     ch.attr(POOL_KEY).set(this);
                     handler.channelAcquired(ch);
+                    acquiredChannelCount.incrementAndGet();
                     promise.setSuccess(ch);
                 } catch (Throwable cause) {
                     closeAndFail(ch, cause, promise);
@@ -303,6 +402,7 @@ public class SimpleChannelPool implements ChannelPool {
                                  "Channel " + channel + " was not acquired from this ChannelPool"),
                          promise);
         } else {
+            acquiredChannelCount.decrementAndGet();
             try {
                 if (releaseHealthCheck) {
                     doHealthCheckOnRelease(channel, promise);
@@ -347,7 +447,8 @@ public class SimpleChannelPool implements ChannelPool {
     }
 
     private void releaseAndOffer(Channel channel, Promise<Void> promise) throws Exception {
-        if (offerChannel(channel)) {
+        markIdle(channel);
+        if (offerIdleChannel(channel)) {
             handler.channelReleased(channel);
             promise.setSuccess(null);
         } else {
@@ -387,14 +488,241 @@ public class SimpleChannelPool implements ChannelPool {
         return deque.offer(channel);
     }
 
-    @Override
-    public void close() {
+    private Channel pollIdleChannel() {
+        Channel channel = pollChannel();
+        if (channel != null) {
+            idleChannelCount.decrementAndGet();
+        }
+        return channel;
+    }
+
+    private boolean offerIdleChannel(Channel channel) {
+        if (offerChannel(channel)) {
+            idleChannelCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Offers a {@link Channel} which was not acquired back to the pool or closes it if the pool is full or was closed.
+     */
+    private void offerIdleChannelOrClose(Channel channel) {
+        if (!offerIdleChannel(channel)) {
+            channel.close();
+        } else if (closed) {
+            // The pool was closed concurrently, so close() may have missed the Channel.
+            closeIdleChannels();
+        }
+    }
+
+    private void closeIdleChannels() {
         for (;;) {
-            Channel channel = pollChannel();
+            Channel channel = pollIdleChannel();
             if (channel == null) {
                 break;
             }
             channel.close();
         }
     }
+
+    private void markIdle(Channel channel) {
+        if (maintenance.maxIdleTimeMillis() > 0) {
+            channel.attr(IDLE_SINCE_KEY).set(System.nanoTime());
+        }
+    }
+
+    /**
+     * Opens the given number of new {@link Channel}s and adds them to the pool, so that the first acquire operations
+     * do not have to wait for new connections. The returned {@link Future} is failed if one of the connections
+     * failed or if the pool was closed.
+     */
+    public Future<Void> warmUp(int count) {
+        checkPositiveOrZero(count, "count");
+        final Promise<Void> promise = bootstrap.config().group().next().newPromise();
+        if (closed) {
+            return promise.setFailure(new IllegalStateException("ChannelPool was closed"));
+        }
+        startMaintenance();
+        if (count == 0) {
+            return promise.setSuccess(null);
+        }
+        final AtomicInteger remaining = new AtomicInteger(count);
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    Channel channel = future.channel();
+                    markIdle(channel);
+                    offerIdleChannelOrClose(channel);
+                    warmingUpCount.decrementAndGet();
+                    if (remaining.decrementAndGet() == 0) {
+                        promise.trySuccess(null);
+                    }
+                } else {
+                    warmingUpCount.decrementAndGet();
+                    promise.tryFailure(future.cause());
+                }
+            }
+        };
+        for (int i = 0; i < count; i++) {
+            warmingUpCount.incrementAndGet();
+            try {
+                connectChannel(bootstrap.clone()).addListener(listener);
+            } catch (Throwable cause) {
+                warmingUpCount.decrementAndGet();
+                promise.tryFailure(cause);
+                break;
+            }
+        }
+        return promise;
+    }
+
+    private void startMaintenance() {
+        long intervalMillis = maintenance.intervalMillis();
+        if (intervalMillis > 0 && !maintenanceStarted.get() && maintenanceStarted.compareAndSet(false, true)) {
+            maintenanceFuture = bootstrap.config().group().next().scheduleWithFixedDelay(
+                    new MaintenanceTask(), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledFuture<?> maintenanceFuture = this.maintenanceFuture;
+        if (maintenanceFuture != null) {
+            maintenanceFuture.cancel(false);
+        }
+        closeIdleChannels();
+    }
+
+    private final class MaintenanceTask implements Runnable {
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            // Take the idle Channels out of the pool so they can not be acquired while they are inspected.
+            List<Channel> idle = new ArrayList<Channel>();
+            for (int i = idleChannelCount.get(); i > 0; i--) {
+                Channel channel = pollIdleChannel();
+                if (channel == null) {
+                    break;
+                }
+                idle.add(channel);
+            }
+
+            int closable = idle.size() - maintenance.minIdle();
+            long maxIdleTimeNanos = TimeUnit.MILLISECONDS.toNanos(maintenance.maxIdleTimeMillis());
+            List<Channel> expired = new ArrayList<Channel>();
+            if (closable > 0 && maxIdleTimeNanos > 0) {
+                long nanoTime = System.nanoTime();
+                for (Channel channel: idle) {
+                    if (isExpired(channel, nanoTime, maxIdleTimeNanos)) {
+                        expired.add(channel);
+                    }
+                }
+                // Close the Channels which are idle for the longest time first.
+                Collections.sort(expired, IDLE_SINCE_COMPARATOR);
+                if (expired.size() > closable) {
+                    expired.subList(closable, expired.size()).clear();
+                }
+                idle.removeAll(expired);
+            }
+
+            // pollChannel() returns the Channel that is acquired next first, so offer them back in reverse order to
+            // keep the LIFO / FIFO order.
+            if (lastRecentUsed) {
+                for (int i = idle.size() - 1; i >= 0; i--) {
+                    checkOrOfferIdleChannel(idle.get(i));
+                }
+            } else {
+                for (Channel channel: idle) {
+                    checkOrOfferIdleChannel(channel);
+                }
+            }
+            for (Channel channel: expired) {
+                channel.close();
+            }
+
+            int missing = maintenance.minIdle() - idleChannelCount.get() - warmingUpCount.get() -
+                    healthCheckingCount.get();
+            if (missing > 0 && !closed) {
+                warmUp(missing);
+            }
+        }
+
+        private void checkOrOfferIdleChannel(final Channel channel) {
+            if (!maintenance.healthCheckIdle()) {
+                offerIdleChannelOrClose(channel);
+                return;
+            }
+            healthCheckingCount.incrementAndGet();
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                healthCheckIdle(channel);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        healthCheckIdle(channel);
+                    }
+                });
+            }
+        }
+
+        private boolean isExpired(Channel channel, long nanoTime, long maxIdleTimeNanos) {
+            Long idleSince = channel.attr(IDLE_SINCE_KEY).get();
+            // Compare nanoTime as descripted in the javadocs of System.nanoTime()
+            return idleSince != null && nanoTime - idleSince >= maxIdleTimeNanos;
+        }
+
+        private void healthCheckIdle(final Channel channel) {
+            healthCheck.isHealthy(channel).addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) {
+                    if (future.isSuccess() && future.getNow()) {
+                        offerIdleChannelOrClose(channel);
+                    } else {
+                        channel.close();
+                    }
+                    healthCheckingCount.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private final class SimpleChannelPoolMetric implements ChannelPoolMetric {
+        @Override
+        public int idleChannels() {
+            return idleChannelCount.get();
+        }
+
+        @Override
+        public int acquiredChannels() {
+            return acquiredChannelCount.get();
+        }
+
+        @Override
+        public int pendingAcquires() {
+            return pendingAcquireCount();
+        }
+
+        @Override
+        public long acquireCount() {
+            return acquireCount.value();
+        }
+
+        @Override
+        public long totalAcquireTimeNanos() {
+            return totalAcquireTimeNanos.value();
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelPoolMetric(idleChannels: " + idleChannels() + ", acquiredChannels: " +
+                    acquiredChannels() + ", pendingAcquires: " + pendingAcquires() + ", acquireCount: " +
+                    acquireCount() + ", totalAcquireTimeNanos: " + totalAcquireTimeNanos() + ')';
+        }
+    }
 }
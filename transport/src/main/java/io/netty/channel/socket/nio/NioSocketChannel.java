@@ -25,6 +25,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteSpinStrategy;
 import io.netty.channel.nio.AbstractNioByteChannel;
 import io.netty.channel.socket.DefaultSocketChannelConfig;
 import io.netty.channel.socket.ServerSocketChannel;
@@ -373,6 +374,7 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
         SocketChannel ch = javaChannel();
+        WriteSpinStrategy.Handle writeSpinHandle = writeSpinHandle();
         int writeSpinCount = config().getWriteSpinCount();
         do {
             if (in.isEmpty()) {
@@ -401,6 +403,7 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
                     ByteBuffer buffer = nioBuffers[0];
                     int attemptedBytes = buffer.remaining();
                     final int localWrittenBytes = ch.write(buffer);
+                    recordWrite(attemptedBytes, localWrittenBytes);
                     if (localWrittenBytes <= 0) {
                         incompleteWrite(true);
                         return;
@@ -416,6 +419,7 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
                     // We limit the max amount to int above so cast is safe
                     long attemptedBytes = in.nioBufferSize();
                     final long localWrittenBytes = ch.write(nioBuffers, 0, nioBufferCnt);
+                    recordWrite(attemptedBytes, localWrittenBytes);
                     if (localWrittenBytes <= 0) {
                         incompleteWrite(true);
                         return;
@@ -428,6 +432,11 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
                     break;
                 }
             }
+            if (!writeSpinHandle.continueWriting() && !in.isEmpty()) {
+                // The send buffer is expected to be full, so wait until the channel becomes writable again.
+                incompleteWrite(true);
+                return;
+            }
         } while (writeSpinCount > 0);
 
         incompleteWrite(writeSpinCount < 0);
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveWriteSpinStrategyTest {
+    private AdaptiveWriteSpinStrategy strategy;
+    private WriteSpinStrategy.Handle handle;
+
+    @Before
+    public void setup() {
+        strategy = new AdaptiveWriteSpinStrategy();
+        handle = strategy.newHandle();
+    }
+
+    @Test
+    public void continueWritingAfterCompleteWrites() {
+        for (int i = 0; i < 32; i++) {
+            handle.record(1024, 1024);
+            assertTrue(handle.continueWriting());
+        }
+        assertFalse(handle.keepWritabilityInterest());
+        assertEquals(32, strategy.writeAttempts());
+        assertEquals(32 * 1024, strategy.writtenBytes());
+        assertEquals(0, strategy.sendBufferFull());
+        assertEquals(0, strategy.interestUpdatesAvoided());
+    }
+
+    @Test
+    public void stopAfterPartialWriteIfUsuallyFollowedByFullSendBuffer() {
+        handle.record(1024, 512);
+        assertTrue(handle.continueWriting());
+        handle.record(512, 0);
+        for (int i = 0; i < 15; i++) {
+            handle.record(1024, 512);
+            handle.record(512, 0);
+        }
+        handle.record(1024, 512);
+        assertFalse(handle.continueWriting());
+        assertEquals(1, strategy.writeAttemptsAvoided());
+        assertEquals(16, strategy.sendBufferFull());
+    }
+
+    @Test
+    public void probeFromTimeToTime() {
+        for (int i = 0; i < 16; i++) {
+            handle.record(1024, 512);
+            handle.record(512, 0);
+        }
+        int attempts = 0;
+        for (int i = 0; i < 32; i++) {
+            handle.record(1024, 512);
+            if (handle.continueWriting()) {
+                attempts++;
+                handle.record(512, 0);
+            }
+        }
+        assertEquals(2, attempts);
+    }
+
+    @Test
+    public void keepWritabilityInterestIfSendBufferRunsFull() {
+        for (int i = 0; i < 16; i++) {
+            handle.record(1024, 1024);
+            handle.record(1024, 0);
+        }
+        assertTrue(handle.keepWritabilityInterest());
+        assertEquals(1, strategy.interestUpdatesAvoided());
+
+        for (int i = 0; i < 32; i++) {
+            handle.record(1024, 1024);
+        }
+        assertFalse(handle.keepWritabilityInterest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRatio() {
+        new AdaptiveWriteSpinStrategy(0, 0.5);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.channel.ChannelHandlerMask.*;
+import static org.junit.Assert.assertEquals;
+
+public class ChannelHandlerMaskTest {
+
+    @Test
+    public void testAdaptersSkipEverything() {
+        assertEquals(0, mask(ChannelInboundHandlerAdapter.class));
+        assertEquals(0, mask(ChannelOutboundHandlerAdapter.class));
+        assertEquals(0, mask(ChannelDuplexHandler.class));
+    }
+
+    @Test
+    public void testOverriddenMethodsAreNotSkipped() {
+        assertEquals(MASK_CHANNEL_READ, mask(ReadHandler.class));
+        assertEquals(MASK_WRITE, mask(WriteHandler.class));
+        assertEquals(MASK_WRITE | MASK_EXCEPTION_CAUGHT, mask(WriteAndExceptionHandler.class));
+    }
+
+    @Test
+    public void testHandlerWithoutAdapterIsNeverSkipped() {
+        assertEquals(MASK_ONLY_INBOUND | MASK_EXCEPTION_CAUGHT, mask(TestInboundHandler.class));
+    }
+
+    @Test
+    public void testSkippedHandlersStillForward() {
+        final List<String> events = new ArrayList<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new ReadHandler() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        events.add("read: " + msg);
+                        ctx.fireChannelRead(msg);
+                    }
+                },
+                new WriteHandler(),
+                new ChannelDuplexHandler(),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelReadComplete(ChannelHandlerContext ctx) {
+                        events.add("readComplete");
+                        ctx.fireChannelReadComplete();
+                    }
+                });
+        channel.writeInbound("msg");
+        channel.writeOutbound("out");
+        assertEquals("msg", channel.readInbound());
+        assertEquals("out", channel.readOutbound());
+        assertEquals(2, events.size());
+        assertEquals("read: msg", events.get(0));
+        assertEquals("readComplete", events.get(1));
+        channel.finish();
+    }
+
+    private static class ReadHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private static class WriteHandler extends ChannelDuplexHandler {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+    }
+
+    private static final class WriteAndExceptionHandler extends WriteHandler {
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.fireExceptionCaught(cause);
+        }
+    }
+
+    private static final class TestInboundHandler implements ChannelInboundHandler {
+        @Override
+        public void channelRegistered(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelUnregistered(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) { }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) { }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) { }
+    }
+}
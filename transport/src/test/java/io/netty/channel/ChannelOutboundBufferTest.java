@@ -21,8 +21,14 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 
 import static io.netty.buffer.Unpooled.*;
 import static org.hamcrest.Matchers.*;
@@ -118,6 +124,242 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testNioBuffersPartialWrite() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 4; i++) {
+            buffer.addMessage(directBuffer().writeBytes(new byte[] { 'a', 'b', 'c', 'd' }), 4,
+                    channel.voidPromise());
+        }
+        buffer.addFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(4, buffer.nioBufferCount());
+        assertEquals(16, buffer.nioBufferSize());
+
+        // Simulate a gathering write that consumed the first buffer and half of the second one.
+        consume(buffers, 6);
+        buffer.removeBytes(6);
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(10, buffer.nioBufferSize());
+
+        // New messages that are flushed in the meantime are appended to the gather array.
+        buffer.addMessage(directBuffer().writeBytes(new byte[] { 'e', 'f' }), 2, channel.voidPromise());
+        buffer.addFlush();
+        buffers = buffer.nioBuffers();
+        assertEquals(4, buffer.nioBufferCount());
+        assertEquals(12, buffer.nioBufferSize());
+        assertEquals(2, buffers[0].remaining());
+        assertEquals('c', buffers[0].get(buffers[0].position()));
+        assertEquals(2, buffers[3].remaining());
+        assertNull(buffers[4]);
+
+        consume(buffers, 12);
+        buffer.removeBytes(12);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.nioBufferCount());
+        assertNull(buffers[0]);
+        release(buffer);
+    }
+
+    @Test
+    public void testNioBuffersPartialWriteWithoutAdvancingPosition() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 2; i++) {
+            buffer.addMessage(directBuffer().writeBytes(new byte[] { 'a', 'b', 'c', 'd' }), 4,
+                    channel.voidPromise());
+        }
+        buffer.addFlush();
+        buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+
+        // A transport that writes via memory addresses does not advance the position of the ByteBuffers, so the
+        // array must be rebuilt from the ByteBufs.
+        buffer.removeBytes(5);
+        assertEquals(0, buffer.nioBufferCount());
+        ByteBuf current = (ByteBuf) buffer.current();
+        assertEquals(3, current.readableBytes());
+        buffer.nioBuffers();
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(3, buffer.nioBufferSize());
+        release(buffer);
+    }
+
+    @Test
+    public void testNioBuffersMaxBytesResume() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 4; i++) {
+            buffer.addMessage(directBuffer().writeBytes(new byte[] { 'a', 'b', 'c', 'd' }), 4,
+                    channel.voidPromise());
+        }
+        buffer.addFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers(1024, 8);
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(8, buffer.nioBufferSize());
+
+        consume(buffers, 4);
+        buffer.removeBytes(4);
+        assertEquals(1, buffer.nioBufferCount());
+
+        buffers = buffer.nioBuffers(1024, 8);
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(8, buffer.nioBufferSize());
+
+        consume(buffers, 8);
+        buffer.removeBytes(8);
+        buffers = buffer.nioBuffers(1024, 8);
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(4, buffer.nioBufferSize());
+        assertNull(buffers[1]);
+        release(buffer);
+    }
+
+    @Test
+    public void testNioBuffersOwnerChanged() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ChannelOutboundBuffer buffer2 = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 2; i++) {
+            buffer.addMessage(directBuffer().writeBytes(new byte[] { 'a', 'b', 'c', 'd' }), 4,
+                    channel.voidPromise());
+        }
+        buffer2.addMessage(directBuffer().writeBytes(new byte[] { 'e' }), 1, channel.voidPromise());
+        buffer.addFlush();
+        buffer2.addFlush();
+
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        consume(buffers, 2);
+        buffer.removeBytes(2);
+        assertEquals(2, buffer.nioBufferCount());
+
+        // Another ChannelOutboundBuffer on the same thread takes over the shared array.
+        buffers = buffer2.nioBuffers();
+        assertEquals(1, buffer2.nioBufferCount());
+        assertNull(buffers[1]);
+
+        buffers = buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(6, buffer.nioBufferSize());
+        assertEquals(2, buffers[0].remaining());
+        release(buffer);
+        release(buffer2);
+    }
+
+    @Test
+    public void testAdjacentFileRegions() throws Exception {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+        byte[] data = new byte[30];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        DefaultFileRegion region1 = new DefaultFileRegion(file, 0, 10);
+        DefaultFileRegion region2 = new DefaultFileRegion(file, 10, 10);
+        DefaultFileRegion region3 = new DefaultFileRegion(file, 25, 5);
+        buffer.addMessage(region1, 10, channel.voidPromise());
+        buffer.addMessage(region2, 10, channel.voidPromise());
+        buffer.addMessage(region3, 5, channel.voidPromise());
+        assertNull("Nothing flushed yet", buffer.adjacentFileRegions());
+        buffer.addFlush();
+
+        // region3 does not continue where region2 ends.
+        DefaultFileRegion regions = buffer.adjacentFileRegions();
+        assertEquals(0, regions.position());
+        assertEquals(20, regions.count());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(bytes);
+        assertEquals(20, regions.transferTo(target, 0));
+        assertArrayEquals(Arrays.copyOf(data, 20), bytes.toByteArray());
+        assertTrue(regions.release());
+
+        // Simulate that only a part was written.
+        buffer.removeFileRegionBytes(15);
+        assertSame(region2, buffer.current());
+        assertEquals(0, region1.refCnt());
+        assertEquals(5, region2.transferred());
+
+        // Releasing the merged region must not have closed the file that is still used by region2.
+        bytes.reset();
+        assertEquals(5, region2.transferTo(target, region2.transferred()));
+        assertArrayEquals(Arrays.copyOfRange(data, 15, 20), bytes.toByteArray());
+
+        // region2 was partially transferred already, so it can not be combined with others anymore.
+        assertNull(buffer.adjacentFileRegions());
+        release(buffer);
+        assertEquals(0, region2.refCnt());
+        assertEquals(0, region3.refCnt());
+    }
+
+    @Test
+    public void testWriteAdjacentFileRegions() throws Exception {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[20]);
+        } finally {
+            out.close();
+        }
+
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        DefaultFileRegion region1 = new DefaultFileRegion(file, 0, 10);
+        DefaultFileRegion region2 = new DefaultFileRegion(file, 10, 10);
+        buffer.addMessage(region1, 10, channel.voidPromise());
+        buffer.addMessage(region2, 10, channel.voidPromise());
+        buffer.addFlush();
+
+        final DefaultFileRegion[] written = new DefaultFileRegion[1];
+        assertEquals(12, buffer.writeAdjacentFileRegions(new ChannelOutboundBuffer.FileRegionWriter() {
+            @Override
+            public long write(DefaultFileRegion region) {
+                assertEquals(20, region.count());
+                written[0] = region;
+                return 12;
+            }
+        }));
+        assertEquals(0, written[0].refCnt());
+        assertEquals(0, region1.refCnt());
+        assertSame(region2, buffer.current());
+        assertEquals(2, region2.transferred());
+
+        // region2 is partially transferred, so there is nothing to merge anymore.
+        assertEquals(-1, buffer.writeAdjacentFileRegions(new ChannelOutboundBuffer.FileRegionWriter() {
+            @Override
+            public long write(DefaultFileRegion region) {
+                throw new AssertionError();
+            }
+        }));
+        release(buffer);
+        assertEquals(0, region2.refCnt());
+    }
+
+    private static void consume(ByteBuffer[] buffers, int bytes) {
+        for (int i = 0; bytes > 0; i++) {
+            ByteBuffer buf = buffers[i];
+            int consumed = Math.min(bytes, buf.remaining());
+            buf.position(buf.position() + consumed);
+            bytes -= consumed;
+        }
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
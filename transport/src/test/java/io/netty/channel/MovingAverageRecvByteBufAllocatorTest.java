@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MovingAverageRecvByteBufAllocatorTest {
+    private ChannelConfig config;
+    private final ByteBufAllocator alloc = UnpooledByteBufAllocator.DEFAULT;
+
+    @Before
+    public void setup() {
+        config = mock(ChannelConfig.class);
+        when(config.isAutoRead()).thenReturn(true);
+    }
+
+    @Test
+    public void rampUpWhenBufferIsFilled() {
+        RecvByteBufAllocator.Handle handle = newHandle(new MovingAverageRecvByteBufAllocator(64, 1024, 8192));
+        assertEquals(1024, allocRead(handle, 1024));
+        assertEquals(2048, allocRead(handle, 2048));
+        assertEquals(4096, allocRead(handle, 4096));
+        assertEquals(8192, allocRead(handle, 8192));
+        assertEquals(8192, allocRead(handle, 8192));
+        handle.readComplete();
+    }
+
+    @Test
+    public void averageDecaysWithSmallReads() {
+        RecvByteBufAllocator.Handle handle = newHandle(new MovingAverageRecvByteBufAllocator(64, 4096, 65536));
+        assertEquals(4096, handle.guess());
+        for (int i = 0; i < 64; i++) {
+            allocRead(handle, 100);
+        }
+        handle.readComplete();
+        assertEquals(128, handle.guess());
+    }
+
+    @Test
+    public void smallReadIsCopiedToSmallerBuffer() {
+        RecvByteBufAllocator.Handle handle = newHandle(new MovingAverageRecvByteBufAllocator(64, 4096, 65536));
+        ByteBuf buf = handle.allocate(alloc);
+        assertEquals(4096, buf.capacity());
+        handle.attemptedBytesRead(buf.writableBytes());
+        buf.writeZero(10);
+        handle.lastBytesRead(10);
+        assertEquals(10, buf.capacity());
+        assertEquals(10, buf.readableBytes());
+        buf.release();
+
+        // A read that uses most of the buffer is not copied.
+        buf = handle.allocate(alloc);
+        int capacity = buf.capacity();
+        handle.attemptedBytesRead(buf.writableBytes());
+        buf.writeZero(capacity - 1);
+        handle.lastBytesRead(capacity - 1);
+        assertEquals(capacity, buf.capacity());
+        buf.release();
+        handle.readComplete();
+    }
+
+    @Test
+    public void inFlightReadBytesAreShared() {
+        MovingAverageRecvByteBufAllocator allocator = new MovingAverageRecvByteBufAllocator(64, 1024, 1024, 1000);
+        RecvByteBufAllocator.Handle handle1 = newHandle(allocator);
+        RecvByteBufAllocator.Handle handle2 = newHandle(allocator);
+
+        ByteBuf buf1 = handle1.allocate(alloc);
+        assertEquals(1024, buf1.capacity());
+        assertEquals(960, allocator.inFlightReadBytes());
+
+        // Only 40 bytes are left until the limit is reached.
+        ByteBuf buf2 = handle2.allocate(alloc);
+        assertEquals(104, buf2.capacity());
+        assertEquals(1000, allocator.inFlightReadBytes());
+
+        handle1.attemptedBytesRead(buf1.writableBytes());
+        handle1.lastBytesRead(0);
+        handle1.readComplete();
+        assertEquals(40, allocator.inFlightReadBytes());
+
+        // The reservation is also given back if the read failed.
+        handle2.readComplete();
+        assertEquals(0, allocator.inFlightReadBytes());
+        buf1.release();
+        buf2.release();
+    }
+
+    @Test
+    public void rampUpWhenLimitedBufferIsFilled() {
+        MovingAverageRecvByteBufAllocator allocator = new MovingAverageRecvByteBufAllocator(64, 1024, 8192, 100);
+        RecvByteBufAllocator.Handle handle = newHandle(allocator);
+        // The buffer is smaller than the prediction because of the in-flight read limit, but it was still filled.
+        assertEquals(164, allocRead(handle, 164));
+        handle.readComplete();
+        assertEquals(2048, handle.guess());
+    }
+
+    @Test
+    public void averageDecaysWhileIdle() {
+        final AtomicLong nanoTime = new AtomicLong(1);
+        MovingAverageRecvByteBufAllocator allocator = new MovingAverageRecvByteBufAllocator(64, 4096, 65536) {
+            @Override
+            long nanoTime() {
+                return nanoTime.get();
+            }
+        };
+        RecvByteBufAllocator.Handle handle = newHandle(allocator);
+        assertEquals(4096, allocRead(handle, 2048));
+        handle.readComplete();
+        assertEquals(4096, handle.guess());
+
+        // Less than a second idle does not change the prediction.
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        handle.reset(config);
+        assertEquals(4096, handle.guess());
+
+        // The average of 3840 is halved for every second of idle time.
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        handle.reset(config);
+        assertEquals(2048, handle.guess());
+
+        // The second that was already applied is not counted again.
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        handle.reset(config);
+        assertEquals(512, handle.guess());
+    }
+
+    private RecvByteBufAllocator.Handle newHandle(RecvByteBufAllocator allocator) {
+        RecvByteBufAllocator.Handle handle = allocator.newHandle();
+        handle.reset(config);
+        return handle;
+    }
+
+    private int allocRead(RecvByteBufAllocator.Handle handle, int bytes) {
+        ByteBuf buf = handle.allocate(alloc);
+        int capacity = buf.capacity();
+        handle.attemptedBytesRead(buf.writableBytes());
+        buf.writeZero(bytes);
+        handle.lastBytesRead(bytes);
+        handle.incMessagesRead(1);
+        buf.release();
+        return capacity;
+    }
+}
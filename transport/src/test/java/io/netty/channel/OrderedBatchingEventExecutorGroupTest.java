@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderedBatchingEventExecutorGroupTest {
+    private EventExecutorGroup group;
+
+    @Before
+    public void setUp() {
+        group = new DefaultEventExecutorGroup(1);
+    }
+
+    @After
+    public void tearDown() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 10000)
+    public void testEventsAreOrderedAndBatched() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch block = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(100);
+        final List<Object> received = new CopyOnWriteArrayList<Object>();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new OrderedBatchingEventExecutorGroup(group), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                assertTrue(ctx.executor().inEventLoop());
+                received.add(msg);
+                done.countDown();
+            }
+        });
+
+        // Keep the wrapped EventExecutor busy so all events are queued.
+        SingleThreadEventExecutor executor = (SingleThreadEventExecutor) group.next();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        started.await();
+        for (int i = 0; i < 100; i++) {
+            channel.pipeline().fireChannelRead(i);
+        }
+        // All events of the Channel are executed by a single task.
+        assertEquals(1, executor.pendingTasks());
+        block.countDown();
+        done.await();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, received.get(i));
+        }
+        channel.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testReadIsSuspendedWhileInboxIsFull() throws Exception {
+        final CountDownLatch block = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(10);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new OrderedBatchingEventExecutorGroup(group, 1024, 4),
+                new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                block.await();
+                done.countDown();
+            }
+        });
+
+        // The inbox may still hold the handlerAdded(...) event as well.
+        for (int i = 0; i < 3; i++) {
+            channel.pipeline().fireChannelRead(i);
+        }
+        assertTrue(channel.config().isAutoRead());
+
+        for (int i = 3; i < 10; i++) {
+            channel.pipeline().fireChannelRead(i);
+        }
+        assertFalse(channel.config().isAutoRead());
+
+        block.countDown();
+        done.await();
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        channel.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testChannelsDoNotShareInbox() throws Exception {
+        final CountDownLatch block = new CountDownLatch(1);
+        final CountDownLatch otherDone = new CountDownLatch(1);
+        EventExecutorGroup batchingGroup = new OrderedBatchingEventExecutorGroup(new DefaultEventExecutorGroup(2));
+        try {
+            EmbeddedChannel blocked = new EmbeddedChannel(DefaultChannelId.newInstance());
+            blocked.pipeline().addLast(batchingGroup, new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                    block.await();
+                }
+            });
+            EmbeddedChannel other = new EmbeddedChannel(DefaultChannelId.newInstance());
+            other.pipeline().addLast(batchingGroup, new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    otherDone.countDown();
+                }
+            });
+
+            blocked.pipeline().fireChannelRead(1);
+            other.pipeline().fireChannelRead(1);
+            // The next() EventExecutors of the wrapped group alternate, so the other Channel is not stuck behind the
+            // blocked one.
+            otherDone.await();
+            block.countDown();
+        } finally {
+            batchingGroup.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleFromHandler() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Object> received = new CopyOnWriteArrayList<Object>();
+        final BlockingQueue<ScheduledFuture<String>> futures = new LinkedBlockingQueue<ScheduledFuture<String>>();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new OrderedBatchingEventExecutorGroup(group), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, Object msg) {
+                received.add(msg);
+                if ("schedule".equals(msg)) {
+                    futures.add(ctx.executor().schedule(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            assertTrue(ctx.executor().inEventLoop());
+                            received.add("scheduled");
+                            return "result";
+                        }
+                    }, 10, TimeUnit.MILLISECONDS));
+                } else if ("last".equals(msg)) {
+                    done.countDown();
+                }
+            }
+        });
+
+        channel.pipeline().fireChannelRead("schedule");
+        ScheduledFuture<String> future = futures.take();
+        assertEquals("result", future.sync().getNow());
+        channel.pipeline().fireChannelRead("last");
+        done.await();
+
+        assertEquals(Arrays.<Object>asList("schedule", "scheduled", "last"), received);
+        channel.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleAtFixedRateFromHandler() throws Exception {
+        final CountDownLatch runs = new CountDownLatch(3);
+        final BlockingQueue<ScheduledFuture<?>> futures = new LinkedBlockingQueue<ScheduledFuture<?>>();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new OrderedBatchingEventExecutorGroup(group), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, Object msg) {
+                futures.add(ctx.executor().scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        assertTrue(ctx.executor().inEventLoop());
+                        runs.countDown();
+                    }
+                }, 0, 10, TimeUnit.MILLISECONDS));
+            }
+        });
+
+        channel.pipeline().fireChannelRead(1);
+        ScheduledFuture<?> future = futures.take();
+        runs.await();
+        assertFalse(future.isDone());
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        channel.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownOfInboxDoesNotShutdownGroup() throws Exception {
+        final BlockingQueue<EventExecutor> executors = new LinkedBlockingQueue<EventExecutor>();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new OrderedBatchingEventExecutorGroup(group), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                executors.add(ctx.executor());
+            }
+        });
+
+        channel.pipeline().fireChannelRead(1);
+        executors.take().shutdownGracefully();
+        assertFalse(group.isShuttingDown());
+        channel.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testRejectedInboxDoesNotStall() throws Exception {
+        EventExecutorGroup rejecting = new DefaultEventExecutorGroup(1);
+        rejecting.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        EventExecutorGroup batchingGroup = new OrderedBatchingEventExecutorGroup(rejecting);
+        OrderedBatchingEventExecutorGroup.ChannelInbox inbox =
+                (OrderedBatchingEventExecutorGroup.ChannelInbox) batchingGroup.next();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                inbox.execute(task);
+                fail();
+            } catch (RejectedExecutionException expected) {
+                // The inbox must try to submit itself again instead of queueing the task forever.
+            }
+            assertEquals(0, inbox.pendingTasks());
+        }
+    }
+}
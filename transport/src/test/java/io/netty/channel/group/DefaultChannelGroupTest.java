@@ -16,15 +16,27 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 public class DefaultChannelGroupTest {
 
     // Test for #1183
@@ -57,4 +69,53 @@ public class DefaultChannelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testWriteAndFlushEncodedEncodesOnce() {
+        DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        StringEncoder[] channelEncoders = new StringEncoder[3];
+        EmbeddedChannel[] channels = new EmbeddedChannel[channelEncoders.length];
+        for (int i = 0; i < channels.length; i++) {
+            channelEncoders[i] = new StringEncoder();
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance());
+            channels[i].pipeline().addLast("encoder", channelEncoders[i]);
+            group.add(channels[i]);
+        }
+
+        StringEncoder encoder = new StringEncoder();
+        ChannelGroupFuture future = group.writeAndFlushEncoded("hello", "encoder", encoder);
+        assertTrue(future.isSuccess());
+        assertEquals(1, encoder.encoded);
+
+        for (int i = 0; i < channels.length; i++) {
+            assertEquals(0, channelEncoders[i].encoded);
+            ByteBuf buf = channels[i].readOutbound();
+            assertEquals("hello", buf.toString(CharsetUtil.UTF_8));
+            buf.release();
+            assertFalse(channels[i].finish());
+        }
+    }
+
+    @Test
+    public void testWriteEncodedFailsWithoutBaseHandler() {
+        DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        group.add(channel);
+
+        ChannelGroupFuture future = group.writeAndFlushEncoded("hello", "encoder", new StringEncoder());
+        assertFalse(future.isSuccess());
+        assertTrue(future.find(channel).cause() instanceof IllegalArgumentException);
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private static final class StringEncoder extends ChannelOutboundHandlerAdapter {
+        int encoded;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            encoded++;
+            ctx.write(Unpooled.copiedBuffer((String) msg, CharsetUtil.UTF_8), promise);
+        }
+    }
 }
@@ -186,6 +186,53 @@ public class LocalChannelTest {
         }
     }
 
+    @Test
+    public void testFlushesFromDifferentEventLoopPreserveOrder() throws Exception {
+        final int messages = 10000;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> causeRef = new AtomicReference<Throwable>();
+        Bootstrap cb = new Bootstrap();
+        ServerBootstrap sb = new ServerBootstrap();
+
+        cb.group(group1)
+                .channel(LocalChannel.class)
+                .handler(new TestHandler());
+
+        sb.group(group2)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    private int expected;
+
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        if (!(msg instanceof Integer) || (Integer) msg != expected) {
+                            causeRef.compareAndSet(null,
+                                    new AssertionError("expected: " + expected + ", received: " + msg));
+                        }
+                        if (++expected == messages) {
+                            latch.countDown();
+                        }
+                    }
+                });
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(TEST_ADDRESS).sync().channel();
+            cc = cb.connect(sc.localAddress()).sync().channel();
+
+            // Every message is flushed on its own, the reads on the other EventLoop are batched.
+            for (int i = 0; i < messages; i++) {
+                cc.writeAndFlush(i);
+            }
+            assertTrue(latch.await(10, SECONDS));
+            assertNull(causeRef.get());
+        } finally {
+            closeChannel(cc);
+            closeChannel(sc);
+        }
+    }
+
     @Test
     public void testServerCloseChannelSameEventLoop() throws Exception {
         final CountDownLatch latch = new CountDownLatch(1);
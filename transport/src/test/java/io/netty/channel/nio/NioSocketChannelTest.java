@@ -25,11 +25,14 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelIoStatistics;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -48,6 +51,7 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -278,4 +282,102 @@ public class NioSocketChannelTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 3000)
+    public void testIoStatistics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final Channel[] accepted = new Channel[1];
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class);
+            sb.childOption(ChannelOption.IO_STATISTICS, true);
+            sb.childHandler(new ChannelInboundHandlerAdapter() {
+                private int received;
+
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ByteBuf buf = (ByteBuf) msg;
+                    received += buf.readableBytes();
+                    buf.release();
+                    if (received == 1024) {
+                        accepted[0] = ctx.channel();
+                        latch.countDown();
+                    }
+                }
+            });
+            Channel sc = sb.bind(0).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group).channel(NioSocketChannel.class);
+            cb.option(ChannelOption.IO_STATISTICS, true);
+            cb.handler(new ChannelInboundHandlerAdapter());
+            NioSocketChannel cc = (NioSocketChannel) cb.connect(sc.localAddress()).sync().channel();
+
+            cc.writeAndFlush(Unpooled.wrappedBuffer(new byte[1024])).sync();
+            latch.await();
+
+            assertNull(((NioServerSocketChannel) sc).ioStatistics());
+            ChannelIoStatistics clientStats = cc.ioStatistics();
+            assertEquals(1024, clientStats.bytesWritten());
+            assertTrue(clientStats.writeCalls() >= 1);
+
+            final NioSocketChannel child = (NioSocketChannel) accepted[0];
+            // Read the statistics from the EventLoop to be sure the current read was recorded completely.
+            ChannelIoStatistics serverStats = child.eventLoop().submit(new Callable<ChannelIoStatistics>() {
+                @Override
+                public ChannelIoStatistics call() {
+                    return child.ioStatistics();
+                }
+            }).sync().getNow();
+            assertEquals(1024, serverStats.bytesRead());
+            assertTrue(serverStats.readCalls() >= 1);
+
+            ChannelIoStatistics loopStats = ((SingleThreadEventLoop) cc.eventLoop()).ioStatistics();
+            assertEquals(1024, loopStats.bytesWritten());
+            assertEquals(1024, loopStats.bytesRead());
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 3000)
+    public void testIoStatisticsWritabilityChangedOutsideEventLoop() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class);
+            sb.childHandler(new ChannelInboundHandlerAdapter());
+            Channel sc = sb.bind(0).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group).channel(NioSocketChannel.class);
+            cb.option(ChannelOption.IO_STATISTICS, true);
+            cb.handler(new ChannelInboundHandlerAdapter());
+            NioSocketChannel cc = (NioSocketChannel) cb.connect(sc.localAddress()).sync().channel();
+
+            ChannelOutboundBuffer buffer = cc.unsafe().outboundBuffer();
+            for (int i = 0; i < 1000; i++) {
+                buffer.setUserDefinedWritability(1, false);
+                buffer.setUserDefinedWritability(1, true);
+            }
+            // All changes are recorded by the EventLoop, so wait until it processed the tasks submitted so far.
+            cc.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            assertEquals(2000, cc.ioStatistics().writabilityChanges());
+            assertEquals(2000, ((SingleThreadEventLoop) cc.eventLoop()).ioStatistics().writabilityChanges());
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
 }
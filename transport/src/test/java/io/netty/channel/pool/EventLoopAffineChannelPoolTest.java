@@ -0,0 +1,286 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EventLoopAffineChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private static EventLoopGroup group;
+    private static EventLoop loop1;
+    private static EventLoop loop2;
+
+    private Bootstrap cb;
+    private Channel sc;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup(2);
+        Iterator<?> loops = group.iterator();
+        loop1 = (EventLoop) loops.next();
+        loop2 = (EventLoop) loops.next();
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Before
+    public void startServer() {
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testAcquirePrefersChannelOfCallerEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler, 10);
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop2);
+        assertSame(loop1, channel1.eventLoop());
+        assertSame(loop2, channel2.eventLoop());
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+
+        assertSame(channel2, acquire(pool, loop2));
+        assertSame(channel1, acquire(pool, loop1));
+        assertEquals(2, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+        assertEquals(2, handler.releasedCount());
+
+        pool.close();
+        channel1.close().syncUninterruptibly();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testStealFromOtherEventLoopWhenEmpty() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler, 10);
+
+        Channel channel = acquire(pool, loop1);
+        pool.release(channel).syncUninterruptibly();
+
+        assertSame(channel, acquire(pool, loop2));
+        assertSame(loop1, channel.eventLoop());
+        assertEquals(1, handler.channelCount());
+
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler, 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop2);
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertSame(channel, future.getNow());
+        assertEquals(1, handler.channelCount());
+
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAcquireBoundQueue() throws Exception {
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler(), 1, 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop1);
+        assertFalse(future.isDone());
+        try {
+            acquireFuture(pool, loop2).syncUninterruptibly();
+        } finally {
+            pool.close();
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testAcquireTimeout() throws Exception {
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, 500, 1, Integer.MAX_VALUE, true);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        try {
+            pool.acquire().syncUninterruptibly();
+        } finally {
+            pool.close();
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    @Test
+    public void testUnhealthyChannelIsNotOffered() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler, 1);
+
+        Channel channel = acquire(pool, loop1);
+        channel.close().syncUninterruptibly();
+        pool.release(channel).syncUninterruptibly();
+
+        Channel channel2 = acquire(pool, loop1);
+        assertNotSame(channel, channel2);
+        assertEquals(2, handler.channelCount());
+
+        pool.close();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testChannelClosedDuringReleaseHealthCheckIsNotOffered() throws Exception {
+        final AtomicReference<Promise<Boolean>> releaseCheck = new AtomicReference<Promise<Boolean>>();
+        final AtomicInteger acquireChecks = new AtomicInteger();
+        ChannelHealthChecker healthCheck = new ChannelHealthChecker() {
+            @Override
+            public Future<Boolean> isHealthy(Channel channel) {
+                // Only the first check, which is done on release, completes later.
+                Promise<Boolean> promise = channel.eventLoop().newPromise();
+                if (releaseCheck.compareAndSet(null, promise)) {
+                    return promise;
+                }
+                acquireChecks.incrementAndGet();
+                return promise.setSuccess(channel.isActive());
+            }
+        };
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler, healthCheck, -1, 1, Integer.MAX_VALUE, true);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Void> releaseFuture = pool.release(channel);
+        channel.close().syncUninterruptibly();
+        releaseCheck.get().setSuccess(true);
+        releaseFuture.syncUninterruptibly();
+
+        // The closed Channel was not offered back, so a new one is created without any health check.
+        Channel channel2 = acquire(pool, loop1);
+        assertNotSame(channel, channel2);
+        assertEquals(0, acquireChecks.get());
+        assertEquals(2, handler.channelCount());
+        assertEquals(1, handler.releasedCount());
+
+        pool.close();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testClosePoolFailsPendingAcquires() throws Exception {
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = acquire(pool, loop1);
+        Future<Channel> future = acquireFuture(pool, loop2);
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+        pool.close();
+
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertTrue(future.cause() instanceof ClosedChannelException);
+        try {
+            pool.release(channel).syncUninterruptibly();
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(EventLoopAffineChannelPool.POOL_CLOSED_ON_RELEASE_EXCEPTION, e);
+        }
+        // Since the pool is closed, the Channel should have been closed as well.
+        channel.closeFuture().syncUninterruptibly();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testReleaseChannelOfOtherPool() throws Exception {
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler(), 1);
+        ChannelPool otherPool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = acquire(pool, loop1);
+        try {
+            otherPool.release(channel).syncUninterruptibly();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        pool.close();
+        otherPool.close();
+    }
+
+    private static Future<Channel> acquireFuture(final ChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() {
+                return pool.acquire();
+            }
+        }).syncUninterruptibly().getNow();
+    }
+
+    private static Channel acquire(ChannelPool pool, EventLoop loop) throws Exception {
+        return acquireFuture(pool, loop).syncUninterruptibly().getNow();
+    }
+}
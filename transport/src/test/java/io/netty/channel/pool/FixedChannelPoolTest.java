@@ -346,6 +346,52 @@ public class FixedChannelPoolTest {
         sc.close().syncUninterruptibly();
     }
 
+    @Test
+    public void testMetricPendingAcquires() throws Exception {
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        FixedChannelPool pool = new FixedChannelPool(cb, new TestChannelPoolHandler(), 1);
+        ChannelPoolMetric metric = pool.metric();
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, metric.acquiredChannels());
+        assertEquals(1, metric.pendingAcquires());
+
+        pool.release(channel).syncUninterruptibly();
+        assertSame(channel, future.syncUninterruptibly().getNow());
+        assertEquals(0, metric.pendingAcquires());
+        // The acquire operation is recorded by a listener of the promise, which may run after sync() returned.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metric.acquireCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // The time the second acquire was pending is included.
+        assertEquals(2, metric.acquireCount());
+        assertTrue(metric.totalAcquireTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        pool.close();
+        sc.close().syncUninterruptibly();
+        channel.close().syncUninterruptibly();
+    }
+
     private static final class TestChannelPoolHandler extends AbstractChannelPoolHandler {
         @Override
         public void channelCreated(Channel ch) throws Exception {
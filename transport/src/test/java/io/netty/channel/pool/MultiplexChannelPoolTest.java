@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class MultiplexChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private static EventLoopGroup group;
+
+    private Bootstrap cb;
+    private Channel sc;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Before
+    public void startServer() {
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testChannelIsSharedUpToMaxConcurrency() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, handler, 2);
+
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel1, channel2);
+        assertEquals(1, handler.channelCount());
+
+        // The first Channel is saturated, so a new one must be opened.
+        Channel channel3 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel1, channel3);
+        assertEquals(2, handler.channelCount());
+
+        // Once there is capacity again the oldest Channel is used.
+        pool.release(channel1).syncUninterruptibly();
+        assertSame(channel1, pool.acquire().syncUninterruptibly().getNow());
+        assertEquals(4, handler.acquiredCount());
+        assertEquals(1, handler.releasedCount());
+
+        pool.close();
+        channel1.close().syncUninterruptibly();
+        channel3.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), -1, 1, 1, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertSame(channel, future.getNow());
+
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testRaiseMaxConcurrencyServesPendingAcquires() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), -1, 1, 1, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.await(100, TimeUnit.MILLISECONDS));
+
+        pool.maxConcurrency(channel, 2);
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertSame(channel, future.getNow());
+
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testRetiredChannelIsClosedOnceReleased() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, handler, 10);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.retire(channel);
+
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertTrue(channel.isOpen());
+
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+        assertEquals(2, handler.channelCount());
+
+        pool.close();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testClosedChannelIsReplaced() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), -1, 1, 10, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        channel.close().syncUninterruptibly();
+        pool.release(channel).syncUninterruptibly();
+
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertTrue(channel2.isActive());
+
+        pool.close();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAcquireBoundQueue() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), -1, 1, 1, 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        assertFalse(future.isDone());
+        try {
+            pool.acquire().syncUninterruptibly();
+        } finally {
+            pool.close();
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testAcquireTimeout() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), 500, 1, 1, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        try {
+            pool.acquire().syncUninterruptibly();
+        } finally {
+            pool.close();
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    @Test
+    public void testClosePool() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(
+                cb, new CountingChannelPoolHandler(), -1, 1, 1, Integer.MAX_VALUE);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> future = pool.acquire();
+        pool.close();
+
+        assertTrue(future.await(1, TimeUnit.SECONDS));
+        assertTrue(future.cause() instanceof ClosedChannelException);
+        assertTrue(channel.isOpen());
+
+        // The Channel is closed once the last acquirer released it.
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testReleaseMoreOftenThanAcquired() throws Exception {
+        MultiplexChannelPool pool = new MultiplexChannelPool(cb, new CountingChannelPoolHandler(), 2);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel).syncUninterruptibly();
+        try {
+            pool.release(channel).syncUninterruptibly();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        pool.close();
+        channel.close().syncUninterruptibly();
+    }
+}
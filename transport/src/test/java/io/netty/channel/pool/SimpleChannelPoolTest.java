@@ -33,6 +33,7 @@ import org.junit.rules.ExpectedException;
 
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -301,4 +302,175 @@ public class SimpleChannelPoolTest {
             noHealthCheckOnReleasePool.close();
         }
     }
+
+    @Test
+    public void testWarmUpAndMetric() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Channel sc = startServer(group, addr);
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(newBootstrap(group, addr), handler);
+        ChannelPoolMetric metric = pool.metric();
+        try {
+            pool.warmUp(3).syncUninterruptibly();
+            assertEquals(3, handler.channelCount());
+            assertEquals(3, metric.idleChannels());
+            assertEquals(0, metric.acquiredChannels());
+
+            Channel channel = pool.acquire().syncUninterruptibly().getNow();
+            // The warmed up Channel is used and no new one is created.
+            assertEquals(3, handler.channelCount());
+            assertEquals(2, metric.idleChannels());
+            assertEquals(1, metric.acquiredChannels());
+            assertEquals(0, metric.pendingAcquires());
+            // The acquire operation is recorded by a listener of the promise, which may run after sync() returned.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (metric.acquireCount() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, metric.acquireCount());
+            assertTrue(metric.totalAcquireTimeNanos() > 0);
+
+            pool.release(channel).syncUninterruptibly();
+            assertEquals(3, metric.idleChannels());
+            assertEquals(0, metric.acquiredChannels());
+        } finally {
+            pool.close();
+            sc.close().syncUninterruptibly();
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testIdleChannelsAreEvicted() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Channel sc = startServer(group, addr);
+        SimpleChannelPool pool = new SimpleChannelPool(newBootstrap(group, addr), new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, true, true, new ChannelPoolMaintenance(50, 100, 1, false));
+        try {
+            Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+            Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+            pool.release(channel1).syncUninterruptibly();
+            pool.release(channel2).syncUninterruptibly();
+
+            // Only one of them is closed as we want to keep one idle Channel.
+            assertTrue(channel1.closeFuture().await(5, TimeUnit.SECONDS));
+            assertEquals(1, pool.metric().idleChannels());
+            assertTrue(channel2.isActive());
+        } finally {
+            pool.close();
+            sc.close().syncUninterruptibly();
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testMinIdleIsMaintained() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Channel sc = startServer(group, addr);
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(newBootstrap(group, addr), handler,
+                ChannelHealthChecker.ACTIVE, true, true, new ChannelPoolMaintenance(20, 0, 2, true));
+        try {
+            pool.warmUp(0).syncUninterruptibly();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.metric().idleChannels() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, pool.metric().idleChannels());
+
+            // Closed idle Channels are detected by the health check and replaced.
+            Channel channel = pool.acquire().syncUninterruptibly().getNow();
+            pool.release(channel).syncUninterruptibly();
+            channel.close().syncUninterruptibly();
+            while ((handler.channelCount() < 3 || pool.metric().idleChannels() != 2) &&
+                    System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(handler.channelCount() >= 3);
+            assertEquals(2, pool.metric().idleChannels());
+        } finally {
+            pool.close();
+            sc.close().syncUninterruptibly();
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testWarmUpAfterClose() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Channel sc = startServer(group, addr);
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(newBootstrap(group, addr), handler);
+        try {
+            pool.close();
+            assertTrue(pool.warmUp(1).await().cause() instanceof IllegalStateException);
+            assertEquals(0, handler.channelCount());
+        } finally {
+            sc.close().syncUninterruptibly();
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testMaintenanceUsesPollAndOffer() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Channel sc = startServer(group, addr);
+        final Queue<Channel> idle = new LinkedBlockingQueue<Channel>();
+        SimpleChannelPool pool = new SimpleChannelPool(newBootstrap(group, addr), new CountingChannelPoolHandler(),
+                ChannelHealthChecker.ACTIVE, true, true, new ChannelPoolMaintenance(50, 100, 1, false)) {
+            @Override
+            protected Channel pollChannel() {
+                return idle.poll();
+            }
+
+            @Override
+            protected boolean offerChannel(Channel channel) {
+                return idle.offer(channel);
+            }
+        };
+        try {
+            Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+            Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+            pool.release(channel1).syncUninterruptibly();
+            pool.release(channel2).syncUninterruptibly();
+
+            // Only one of them is closed as we want to keep one idle Channel.
+            assertTrue(channel1.closeFuture().await(5, TimeUnit.SECONDS));
+            assertEquals(1, pool.metric().idleChannels());
+            assertEquals(1, idle.size());
+            assertTrue(channel2.isActive());
+            // Acquire operations are only recorded once the metric was used.
+            assertEquals(0, pool.metric().acquireCount());
+        } finally {
+            pool.close();
+            sc.close().syncUninterruptibly();
+            group.shutdownGracefully();
+        }
+    }
+
+    private static Channel startServer(EventLoopGroup group, LocalAddress addr) throws Exception {
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        return sb.bind(addr).sync().channel();
+    }
+
+    private static Bootstrap newBootstrap(EventLoopGroup group, LocalAddress addr) {
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+        return cb;
+    }
 }